@@ -0,0 +1,242 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.integrationtest.concurrency;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.metawidget.config.iface.ConfigReader;
+import org.metawidget.config.impl.BaseConfigReader;
+import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessor;
+import org.metawidget.inspectionresultprocessor.sort.ComesAfterInspectionResultProcessor;
+import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.statically.StaticMetawidget;
+import org.metawidget.statically.html.StaticHtmlMetawidget;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.LogUtils;
+import org.metawidget.util.LogUtils.Log;
+import org.metawidget.util.XmlUtils;
+
+/**
+ * Verifies that the <code>@Immutable</code> Inspectors, InspectionResultProcessors,
+ * WidgetBuilders, WidgetProcessors and Layouts shared through a <code>ConfigReader</code> are safe
+ * to use from many threads at once.
+ * <p>
+ * Each test runs the same task many times across a thread pool and checks every result against a
+ * single-threaded run. <code>testThroughputScaling</code> also logs how throughput scales from 1
+ * thread up to the number of available processors.
+ *
+ * @author Richard Kennard
+ */
+
+public class ConcurrencyTest
+	extends TestCase {
+
+	//
+	// Private statics
+	//
+
+	private static final Log	LOG		= LogUtils.getLog( ConcurrencyTest.class );
+
+	private static final String	CONFIG	= "org/metawidget/integrationtest/concurrency/metawidget.xml";
+
+	private static final int	THREADS	= 64;
+
+	private static final int	TASKS	= 2000;
+
+	//
+	// Public methods
+	//
+
+	public void testInspectors()
+		throws Exception {
+
+		final Inspector inspector = newMetawidget( new BaseConfigReader() ).getInspector();
+
+		String expected = runConcurrently( new Callable<String>() {
+
+			public String call() {
+
+				return inspector.inspect( null, Person.class.getName() ) + inspector.inspect( null, Person.class.getName(), "address" );
+			}
+		}, THREADS, TASKS );
+
+		assertTrue( expected.contains( "label=\"Full name\"" ) );
+		assertTrue( expected.contains( "comes-after=\"street\"" ) );
+	}
+
+	public void testInspectionResultProcessors()
+		throws Exception {
+
+		final StaticMetawidget metawidget = newMetawidget( new BaseConfigReader() );
+		final String inspectionResult = metawidget.getInspector().inspect( null, Person.class.getName() );
+		final InspectionResultProcessor<StaticMetawidget> inspectionResultProcessor = new ComesAfterInspectionResultProcessor<StaticMetawidget>();
+
+		String expected = runConcurrently( new Callable<String>() {
+
+			public String call() {
+
+				return inspectionResultProcessor.processInspectionResult( inspectionResult, metawidget, null, Person.class.getName() );
+			}
+		}, THREADS, TASKS );
+
+		assertTrue( expected.indexOf( "name=\"name\"" ) < expected.indexOf( "name=\"notes\"" ) );
+		assertEquals( expected, XmlUtils.nodeToString( XmlUtils.documentFromString( expected ).getDocumentElement(), false ) );
+	}
+
+	public void testConfigReader()
+		throws Exception {
+
+		final ConfigReader configReader = new BaseConfigReader();
+
+		// Every thread should be handed the same immutable instances
+
+		runConcurrently( new Callable<String>() {
+
+			public String call() {
+
+				StaticMetawidget metawidget = newMetawidget( configReader );
+				return System.identityHashCode( metawidget.getInspector() ) + ", " + System.identityHashCode( metawidget.getWidgetBuilder() ) + ", " + System.identityHashCode( metawidget.getLayout() ) + ", " + System.identityHashCode( metawidget.getWidgetProcessors().get( 0 ) );
+			}
+		}, THREADS, TASKS );
+	}
+
+	public void testStaticWidgetGeneration()
+		throws Exception {
+
+		final ConfigReader configReader = new BaseConfigReader();
+
+		String expected = runConcurrently( new Callable<String>() {
+
+			public String call() {
+
+				return generate( configReader );
+			}
+		}, THREADS, TASKS );
+
+		assertTrue( expected.contains( "<label for=\"name\">Full name:</label>" ) );
+		assertTrue( expected.contains( "<input id=\"address-city\" name=\"addressCity\" type=\"text\"/>" ) );
+		assertTrue( expected.contains( "<textarea id=\"notes\" name=\"notes\"/>" ) );
+	}
+
+	/**
+	 * Logs throughput of static widget generation (which exercises all of the above) from 1 thread
+	 * up to the number of available processors.
+	 * <p>
+	 * Does not assert any particular speedup, as that depends on the machine running the build.
+	 */
+
+	public void testThroughputScaling()
+		throws Exception {
+
+		final ConfigReader configReader = new BaseConfigReader();
+		Callable<String> task = new Callable<String>() {
+
+			public String call() {
+
+				return generate( configReader );
+			}
+		};
+
+		// Warm up
+
+		runConcurrently( task, THREADS, TASKS );
+
+		int availableProcessors = Runtime.getRuntime().availableProcessors();
+		double singleThreadedThroughput = 0;
+
+		for ( int threads = 1; ; threads *= 2 ) {
+
+			threads = Math.min( threads, availableProcessors );
+			long start = System.nanoTime();
+			runConcurrently( task, threads, TASKS );
+			double throughput = TASKS / ( ( System.nanoTime() - start ) / 1000000000d );
+
+			if ( threads == 1 ) {
+				singleThreadedThroughput = throughput;
+			}
+
+			LOG.info( "{0} thread(s): {1} widgets/second ({2}x)", threads, (int) throughput, Math.round( throughput * 10 / singleThreadedThroughput ) / 10d );
+
+			if ( threads == availableProcessors ) {
+				break;
+			}
+		}
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Runs the given task once on the calling thread, then <code>tasks</code> times across a pool
+	 * of <code>threads</code> threads, asserting every result equals the single-threaded one.
+	 *
+	 * @return the single-threaded result
+	 */
+
+	/* package private */static String runConcurrently( Callable<String> task, int threads, int tasks )
+		throws Exception {
+
+		String expected = task.call();
+		assertTrue( expected != null );
+
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+		try {
+			List<Future<String>> results = CollectionUtils.newArrayList( tasks );
+
+			for ( int loop = 0; loop < tasks; loop++ ) {
+				results.add( executor.submit( task ) );
+			}
+
+			for ( Future<String> result : results ) {
+				assertEquals( expected, result.get() );
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		return expected;
+	}
+
+	/* package private */static StaticMetawidget newMetawidget( ConfigReader configReader ) {
+
+		StaticMetawidget metawidget = new StaticHtmlMetawidget();
+		metawidget.setConfigReader( configReader );
+		metawidget.setConfig( CONFIG );
+
+		return metawidget;
+	}
+
+	/* package private */static String generate( ConfigReader configReader ) {
+
+		StaticMetawidget metawidget = newMetawidget( configReader );
+		metawidget.setPath( Person.class.getName() );
+
+		StringWriter writer = new StringWriter();
+		metawidget.write( writer, 0 );
+
+		return writer.toString();
+	}
+}
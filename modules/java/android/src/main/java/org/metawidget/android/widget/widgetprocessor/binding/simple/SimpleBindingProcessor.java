@@ -27,20 +27,27 @@ import org.metawidget.android.widget.AndroidMetawidget;
 import org.metawidget.android.widget.widgetprocessor.binding.BindingConverter;
 import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.PropertyPath;
 import org.metawidget.util.WidgetBuilderUtils;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.util.simple.StringUtils;
 import org.metawidget.widgetprocessor.iface.AdvancedWidgetProcessor;
 import org.metawidget.widgetprocessor.iface.WidgetProcessorException;
 
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
 import android.widget.CheckBox;
+import android.widget.CompoundButton;
 import android.widget.DatePicker;
 import android.widget.Spinner;
 import android.widget.TextView;
 
 /**
  * Simple property binding processor.
+ * <p>
+ * Tracks which views the user has changed, so that <code>save</code> only converts and writes back
+ * those properties, and <code>isDirty</code> can cheaply check whether there is anything to save.
  *
  * @author Richard Kennard
  */
@@ -147,11 +154,8 @@ public class SimpleBindingProcessor
 			path += StringUtils.SEPARATOR_FORWARD_SLASH_CHAR + attributes.get( NAME );
 		}
 
-		String[] names = PathUtils.parsePath( path ).getNamesAsArray();
-
-		for ( String name : names ) {
-			value = ClassUtils.getProperty( value, name );
-		}
+		PropertyPath propertyPath = new PropertyPath( PathUtils.parsePath( path ).getNamesAsArray() );
+		value = propertyPath.getValue( value );
 
 		// ...convert it (if necessary)...
 
@@ -180,7 +184,9 @@ public class SimpleBindingProcessor
 				state.bindings = new HashSet<Object[]>();
 			}
 
-			state.bindings.add( new Object[] { view, names, converter, propertyType } );
+			// (track changes after setting the value, so as not to count the initial value)
+
+			state.bindings.add( new Object[] { view, propertyPath, converter, propertyType, new ChangeTracker( view ) } );
 		} catch ( Exception e ) {
 			throw WidgetProcessorException.newException( e );
 		}
@@ -204,8 +210,17 @@ public class SimpleBindingProcessor
 			// For each bound property...
 
 			for ( Object[] binding : state.bindings ) {
+
+				// (only save views that have changed)
+
+				ChangeTracker changeTracker = (ChangeTracker) binding[4];
+
+				if ( !changeTracker.isChanged() ) {
+					continue;
+				}
+
 				View view = (View) binding[0];
-				String[] names = (String[]) binding[1];
+				PropertyPath propertyPath = (PropertyPath) binding[1];
 				@SuppressWarnings( "unchecked" )
 				Converter<Object> converter = (Converter<Object>) binding[2];
 				Class<?> propertyType = (Class<?>) binding[3];
@@ -222,18 +237,11 @@ public class SimpleBindingProcessor
 
 				// ...and set it
 
-				Object parent = toSave;
-				int length = names.length;
-
-				for ( int loop = 0; loop < length - 1; loop++ ) {
-					parent = ClassUtils.getProperty( parent, names[loop] );
-
-					if ( parent == null ) {
-						return;
-					}
+				if ( !propertyPath.setValue( toSave, value ) ) {
+					return;
 				}
 
-				ClassUtils.setProperty( parent, names[length - 1], value );
+				changeTracker.reset();
 			}
 		}
 
@@ -246,6 +254,39 @@ public class SimpleBindingProcessor
 		}
 	}
 
+	/**
+	 * Returns true if any bound view (of this Metawidget or its nested Metawidgets) has been
+	 * changed since it was last bound or saved. Cheap enough to be polled frequently, for example
+	 * to implement auto-save.
+	 */
+
+	public boolean isDirty( AndroidMetawidget metawidget ) {
+
+		State state = getState( metawidget );
+
+		// Our bindings
+
+		if ( state.bindings != null ) {
+			for ( Object[] binding : state.bindings ) {
+				if ( ( (ChangeTracker) binding[4] ).isChanged() ) {
+					return true;
+				}
+			}
+		}
+
+		// Nested metawidgets
+
+		if ( state.nestedMetawidgets != null ) {
+			for ( AndroidMetawidget nestedMetawidget : state.nestedMetawidgets ) {
+				if ( isDirty( nestedMetawidget ) ) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
 	public void onEndBuild( AndroidMetawidget metawidget ) {
 
 		// Do nothing
@@ -319,4 +360,66 @@ public class SimpleBindingProcessor
 
 		/* package private */Set<AndroidMetawidget>	nestedMetawidgets;
 	}
+
+	/**
+	 * Tracks whether the value of a bound View has changed.
+	 * <p>
+	 * Only text views are tracked, because <code>TextWatcher</code>s can be added without
+	 * displacing any other listener. Other views (<code>CheckBox</code>, <code>Spinner</code>,
+	 * <code>DatePicker</code>) support only a single listener, which the application may want for
+	 * itself, so are always reported as changed.
+	 */
+
+	/* package private */static class ChangeTracker
+		implements TextWatcher {
+
+		//
+		// Private members
+		//
+
+		private boolean	mTrackable;
+
+		private boolean	mChanged;
+
+		//
+		// Constructor
+		//
+
+		public ChangeTracker( View view ) {
+
+			if ( view instanceof TextView && !( view instanceof CompoundButton ) ) {
+				( (TextView) view ).addTextChangedListener( this );
+				mTrackable = true;
+			}
+		}
+
+		//
+		// Public methods
+		//
+
+		public void beforeTextChanged( CharSequence text, int start, int count, int after ) {
+
+			// Do nothing
+		}
+
+		public void onTextChanged( CharSequence text, int start, int before, int count ) {
+
+			// Do nothing
+		}
+
+		public void afterTextChanged( Editable text ) {
+
+			mChanged = true;
+		}
+
+		public boolean isChanged() {
+
+			return ( mChanged || !mTrackable );
+		}
+
+		public void reset() {
+
+			mChanged = false;
+		}
+	}
 }
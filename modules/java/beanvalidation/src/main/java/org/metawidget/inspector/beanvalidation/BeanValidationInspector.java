@@ -18,22 +18,44 @@ package org.metawidget.inspector.beanvalidation;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.validation.Validator;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
 
 import org.metawidget.inspector.impl.BaseObjectInspector;
 import org.metawidget.inspector.impl.BaseObjectInspectorConfig;
 import org.metawidget.inspector.impl.propertystyle.Property;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle.FieldProperty;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle.JavaBeanProperty;
+import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
 
 /**
  * Inspects annotations defined by Bean Validation (JSR 303).
+ * <p>
+ * By default, BeanValidationInspector looks up each Bean Validation annotation on each property.
+ * If <code>BeanValidationInspectorConfig.setValidator</code> is used, it instead asks the
+ * <code>Validator</code> for the constraint metadata of the class declaring each property (this
+ * requires a <code>JavaBeanPropertyStyle</code>-based PropertyStyle). This picks up constraints
+ * declared in <code>validation.xml</code>, and constraints composed into custom constraint
+ * annotations, and only returns those constraints in the configured groups. The resulting
+ * attributes are cached per class, in a cache of bounded size. The cache only holds weak
+ * references to classes, so redeploying a class (with a new ClassLoader) neither leaks the old
+ * ClassLoader nor returns stale metadata.
  *
  * @author Richard Kennard
  */
@@ -41,6 +63,22 @@ import org.metawidget.util.CollectionUtils;
 public class BeanValidationInspector
 	extends BaseObjectInspector {
 
+	//
+	// Private members
+	//
+
+	private final Validator							mValidator;
+
+	private final Class<?>[]						mGroups;
+
+	private final int								mCacheSize;
+
+	/**
+	 * Attributes of each constrained property, keyed by class name.
+	 */
+
+	private final Map<String, CachedConstraints>	mCache;
+
 	//
 	// Constructor
 	//
@@ -53,6 +91,21 @@ public class BeanValidationInspector
 	public BeanValidationInspector( BaseObjectInspectorConfig config ) {
 
 		super( config );
+
+		mValidator = null;
+		mGroups = null;
+		mCacheSize = 0;
+		mCache = null;
+	}
+
+	public BeanValidationInspector( BeanValidationInspectorConfig config ) {
+
+		super( config );
+
+		mValidator = config.getValidator();
+		mGroups = config.getGroups();
+		mCacheSize = config.getCacheSize();
+		mCache = new ConcurrentHashMap<String, CachedConstraints>();
 	}
 
 	//
@@ -65,11 +118,44 @@ public class BeanValidationInspector
 
 		Map<String, String> attributes = CollectionUtils.newHashMap();
 
-		// Digits
+		if ( mValidator != null ) {
+			Class<?> declaringClass = getDeclaringClass( property );
+
+			if ( declaringClass != null ) {
+				Map<String, String> constraints = getConstraints( declaringClass ).get( property.getName() );
+
+				if ( constraints != null ) {
+					attributes.putAll( constraints );
+				}
+
+				return attributes;
+			}
+		}
+
+		inspectConstraint( property.getAnnotation( Digits.class ), attributes );
+		inspectConstraint( property.getAnnotation( NotNull.class ), attributes );
+		inspectConstraint( property.getAnnotation( Min.class ), attributes );
+		inspectConstraint( property.getAnnotation( Max.class ), attributes );
+		inspectConstraint( property.getAnnotation( Size.class ), attributes );
+		inspectConstraint( property.getAnnotation( Pattern.class ), attributes );
+
+		return attributes;
+	}
 
-		Digits digits = property.getAnnotation( Digits.class );
+	/**
+	 * Inspect the given constraint annotation, adding to the given Map of attributes. Subclasses
+	 * can override this method to support further constraints.
+	 *
+	 * @param constraint
+	 *            the constraint to inspect. May be null
+	 */
 
-		if ( digits != null ) {
+	protected void inspectConstraint( Annotation constraint, Map<String, String> attributes ) {
+
+		// Digits
+
+		if ( constraint instanceof Digits ) {
+			Digits digits = (Digits) constraint;
 			int integerDigits = digits.integer();
 
 			if ( integerDigits > 0 ) {
@@ -85,31 +171,27 @@ public class BeanValidationInspector
 
 		// NotNull
 
-		if ( property.isAnnotationPresent( NotNull.class ) ) {
+		else if ( constraint instanceof NotNull ) {
 			attributes.put( REQUIRED, TRUE );
 		}
 
 		// Min
 
-		Min min = property.getAnnotation( Min.class );
-
-		if ( min != null ) {
-			attributes.put( MINIMUM_VALUE, String.valueOf( min.value() ) );
+		else if ( constraint instanceof Min ) {
+			attributes.put( MINIMUM_VALUE, String.valueOf( ( (Min) constraint ).value() ) );
 		}
 
 		// Max
 
-		Max max = property.getAnnotation( Max.class );
-
-		if ( max != null ) {
-			attributes.put( MAXIMUM_VALUE, String.valueOf( max.value() ) );
+		else if ( constraint instanceof Max ) {
+			attributes.put( MAXIMUM_VALUE, String.valueOf( ( (Max) constraint ).value() ) );
 		}
 
 		// Size
 
-		Size size = property.getAnnotation( Size.class );
+		else if ( constraint instanceof Size ) {
+			Size size = (Size) constraint;
 
-		if ( size != null ) {
 			if ( size.min() > 0 ) {
 				attributes.put( MINIMUM_LENGTH, String.valueOf( size.min() ) );
 			}
@@ -121,12 +203,160 @@ public class BeanValidationInspector
 
 		// Pattern
 
-		Pattern pattern = property.getAnnotation( Pattern.class );
+		else if ( constraint instanceof Pattern ) {
+			attributes.put( VALIDATION_PATTERN, String.valueOf( ( (Pattern) constraint ).regexp() ) );
+		}
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Gets the class that declares the given property, so that its constraint metadata can be
+	 * looked up from the Validator.
+	 *
+	 * @return the declaring class, or null if the property does not come from a
+	 *         <code>JavaBeanPropertyStyle</code>-based PropertyStyle
+	 */
+
+	private Class<?> getDeclaringClass( Property property ) {
 
-		if ( pattern != null ) {
-			attributes.put( VALIDATION_PATTERN, String.valueOf( pattern.regexp() ) );
+		if ( property instanceof JavaBeanProperty ) {
+			JavaBeanProperty javaBeanProperty = (JavaBeanProperty) property;
+			Method method = javaBeanProperty.getReadMethod();
+
+			if ( method == null ) {
+				method = javaBeanProperty.getWriteMethod();
+			}
+
+			return ClassUtils.getOriginalDeclaringClass( method );
 		}
 
-		return attributes;
+		if ( property instanceof FieldProperty ) {
+			return ( (FieldProperty) property ).getField().getDeclaringClass();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Gets the attributes of each constrained property of the given class, from the cache if
+	 * possible.
+	 */
+
+	private Map<String, Map<String, String>> getConstraints( Class<?> clazz ) {
+
+		String className = clazz.getName();
+		CachedConstraints cached = mCache.get( className );
+
+		// Same name but different Class means the class has been redeployed
+
+		if ( cached != null && cached.mClass.get() == clazz ) {
+			return cached.mConstraints;
+		}
+
+		// At worst, two threads will look up the same class at the same time
+
+		Map<String, Map<String, String>> constraints = CollectionUtils.newHashMap();
+
+		for ( PropertyDescriptor propertyDescriptor : mValidator.getConstraintsForClass( clazz ).getConstrainedProperties() ) {
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+
+			for ( ConstraintDescriptor<?> constraintDescriptor : propertyDescriptor.getConstraintDescriptors() ) {
+				inspectConstraintDescriptor( constraintDescriptor, attributes );
+			}
+
+			if ( !attributes.isEmpty() ) {
+				constraints.put( propertyDescriptor.getPropertyName(), Collections.unmodifiableMap( attributes ) );
+			}
+		}
+
+		constraints = Collections.unmodifiableMap( constraints );
+
+		if ( mCacheSize < 1 ) {
+			return constraints;
+		}
+
+		mCache.put( className, new CachedConstraints( clazz, constraints ) );
+
+		// Evict other classes (in no particular order) if over size
+
+		for ( Iterator<String> i = mCache.keySet().iterator(); i.hasNext() && mCache.size() > mCacheSize; ) {
+			if ( !className.equals( i.next() ) ) {
+				i.remove();
+			}
+		}
+
+		return constraints;
+	}
+
+	/**
+	 * Inspect the given constraint, if it belongs to one of our groups, and then any constraints
+	 * it is composed of. The composing constraints are inspected first, so that attributes of the
+	 * constraint itself take precedence.
+	 */
+
+	private void inspectConstraintDescriptor( ConstraintDescriptor<?> constraintDescriptor, Map<String, String> attributes ) {
+
+		if ( !isInGroups( constraintDescriptor ) ) {
+			return;
+		}
+
+		for ( ConstraintDescriptor<?> composingConstraint : constraintDescriptor.getComposingConstraints() ) {
+			inspectConstraintDescriptor( composingConstraint, attributes );
+		}
+
+		inspectConstraint( constraintDescriptor.getAnnotation(), attributes );
+	}
+
+	/**
+	 * Returns true if the given constraint would be validated when validating our groups. As per
+	 * the Bean Validation specification, validating a group also validates its supergroups.
+	 */
+
+	private boolean isInGroups( ConstraintDescriptor<?> constraintDescriptor ) {
+
+		for ( Class<?> constraintGroup : constraintDescriptor.getGroups() ) {
+			for ( Class<?> group : mGroups ) {
+				if ( constraintGroup.isAssignableFrom( group ) ) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Cached constraint attributes of a class.
+	 * <p>
+	 * Holds only a weak reference to the class, so as not to stop its ClassLoader being garbage
+	 * collected.
+	 */
+
+	private static class CachedConstraints {
+
+		//
+		// Private members
+		//
+
+		/* package private */final WeakReference<Class<?>>			mClass;
+
+		/* package private */final Map<String, Map<String, String>>	mConstraints;
+
+		//
+		// Constructor
+		//
+
+		public CachedConstraints( Class<?> clazz, Map<String, Map<String, String>> constraints ) {
+
+			mClass = new WeakReference<Class<?>>( clazz );
+			mConstraints = constraints;
+		}
 	}
 }
@@ -0,0 +1,166 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.beanvalidation;
+
+import javax.validation.Validator;
+import javax.validation.groups.Default;
+
+import org.metawidget.inspector.impl.BaseObjectInspectorConfig;
+import org.metawidget.inspector.impl.propertystyle.PropertyStyle;
+import org.metawidget.util.simple.ObjectUtils;
+
+/**
+ * Configures a BeanValidationInspector prior to use. Once instantiated, Inspectors are immutable.
+ *
+ * @author Richard Kennard
+ */
+
+public class BeanValidationInspectorConfig
+	extends BaseObjectInspectorConfig {
+
+	//
+	// Private members
+	//
+
+	private Validator	mValidator;
+
+	private Class<?>[]	mGroups		= new Class<?>[] { Default.class };
+
+	private int			mCacheSize	= 100;
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Sets the Validator whose constraint metadata should be inspected.
+	 * <p>
+	 * By default, BeanValidationInspector looks for Bean Validation annotations on each property.
+	 * If a Validator is set, it instead asks the Validator for the <code>BeanDescriptor</code> of
+	 * each class. This picks up constraints declared in <code>validation.xml</code>, as well as
+	 * those composed into custom constraint annotations.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public BeanValidationInspectorConfig setValidator( Validator validator ) {
+
+		mValidator = validator;
+
+		// Fluent interface
+
+		return this;
+	}
+
+	/**
+	 * Sets the validation groups whose constraints should be inspected. Only used if a Validator
+	 * has been set. Defaults to <code>javax.validation.groups.Default</code>.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public BeanValidationInspectorConfig setGroups( Class<?>... groups ) {
+
+		mGroups = groups;
+
+		// Fluent interface
+
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of classes whose constraint metadata is cached. Only used if a
+	 * Validator has been set. Defaults to 100. Values less than 1 disable the cache.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public BeanValidationInspectorConfig setCacheSize( int cacheSize ) {
+
+		mCacheSize = cacheSize;
+
+		// Fluent interface
+
+		return this;
+	}
+
+	/**
+	 * Overridden to return a BeanValidationInspectorConfig, as part of a fluent interface.
+	 */
+
+	@Override
+	public BeanValidationInspectorConfig setPropertyStyle( PropertyStyle propertyStyle ) {
+
+		return (BeanValidationInspectorConfig) super.setPropertyStyle( propertyStyle );
+	}
+
+	@Override
+	public boolean equals( Object that ) {
+
+		if ( this == that ) {
+			return true;
+		}
+
+		if ( !ObjectUtils.nullSafeClassEquals( this, that ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mValidator, ( (BeanValidationInspectorConfig) that ).mValidator ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mGroups, ( (BeanValidationInspectorConfig) that ).mGroups ) ) {
+			return false;
+		}
+
+		if ( mCacheSize != ( (BeanValidationInspectorConfig) that ).mCacheSize ) {
+			return false;
+		}
+
+		return super.equals( that );
+	}
+
+	@Override
+	public int hashCode() {
+
+		int hashCode = super.hashCode();
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mValidator );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mGroups );
+		hashCode = 31 * hashCode + mCacheSize;
+
+		return hashCode;
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected Validator getValidator() {
+
+		return mValidator;
+	}
+
+	protected Class<?>[] getGroups() {
+
+		return mGroups;
+	}
+
+	protected int getCacheSize() {
+
+		return mCacheSize;
+	}
+}
@@ -18,15 +18,35 @@ package org.metawidget.inspector.beanvalidation;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.validation.Payload;
+import javax.validation.Validator;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
+import javax.validation.groups.Default;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
 
 import junit.framework.TestCase;
 
+import org.metawidget.inspector.impl.FusedObjectInspector;
+import org.metawidget.inspector.impl.FusedObjectInspectorConfig;
+import org.metawidget.inspector.propertytype.PropertyTypeInspector;
+import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.XmlUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -83,6 +103,247 @@ public class BeanValidationInspectorTest
 		assertEquals( 2, property.getAttributes().getLength() );
 	}
 
+	public void testConstraintDescriptors() {
+
+		int[] lookups = new int[1];
+		BeanValidationInspector inspector = new BeanValidationInspector( new BeanValidationInspectorConfig().setValidator( newValidator( lookups ) ) );
+		Document document = XmlUtils.documentFromString( inspector.inspect( new Foo(), Foo.class.getName() ) );
+
+		// Same attributes as when inspecting annotations
+
+		Element entity = (Element) document.getDocumentElement().getFirstChild();
+		assertEquals( Foo.class.getName(), entity.getAttribute( TYPE ) );
+
+		Element property = XmlUtils.getChildWithAttributeValue( entity, NAME, "bar" );
+		assertEquals( TRUE, property.getAttribute( REQUIRED ) );
+		assertEquals( 2, property.getAttributes().getLength() );
+
+		property = XmlUtils.getChildWithAttributeValue( entity, NAME, "range" );
+		assertEquals( "1", property.getAttribute( MINIMUM_VALUE ) );
+		assertEquals( "99", property.getAttribute( MAXIMUM_VALUE ) );
+		assertEquals( "2", property.getAttribute( MINIMUM_LENGTH ) );
+		assertEquals( "25", property.getAttribute( MAXIMUM_LENGTH ) );
+		assertEquals( 5, property.getAttributes().getLength() );
+
+		// Composed constraints
+
+		document = XmlUtils.documentFromString( inspector.inspect( new Bar(), Bar.class.getName() ) );
+		entity = (Element) document.getDocumentElement().getFirstChild();
+
+		property = XmlUtils.getChildWithAttributeValue( entity, NAME, "zip" );
+		assertEquals( "5", property.getAttribute( MINIMUM_LENGTH ) );
+		assertEquals( "5", property.getAttribute( MAXIMUM_LENGTH ) );
+		assertEquals( "[0-9]*", property.getAttribute( VALIDATION_PATTERN ) );
+		assertEquals( 4, property.getAttributes().getLength() );
+
+		// Groups
+
+		assertTrue( XmlUtils.getChildWithAttributeValue( entity, NAME, "strict" ) == null );
+		assertEquals( 1, entity.getChildNodes().getLength() );
+
+		inspector = new BeanValidationInspector( new BeanValidationInspectorConfig().setValidator( newValidator( lookups ) ).setGroups( StrictChecks.class ) );
+		document = XmlUtils.documentFromString( inspector.inspect( new Bar(), Bar.class.getName() ) );
+		entity = (Element) document.getDocumentElement().getFirstChild();
+
+		property = XmlUtils.getChildWithAttributeValue( entity, NAME, "strict" );
+		assertEquals( TRUE, property.getAttribute( REQUIRED ) );
+
+		// StrictChecks extends Default
+
+		assertTrue( XmlUtils.getChildWithAttributeValue( entity, NAME, "zip" ) != null );
+	}
+
+	public void testCache() {
+
+		int[] lookups = new int[1];
+		BeanValidationInspector inspector = new BeanValidationInspector( new BeanValidationInspectorConfig().setValidator( newValidator( lookups ) ).setCacheSize( 1 ) );
+
+		String inspectionResult = inspector.inspect( null, Foo.class.getName() );
+		assertEquals( 1, lookups[0] );
+		assertEquals( inspectionResult, inspector.inspect( new Foo(), Foo.class.getName() ) );
+		assertEquals( 1, lookups[0] );
+
+		// Evicted
+
+		inspector.inspect( null, Bar.class.getName() );
+		assertEquals( 2, lookups[0] );
+		assertEquals( inspectionResult, inspector.inspect( null, Foo.class.getName() ) );
+		assertEquals( 3, lookups[0] );
+
+		// Disabled (looked up once per property)
+
+		lookups[0] = 0;
+		inspector = new BeanValidationInspector( new BeanValidationInspectorConfig().setValidator( newValidator( lookups ) ).setCacheSize( 0 ) );
+		assertEquals( inspectionResult, inspector.inspect( null, Foo.class.getName() ) );
+		int lookupsPerInspection = lookups[0];
+		assertTrue( lookupsPerInspection > 1 );
+		assertEquals( inspectionResult, inspector.inspect( null, Foo.class.getName() ) );
+		assertEquals( lookupsPerInspection * 2, lookups[0] );
+	}
+
+	public void testFused() {
+
+		int[] lookups = new int[1];
+		BeanValidationInspector inspector = new BeanValidationInspector( new BeanValidationInspectorConfig().setValidator( newValidator( lookups ) ) );
+		FusedObjectInspector fusedInspector = new FusedObjectInspector( new FusedObjectInspectorConfig().setInspectors( new PropertyTypeInspector(), inspector ) );
+		Document document = XmlUtils.documentFromString( fusedInspector.inspect( new Foo(), Foo.class.getName() ) );
+
+		Element entity = (Element) document.getDocumentElement().getFirstChild();
+		Element property = XmlUtils.getChildWithAttributeValue( entity, NAME, "bar" );
+		assertEquals( TRUE, property.getAttribute( REQUIRED ) );
+		assertEquals( String.class.getName(), property.getAttribute( TYPE ) );
+		assertEquals( 1, lookups[0] );
+	}
+
+	public void testConfig() {
+
+		Validator validator = newValidator( new int[1] );
+		BeanValidationInspectorConfig config1 = new BeanValidationInspectorConfig().setValidator( validator ).setGroups( StrictChecks.class );
+		BeanValidationInspectorConfig config2 = new BeanValidationInspectorConfig().setValidator( validator ).setGroups( StrictChecks.class );
+
+		assertEquals( config1, config2 );
+		assertEquals( config1.hashCode(), config2.hashCode() );
+
+		config2.setCacheSize( 50 );
+		assertFalse( config1.equals( config2 ) );
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Mock up a Validator that reads constraint annotations off getters, much as a Bean Validation
+	 * implementation would.
+	 */
+
+	private Validator newValidator( final int[] lookups ) {
+
+		return newProxy( Validator.class, new InvocationHandler() {
+
+			public Object invoke( Object proxy, Method method, Object[] args ) {
+
+				lookups[0]++;
+				final Set<PropertyDescriptor> propertyDescriptors = CollectionUtils.newHashSet();
+
+				for ( Method getter : ( (Class<?>) args[0] ).getDeclaredMethods() ) {
+					if ( !getter.getName().startsWith( "get" ) || getter.getAnnotations().length == 0 ) {
+						continue;
+					}
+
+					final String propertyName = Character.toLowerCase( getter.getName().charAt( 3 ) ) + getter.getName().substring( 4 );
+					final Set<ConstraintDescriptor<?>> constraintDescriptors = CollectionUtils.newHashSet();
+
+					for ( Annotation annotation : getter.getAnnotations() ) {
+						constraintDescriptors.add( newConstraintDescriptor( annotation, null ) );
+					}
+
+					propertyDescriptors.add( (PropertyDescriptor) newProxy( PropertyDescriptor.class, new InvocationHandler() {
+
+						public Object invoke( Object propertyProxy, Method propertyMethod, Object[] propertyArgs ) {
+
+							if ( "getPropertyName".equals( propertyMethod.getName() ) ) {
+								return propertyName;
+							}
+
+							return constraintDescriptors;
+						}
+					} ) );
+				}
+
+				return newProxy( javax.validation.metadata.BeanDescriptor.class, new InvocationHandler() {
+
+					public Object invoke( Object beanProxy, Method beanMethod, Object[] beanArgs ) {
+
+						return propertyDescriptors;
+					}
+				} );
+			}
+		} );
+	}
+
+	/**
+	 * @param groups
+	 *            groups of the composed constraint, or null if not composed
+	 */
+
+	private ConstraintDescriptor<?> newConstraintDescriptor( final Annotation annotation, Set<Class<?>> groups ) {
+
+		try {
+			final Set<Class<?>> groupsToUse = CollectionUtils.newHashSet();
+
+			if ( groups != null ) {
+				groupsToUse.addAll( groups );
+			} else {
+				for ( Class<?> group : (Class<?>[]) annotation.annotationType().getMethod( "groups" ).invoke( annotation ) ) {
+					groupsToUse.add( group );
+				}
+
+				if ( groupsToUse.isEmpty() ) {
+					groupsToUse.add( Default.class );
+				}
+			}
+
+			final Set<ConstraintDescriptor<?>> composingConstraints = CollectionUtils.newHashSet();
+
+			for ( Annotation composingAnnotation : annotation.annotationType().getAnnotations() ) {
+				if ( NotNull.class.getPackage().equals( composingAnnotation.annotationType().getPackage() ) ) {
+					composingConstraints.add( newConstraintDescriptor( composingAnnotation, groupsToUse ) );
+				}
+			}
+
+			return newProxy( ConstraintDescriptor.class, new InvocationHandler() {
+
+				public Object invoke( Object proxy, Method method, Object[] args ) {
+
+					String methodName = method.getName();
+
+					if ( "getAnnotation".equals( methodName ) ) {
+						return annotation;
+					}
+
+					if ( "getGroups".equals( methodName ) ) {
+						return Collections.unmodifiableSet( groupsToUse );
+					}
+
+					if ( "getComposingConstraints".equals( methodName ) ) {
+						return composingConstraints;
+					}
+
+					throw new UnsupportedOperationException( methodName );
+				}
+			} );
+		} catch ( Exception e ) {
+			throw new RuntimeException( e );
+		}
+	}
+
+	/**
+	 * Creates a proxy for the given interface, handling <code>hashCode</code> and
+	 * <code>equals</code> by identity so that proxies can be put in Sets.
+	 */
+
+	@SuppressWarnings( "unchecked" )
+	private <T> T newProxy( Class<?> iface, final InvocationHandler handler ) {
+
+		return (T) Proxy.newProxyInstance( getClass().getClassLoader(), new Class[] { iface }, new InvocationHandler() {
+
+			public Object invoke( Object proxy, Method method, Object[] args )
+				throws Throwable {
+
+				if ( "hashCode".equals( method.getName() ) ) {
+					return System.identityHashCode( proxy );
+				}
+
+				if ( "equals".equals( method.getName() ) ) {
+					return ( proxy == args[0] );
+				}
+
+				return handler.invoke( proxy, method, args );
+			}
+		} );
+	}
+
 	//
 	// Inner class
 	//
@@ -130,4 +391,43 @@ public class BeanValidationInspectorTest
 			return null;
 		}
 	}
+
+	public static class Bar {
+
+		@ZipCode
+		public String getZip() {
+
+			return null;
+		}
+
+		@NotNull( groups = StrictChecks.class )
+		public String getStrict() {
+
+			return null;
+		}
+
+		public String getUnconstrained() {
+
+			return null;
+		}
+	}
+
+	@Size( min = 5, max = 5 )
+	@Pattern( regexp = "[0-9]*" )
+	@Target( { ElementType.METHOD, ElementType.FIELD } )
+	@Retention( RetentionPolicy.RUNTIME )
+	public static @interface ZipCode {
+
+		String message() default "";
+
+		Class<?>[] groups() default {};
+
+		Class<? extends Payload>[] payload() default {};
+	}
+
+	public static interface StrictChecks
+		extends Default {
+
+		// Just a group
+	}
 }
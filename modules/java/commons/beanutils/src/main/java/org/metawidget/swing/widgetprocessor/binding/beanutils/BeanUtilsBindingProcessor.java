@@ -19,6 +19,7 @@ package org.metawidget.swing.widgetprocessor.binding.beanutils;
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.awt.Component;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -33,8 +34,10 @@ import org.metawidget.inspector.impl.propertystyle.PropertyStyle;
 import org.metawidget.inspector.impl.propertystyle.ValueAndDeclaredType;
 import org.metawidget.swing.SwingMetawidget;
 import org.metawidget.swing.widgetprocessor.binding.BindingConverter;
+import org.metawidget.swing.widgetprocessor.binding.ChangeTracker;
 import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.simple.ObjectUtils;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.util.simple.PathUtils.TypeAndNames;
 import org.metawidget.util.simple.StringUtils;
@@ -47,6 +50,10 @@ import org.metawidget.widgetprocessor.iface.WidgetProcessorException;
  * Note: <code>BeanUtils</code> does not bind <em>actions</em>, such as invoking a method when a
  * <code>JButton</code> is pressed. For that, see <code>ReflectionBindingProcessor</code> and
  * <code>MetawidgetActionStyle</code> or <code>SwingAppFrameworkActionStyle</code>.
+ * <p>
+ * Tracks which components the user has changed, so that <code>save</code> only converts and writes
+ * back those properties, and <code>isDirty</code> can cheaply check whether there is anything to
+ * save.
  *
  * @author Richard Kennard, Stefan Ackermann
  */
@@ -131,6 +138,7 @@ public class BeanUtilsBindingProcessor
 			String names = typeAndNames.getNames().replace( StringUtils.SEPARATOR_FORWARD_SLASH_CHAR, StringUtils.SEPARATOR_DOT_CHAR );
 			SavedBinding binding = new SavedBinding( componentToBind, componentProperty, names, TRUE.equals( attributes.get( NO_SETTER ) ) );
 			saveValueToWidget( binding, sourceValue );
+			binding.getChangeTracker().reset();
 
 			State state = getState( metawidget );
 
@@ -153,11 +161,42 @@ public class BeanUtilsBindingProcessor
 	 * <em>without</em> calling setToInspect, and therefore without reinspecting the object or
 	 * recreating the components. It is the client's responsbility to ensure the rebound object is
 	 * compatible with the original setToInspect.
+	 * <p>
+	 * Rebinding happens in two passes. First, the values for every binding (of this Metawidget and
+	 * its nested Metawidgets) are fetched. Paths with a common prefix (such as
+	 * <code>address.street</code> and <code>address.city</code>) only traverse that prefix once.
+	 * Then, if every fetch succeeded, the Metawidgets are updated to the new object and all the
+	 * values are pushed into their components in a single batch.
 	 */
 
 	public void rebind( Object toRebind, SwingMetawidget metawidget ) {
 
-		metawidget.updateToInspectWithoutInvalidate( toRebind );
+		try {
+			// Fetch all values...
+
+			List<SwingMetawidget> metawidgets = CollectionUtils.newArrayList();
+			Map<SavedBinding, Object> bindingValues = CollectionUtils.newLinkedHashMap();
+			Map<String, Traversal> traversed = CollectionUtils.newHashMap();
+			fetchValues( toRebind, metawidget, traversed, metawidgets, bindingValues );
+
+			// ...then push them all
+
+			for ( SwingMetawidget metawidgetToUpdate : metawidgets ) {
+				metawidgetToUpdate.updateToInspectWithoutInvalidate( toRebind );
+			}
+
+			for ( Map.Entry<SavedBinding, Object> entry : bindingValues.entrySet() ) {
+				SavedBinding binding = entry.getKey();
+				saveValueToWidget( binding, entry.getValue() );
+				binding.getChangeTracker().reset();
+			}
+		} catch ( Exception e ) {
+			throw WidgetProcessorException.newException( e );
+		}
+	}
+
+	public void save( SwingMetawidget metawidget ) {
+
 		State state = getState( metawidget );
 
 		// Our bindings
@@ -165,14 +204,21 @@ public class BeanUtilsBindingProcessor
 		if ( state.bindings != null ) {
 			try {
 				for ( SavedBinding binding : state.bindings ) {
-					String names = binding.getNames();
-					ValueAndDeclaredType valueAndDeclaredType = mPropertyStyle.traverse( toRebind, toRebind.getClass().getName(), false, names.split( "\\" + StringUtils.SEPARATOR_DOT_CHAR ) );
+					if ( !binding.isSettable() ) {
+						continue;
+					}
+
+					// Only save components that have changed
+
+					ChangeTracker changeTracker = binding.getChangeTracker();
 
-					if ( valueAndDeclaredType.getDeclaredType() == null ) {
-						throw WidgetProcessorException.newException( "Property '" + names + "' has no getter" );
+					if ( !changeTracker.isChanged() ) {
+						continue;
 					}
 
-					saveValueToWidget( binding, valueAndDeclaredType.getValue() );
+					Object componentValue = retrieveValueFromWidget( binding );
+					saveValueToObject( metawidget, binding.getNames(), componentValue );
+					changeTracker.reset();
 				}
 			} catch ( Exception e ) {
 				throw WidgetProcessorException.newException( e );
@@ -183,29 +229,28 @@ public class BeanUtilsBindingProcessor
 
 		if ( state.nestedMetawidgets != null ) {
 			for ( SwingMetawidget nestedMetawidget : state.nestedMetawidgets ) {
-				rebind( toRebind, nestedMetawidget );
+				save( nestedMetawidget );
 			}
 		}
 	}
 
-	public void save( SwingMetawidget metawidget ) {
+	/**
+	 * Returns true if any bound component (of this Metawidget or its nested Metawidgets) has been
+	 * changed since it was last bound, rebound or saved. Cheap enough to be polled frequently, for
+	 * example to implement auto-save.
+	 */
+
+	public boolean isDirty( SwingMetawidget metawidget ) {
 
 		State state = getState( metawidget );
 
 		// Our bindings
 
 		if ( state.bindings != null ) {
-			try {
-				for ( SavedBinding binding : state.bindings ) {
-					if ( !binding.isSettable() ) {
-						continue;
-					}
-
-					Object componentValue = retrieveValueFromWidget( binding );
-					saveValueToObject( metawidget, binding.getNames(), componentValue );
+			for ( SavedBinding binding : state.bindings ) {
+				if ( binding.isSettable() && binding.getChangeTracker().isChanged() ) {
+					return true;
 				}
-			} catch ( Exception e ) {
-				throw WidgetProcessorException.newException( e );
 			}
 		}
 
@@ -213,9 +258,13 @@ public class BeanUtilsBindingProcessor
 
 		if ( state.nestedMetawidgets != null ) {
 			for ( SwingMetawidget nestedMetawidget : state.nestedMetawidgets ) {
-				save( nestedMetawidget );
+				if ( isDirty( nestedMetawidget ) ) {
+					return true;
+				}
 			}
 		}
+
+		return false;
 	}
 
 	public Object convertFromString( String value, Class<?> expectedType ) {
@@ -293,6 +342,99 @@ public class BeanUtilsBindingProcessor
 	// Private methods
 	//
 
+	/**
+	 * Fetches the values for all bindings of the given Metawidget and its nested Metawidgets.
+	 * <p>
+	 * Does not update the Metawidgets themselves, so that a failed fetch leaves them all bound to
+	 * their original object.
+	 *
+	 * @param traversed
+	 *            paths already traversed during this rebind, keyed by BeanUtils-style path
+	 * @param metawidgets
+	 *            list to add the given Metawidget and its nested Metawidgets to
+	 * @param bindingValues
+	 *            map to add the fetched values to
+	 */
+
+	private void fetchValues( Object toRebind, SwingMetawidget metawidget, Map<String, Traversal> traversed, List<SwingMetawidget> metawidgets, Map<SavedBinding, Object> bindingValues ) {
+
+		metawidgets.add( metawidget );
+		State state = getState( metawidget );
+
+		// Our bindings
+
+		if ( state.bindings != null ) {
+			for ( SavedBinding binding : state.bindings ) {
+				String names = binding.getNames();
+				ValueAndDeclaredType valueAndDeclaredType = traverse( toRebind, names, traversed ).getValueAndDeclaredType();
+
+				if ( valueAndDeclaredType.getDeclaredType() == null ) {
+					throw WidgetProcessorException.newException( "Property '" + names + "' has no getter" );
+				}
+
+				bindingValues.put( binding, valueAndDeclaredType.getValue() );
+			}
+		}
+
+		// Nested Metawidgets
+
+		if ( state.nestedMetawidgets != null ) {
+			for ( SwingMetawidget nestedMetawidget : state.nestedMetawidgets ) {
+				fetchValues( toRebind, nestedMetawidget, traversed, metawidgets, bindingValues );
+			}
+		}
+	}
+
+	/**
+	 * Traverses the given BeanUtils-style path, reusing (and remembering) the traversals of any
+	 * prefixes of that path already traversed.
+	 * <p>
+	 * Each step goes through <code>PropertyStyle.traverse</code>, but that can only detect cycles
+	 * within a single step. So, like <code>BasePropertyStyle.traverse</code>, a path that arrives
+	 * back at an object already on that path has no getter.
+	 */
+
+	private Traversal traverse( Object toRebind, String names, Map<String, Traversal> traversed ) {
+
+		Traversal traversal = traversed.get( names );
+
+		if ( traversal != null ) {
+			return traversal;
+		}
+
+		int lastIndexOf = names.lastIndexOf( StringUtils.SEPARATOR_DOT_CHAR );
+		Traversal parentTraversal;
+		String name;
+
+		if ( lastIndexOf == -1 ) {
+			parentTraversal = new Traversal( null, toRebind, null );
+			name = names;
+		} else {
+			parentTraversal = traverse( toRebind, names.substring( 0, lastIndexOf ), traversed );
+			name = names.substring( lastIndexOf + 1 );
+		}
+
+		Object parent = parentTraversal.getValue();
+		ValueAndDeclaredType valueAndDeclaredType;
+
+		if ( parent == null ) {
+
+			// (a null parent has no getter, same as PropertyStyle.traverse)
+
+			valueAndDeclaredType = new ValueAndDeclaredType( null, null );
+		} else {
+			valueAndDeclaredType = mPropertyStyle.traverse( parent, parent.getClass().getName(), false, name );
+
+			if ( parentTraversal.contains( valueAndDeclaredType.getValue() ) ) {
+				valueAndDeclaredType = new ValueAndDeclaredType( null, null );
+			}
+		}
+
+		traversal = new Traversal( parentTraversal, valueAndDeclaredType.getValue(), valueAndDeclaredType );
+		traversed.put( names, traversal );
+		return traversal;
+	}
+
 	private State getState( SwingMetawidget metawidget ) {
 
 		State state = (State) metawidget.getClientProperty( BeanUtilsBindingProcessor.class );
@@ -320,6 +462,67 @@ public class BeanUtilsBindingProcessor
 		/* package private */Set<SwingMetawidget>	nestedMetawidgets;
 	}
 
+	/**
+	 * One step along a path traversed during a rebind, linked back to the step before it.
+	 */
+
+	private static class Traversal {
+
+		//
+		// Private members
+		//
+
+		private Traversal				mParent;
+
+		private Object					mValue;
+
+		private ValueAndDeclaredType	mValueAndDeclaredType;
+
+		//
+		// Constructor
+		//
+
+		public Traversal( Traversal parent, Object value, ValueAndDeclaredType valueAndDeclaredType ) {
+
+			mParent = parent;
+			mValue = value;
+			mValueAndDeclaredType = valueAndDeclaredType;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Object getValue() {
+
+			return mValue;
+		}
+
+		public ValueAndDeclaredType getValueAndDeclaredType() {
+
+			return mValueAndDeclaredType;
+		}
+
+		/**
+		 * @return true if the given (non-null) value is this step, or any step before it
+		 */
+
+		public boolean contains( Object value ) {
+
+			if ( value == null ) {
+				return false;
+			}
+
+			for ( Traversal traversal = this; traversal != null; traversal = traversal.mParent ) {
+				if ( ObjectUtils.nullSafeEquals( value, traversal.mValue ) ) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+
 	static class SavedBinding {
 
 		//
@@ -328,13 +531,15 @@ public class BeanUtilsBindingProcessor
 		//
 		//
 
-		private Component	mComponent;
+		private Component		mComponent;
 
-		private String		mComponentProperty;
+		private String			mComponentProperty;
 
-		private String		mNames;
+		private String			mNames;
 
-		private boolean		mNoSetter;
+		private boolean			mNoSetter;
+
+		private ChangeTracker	mChangeTracker;
 
 		//
 		//
@@ -348,6 +553,7 @@ public class BeanUtilsBindingProcessor
 			mComponentProperty = componentProperty;
 			mNames = names;
 			mNoSetter = noSetter;
+			mChangeTracker = new ChangeTracker( component );
 		}
 
 		//
@@ -381,5 +587,10 @@ public class BeanUtilsBindingProcessor
 
 			return !mNoSetter;
 		}
+
+		public ChangeTracker getChangeTracker() {
+
+			return mChangeTracker;
+		}
 	}
 }
@@ -44,6 +44,7 @@ import org.metawidget.swing.widgetbuilder.SwingWidgetBuilder;
 import org.metawidget.test.model.annotatedaddressbook.Contact;
 import org.metawidget.test.model.annotatedaddressbook.PersonalContact;
 import org.metawidget.util.MetawidgetTestUtils;
+import org.metawidget.widgetprocessor.iface.WidgetProcessorException;
 
 /**
  * @author Richard Kennard
@@ -218,6 +219,71 @@ public class BeanUtilsBindingProcessorTest
 		assertEquals( "Bar", metawidget.getValue( "nestedFoo", "name" ) );
 	}
 
+	public void testRebindSharedPrefix() {
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.setInspector( new PropertyTypeInspector() );
+		metawidget.addWidgetProcessor( new BeanUtilsBindingProcessor() );
+		metawidget.setMaximumInspectionDepth( 2 );
+		NestedFoo foo1 = new NestedFoo();
+		foo1.setNestedFoo( new NestedFoo() );
+		foo1.getNestedFoo().setNestedFoo( new NestedFoo() );
+		metawidget.setToInspect( foo1 );
+
+		NestedFoo foo2 = new NestedFoo();
+		foo2.setName( "Foo" );
+		foo2.setNestedFoo( new NestedFoo() );
+		foo2.getNestedFoo().setName( "Bar" );
+		foo2.getNestedFoo().setNestedFoo( new NestedFoo() );
+		foo2.getNestedFoo().getNestedFoo().setName( "Baz" );
+		metawidget.getWidgetProcessor( BeanUtilsBindingProcessor.class ).rebind( foo2, metawidget );
+
+		assertEquals( "Foo", metawidget.getValue( "name" ) );
+		assertEquals( "Bar", metawidget.getValue( "nestedFoo", "name" ) );
+		assertEquals( "Baz", metawidget.getValue( "nestedFoo", "nestedFoo", "name" ) );
+		assertTrue( foo2 == metawidget.getToInspect() );
+		assertTrue( foo2 == ( (SwingMetawidget) metawidget.getComponent( "nestedFoo" ) ).getToInspect() );
+	}
+
+	public void testRebindCycle() {
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.setInspector( new PropertyTypeInspector() );
+		metawidget.addWidgetProcessor( new BeanUtilsBindingProcessor() );
+		metawidget.setMaximumInspectionDepth( 2 );
+		NestedFoo foo1 = new NestedFoo();
+		foo1.setName( "Foo" );
+		foo1.setNestedFoo( new NestedFoo() );
+		foo1.getNestedFoo().setName( "Bar" );
+		foo1.getNestedFoo().setNestedFoo( new NestedFoo() );
+		foo1.getNestedFoo().getNestedFoo().setName( "Baz" );
+		metawidget.setToInspect( foo1 );
+		assertEquals( "Baz", metawidget.getValue( "nestedFoo", "nestedFoo", "name" ) );
+
+		// Cycles are detected across shared prefixes, same as PropertyStyle.traverse
+
+		NestedFoo foo2 = new NestedFoo();
+		foo2.setName( "Foo2" );
+		foo2.setNestedFoo( new NestedFoo() );
+		foo2.getNestedFoo().setName( "Bar2" );
+		foo2.getNestedFoo().setNestedFoo( foo2 );
+
+		try {
+			metawidget.getWidgetProcessor( BeanUtilsBindingProcessor.class ).rebind( foo2, metawidget );
+			fail();
+		} catch ( WidgetProcessorException e ) {
+			assertEquals( "Property 'nestedFoo.nestedFoo.name' has no getter", e.getMessage() );
+		}
+
+		// A failed rebind leaves everything bound to the original object
+
+		assertTrue( foo1 == metawidget.getToInspect() );
+		assertTrue( foo1 == ( (SwingMetawidget) metawidget.getComponent( "nestedFoo" ) ).getToInspect() );
+		assertEquals( "Foo", metawidget.getValue( "name" ) );
+		assertEquals( "Bar", metawidget.getValue( "nestedFoo", "name" ) );
+		assertEquals( "Baz", metawidget.getValue( "nestedFoo", "nestedFoo", "name" ) );
+	}
+
 	public void testNullPropertyStyle()
 		throws Exception {
 
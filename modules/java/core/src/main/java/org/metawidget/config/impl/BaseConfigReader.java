@@ -30,6 +30,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Stack;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 
 import javax.xml.parsers.SAXParserFactory;
@@ -129,6 +131,14 @@ public class BaseConfigReader
 
 	/* package private */final Map<String, Pattern>						mPatternCache				= CollectionUtils.newHashMap();
 
+	/**
+	 * Guards the caches while reading a resource. A <code>Lock</code> rather than a
+	 * <code>synchronized</code> block, because reading may block on I/O and a thread blocked inside
+	 * a monitor pins its carrier thread in containers that use lightweight (virtual) threads.
+	 */
+
+	private final Lock													mConfigureLock				= new ReentrantLock();
+
 	//
 	// Constructor
 	//
@@ -186,8 +196,9 @@ public class BaseConfigReader
 
 		locationKey += ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false );
 
-		synchronized ( mImmutableByLocationCache ) {
+		mConfigureLock.lock();
 
+		try {
 			Map<Integer, Immutable> immutableByLocationCache = mImmutableByLocationCache.get( locationKey );
 
 			if ( immutableByLocationCache == null ) {
@@ -196,35 +207,34 @@ public class BaseConfigReader
 
 			configHandler.setImmutableForThisLocationCache( immutableByLocationCache );
 
-			try {
-
-				// Replay the existing cache...
-
-				CachingContentHandler cachingContentHandler = mResourceCache.get( locationKey );
+			// Replay the existing cache...
 
-				if ( cachingContentHandler != null ) {
-					cachingContentHandler.replay( configHandler );
-				}
+			CachingContentHandler cachingContentHandler = mResourceCache.get( locationKey );
 
-				// ...or cache a new one
+			if ( cachingContentHandler != null ) {
+				cachingContentHandler.replay( configHandler );
+			}
 
-				else {
+			// ...or cache a new one
 
-					LOG.debug( "Reading resource from {0}", locationKey );
-					cachingContentHandler = new CachingContentHandler( configHandler );
-					configHandler.setCachingContentHandler( cachingContentHandler );
-					mFactory.newSAXParser().parse( mResourceResolver.openResource( resource ), cachingContentHandler );
+			else {
 
-					// Only cache if successful
+				LOG.debug( "Reading resource from {0}", locationKey );
+				cachingContentHandler = new CachingContentHandler( configHandler );
+				configHandler.setCachingContentHandler( cachingContentHandler );
+				mFactory.newSAXParser().parse( mResourceResolver.openResource( resource ), cachingContentHandler );
 
-					mResourceCache.put( locationKey, cachingContentHandler );
-					mImmutableByLocationCache.put( locationKey, immutableByLocationCache );
-				}
+				// Only cache if successful
 
-				return configHandler.getConfigured();
-			} catch ( Exception e ) {
-				throw MetawidgetException.newException( e );
+				mResourceCache.put( locationKey, cachingContentHandler );
+				mImmutableByLocationCache.put( locationKey, immutableByLocationCache );
 			}
+
+			return configHandler.getConfigured();
+		} catch ( Exception e ) {
+			throw MetawidgetException.newException( e );
+		} finally {
+			mConfigureLock.unlock();
 		}
 	}
 
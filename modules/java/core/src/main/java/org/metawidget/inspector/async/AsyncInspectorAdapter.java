@@ -0,0 +1,119 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.async;
+
+import java.util.concurrent.Executor;
+
+import org.metawidget.inspector.iface.AsyncInspector;
+import org.metawidget.inspector.iface.AsyncInspectorCallback;
+import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.inspector.iface.InspectorException;
+
+/**
+ * Adapts a regular, blocking Inspector to the <code>AsyncInspector</code> interface.
+ * <p>
+ * If configured with an <code>Executor</code>, each asynchronous inspection runs on that Executor,
+ * so that slow Inspectors (such as those reading remote schemas or databases) can be overlapped by
+ * a <code>CompositeInspector</code> or a <code>BasePipeline</code>. Otherwise, each asynchronous
+ * inspection runs on the calling thread and calls back before returning.
+ * <p>
+ * Synchronous calls to <code>inspect</code> are always passed straight through.
+ *
+ * @author Richard Kennard
+ */
+
+public class AsyncInspectorAdapter
+	implements AsyncInspector {
+
+	//
+	// Private members
+	//
+
+	/* package private */final Inspector	mInspector;
+
+	private final Executor					mExecutor;
+
+	//
+	// Constructor
+	//
+
+	public AsyncInspectorAdapter( AsyncInspectorAdapterConfig config ) {
+
+		mInspector = config.getInspector();
+
+		if ( mInspector == null ) {
+			throw InspectorException.newException( "AsyncInspectorAdapter needs an Inspector" );
+		}
+
+		mExecutor = config.getExecutor();
+	}
+
+	//
+	// Public methods
+	//
+
+	public String inspect( Object toInspect, String type, String... names ) {
+
+		return mInspector.inspect( toInspect, type, names );
+	}
+
+	public void inspect( final Object toInspect, final String type, final String[] names, final AsyncInspectorCallback<String> callback ) {
+
+		Runnable inspection = new Runnable() {
+
+			public void run() {
+
+				String inspectionResult;
+
+				// (catch Throwable, so that an Error does not leave callers waiting forever)
+
+				try {
+					inspectionResult = mInspector.inspect( toInspect, type, names );
+				} catch ( Throwable t ) {
+					callback.onFailure( t );
+					return;
+				}
+
+				callback.onSuccess( inspectionResult );
+			}
+		};
+
+		if ( mExecutor == null ) {
+			inspection.run();
+			return;
+		}
+
+		try {
+			mExecutor.execute( inspection );
+		} catch ( RuntimeException e ) {
+
+			// Executor may be shut down, or saturated
+
+			callback.onFailure( e );
+		}
+	}
+
+	/**
+	 * Only asynchronous if configured with an <code>Executor</code>. Otherwise, there is no
+	 * benefit over calling <code>inspect</code> directly.
+	 */
+
+	public boolean isAsync() {
+
+		return ( mExecutor != null );
+	}
+}
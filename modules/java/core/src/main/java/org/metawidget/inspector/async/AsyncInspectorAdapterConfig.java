@@ -0,0 +1,119 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.async;
+
+import java.util.concurrent.Executor;
+
+import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.util.simple.ObjectUtils;
+
+/**
+ * Configures an AsyncInspectorAdapter prior to use. Once instantiated, Inspectors are immutable.
+ *
+ * @author Richard Kennard
+ */
+
+public class AsyncInspectorAdapterConfig {
+
+	//
+	// Private members
+	//
+
+	private Inspector	mInspector;
+
+	private Executor	mExecutor;
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Sets the regular, blocking Inspector to adapt.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public AsyncInspectorAdapterConfig setInspector( Inspector inspector ) {
+
+		mInspector = inspector;
+
+		return this;
+	}
+
+	/**
+	 * Sets the Executor to run asynchronous inspections on. If not set, asynchronous inspections
+	 * run on the calling thread.
+	 * <p>
+	 * The Executor is shared by every inspection through this AsyncInspectorAdapter. It is not
+	 * shut down by the AsyncInspectorAdapter.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public AsyncInspectorAdapterConfig setExecutor( Executor executor ) {
+
+		mExecutor = executor;
+
+		return this;
+	}
+
+	@Override
+	public boolean equals( Object that ) {
+
+		if ( this == that ) {
+			return true;
+		}
+
+		if ( !ObjectUtils.nullSafeClassEquals( this, that ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mInspector, ( (AsyncInspectorAdapterConfig) that ).mInspector ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mExecutor, ( (AsyncInspectorAdapterConfig) that ).mExecutor ) ) {
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+
+		int hashCode = 1;
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mInspector );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mExecutor );
+
+		return hashCode;
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected Inspector getInspector() {
+
+		return mInspector;
+	}
+
+	protected Executor getExecutor() {
+
+		return mExecutor;
+	}
+}
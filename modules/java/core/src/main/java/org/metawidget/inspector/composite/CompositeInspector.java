@@ -18,6 +18,14 @@ package org.metawidget.inspector.composite;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.metawidget.inspector.iface.AsyncInspector;
+import org.metawidget.inspector.iface.AsyncInspectorCallback;
 import org.metawidget.inspector.iface.DomInspector;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.inspector.iface.InspectorException;
@@ -45,13 +53,21 @@ import org.w3c.dom.Element;
  * CompositeInspector is that developers can replace it with their own version, with its own
  * combining algorithm, if required.
  * <p>
+ * CompositeInspector is also an <code>AsyncInspector</code>. Whether inspecting synchronously or
+ * asynchronously, it starts all its asynchronous sub-inspectors first, then runs its regular
+ * sub-inspectors while those are in flight. It combines all the results, in order, once the last
+ * one arrives. So wrapping slow sub-inspectors in an <code>AsyncInspectorAdapter</code> (with an
+ * <code>Executor</code>) overlaps them even for Metawidgets that inspect synchronously. Nested
+ * CompositeInspectors with no asynchronous sub-inspectors are treated as regular
+ * <code>DomInspectors</code>.
+ * <p>
  * Note: the name <em>Composite</em>Inspector refers to the Composite design pattern.
  *
  * @author Richard Kennard
  */
 
 public class CompositeInspector
-	implements DomInspector<Element> {
+	implements DomInspector<Element>, AsyncInspector {
 
 	//
 	// Private statics
@@ -65,6 +81,10 @@ public class CompositeInspector
 
 	/* package private */final Inspector[]	mInspectors;
 
+	private final boolean					mAsync;
+
+	private final int						mTimeout;
+
 	//
 	// Constructor
 	//
@@ -95,6 +115,18 @@ public class CompositeInspector
 
 			mInspectors[loop] = inspector;
 		}
+
+		boolean async = false;
+
+		for ( Inspector inspector : mInspectors ) {
+			if ( isAsync( inspector ) ) {
+				async = true;
+				break;
+			}
+		}
+
+		mAsync = async;
+		mTimeout = config.getTimeout();
 	}
 
 	//
@@ -165,37 +197,89 @@ public class CompositeInspector
 
 		try {
 			Document masterDocumentToUse = runInspectors( masterDocument, toInspect, type, names );
+			return getInspectionResult( masterDocumentToUse, toInspect, type, names );
+		} catch ( Exception e ) {
+			throw InspectorException.newException( e );
+		}
+	}
 
-			if ( masterDocumentToUse == null || !masterDocumentToUse.hasChildNodes() ) {
-				if ( toInspect != null && type != null && LOG.isWarnEnabled() ) {
-					LOG.warn( "No inspectors matched path == {0}{1}", type, ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ) );
-				}
+	public void inspect( final Object toInspect, final String type, final String[] names, final AsyncInspectorCallback<String> callback ) {
 
-				return null;
+		final Object[] inspectionResults = new Object[mInspectors.length];
+		final AtomicInteger remaining = new AtomicInteger( mInspectors.length );
+		final AtomicBoolean failed = new AtomicBoolean();
+
+		// Start the asynchronous Inspectors...
+
+		for ( int loop = 0, length = mInspectors.length; loop < length; loop++ ) {
+			Inspector inspector = mInspectors[loop];
+
+			if ( !isAsync( inspector ) ) {
+				continue;
 			}
 
-			// (debug)
+			final int index = loop;
+
+			( (AsyncInspector) inspector ).inspect( toInspect, type, names, new AsyncInspectorCallback<String>() {
+
+				public void onSuccess( String inspectionResult ) {
+
+					inspectionResults[index] = inspectionResult;
 
-			if ( LOG.isDebugEnabled() ) {
-				String formattedXml = XmlUtils.documentToString( masterDocumentToUse, true );
-				LOG.debug( "Inspected {0}{1}\r\n{2}", type, ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ), formattedXml );
+					if ( remaining.decrementAndGet() == 0 ) {
+						combineInspectionResults( inspectionResults, failed, toInspect, type, names, callback );
+					}
+				}
+
+				public void onFailure( Throwable caught ) {
+
+					if ( failed.compareAndSet( false, true ) ) {
+						callback.onFailure( caught );
+					}
+				}
+			} );
+		}
+
+		// ...run the regular Inspectors while they are in flight...
+
+		for ( int loop = 0, length = mInspectors.length; loop < length; loop++ ) {
+			Inspector inspector = mInspectors[loop];
+
+			if ( isAsync( inspector ) ) {
+				continue;
 			}
 
-			// (warn)
+			if ( failed.get() ) {
+				return;
+			}
 
-			Element root = masterDocumentToUse.getDocumentElement();
+			try {
+				inspectionResults[loop] = runInspector( inspector, toInspect, type, names );
+			} catch ( Exception e ) {
+				if ( failed.compareAndSet( false, true ) ) {
+					callback.onFailure( e );
+				}
 
-			if ( toInspect != null && type != null && LOG.isWarnEnabled() && !root.hasChildNodes() ) {
-				LOG.warn( "No inspectors matched path == {0}{1}", type, ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ) );
-				return root;
+				return;
 			}
 
-			return root;
-		} catch ( Exception e ) {
-			throw InspectorException.newException( e );
+			// ...and combine once the last one finishes
+
+			if ( remaining.decrementAndGet() == 0 ) {
+				combineInspectionResults( inspectionResults, failed, toInspect, type, names, callback );
+			}
 		}
 	}
 
+	/**
+	 * Only asynchronous if at least one sub-Inspector is.
+	 */
+
+	public boolean isAsync() {
+
+		return mAsync;
+	}
+
 	//
 	// Protected methods
 	//
@@ -209,12 +293,23 @@ public class CompositeInspector
 	protected Document runInspectors( Document masterDocument, Object toInspect, String type, String... names )
 		throws Exception {
 
+		if ( mAsync ) {
+			return runInspectorsConcurrently( masterDocument, toInspect, type, names );
+		}
+
 		Document masterDocumentToUse = masterDocument;
 
 		// Run each Inspector...
 
 		for ( Inspector inspector : mInspectors ) {
 
+			// ...(regular Inspectors can stream straight into an existing master)...
+
+			if ( masterDocumentToUse != null && masterDocumentToUse.hasChildNodes() && !( inspector instanceof DomInspector<?> ) ) {
+				masterDocumentToUse = runAndCombineInspector( masterDocumentToUse, inspector, toInspect, type, names );
+				continue;
+			}
+
 			// ...parse the result...
 
 			Document inspectionDocument = runInspector( inspector, toInspect, type, names );
@@ -255,6 +350,16 @@ public class CompositeInspector
 		// ...or just regular Inspector
 
 		String xml = inspector.inspect( toInspect, type, names );
+		return parseInspectionResult( inspector, xml, type, names );
+	}
+
+	/**
+	 * Parse the given XML, as returned by the given Inspector (either directly or through an
+	 * <code>AsyncInspectorCallback</code>).
+	 */
+
+	protected Document parseInspectionResult( Inspector inspector, String xml, String type, String... names )
+		throws Exception {
 
 		if ( xml == null ) {
 			return null;
@@ -264,6 +369,30 @@ public class CompositeInspector
 		return XmlUtils.documentFromString( xml );
 	}
 
+	/**
+	 * Run the given regular (ie. non-<code>DomInspector</code>) Inspector and combine its result
+	 * into the given, non-empty, master Document.
+	 * <p>
+	 * Rather than parsing the result into an interim Document and then combining that, this method
+	 * streams the result straight into the master. Subclasses that need the interim Document (such
+	 * as <code>ValidatingCompositeInspector</code>) can override this method to use
+	 * <code>runInspector</code> and <code>combineInspectionResult</code> instead.
+	 */
+
+	protected Document runAndCombineInspector( Document masterDocument, Inspector inspector, Object toInspect, String type, String... names )
+		throws Exception {
+
+		String xml = inspector.inspect( toInspect, type, names );
+
+		if ( xml == null ) {
+			return masterDocument;
+		}
+
+		LOG.trace( "{0} inspected {1}{2}\r\n{3}", inspector.getClass(), type, ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ), xml );
+		XmlUtils.combineElements( masterDocument.getDocumentElement(), xml, TYPE, NAME );
+		return masterDocument;
+	}
+
 	protected Document combineInspectionResult( Document masterDocument, Document inspectionDocument ) {
 
 		// Short circuit...
@@ -281,4 +410,181 @@ public class CompositeInspector
 		XmlUtils.combineElements( masterDocument.getDocumentElement(), inspectionDocument.getDocumentElement(), TYPE, NAME );
 		return masterDocument;
 	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Whether the given Inspector should be inspected asynchronously. AsyncInspectors that are not
+	 * actually asynchronous (such as nested CompositeInspectors with no asynchronous
+	 * sub-Inspectors) are better treated as regular Inspectors, so that their results can stay as
+	 * DOMs.
+	 */
+
+	private static boolean isAsync( Inspector inspector ) {
+
+		return ( inspector instanceof AsyncInspector && ( (AsyncInspector) inspector ).isAsync() );
+	}
+
+	/**
+	 * Start the asynchronous sub-Inspectors, run the regular ones while those are in flight, then
+	 * wait for the last one and combine all the results in order.
+	 */
+
+	private Document runInspectorsConcurrently( Document masterDocument, Object toInspect, String type, String... names )
+		throws Exception {
+
+		int length = mInspectors.length;
+		final Object[] inspectionResults = new Object[length];
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		int asyncInspectors = 0;
+
+		for ( Inspector inspector : mInspectors ) {
+			if ( isAsync( inspector ) ) {
+				asyncInspectors++;
+			}
+		}
+
+		final CountDownLatch remaining = new CountDownLatch( asyncInspectors );
+
+		// Start the asynchronous Inspectors...
+
+		for ( int loop = 0; loop < length; loop++ ) {
+			Inspector inspector = mInspectors[loop];
+
+			if ( !isAsync( inspector ) ) {
+				continue;
+			}
+
+			final int index = loop;
+
+			( (AsyncInspector) inspector ).inspect( toInspect, type, names, new AsyncInspectorCallback<String>() {
+
+				public void onSuccess( String inspectionResult ) {
+
+					inspectionResults[index] = inspectionResult;
+					remaining.countDown();
+				}
+
+				public void onFailure( Throwable caught ) {
+
+					failure.compareAndSet( null, caught );
+					remaining.countDown();
+				}
+			} );
+		}
+
+		// ...run the regular Inspectors while they are in flight...
+
+		for ( int loop = 0; loop < length; loop++ ) {
+			Inspector inspector = mInspectors[loop];
+
+			if ( !isAsync( inspector ) ) {
+				inspectionResults[loop] = runInspector( inspector, toInspect, type, names );
+			}
+		}
+
+		// ...wait for the last one...
+
+		if ( !remaining.await( mTimeout, TimeUnit.MILLISECONDS ) ) {
+			throw InspectorException.newException( "Timed out after " + mTimeout + " milliseconds waiting for asynchronous Inspectors to inspect " + type + ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ) );
+		}
+
+		if ( failure.get() != null ) {
+			throw InspectorException.newException( failure.get() );
+		}
+
+		// ...and combine them in order
+
+		Document masterDocumentToUse = masterDocument;
+
+		for ( int loop = 0; loop < length; loop++ ) {
+			Object inspectionResult = inspectionResults[loop];
+			Document inspectionDocument;
+
+			if ( inspectionResult instanceof String ) {
+				inspectionDocument = parseInspectionResult( mInspectors[loop], (String) inspectionResult, type, names );
+			} else {
+				inspectionDocument = (Document) inspectionResult;
+			}
+
+			masterDocumentToUse = combineInspectionResult( masterDocumentToUse, inspectionDocument );
+		}
+
+		return masterDocumentToUse;
+	}
+
+	private Element getInspectionResult( Document masterDocument, Object toInspect, String type, String... names ) {
+
+		if ( masterDocument == null || !masterDocument.hasChildNodes() ) {
+			if ( toInspect != null && type != null && LOG.isWarnEnabled() ) {
+				LOG.warn( "No inspectors matched path == {0}{1}", type, ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ) );
+			}
+
+			return null;
+		}
+
+		// (debug)
+
+		if ( LOG.isDebugEnabled() ) {
+			String formattedXml = XmlUtils.documentToString( masterDocument, true );
+			LOG.debug( "Inspected {0}{1}\r\n{2}", type, ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ), formattedXml );
+		}
+
+		// (warn)
+
+		Element root = masterDocument.getDocumentElement();
+
+		if ( toInspect != null && type != null && LOG.isWarnEnabled() && !root.hasChildNodes() ) {
+			LOG.warn( "No inspectors matched path == {0}{1}", type, ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ) );
+		}
+
+		return root;
+	}
+
+	/**
+	 * Combine the results of an asynchronous inspection, in the order of the sub-Inspectors.
+	 *
+	 * @param inspectionResults
+	 *            for each sub-Inspector, either a Document (from a regular Inspector) or a String
+	 *            (from an AsyncInspector), or null
+	 */
+
+	/* package private */void combineInspectionResults( Object[] inspectionResults, AtomicBoolean failed, Object toInspect, String type, String[] names, AsyncInspectorCallback<String> callback ) {
+
+		if ( failed.get() ) {
+			return;
+		}
+
+		String xml = null;
+
+		try {
+			Document masterDocument = null;
+
+			for ( int loop = 0, length = inspectionResults.length; loop < length; loop++ ) {
+				Object inspectionResult = inspectionResults[loop];
+				Document inspectionDocument;
+
+				if ( inspectionResult instanceof String ) {
+					inspectionDocument = parseInspectionResult( mInspectors[loop], (String) inspectionResult, type, names );
+				} else {
+					inspectionDocument = (Document) inspectionResult;
+				}
+
+				masterDocument = combineInspectionResult( masterDocument, inspectionDocument );
+			}
+
+			Element root = getInspectionResult( masterDocument, toInspect, type, names );
+
+			if ( root != null ) {
+				xml = XmlUtils.nodeToString( root, false );
+			}
+		} catch ( Exception e ) {
+			callback.onFailure( InspectorException.newException( e ) );
+			return;
+		}
+
+		callback.onSuccess( xml );
+	}
 }
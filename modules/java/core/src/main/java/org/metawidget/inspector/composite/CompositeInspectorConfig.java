@@ -33,6 +33,8 @@ public class CompositeInspectorConfig {
 
 	private Inspector[]	mInspectors;
 
+	private int			mTimeout	= 60000;
+
 	//
 	// Public methods
 	//
@@ -53,6 +55,20 @@ public class CompositeInspectorConfig {
 		return this;
 	}
 
+	/**
+	 * Sets how long, in milliseconds, the CompositeInspector will wait for its asynchronous
+	 * sub-Inspectors when inspecting synchronously. Defaults to 60 seconds.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public CompositeInspectorConfig setTimeout( int timeout ) {
+
+		mTimeout = timeout;
+
+		return this;
+	}
+
 	@Override
 	public boolean equals( Object that ) {
 
@@ -68,13 +84,21 @@ public class CompositeInspectorConfig {
 			return false;
 		}
 
+		if ( mTimeout != ( (CompositeInspectorConfig) that ).mTimeout ) {
+			return false;
+		}
+
 		return true;
 	}
 
 	@Override
 	public int hashCode() {
 
-		return ObjectUtils.nullSafeHashCode( mInspectors );
+		int hashCode = 1;
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mInspectors );
+		hashCode = 31 * hashCode + mTimeout;
+
+		return hashCode;
 	}
 
 	//
@@ -85,4 +109,9 @@ public class CompositeInspectorConfig {
 
 		return mInspectors;
 	}
+
+	protected int getTimeout() {
+
+		return mTimeout;
+	}
 }
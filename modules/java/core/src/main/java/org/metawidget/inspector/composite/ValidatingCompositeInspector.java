@@ -24,6 +24,7 @@ import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
+import org.metawidget.inspector.iface.DomInspector;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.inspector.iface.InspectorException;
 import org.w3c.dom.Document;
@@ -77,10 +78,45 @@ public class ValidatingCompositeInspector
 
 		Document document = super.runInspector( inspector, toInspect, type, names );
 
-		if ( document != null ) {
-			mSchema.newValidator().validate( new DOMSource( document ) );
+		// (results of regular Inspectors are validated by parseInspectionResult)
+
+		if ( inspector instanceof DomInspector<?> ) {
+			validate( document );
 		}
 
 		return document;
 	}
+
+	@Override
+	protected Document parseInspectionResult( Inspector inspector, String xml, String type, String... names )
+		throws Exception {
+
+		Document document = super.parseInspectionResult( inspector, xml, type, names );
+		validate( document );
+
+		return document;
+	}
+
+	/**
+	 * Overridden to always validate an interim Document, rather than streaming into the master.
+	 */
+
+	@Override
+	protected Document runAndCombineInspector( Document masterDocument, Inspector inspector, Object toInspect, String type, String... names )
+		throws Exception {
+
+		return combineInspectionResult( masterDocument, runInspector( inspector, toInspect, type, names ) );
+	}
+
+	//
+	// Private methods
+	//
+
+	private void validate( Document document )
+		throws Exception {
+
+		if ( document != null ) {
+			mSchema.newValidator().validate( new DOMSource( document ) );
+		}
+	}
 }
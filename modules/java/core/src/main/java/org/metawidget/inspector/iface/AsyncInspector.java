@@ -0,0 +1,67 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.iface;
+
+/**
+ * Inspector that can return its inspection result asynchronously.
+ * <p>
+ * <code>AsyncInspector</code> is an <em>optional</em> interface for Inspectors that spend most of
+ * their time waiting on I/O (such as a remote call, a remote schema or a database). It allows
+ * callers (such as <code>CompositeInspector</code> and <code>BasePipeline</code>) to overlap
+ * several inspections rather than being blocked by each in turn. In environments that cannot
+ * block at all (such as GWT's client-side JavaScript) it is the only way to inspect remotely.
+ * <p>
+ * Implementations may call the callback on any thread, including the calling thread before
+ * <code>inspect</code> returns. They must call it exactly once.
+ * <p>
+ * Existing, blocking Inspectors can be made asynchronous by wrapping them in an
+ * <code>AsyncInspectorAdapter</code>.
+ *
+ * @author Richard Kennard
+ */
+
+public interface AsyncInspector
+	extends Inspector {
+
+	//
+	// Methods
+	//
+
+	/**
+	 * Asynchronous version of <code>inspect</code>.
+	 * <p>
+	 * Uses <code>String[]</code> instead of <code>String...</code>, because the callback must be
+	 * the last argument.
+	 *
+	 * @param callback
+	 *            called with XML conforming to inspection-result-1.0.xsd (or null), or with the
+	 *            reason inspection failed
+	 */
+
+	void inspect( Object toInspect, String type, String[] names, AsyncInspectorCallback<String> callback );
+
+	/**
+	 * Whether the asynchronous version of <code>inspect</code> actually returns asynchronously.
+	 * <p>
+	 * Some AsyncInspectors only sometimes are (such as a <code>CompositeInspector</code> with no
+	 * asynchronous sub-inspectors). If this method returns false, callers should prefer the
+	 * synchronous methods, which avoid serializing the inspection result to a String (and, for a
+	 * <code>DomInspector</code>, re-parsing it).
+	 */
+
+	boolean isAsync();
+}
@@ -31,6 +31,7 @@ import org.metawidget.inspector.impl.propertystyle.PropertyStyle;
 import org.metawidget.inspector.impl.propertystyle.ValueAndDeclaredType;
 import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.ClassUtils;
+import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.LogUtils;
 import org.metawidget.util.LogUtils.Log;
 import org.metawidget.util.XmlUtils;
@@ -73,15 +74,15 @@ public abstract class BaseObjectInspector
 	// Protected members
 	//
 
-	protected final Log			mLog	= LogUtils.getLog( getClass() );
+	protected final Log						mLog	= LogUtils.getLog( getClass() );
 
 	//
 	// Private members
 	//
 
-	private final PropertyStyle	mPropertyStyle;
+	/* package private */final PropertyStyle	mPropertyStyle;
 
-	private final ActionStyle	mActionStyle;
+	/* package private */final ActionStyle		mActionStyle;
 
 	//
 	// Constructors
@@ -141,7 +142,8 @@ public abstract class BaseObjectInspector
 			Object childToInspect;
 			String childName;
 			String declaredChildType;
-			Map<String, String> parentAttributes;
+			Object parent = null;
+			Property propertyInParent = null;
 			boolean abortTraversingPastNull = false;
 
 			if ( toInspect != null ) {
@@ -169,14 +171,14 @@ public abstract class BaseObjectInspector
 				//
 				// Parent can be null if we are just traversing Classes (i.e. StaticPropertyStyle)
 
-				Object parent = valueAndDeclaredType.getValue();
+				parent = valueAndDeclaredType.getValue();
 
 				if ( parent != null ) {
 					parentType = parent.getClass().getName();
 				}
 
 				childName = names[names.length - 1];
-				Property propertyInParent = mPropertyStyle.getProperties( parentType ).get( childName );
+				propertyInParent = mPropertyStyle.getProperties( parentType ).get( childName );
 
 				// If the parent does not define such a property, something is wrong
 
@@ -185,7 +187,6 @@ public abstract class BaseObjectInspector
 				}
 
 				declaredChildType = propertyInParent.getType();
-				parentAttributes = inspectParent( parent, propertyInParent );
 
 				// Now step forward to the usual end of the path
 
@@ -214,7 +215,6 @@ public abstract class BaseObjectInspector
 				childToInspect = toInspect;
 				childName = null;
 				declaredChildType = type;
-				parentAttributes = null;
 
 				// Proceed even if childToInspect==null, given we know names.length==0
 				//
@@ -237,16 +237,12 @@ public abstract class BaseObjectInspector
 				actualChildType = childToInspect.getClass().getName();
 			}
 
-			XmlUtils.setMapAsAttributes( entity, inspectEntity( declaredChildType, actualChildType ) );
+			XmlUtils.setMapAsAttributes( entity, inspectEntityAndParent( declaredChildType, actualChildType, parent, propertyInParent ) );
 
 			if ( !abortTraversingPastNull ) {
 				inspectTraits( childToInspect, actualChildType, entity );
 			}
 
-			// Add parent attributes (if any)
-
-			XmlUtils.setMapAsAttributes( entity, parentAttributes );
-
 			// Nothing of consequence to return?
 
 			if ( isInspectionEmpty( entity ) ) {
@@ -512,6 +508,42 @@ public abstract class BaseObjectInspector
 	// Private methods
 	//
 
+	/**
+	 * Inspect the given entity and, if it has a parent property, the parent property. Attributes
+	 * from the parent property take precedence.
+	 * <p>
+	 * This method is package private so that <code>FusedObjectInspector</code> can control the
+	 * precedence across its sub-inspectors.
+	 *
+	 * @param propertyInParent
+	 *            the property in the parent that points to the entity, or null if there is no
+	 *            parent property
+	 */
+
+	/* package private */Map<String, String> inspectEntityAndParent( String declaredClass, String actualClass, Object parentToInspect, Property propertyInParent )
+		throws Exception {
+
+		Map<String, String> entityAttributes = inspectEntity( declaredClass, actualClass );
+
+		if ( propertyInParent == null ) {
+			return entityAttributes;
+		}
+
+		Map<String, String> parentAttributes = inspectParent( parentToInspect, propertyInParent );
+
+		if ( entityAttributes == null ) {
+			return parentAttributes;
+		}
+
+		if ( parentAttributes == null ) {
+			return entityAttributes;
+		}
+
+		Map<String, String> attributes = CollectionUtils.newHashMap( entityAttributes );
+		attributes.putAll( parentAttributes );
+		return attributes;
+	}
+
 	/**
 	 * Inspect the given property 'as an entity'.
 	 * <p>
@@ -522,7 +554,7 @@ public abstract class BaseObjectInspector
 	 * <code>inspectEntity</code>.
 	 */
 
-	private Map<String, String> inspectPropertyAsEntity( Property property, Object toInspect )
+	/* package private */Map<String, String> inspectPropertyAsEntity( Property property, Object toInspect )
 		throws Exception {
 
 		if ( !shouldInspectPropertyAsEntity( property ) ) {
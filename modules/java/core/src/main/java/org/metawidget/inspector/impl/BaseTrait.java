@@ -17,11 +17,16 @@
 package org.metawidget.inspector.impl;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.Map;
+
+import org.metawidget.util.CollectionUtils;
 
 /**
  * Convenience implementation for Traits.
  * <p>
- * Handles construction, and returning names.
+ * Handles construction, and returning names. Also provides support for subclasses that wish to
+ * snapshot their annotations (see <code>indexAnnotations</code>).
  *
  * @author Richard Kennard
  */
@@ -63,4 +68,51 @@ public abstract class BaseTrait
 
 		return mName;
 	}
+
+	//
+	// Protected statics
+	//
+
+	/**
+	 * Indexes the given arrays of annotations by their annotation type.
+	 * <p>
+	 * Traits are cached by <code>BaseTraitStyle</code> and shared between all
+	 * <code>BaseObjectInspector</code>s, each of which may call <code>getAnnotation</code> for
+	 * several annotation types. Subclasses can therefore read all their annotations once, index
+	 * them using this method, and answer <code>getAnnotation</code> with a single lookup.
+	 *
+	 * @param annotations
+	 *            arrays of annotations, in order of precedence. Where more than one array contains
+	 *            an annotation of the same type, the earlier array wins
+	 * @return an unmodifiable Map. Never null
+	 */
+
+	protected static Map<Class<? extends Annotation>, Annotation> indexAnnotations( Annotation[]... annotations ) {
+
+		Map<Class<? extends Annotation>, Annotation> index = null;
+
+		for ( Annotation[] annotationArray : annotations ) {
+
+			if ( annotationArray == null ) {
+				continue;
+			}
+
+			for ( Annotation annotation : annotationArray ) {
+
+				if ( index == null ) {
+					index = CollectionUtils.newHashMap();
+				} else if ( index.containsKey( annotation.annotationType() ) ) {
+					continue;
+				}
+
+				index.put( annotation.annotationType(), annotation );
+			}
+		}
+
+		if ( index == null ) {
+			return Collections.emptyMap();
+		}
+
+		return Collections.unmodifiableMap( index );
+	}
 }
@@ -18,10 +18,10 @@ package org.metawidget.inspector.impl;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.metawidget.util.ArrayUtils;
-import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.LogUtils;
 import org.metawidget.util.LogUtils.Log;
 
@@ -53,6 +53,10 @@ public abstract class BaseTraitStyle<T extends Trait> {
 	 * Note: the cache is unbounded, because the number of Classes in the system is fixed. This even
 	 * applies to hot deployment products such as FakeReplace, because new Classes are replaced such
 	 * that they <code>.equal()</code> their originals.
+	 * <p>
+	 * The cache is a <code>ConcurrentHashMap</code>, so that lookups do not contend on (or pin
+	 * lightweight request threads to) a monitor. Two threads missing the cache for the same type
+	 * at the same time may both look it up, but will arrive at equivalent results.
 	 */
 
 	/* package private */final Map<String, Map<String, T>>	mCache;
@@ -76,7 +80,7 @@ public abstract class BaseTraitStyle<T extends Trait> {
 	protected BaseTraitStyle( BaseTraitStyleConfig config ) {
 
 		if ( config.isCacheLookups() ) {
-			mCache = CollectionUtils.newHashMap();
+			mCache = new ConcurrentHashMap<String, Map<String, T>>();
 		} else {
 			mCache = null;
 		}
@@ -104,9 +108,7 @@ public abstract class BaseTraitStyle<T extends Trait> {
 			return;
 		}
 
-		synchronized ( mCache ) {
-			mCache.clear();
-		}
+		mCache.clear();
 	}
 
 	//
@@ -119,16 +121,14 @@ public abstract class BaseTraitStyle<T extends Trait> {
 			return getUncachedTraits( type );
 		}
 
-		synchronized ( mCache ) {
-			Map<String, T> traits = getCachedTraits( type );
+		Map<String, T> traits = getCachedTraits( type );
 
-			if ( traits == null ) {
-				traits = getUncachedTraits( type );
-				cacheTraits( type, traits );
-			}
-
-			return traits;
+		if ( traits == null ) {
+			traits = getUncachedTraits( type );
+			cacheTraits( type, traits );
 		}
+
+		return traits;
 	}
 
 	protected final Map<String, T> getCachedTraits( String type ) {
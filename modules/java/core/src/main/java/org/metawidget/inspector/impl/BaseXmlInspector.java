@@ -18,8 +18,11 @@ package org.metawidget.inspector.impl;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
+import java.io.File;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.metawidget.config.iface.ResourceResolver;
 import org.metawidget.inspector.iface.DomInspector;
@@ -29,6 +32,7 @@ import org.metawidget.inspector.impl.propertystyle.PropertyStyle;
 import org.metawidget.inspector.impl.propertystyle.ValueAndDeclaredType;
 import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.ClassUtils;
+import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.LogUtils;
 import org.metawidget.util.LogUtils.Log;
 import org.metawidget.util.XmlUtils;
@@ -110,7 +114,7 @@ public abstract class BaseXmlInspector
 	// Protected members
 	//
 
-	protected Log				mLog	= LogUtils.getLog( getClass() );
+	protected Log						mLog		= LogUtils.getLog( getClass() );
 
 	//
 	// Private members
@@ -126,11 +130,33 @@ public abstract class BaseXmlInspector
 	 * just invoking read operations".
 	 */
 
-	private Element				mRoot;
+	private Element						mRoot;
 
-	private final PropertyStyle	mRestrictAgainstObject;
+	/**
+	 * Guards <code>mRoot</code>. A <code>Lock</code> rather than a <code>synchronized</code> block,
+	 * so that request threads waiting on the shared DOM do not pin their carrier thread in
+	 * containers that use lightweight (virtual) threads.
+	 */
+
+	private final Lock					mRootLock	= new ReentrantLock();
+
+	/**
+	 * Children of <code>mRoot</code>, keyed by their <code>getTopLevelTypeAttribute</code>. Built
+	 * once at construction, so that inspections need not search <code>mRoot</code> for each type.
+	 */
+
+	private final Map<String, Element>	mTopLevelElements;
+
+	/**
+	 * Children of <code>mRoot</code>, keyed by their <code>getNameAttribute</code>. Used to resolve
+	 * <code>getReferenceAttribute</code>.
+	 */
+
+	private final Map<String, Element>	mNamedElements;
 
-	private final boolean		mInferInheritanceHierarchy;
+	private final PropertyStyle			mRestrictAgainstObject;
+
+	private final boolean				mInferInheritanceHierarchy;
 
 	//
 	// Constructor
@@ -150,7 +176,14 @@ public abstract class BaseXmlInspector
 			InputStream[] files = config.getInputStreams();
 
 			if ( files != null && files.length > 0 ) {
-				mRoot = getDocumentElement( config.getResourceResolver(), config.getInputStreams() );
+
+				String snapshotDirectory = config.getSnapshotDirectory();
+
+				if ( snapshotDirectory == null ) {
+					mRoot = getDocumentElement( config.getResourceResolver(), files );
+				} else {
+					mRoot = XmlSnapshot.getDocumentElement( this, new File( snapshotDirectory ), config.getResourceResolver(), files );
+				}
 			}
 
 			if ( mRoot == null ) {
@@ -163,6 +196,12 @@ public abstract class BaseXmlInspector
 				mLog.trace( XmlUtils.documentToString( mRoot.getOwnerDocument(), false ) );
 			}
 
+			// Index
+
+			indexDocumentElement( mRoot );
+			mTopLevelElements = indexChildren( mRoot, getTopLevelTypeAttribute() );
+			mNamedElements = indexChildren( mRoot, getNameAttribute() );
+
 			// restrictAgainstObject
 
 			mRestrictAgainstObject = config.getRestrictAgainstObject();
@@ -287,7 +326,9 @@ public abstract class BaseXmlInspector
 			//
 			// https://issues.apache.org/jira/browse/XERCESJ-727
 
-			synchronized ( mRoot ) {
+			mRootLock.lock();
+
+			try {
 
 				// If the path has a parent...
 
@@ -328,6 +369,8 @@ public abstract class BaseXmlInspector
 						return null;
 					}
 				}
+			} finally {
+				mRootLock.unlock();
 			}
 
 			Element root = document.createElementNS( NAMESPACE, ROOT );
@@ -357,6 +400,10 @@ public abstract class BaseXmlInspector
 
 	/**
 	 * Parse the given InputStreams into a single DOM Document, and return its root.
+	 * <p>
+	 * If <code>BaseXmlInspectorConfig.setSnapshotDirectory</code> is set, the result may be
+	 * snapshotted and reused on subsequent startups. Therefore the result should depend only on the
+	 * given InputStreams and on any resources opened through the given <code>resolver</code>.
 	 *
 	 * @param resolver
 	 *            helper in case <code>getDocumentElement</code> needs to resolve references defined
@@ -407,6 +454,23 @@ public abstract class BaseXmlInspector
 		// Do nothing by default
 	}
 
+	/**
+	 * Hook for subclasses to index the document once, at construction, so that later inspections
+	 * need not search it. Unlike <code>preprocessDocument</code>, this is called even when the
+	 * document was read from a snapshot.
+	 * <p>
+	 * Note: this is called from the constructor, so subclasses should assign their indexes here
+	 * rather than using field initializers (which would run afterwards).
+	 *
+	 * @param root
+	 *            the element returned by <code>getDocumentElement</code>
+	 */
+
+	protected void indexDocumentElement( Element root ) {
+
+		// Do nothing by default
+	}
+
 	/**
 	 * Inspect the <code>toInspect</code> for properties and actions.
 	 * <p>
@@ -574,8 +638,7 @@ public abstract class BaseXmlInspector
 
 		// Validate type
 
-		String topLevelTypeAttribute = getTopLevelTypeAttribute();
-		Element topLevelElement = XmlUtils.getChildWithAttributeValue( mRoot, topLevelTypeAttribute, typeToInspect );
+		Element topLevelElement = mTopLevelElements.get( typeToInspect );
 
 		if ( topLevelElement == null ) {
 
@@ -606,7 +669,7 @@ public abstract class BaseXmlInspector
 					break;
 				}
 
-				topLevelElement = XmlUtils.getChildWithAttributeValue( mRoot, topLevelTypeAttribute, actualClass.getName() );
+				topLevelElement = mTopLevelElements.get( actualClass.getName() );
 			}
 
 			if ( topLevelElement == null ) {
@@ -647,7 +710,7 @@ public abstract class BaseXmlInspector
 					}
 
 					String childExtends = elementWithNamedChildren.getAttribute( extendsAttribute );
-					elementWithNamedChildren = XmlUtils.getChildWithAttributeValue( mRoot, topLevelTypeAttribute, childExtends );
+					elementWithNamedChildren = mTopLevelElements.get( childExtends );
 
 					if ( elementWithNamedChildren == null ) {
 						break;
@@ -671,7 +734,7 @@ public abstract class BaseXmlInspector
 					return new ValueAndDeclaredType( null, null );
 				}
 
-				property = XmlUtils.getChildWithAttributeValue( mRoot, nameAttribute, name );
+				property = mNamedElements.get( name );
 			}
 
 			if ( property == null ) {
@@ -707,7 +770,7 @@ public abstract class BaseXmlInspector
 
 			// Traverse to new top-level element of the given declaredType
 
-			topLevelElement = XmlUtils.getChildWithAttributeValue( mRoot, topLevelTypeAttribute, declaredType );
+			topLevelElement = mTopLevelElements.get( declaredType );
 
 			if ( topLevelElement == null ) {
 				return new ValueAndDeclaredType( null, declaredType );
@@ -789,4 +852,31 @@ public abstract class BaseXmlInspector
 
 		return topLevel;
 	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Index the child elements of the given element by the given attribute. Where more than one
+	 * child has the same value, the first wins (as per <code>XmlUtils.getChildWithAttributeValue</code>).
+	 */
+
+	private static Map<String, Element> indexChildren( Element element, String attributeName ) {
+
+		Map<String, Element> index = CollectionUtils.newHashMap();
+		Element child = XmlUtils.getFirstChildElement( element );
+
+		while ( child != null ) {
+			String attributeValue = child.getAttribute( attributeName );
+
+			if ( !index.containsKey( attributeValue ) ) {
+				index.put( attributeValue, child );
+			}
+
+			child = XmlUtils.getNextSiblingElement( child );
+		}
+
+		return index;
+	}
 }
@@ -0,0 +1,270 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.util.Map;
+
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.inspector.impl.actionstyle.Action;
+import org.metawidget.inspector.impl.propertystyle.Property;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.XmlUtils;
+import org.metawidget.util.simple.ObjectUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Fuses several <code>BaseObjectInspector</code>s into a single pass over an object's properties
+ * and actions.
+ * <p>
+ * When several <code>BaseObjectInspector</code>s are combined using a
+ * <code>CompositeInspector</code>, each one separately traverses to the object, looks up its
+ * properties, loops over them and produces its own DOM, which <code>CompositeInspector</code> then
+ * merges. <code>FusedObjectInspector</code> instead traverses once, looks up the properties once,
+ * and for each property invokes every sub-Inspector's <code>inspectTrait</code>,
+ * <code>inspectProperty</code> and <code>inspectAction</code>, writing all attributes into a
+ * single DOM.
+ * <p>
+ * Attributes are combined as <code>CompositeInspector</code> would: attributes from later
+ * sub-Inspectors override those from earlier ones. Properties and actions are ordered as returned
+ * by the <code>PropertyStyle</code> and <code>ActionStyle</code>. This is the same as
+ * <code>CompositeInspector</code> provided the first sub-Inspector returns every property (as
+ * <code>PropertyTypeInspector</code> does).
+ * <p>
+ * All sub-Inspectors must share the same <code>PropertyStyle</code> and <code>ActionStyle</code>
+ * (<code>ConfigReader</code> ensures this for identically configured styles), and must not
+ * override <code>inspectAsDom</code> or <code>inspectTraits</code>. A
+ * <code>FusedObjectInspector</code> can itself be placed inside a <code>CompositeInspector</code>
+ * alongside other kinds of Inspector.
+ *
+ * @author Richard Kennard
+ */
+
+public class FusedObjectInspector
+	extends BaseObjectInspector {
+
+	//
+	// Private members
+	//
+
+	/* package private */final BaseObjectInspector[]	mInspectors;
+
+	//
+	// Constructor
+	//
+
+	public FusedObjectInspector( FusedObjectInspectorConfig config ) {
+
+		super( newBaseObjectInspectorConfig( config.getInspectors() ) );
+
+		BaseObjectInspector[] inspectors = config.getInspectors();
+
+		// Defensive copy
+
+		mInspectors = new BaseObjectInspector[inspectors.length];
+
+		for ( int loop = 0, length = inspectors.length; loop < length; loop++ ) {
+			BaseObjectInspector inspector = inspectors[loop];
+
+			for ( int checkDuplicates = 0; checkDuplicates < loop; checkDuplicates++ ) {
+				if ( mInspectors[checkDuplicates].equals( inspector ) ) {
+					throw InspectorException.newException( "FusedObjectInspector's list of Inspectors contains two of the same " + inspector.getClass().getName() );
+				}
+			}
+
+			if ( !ObjectUtils.nullSafeEquals( mPropertyStyle, inspector.mPropertyStyle ) ) {
+				throw InspectorException.newException( "FusedObjectInspector's Inspectors must share the same PropertyStyle, but " + inspector.getClass().getName() + " uses " + inspector.mPropertyStyle );
+			}
+
+			if ( !ObjectUtils.nullSafeEquals( mActionStyle, inspector.mActionStyle ) ) {
+				throw InspectorException.newException( "FusedObjectInspector's Inspectors must share the same ActionStyle, but " + inspector.getClass().getName() + " uses " + inspector.mActionStyle );
+			}
+
+			if ( overridesTraversal( inspector.getClass() ) ) {
+				throw InspectorException.newException( inspector.getClass().getName() + " overrides inspectAsDom or inspectTraits, so cannot be fused" );
+			}
+
+			mInspectors[loop] = inspector;
+		}
+	}
+
+	//
+	// Protected methods
+	//
+
+	@Override
+	protected void inspectTraits( Object toInspect, String type, Element toAddTo )
+		throws Exception {
+
+		Document document = toAddTo.getOwnerDocument();
+
+		// Inspect properties
+
+		for ( Property property : getProperties( type ).values() ) {
+
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+			boolean inspected = false;
+
+			for ( BaseObjectInspector inspector : mInspectors ) {
+				Map<String, String> traitAttributes = inspector.inspectTrait( property );
+				Map<String, String> propertyAttributes = inspector.inspectProperty( property );
+				Map<String, String> entityAttributes = inspector.inspectPropertyAsEntity( property, toInspect );
+
+				if ( ( traitAttributes == null || traitAttributes.isEmpty() ) && ( propertyAttributes == null || propertyAttributes.isEmpty() ) && ( entityAttributes == null || entityAttributes.isEmpty() ) ) {
+					continue;
+				}
+
+				inspected = true;
+				Map<String, String> inspectorAttributes = CollectionUtils.newHashMap();
+				putAttributes( inspectorAttributes, traitAttributes );
+				putAttributes( inspectorAttributes, propertyAttributes );
+				putAttributes( inspectorAttributes, entityAttributes );
+				attributes.putAll( inspectorAttributes );
+			}
+
+			if ( !inspected ) {
+				continue;
+			}
+
+			Element element = document.createElementNS( NAMESPACE, PROPERTY );
+			element.setAttribute( NAME, property.getName() );
+			XmlUtils.setMapAsAttributes( element, attributes );
+			toAddTo.appendChild( element );
+		}
+
+		// Inspect actions
+
+		for ( Action action : getActions( type ).values() ) {
+
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+			boolean inspected = false;
+
+			for ( BaseObjectInspector inspector : mInspectors ) {
+				Map<String, String> traitAttributes = inspector.inspectTrait( action );
+				Map<String, String> actionAttributes = inspector.inspectAction( action );
+
+				if ( ( traitAttributes == null || traitAttributes.isEmpty() ) && ( actionAttributes == null || actionAttributes.isEmpty() ) ) {
+					continue;
+				}
+
+				inspected = true;
+				Map<String, String> inspectorAttributes = CollectionUtils.newHashMap();
+				putAttributes( inspectorAttributes, traitAttributes );
+				putAttributes( inspectorAttributes, actionAttributes );
+				attributes.putAll( inspectorAttributes );
+			}
+
+			if ( !inspected ) {
+				continue;
+			}
+
+			Element element = document.createElementNS( NAMESPACE, ACTION );
+			element.setAttribute( NAME, action.getName() );
+			XmlUtils.setMapAsAttributes( element, attributes );
+			toAddTo.appendChild( element );
+		}
+	}
+
+	//
+	// Private methods
+	//
+
+	@Override
+	/* package private */Map<String, String> inspectEntityAndParent( String declaredClass, String actualClass, Object parentToInspect, Property propertyInParent )
+		throws Exception {
+
+		Map<String, String> attributes = CollectionUtils.newHashMap();
+
+		for ( BaseObjectInspector inspector : mInspectors ) {
+			Map<String, String> inspectorAttributes = CollectionUtils.newHashMap();
+			putAttributes( inspectorAttributes, inspector.inspectEntityAndParent( declaredClass, actualClass, parentToInspect, propertyInParent ) );
+			attributes.putAll( inspectorAttributes );
+		}
+
+		return attributes;
+	}
+
+	//
+	// Private statics
+	//
+
+	private static BaseObjectInspectorConfig newBaseObjectInspectorConfig( BaseObjectInspector[] inspectors ) {
+
+		if ( inspectors == null || inspectors.length == 0 ) {
+			throw InspectorException.newException( "FusedObjectInspector needs at least one Inspector" );
+		}
+
+		BaseObjectInspectorConfig config = new BaseObjectInspectorConfig();
+		config.setPropertyStyle( inspectors[0].mPropertyStyle );
+		config.setActionStyle( inspectors[0].mActionStyle );
+
+		return config;
+	}
+
+	/**
+	 * Puts the given attributes of a sub-Inspector into the given Map.
+	 * <p>
+	 * Within a sub-Inspector, a <code>null</code> value removes an attribute (as
+	 * <code>XmlUtils.setMapAsAttributes</code> would). Across sub-Inspectors, attributes are only
+	 * ever overridden, never removed (as <code>XmlUtils.combineElements</code> would), so callers
+	 * put each sub-Inspector's attributes into their own Map before combining them.
+	 */
+
+	private static void putAttributes( Map<String, String> inspectorAttributes, Map<String, String> attributes ) {
+
+		if ( attributes == null ) {
+			return;
+		}
+
+		for ( Map.Entry<String, String> entry : attributes.entrySet() ) {
+
+			if ( entry.getValue() == null ) {
+				inspectorAttributes.remove( entry.getKey() );
+			} else {
+				inspectorAttributes.put( entry.getKey(), entry.getValue() );
+			}
+		}
+	}
+
+	private static boolean overridesTraversal( Class<?> inspectorClass ) {
+
+		Class<?> currentClass = inspectorClass;
+
+		while ( !BaseObjectInspector.class.equals( currentClass ) ) {
+
+			try {
+				currentClass.getDeclaredMethod( "inspectAsDom", Object.class, String.class, String[].class );
+				return true;
+			} catch ( NoSuchMethodException e ) {
+				// Not overridden at this level
+			}
+
+			try {
+				currentClass.getDeclaredMethod( "inspectTraits", Object.class, String.class, Element.class );
+				return true;
+			} catch ( NoSuchMethodException e ) {
+				// Not overridden at this level
+			}
+
+			currentClass = currentClass.getSuperclass();
+		}
+
+		return false;
+	}
+}
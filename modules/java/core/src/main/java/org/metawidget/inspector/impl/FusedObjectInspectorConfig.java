@@ -0,0 +1,88 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl;
+
+import org.metawidget.util.simple.ObjectUtils;
+
+/**
+ * Configures a FusedObjectInspector prior to use. Once instantiated, Inspectors are immutable.
+ *
+ * @author Richard Kennard
+ */
+
+public class FusedObjectInspectorConfig {
+
+	//
+	// Private members
+	//
+
+	private BaseObjectInspector[]	mInspectors;
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Sets the sub-Inspectors the FusedObjectInspector will call.
+	 * <p>
+	 * Inspectors will be called in order, and must all share the same <code>PropertyStyle</code>
+	 * and <code>ActionStyle</code>. As with <code>CompositeInspector</code>, attributes from later
+	 * Inspectors override those from earlier ones.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public FusedObjectInspectorConfig setInspectors( BaseObjectInspector... inspectors ) {
+
+		mInspectors = inspectors;
+
+		return this;
+	}
+
+	@Override
+	public boolean equals( Object that ) {
+
+		if ( this == that ) {
+			return true;
+		}
+
+		if ( !ObjectUtils.nullSafeClassEquals( this, that ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mInspectors, ( (FusedObjectInspectorConfig) that ).mInspectors ) ) {
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+
+		return ObjectUtils.nullSafeHashCode( mInspectors );
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected BaseObjectInspector[] getInspectors() {
+
+		return mInspectors;
+	}
+}
@@ -0,0 +1,538 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+
+import org.metawidget.config.iface.ResourceResolver;
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.IOUtils;
+import org.metawidget.util.LogUtils;
+import org.metawidget.util.LogUtils.Log;
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Snapshots of the merged, preprocessed XML built by <code>BaseXmlInspector.getDocumentElement</code>.
+ * <p>
+ * A snapshot is keyed by a hash of the Inspector class and its input files. It also records the
+ * hash of every resource opened through the <code>ResourceResolver</code> while it was built (such
+ * as the mapping files referenced by a <code>hibernate.cfg.xml</code>), so that changing any of
+ * those resources invalidates it.
+ * <p>
+ * Snapshots use a compact binary format (a string table plus a depth-first walk of the DOM) rather
+ * than XML, so that they can be rebuilt without going through an XML parser and without repeating
+ * <code>preprocessDocument</code>. Java serialization is not used, because DOM implementations are
+ * not required to be <code>Serializable</code>.
+ *
+ * @author Richard Kennard
+ */
+
+/* package private */final class XmlSnapshot {
+
+	//
+	// Public statics
+	//
+
+	/**
+	 * Returns the document element for the given inspector and input files, either from an
+	 * up-to-date snapshot in the given directory or by calling
+	 * <code>inspector.getDocumentElement</code> (and then writing a new snapshot).
+	 * <p>
+	 * Problems reading or writing snapshots are logged, never thrown: the worst case is always just
+	 * parsing the XML as normal.
+	 */
+
+	public static Element getDocumentElement( BaseXmlInspector inspector, File directory, ResourceResolver resolver, InputStream... files )
+		throws Exception {
+
+		// Read the input files, so that they can be both hashed and (if necessary) parsed
+
+		MessageDigest digest = MessageDigest.getInstance( DIGEST_ALGORITHM );
+		digest.update( inspector.getClass().getName().getBytes( ENCODING ) );
+
+		InputStream[] bufferedFiles = new InputStream[files.length];
+
+		for ( int loop = 0, length = files.length; loop < length; loop++ ) {
+
+			byte[] bytes = readFully( files[loop] );
+			digest.update( String.valueOf( bytes.length ).getBytes( ENCODING ) );
+			digest.update( bytes );
+			bufferedFiles[loop] = new ByteArrayInputStream( bytes );
+		}
+
+		File snapshot = new File( directory, inspector.getClass().getName() + '-' + toHex( digest.digest() ) + SNAPSHOT_EXTENSION );
+
+		// Up-to-date snapshot?
+
+		if ( snapshot.exists() ) {
+
+			try {
+				Element root = read( snapshot, resolver );
+
+				if ( root != null ) {
+					LOG.debug( "Read snapshot {0}", snapshot );
+					return root;
+				}
+
+				LOG.debug( "Snapshot {0} is out of date", snapshot );
+			} catch ( Exception e ) {
+				LOG.warn( "Unable to read snapshot {0}: {1}", snapshot, e.getMessage() );
+			}
+		}
+
+		// Parse as normal, recording every resource opened along the way
+
+		RecordingResourceResolver recordingResolver = new RecordingResourceResolver( resolver );
+		Element root = inspector.getDocumentElement( recordingResolver, bufferedFiles );
+
+		if ( root != null ) {
+
+			try {
+				write( snapshot, recordingResolver.getResources(), root );
+			} catch ( Exception e ) {
+				LOG.warn( "Unable to write snapshot {0}: {1}", snapshot, e.getMessage() );
+			}
+		}
+
+		return root;
+	}
+
+	//
+	// Private statics
+	//
+
+	private static final Log	LOG					= LogUtils.getLog( XmlSnapshot.class );
+
+	private static final String	SNAPSHOT_EXTENSION	= ".snapshot";
+
+	private static final String	DIGEST_ALGORITHM	= "SHA-1";
+
+	private static final String	ENCODING			= "UTF-8";
+
+	/**
+	 * Written at the start of every snapshot. Bump <code>VERSION</code> whenever the format
+	 * changes, so that old snapshots are treated as out of date rather than misread.
+	 */
+
+	private static final int	MAGIC				= 0x4d575853;
+
+	private static final int	VERSION				= 1;
+
+	private static final int	NULL_STRING			= -1;
+
+	private static final int	NEW_STRING			= -2;
+
+	private static final byte	END					= 0;
+
+	private static final byte	ELEMENT				= 1;
+
+	private static final byte	NAMESPACED_ELEMENT	= 2;
+
+	private static final byte	TEXT				= 3;
+
+	/**
+	 * Reads the given snapshot, or returns <code>null</code> if any of the resources it was built
+	 * from have since changed.
+	 */
+
+	private static Element read( File snapshot, ResourceResolver resolver )
+		throws Exception {
+
+		DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( snapshot ) ) );
+
+		try {
+			if ( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+				return null;
+			}
+
+			List<String> strings = CollectionUtils.newArrayList();
+
+			// Resources still the same?
+
+			for ( int loop = 0, length = in.readInt(); loop < length; loop++ ) {
+
+				String resource = readString( in, strings );
+				String hash = readString( in, strings );
+
+				if ( !hash.equals( hash( readFully( resolver.openResource( resource ) ) ) ) ) {
+					return null;
+				}
+			}
+
+			// Path from the document element to the element getDocumentElement returned
+
+			int[] path = new int[in.readInt()];
+
+			for ( int loop = 0, length = path.length; loop < length; loop++ ) {
+				path[loop] = in.readInt();
+			}
+
+			// Tree
+
+			Document document = XmlUtils.newDocument();
+			Element root = readElement( in, strings, document, in.readByte() );
+			document.appendChild( root );
+
+			for ( int index : path ) {
+				root = getChildElementAt( root, index );
+			}
+
+			return root;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void write( File snapshot, Map<String, String> resources, Element root )
+		throws IOException {
+
+		// Write to a temporary file first, so that a snapshot is never half-written
+
+		File temporary = new File( snapshot.getPath() + ".tmp" );
+		DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temporary ) ) );
+
+		try {
+			out.writeInt( MAGIC );
+			out.writeInt( VERSION );
+
+			Map<String, Integer> strings = CollectionUtils.newHashMap();
+
+			out.writeInt( resources.size() );
+
+			for ( Map.Entry<String, String> entry : resources.entrySet() ) {
+				writeString( out, strings, entry.getKey() );
+				writeString( out, strings, entry.getValue() );
+			}
+
+			// Some subclasses (eg. WsdlInspector) return an element nested inside the document, so
+			// record its path as well as the whole document
+
+			List<Integer> path = CollectionUtils.newArrayList();
+			Element documentElement = root.getOwnerDocument().getDocumentElement();
+
+			for ( Node node = root; node != documentElement; node = node.getParentNode() ) {
+				path.add( 0, getChildElementIndex( (Element) node ) );
+			}
+
+			out.writeInt( path.size() );
+
+			for ( int index : path ) {
+				out.writeInt( index );
+			}
+
+			writeElement( out, strings, documentElement );
+		} finally {
+			out.close();
+		}
+
+		if ( !snapshot.delete() && snapshot.exists() ) {
+			throw InspectorException.newException( "Unable to replace " + snapshot );
+		}
+
+		if ( !temporary.renameTo( snapshot ) ) {
+			throw InspectorException.newException( "Unable to rename " + temporary );
+		}
+	}
+
+	private static Element readElement( DataInputStream in, List<String> strings, Document document, byte kind )
+		throws IOException {
+
+		boolean namespaced = ( kind == NAMESPACED_ELEMENT );
+		Element element;
+
+		if ( namespaced ) {
+			String namespace = readString( in, strings );
+			element = document.createElementNS( namespace, readString( in, strings ) );
+		} else {
+			element = document.createElement( readString( in, strings ) );
+		}
+
+		for ( int loop = 0, length = in.readInt(); loop < length; loop++ ) {
+
+			if ( namespaced ) {
+				String namespace = readString( in, strings );
+				String name = readString( in, strings );
+				element.setAttributeNS( namespace, name, readString( in, strings ) );
+			} else {
+				String name = readString( in, strings );
+				element.setAttribute( name, readString( in, strings ) );
+			}
+		}
+
+		for ( byte childKind = in.readByte(); childKind != END; childKind = in.readByte() ) {
+
+			if ( childKind == TEXT ) {
+				element.appendChild( document.createTextNode( readString( in, strings ) ) );
+			} else {
+				element.appendChild( readElement( in, strings, document, childKind ) );
+			}
+		}
+
+		return element;
+	}
+
+	private static void writeElement( DataOutputStream out, Map<String, Integer> strings, Element element )
+		throws IOException {
+
+		// Elements created with createElement (as opposed to createElementNS) have no local name
+
+		boolean namespaced = ( element.getLocalName() != null );
+
+		if ( namespaced ) {
+			out.writeByte( NAMESPACED_ELEMENT );
+			writeString( out, strings, element.getNamespaceURI() );
+		} else {
+			out.writeByte( ELEMENT );
+		}
+
+		writeString( out, strings, element.getNodeName() );
+
+		NamedNodeMap attributes = element.getAttributes();
+		out.writeInt( attributes.getLength() );
+
+		for ( int loop = 0, length = attributes.getLength(); loop < length; loop++ ) {
+
+			Node attribute = attributes.item( loop );
+
+			if ( namespaced ) {
+				writeString( out, strings, attribute.getNamespaceURI() );
+			}
+
+			writeString( out, strings, attribute.getNodeName() );
+			writeString( out, strings, attribute.getNodeValue() );
+		}
+
+		NodeList children = element.getChildNodes();
+
+		for ( int loop = 0, length = children.getLength(); loop < length; loop++ ) {
+
+			Node child = children.item( loop );
+
+			switch ( child.getNodeType() ) {
+
+				case Node.ELEMENT_NODE:
+					writeElement( out, strings, (Element) child );
+					break;
+
+				case Node.TEXT_NODE:
+				case Node.CDATA_SECTION_NODE:
+					out.writeByte( TEXT );
+					writeString( out, strings, child.getNodeValue() );
+					break;
+
+				default:
+					// Comments and processing instructions are not needed by Inspectors
+			}
+		}
+
+		out.writeByte( END );
+	}
+
+	/**
+	 * Reads a String, either inline or as a reference to one read earlier.
+	 */
+
+	private static String readString( DataInputStream in, List<String> strings )
+		throws IOException {
+
+		int index = in.readInt();
+
+		if ( index == NULL_STRING ) {
+			return null;
+		}
+
+		if ( index != NEW_STRING ) {
+			return strings.get( index );
+		}
+
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully( bytes );
+		String value = new String( bytes, ENCODING );
+		strings.add( value );
+
+		return value;
+	}
+
+	/**
+	 * Writes a String, either inline or (if it has been written before) as a reference. Element
+	 * names, attribute names and whitespace repeat heavily, so this keeps snapshots small.
+	 * <p>
+	 * Note: <code>DataOutputStream.writeUTF</code> is not used, as it is limited to 64K.
+	 */
+
+	private static void writeString( DataOutputStream out, Map<String, Integer> strings, String value )
+		throws IOException {
+
+		if ( value == null ) {
+			out.writeInt( NULL_STRING );
+			return;
+		}
+
+		Integer index = strings.get( value );
+
+		if ( index != null ) {
+			out.writeInt( index );
+			return;
+		}
+
+		strings.put( value, strings.size() );
+
+		byte[] bytes = value.getBytes( ENCODING );
+		out.writeInt( NEW_STRING );
+		out.writeInt( bytes.length );
+		out.write( bytes );
+	}
+
+	private static int getChildElementIndex( Element element ) {
+
+		int index = 0;
+
+		for ( Node sibling = element.getPreviousSibling(); sibling != null; sibling = sibling.getPreviousSibling() ) {
+
+			if ( sibling instanceof Element ) {
+				index++;
+			}
+		}
+
+		return index;
+	}
+
+	private static Element getChildElementAt( Element parent, int index ) {
+
+		Element child = XmlUtils.getFirstChildElement( parent );
+
+		for ( int loop = 0; loop < index; loop++ ) {
+			child = XmlUtils.getNextSiblingElement( child );
+		}
+
+		return child;
+	}
+
+	/**
+	 * Reads the given stream fully, then closes it.
+	 */
+
+	private static byte[] readFully( InputStream stream ) {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		IOUtils.streamBetween( stream, out );
+
+		return out.toByteArray();
+	}
+
+	private static String hash( byte[] bytes )
+		throws Exception {
+
+		MessageDigest digest = MessageDigest.getInstance( DIGEST_ALGORITHM );
+		digest.update( bytes );
+
+		return toHex( digest.digest() );
+	}
+
+	private static String toHex( byte[] bytes ) {
+
+		StringBuilder builder = new StringBuilder();
+
+		for ( byte b : bytes ) {
+			builder.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) );
+			builder.append( Character.forDigit( b & 0xF, 16 ) );
+		}
+
+		return builder.toString();
+	}
+
+	//
+	// Private constructor
+	//
+
+	private XmlSnapshot() {
+
+		// Can never be called
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * ResourceResolver that records the hash of every resource it opens.
+	 */
+
+	private static class RecordingResourceResolver
+		implements ResourceResolver {
+
+		//
+		// Private members
+		//
+
+		private ResourceResolver	mResourceResolver;
+
+		private Map<String, String>	mResources	= CollectionUtils.newLinkedHashMap();
+
+		//
+		// Constructor
+		//
+
+		public RecordingResourceResolver( ResourceResolver resourceResolver ) {
+
+			mResourceResolver = resourceResolver;
+		}
+
+		//
+		// Public methods
+		//
+
+		public InputStream openResource( String resource ) {
+
+			// Read the resource fully, so that it can be both hashed and returned
+
+			byte[] bytes = readFully( mResourceResolver.openResource( resource ) );
+
+			try {
+				mResources.put( resource, hash( bytes ) );
+			} catch ( Exception e ) {
+				throw InspectorException.newException( e );
+			}
+
+			return new ByteArrayInputStream( bytes );
+		}
+
+		public Map<String, String> getResources() {
+
+			return mResources;
+		}
+	}
+}
@@ -22,6 +22,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.text.MessageFormat;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -453,7 +454,13 @@ public class JavaBeanPropertyStyle
 		// Private methods
 		//
 
-		private Field	mField;
+		private Field											mField;
+
+		/**
+		 * Snapshot of annotations, indexed by type. Lazily initialized.
+		 */
+
+		private volatile Map<Class<? extends Annotation>, Annotation>	mAnnotations;
 
 		//
 		// Constructor
@@ -500,7 +507,14 @@ public class JavaBeanPropertyStyle
 
 		public <T extends Annotation> T getAnnotation( Class<T> annotation ) {
 
-			return mField.getAnnotation( annotation );
+			Map<Class<? extends Annotation>, Annotation> annotations = mAnnotations;
+
+			if ( annotations == null ) {
+				annotations = indexAnnotations( mField.getAnnotations() );
+				mAnnotations = annotations;
+			}
+
+			return annotation.cast( annotations.get( annotation ) );
 		}
 
 		public String getGenericType() {
@@ -529,11 +543,18 @@ public class JavaBeanPropertyStyle
 		// Private methods
 		//
 
-		private Method	mReadMethod;
+		private Method											mReadMethod;
+
+		private Method											mWriteMethod;
 
-		private Method	mWriteMethod;
+		private Field											mPrivateField;
 
-		private Field	mPrivateField;
+		/**
+		 * Snapshot of annotations across the getter, setter and private field, indexed by type.
+		 * Lazily initialized.
+		 */
+
+		private volatile Map<Class<? extends Annotation>, Annotation>	mAnnotations;
 
 		//
 		// Constructor
@@ -593,35 +614,25 @@ public class JavaBeanPropertyStyle
 			}
 		}
 
-		public <T extends Annotation> T getAnnotation( Class<T> annotationClass ) {
-
-			if ( mReadMethod != null ) {
-				T annotation = ClassUtils.getOriginalAnnotation( mReadMethod, annotationClass );
-
-				if ( annotation != null ) {
-					return annotation;
-				}
-			}
-
-			if ( mWriteMethod != null ) {
-				T annotation = ClassUtils.getOriginalAnnotation( mWriteMethod, annotationClass );
-
-				if ( annotation != null ) {
-					return annotation;
-				}
-			}
+		/**
+		 * Gets the given annotation from the getter, the setter or the private field (in that
+		 * order of precedence).
+		 * <p>
+		 * All annotations are read once and indexed, so subsequent lookups (for example by the
+		 * several annotation-based <code>Inspectors</code> in a <code>CompositeInspector</code>)
+		 * do not use reflection.
+		 */
 
-			if ( mPrivateField != null ) {
-				T annotation = mPrivateField.getAnnotation( annotationClass );
+		public <T extends Annotation> T getAnnotation( Class<T> annotationClass ) {
 
-				if ( annotation != null ) {
-					return annotation;
-				}
+			Map<Class<? extends Annotation>, Annotation> annotations = mAnnotations;
 
-				return null;
+			if ( annotations == null ) {
+				annotations = indexAnnotations( getOriginalAnnotations( mReadMethod ), getOriginalAnnotations( mWriteMethod ), ( mPrivateField == null ) ? null : mPrivateField.getAnnotations() );
+				mAnnotations = annotations;
 			}
 
-			return null;
+			return annotationClass.cast( annotations.get( annotationClass ) );
 		}
 
 		public String getGenericType() {
@@ -646,5 +657,19 @@ public class JavaBeanPropertyStyle
 
 			return mWriteMethod;
 		}
+
+		//
+		// Private methods
+		//
+
+		private Annotation[] getOriginalAnnotations( Method method ) {
+
+			if ( method == null ) {
+				return null;
+			}
+
+			Collection<Annotation> annotations = ClassUtils.getOriginalAnnotations( method ).values();
+			return annotations.toArray( new Annotation[annotations.size()] );
+		}
 	}
 }
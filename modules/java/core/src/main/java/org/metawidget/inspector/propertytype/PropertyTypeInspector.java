@@ -19,9 +19,14 @@ package org.metawidget.inspector.propertytype;
 import static org.metawidget.inspector.InspectionResultConstants.*;
 import static org.metawidget.inspector.propertytype.PropertyTypeInspectionResultConstants.*;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.metawidget.inspector.impl.BaseObjectInspector;
 import org.metawidget.inspector.impl.BaseObjectInspectorConfig;
@@ -39,6 +44,11 @@ import org.metawidget.util.CollectionUtils;
  * <code>JavaBeanPropertyStyle</code> (the default) this is 'alphabetical by name'. Most clients
  * will want to refine this by using, say, <code>UiComesAfter</code> and
  * MetawidgetAnnotationInspector.
+ * <p>
+ * Attributes that depend only on a property's declaration (its getter, setter and generic type)
+ * and lookups that depend only on a class (Booleans and enums) are computed once and memoized.
+ * Only those attributes that depend on the runtime value, such as <code>ACTUAL_CLASS</code>, are
+ * recomputed on each inspection.
  *
  * @author Richard Kennard
  */
@@ -46,6 +56,42 @@ import org.metawidget.util.CollectionUtils;
 public class PropertyTypeInspector
 	extends BaseObjectInspector {
 
+	//
+	// Private members
+	//
+
+	/**
+	 * Memo of the attributes of each Property. Properties are compared by identity, and are
+	 * themselves cached per declaring class by the <code>PropertyStyle</code>, so this is
+	 * effectively a memo per declaring class and property name.
+	 * <p>
+	 * Properties are only weakly referenced, so the memo shares the lifecycle of the
+	 * <code>PropertyStyle</code>'s cache: entries go once the <code>PropertyStyle</code> lets go of
+	 * their Property (such as after <code>clearCache</code>, or straight away if it does not cache
+	 * lookups), and do not pin undeployed ClassLoaders.
+	 * <p>
+	 * The memo is a <code>ConcurrentHashMap</code>, so that lookups do not contend on (or pin
+	 * lightweight request threads to) a monitor. Two threads missing the memo for the same property
+	 * at the same time may both inspect it, but will arrive at equivalent results.
+	 */
+
+	private final Map<PropertyKey, Map<String, String>>	mPropertyAttributes	= new ConcurrentHashMap<PropertyKey, Map<String, String>>();
+
+	/**
+	 * Properties in <code>mPropertyAttributes</code> that have been garbage collected.
+	 */
+
+	private final ReferenceQueue<Property>				mStaleProperties	= new ReferenceQueue<Property>();
+
+	/**
+	 * Memo of the lookup attributes of each Boolean or enum class (empty for other classes).
+	 * <p>
+	 * Keyed by class name rather than by Class, and holding only a weak reference to the Class, so
+	 * as not to pin undeployed ClassLoaders.
+	 */
+
+	private final Map<String, CachedLookupAttributes>	mLookupAttributes	= new ConcurrentHashMap<String, CachedLookupAttributes>();
+
 	//
 	// Constructor
 	//
@@ -106,18 +152,116 @@ public class PropertyTypeInspector
 			attributes.put( ACTUAL_CLASS, actualClass );
 		}
 
+		// Lookups
+
+		Class<?> actualClazz = ClassUtils.niceForName( actualClass );
+
+		if ( actualClazz != null ) {
+			attributes.putAll( getLookupAttributes( actualClazz ) );
+		}
+
+		return attributes;
+	}
+
+	/**
+	 * Overridden to memoize the attributes of each property. The returned Map is unmodifiable.
+	 */
+
+	@Override
+	protected Map<String, String> inspectProperty( Property property )
+		throws Exception {
+
+		Map<String, String> attributes = mPropertyAttributes.get( new PropertyKey( property, null ) );
+
+		if ( attributes == null ) {
+			attributes = Collections.unmodifiableMap( inspectUncachedProperty( property ) );
+			removeStaleProperties();
+			mPropertyAttributes.put( new PropertyKey( property, mStaleProperties ), attributes );
+		}
+
+		return attributes;
+	}
+
+	/**
+	 * Inspect the given property's declaration. Called at most once per property (unless the
+	 * <code>PropertyStyle</code> does not cache its properties), so must not depend on the
+	 * property's value.
+	 */
+
+	protected Map<String, String> inspectUncachedProperty( Property property ) {
+
+		Map<String, String> attributes = CollectionUtils.newHashMap();
+
+		// No setter
+		//
+		// Note: we do not also attributes.put( READ_ONLY, TRUE ) here. If an attribute
+		// has no setter, but IS a complex type, then it should not be considered READ_ONLY
+		// as it may be settable by its nested primitives
+
+		if ( !property.isWritable() ) {
+			attributes.put( NO_SETTER, TRUE );
+		}
+
+		// No getter
+
+		if ( !property.isReadable() ) {
+			attributes.put( NO_GETTER, TRUE );
+		}
+
+		// Generics
+
+		String genericType = property.getGenericType();
+
+		if ( genericType != null ) {
+			attributes.put( PARAMETERIZED_TYPE, genericType );
+		}
+
+		return attributes;
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Removes memoized attributes of Properties that have been garbage collected.
+	 */
+
+	private void removeStaleProperties() {
+
+		for ( Reference<? extends Property> stale = mStaleProperties.poll(); stale != null; stale = mStaleProperties.poll() ) {
+			mPropertyAttributes.remove( stale );
+		}
+	}
+
+	/**
+	 * Gets the lookup attributes for the given class, memoizing them.
+	 */
+
+	/* package private */Map<String, String> getLookupAttributes( Class<?> actualClazz )
+		throws Exception {
+
+		String className = actualClazz.getName();
+		CachedLookupAttributes cached = mLookupAttributes.get( className );
+
+		// Same name but different Class means the class has been redeployed
+
+		if ( cached != null && cached.mClass.get() == actualClazz ) {
+			return cached.mAttributes;
+		}
+
+		Map<String, String> attributes = CollectionUtils.newHashMap();
+
 		// Special support for Booleans, which are tri-state
 
-		if ( Boolean.class.getName().equals( actualClass ) ) {
+		if ( Boolean.class.equals( actualClazz ) ) {
 			attributes.put( LOOKUP, "true, false" );
 			attributes.put( LOOKUP_LABELS, "Yes, No" );
 		}
 
 		// Enums - classToInspect may an Enum type or an enum instance type (ie. Foo$1)
 
-		Class<?> actualClazz = ClassUtils.niceForName( actualClass );
-
-		if ( actualClazz != null && Enum.class.isAssignableFrom( actualClazz ) ) {
+		if ( Enum.class.isAssignableFrom( actualClazz ) ) {
 			// Invoke 'magic' values method
 			//
 			// This actually proved more reliable than using 'getEnumConstants', as that
@@ -145,39 +289,92 @@ public class PropertyTypeInspector
 			attributes.put( LOOKUP_LABELS, CollectionUtils.toString( lookupLabels ) );
 		}
 
+		attributes = Collections.unmodifiableMap( attributes );
+
+		mLookupAttributes.put( className, new CachedLookupAttributes( actualClazz, attributes ) );
+
 		return attributes;
 	}
 
-	@Override
-	protected Map<String, String> inspectProperty( Property property )
-		throws Exception {
+	//
+	// Inner classes
+	//
 
-		Map<String, String> attributes = CollectionUtils.newHashMap();
+	/**
+	 * Weak key for <code>mPropertyAttributes</code>, comparing Properties by identity.
+	 */
+
+	private static class PropertyKey
+		extends WeakReference<Property> {
 
-		// No setter
 		//
-		// Note: we do not also attributes.put( READ_ONLY, TRUE ) here. If an attribute
-		// has no setter, but IS a complex type, then it should not be considered READ_ONLY
-		// as it may be settable by its nested primitives
+		// Private members
+		//
 
-		if ( !property.isWritable() ) {
-			attributes.put( NO_SETTER, TRUE );
-		}
+		private final int	mHashCode;
 
-		// No getter
+		//
+		// Constructor
+		//
 
-		if ( !property.isReadable() ) {
-			attributes.put( NO_GETTER, TRUE );
+		public PropertyKey( Property property, ReferenceQueue<Property> queue ) {
+
+			super( property, queue );
+
+			mHashCode = System.identityHashCode( property );
 		}
 
-		// Generics
+		//
+		// Public methods
+		//
 
-		String genericType = property.getGenericType();
+		@Override
+		public boolean equals( Object that ) {
 
-		if ( genericType != null ) {
-			attributes.put( PARAMETERIZED_TYPE, genericType );
+			if ( this == that ) {
+				return true;
+			}
+
+			if ( !( that instanceof PropertyKey ) ) {
+				return false;
+			}
+
+			Property property = get();
+			return ( property != null && property == ( (PropertyKey) that ).get() );
 		}
 
-		return attributes;
+		@Override
+		public int hashCode() {
+
+			return mHashCode;
+		}
+	}
+
+	/**
+	 * Memoized lookup attributes of a class.
+	 * <p>
+	 * Holds only a weak reference to the class, so as not to stop its ClassLoader being garbage
+	 * collected.
+	 */
+
+	private static class CachedLookupAttributes {
+
+		//
+		// Private members
+		//
+
+		/* package private */final WeakReference<Class<?>>	mClass;
+
+		/* package private */final Map<String, String>		mAttributes;
+
+		//
+		// Constructor
+		//
+
+		public CachedLookupAttributes( Class<?> clazz, Map<String, String> attributes ) {
+
+			mClass = new WeakReference<Class<?>>( clazz );
+			mAttributes = attributes;
+		}
 	}
 }
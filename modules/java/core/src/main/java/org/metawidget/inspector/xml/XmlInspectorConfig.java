@@ -82,4 +82,14 @@ public class XmlInspectorConfig
 
 		return (XmlInspectorConfig) super.setValidateAgainstClasses( validateAgainstClasses );
 	}
+
+	/**
+	 * Overridden to provide a covariant return type for our fluent interface.
+	 */
+
+	@Override
+	public XmlInspectorConfig setSnapshotDirectory( String snapshotDirectory ) {
+
+		return (XmlInspectorConfig) super.setSnapshotDirectory( snapshotDirectory );
+	}
 }
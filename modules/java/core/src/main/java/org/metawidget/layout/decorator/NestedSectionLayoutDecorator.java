@@ -16,11 +16,17 @@
 
 package org.metawidget.layout.decorator;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Convenience base class for LayoutDecorators wishing to decorate widgets based on changing
  * sections, rendering multi-level sections (ie. section="foo,bar") as nested components.
+ * <p>
+ * Subclasses whose sections are not all initially visible (such as tabs) can defer laying out a
+ * section until it is first shown, by overriding <code>isDeferred</code> and
+ * <code>deferSection</code>.
  *
  * @author Richard Kennard
  */
@@ -49,6 +55,7 @@ public abstract class NestedSectionLayoutDecorator<W, C extends W, M extends C>
 		State<C> state = getState( container, metawidget );
 		state.currentSection = null;
 		state.currentSectionWidget = null;
+		state.currentDeferredSection = null;
 	}
 
 	@Override
@@ -65,7 +72,7 @@ public abstract class NestedSectionLayoutDecorator<W, C extends W, M extends C>
 			if ( state.currentSectionWidget == null ) {
 				super.layoutWidget( widget, elementName, attributes, container, metawidget );
 			} else {
-				super.layoutWidget( widget, elementName, attributes, state.currentSectionWidget, metawidget );
+				layoutWidgetInSection( widget, elementName, attributes, state, metawidget );
 			}
 
 			return;
@@ -74,13 +81,9 @@ public abstract class NestedSectionLayoutDecorator<W, C extends W, M extends C>
 		// End current section
 
 		C previousSectionWidget = state.currentSectionWidget;
-
-		if ( state.currentSectionWidget != null ) {
-			super.endContainerLayout( state.currentSectionWidget, metawidget );
-		}
+		endSection( state, metawidget );
 
 		state.currentSection = section;
-		state.currentSectionWidget = null;
 
 		// No new section?
 
@@ -92,11 +95,16 @@ public abstract class NestedSectionLayoutDecorator<W, C extends W, M extends C>
 		// Start new section
 
 		state.currentSectionWidget = createSectionWidget( previousSectionWidget, section, attributes, container, metawidget );
-		super.startContainerLayout( state.currentSectionWidget, metawidget );
+
+		if ( isDeferred( state.currentSectionWidget, metawidget ) ) {
+			state.currentDeferredSection = new DeferredSection<W, C, M>( this, state.currentSectionWidget, metawidget );
+		} else {
+			super.startContainerLayout( state.currentSectionWidget, metawidget );
+		}
 
 		// Add component to new section
 
-		super.layoutWidget( widget, elementName, attributes, state.currentSectionWidget, metawidget );
+		layoutWidgetInSection( widget, elementName, attributes, state, metawidget );
 	}
 
 	@Override
@@ -105,14 +113,10 @@ public abstract class NestedSectionLayoutDecorator<W, C extends W, M extends C>
 		// End hanging layouts
 
 		State<C> state = getState( container, metawidget );
-
-		if ( state.currentSectionWidget != null ) {
-			super.endContainerLayout( state.currentSectionWidget, metawidget );
-		}
+		endSection( state, metawidget );
 
 		super.endContainerLayout( container, metawidget );
 		state.currentSection = null;
-		state.currentSectionWidget = null;
 	}
 
 	//
@@ -135,6 +139,79 @@ public abstract class NestedSectionLayoutDecorator<W, C extends W, M extends C>
 
 	protected abstract C createSectionWidget( C previousSectionWidget, String section, Map<String, String> attributes, C container, M metawidget );
 
+	/**
+	 * Whether to defer laying out the given section widget until it is first shown.
+	 * <p>
+	 * Deferred widgets have already been built and processed (including any binding), but are not
+	 * added to the section widget until <code>DeferredSection.run</code> is called. Until then,
+	 * they cannot be found by looking through the section widget's children.
+	 * <p>
+	 * By default, returns false.
+	 */
+
+	protected boolean isDeferred( C sectionWidget, M metawidget ) {
+
+		return false;
+	}
+
+	/**
+	 * Arrange for the given DeferredSection to be <code>run</code> when its section widget is first
+	 * shown. Called once all widgets for the section have been recorded.
+	 * <p>
+	 * By default, runs the DeferredSection immediately.
+	 */
+
+	protected void deferSection( DeferredSection<W, C, M> deferredSection, M metawidget ) {
+
+		deferredSection.run();
+	}
+
+	//
+	// Private methods
+	//
+
+	private void layoutWidgetInSection( W widget, String elementName, Map<String, String> attributes, State<C> state, M metawidget ) {
+
+		if ( state.currentDeferredSection == null ) {
+			super.layoutWidget( widget, elementName, attributes, state.currentSectionWidget, metawidget );
+			return;
+		}
+
+		@SuppressWarnings( "unchecked" )
+		DeferredSection<W, C, M> deferredSection = (DeferredSection<W, C, M>) state.currentDeferredSection;
+		deferredSection.add( widget, elementName, attributes );
+	}
+
+	private void endSection( State<C> state, M metawidget ) {
+
+		if ( state.currentDeferredSection != null ) {
+			@SuppressWarnings( "unchecked" )
+			DeferredSection<W, C, M> deferredSection = (DeferredSection<W, C, M>) state.currentDeferredSection;
+			state.currentDeferredSection = null;
+			deferSection( deferredSection, metawidget );
+		} else if ( state.currentSectionWidget != null ) {
+			super.endContainerLayout( state.currentSectionWidget, metawidget );
+		}
+
+		state.currentSectionWidget = null;
+	}
+
+	/**
+	 * Lays out a DeferredSection using the decorated Layout, exactly as it would have been laid out
+	 * had it not been deferred.
+	 */
+
+	/* package private */void layoutDeferredSection( C sectionWidget, List<W> widgets, List<String> elementNames, List<Map<String, String>> attributes, M metawidget ) {
+
+		super.startContainerLayout( sectionWidget, metawidget );
+
+		for ( int loop = 0, length = widgets.size(); loop < length; loop++ ) {
+			super.layoutWidget( widgets.get( loop ), elementNames.get( loop ), attributes.get( loop ), sectionWidget, metawidget );
+		}
+
+		super.endContainerLayout( sectionWidget, metawidget );
+	}
+
 	//
 	// Inner class
 	//
@@ -145,8 +222,85 @@ public abstract class NestedSectionLayoutDecorator<W, C extends W, M extends C>
 
 	public static class State<C> {
 
-		public String	currentSection;
+		public String					currentSection;
+
+		public C						currentSectionWidget;
+
+		public DeferredSection<?, ?, ?>	currentDeferredSection;
+	}
+
+	/**
+	 * Widgets recorded for a section whose layout has been deferred until it is first shown.
+	 */
+
+	public static class DeferredSection<W, C extends W, M extends C>
+		implements Runnable {
+
+		//
+		// Private members
+		//
+
+		private final NestedSectionLayoutDecorator<W, C, M>	mDecorator;
+
+		private final C										mSectionWidget;
+
+		private final M										mMetawidget;
+
+		private List<W>										mWidgets		= new ArrayList<W>();
+
+		private List<String>								mElementNames	= new ArrayList<String>();
+
+		private List<Map<String, String>>					mAttributes		= new ArrayList<Map<String, String>>();
+
+		//
+		// Constructor
+		//
+
+		/* package private */DeferredSection( NestedSectionLayoutDecorator<W, C, M> decorator, C sectionWidget, M metawidget ) {
+
+			mDecorator = decorator;
+			mSectionWidget = sectionWidget;
+			mMetawidget = metawidget;
+		}
+
+		//
+		// Public methods
+		//
+
+		public C getSectionWidget() {
+
+			return mSectionWidget;
+		}
+
+		public boolean isLaidOut() {
+
+			return ( mWidgets == null );
+		}
+
+		/* package private */void add( W widget, String elementName, Map<String, String> attributes ) {
+
+			mWidgets.add( widget );
+			mElementNames.add( elementName );
+			mAttributes.add( attributes );
+		}
+
+		/**
+		 * Lays out the recorded widgets. Subsequent calls do nothing.
+		 */
+
+		public void run() {
 
-		public C		currentSectionWidget;
+			if ( isLaidOut() ) {
+				return;
+			}
+
+			List<W> widgets = mWidgets;
+			mWidgets = null;
+
+			mDecorator.layoutDeferredSection( mSectionWidget, widgets, mElementNames, mAttributes, mMetawidget );
+
+			mElementNames = null;
+			mAttributes = null;
+		}
 	}
 }
@@ -20,12 +20,16 @@ import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.metawidget.inspectionresultprocessor.iface.DomInspectionResultProcessor;
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessor;
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessorException;
+import org.metawidget.inspector.iface.AsyncInspector;
+import org.metawidget.inspector.iface.AsyncInspectorCallback;
 import org.metawidget.inspector.iface.DomInspector;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.layout.iface.AdvancedLayout;
@@ -76,6 +80,8 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 
 	private static final int DEFAULT_MAXIMUM_INSPECTION_DEPTH = 10;
 
+	private static final int DEFAULT_MAXIMUM_BUILD_PLANS = 100;
+
 	//
 	// Private members
 	//
@@ -96,6 +102,20 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 
 	private Layout<W, C, M> mLayout;
 
+	private Map<String, BuildPlan> mBuildPlans;
+
+	private int mMaximumBuildPlans = DEFAULT_MAXIMUM_BUILD_PLANS;
+
+	/**
+	 * The inspection result most recently returned by <code>inspectAsDom</code>
+	 * from a BuildPlan, so that <code>buildWidgets</code> can recognise it and
+	 * replay the BuildPlan instead of walking it.
+	 */
+
+	private E mBuildPlanElement;
+
+	private BuildPlan mBuildPlan;
+
 	//
 	// Public methods
 	//
@@ -323,6 +343,69 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 		mLayout = layout;
 	}
 
+	public Map<String, BuildPlan> getBuildPlans() {
+
+		return mBuildPlans;
+	}
+
+	/**
+	 * Sets a cache of BuildPlans, keyed by pipeline configuration and
+	 * inspection result.
+	 * <p>
+	 * When rendering the same shape of inspection result many times (such as
+	 * repeated address blocks, or the rows of a master/detail list), each
+	 * Metawidget runs the same InspectionResultProcessors and walks the same
+	 * XML. With a cache of BuildPlans, the first Metawidget to see a given
+	 * (unprocessed) inspection result records the processed result and the
+	 * name and attributes of each of its elements. Subsequent Metawidgets
+	 * replay that BuildPlan, skipping the InspectionResultProcessors, the
+	 * sanity checks and the conversion of each element into attributes.
+	 * <p>
+	 * Widgets themselves cannot be cloned generically, so every Metawidget
+	 * still runs its own WidgetBuilders, WidgetProcessors and Layout.
+	 * <p>
+	 * This is only safe if the InspectionResultProcessors depend solely on
+	 * the inspection result. It is not safe, for example, if they evaluate
+	 * expressions against the Object being inspected.
+	 * <p>
+	 * The cache is shared with nested pipelines, and can be shared across
+	 * Metawidgets. BuildPlans are only replayed by pipelines of the same class
+	 * with the same InspectionResultProcessors (by identity) as the pipeline
+	 * that recorded them, so differently configured Metawidgets can safely
+	 * share a cache (though they will not share BuildPlans). It must be
+	 * Thread-safe if those Metawidgets are used by
+	 * different Threads (BuildPlans themselves are immutable). Replayed
+	 * Metawidgets share the processed inspection result recorded in the
+	 * BuildPlan, so it must not be modified. The cache stops recording new
+	 * BuildPlans once it reaches <code>getMaximumBuildPlans</code>.
+	 * 
+	 * @param buildPlans
+	 *            the cache, or null to disable BuildPlans
+	 */
+
+	public void setBuildPlans(Map<String, BuildPlan> buildPlans) {
+
+		mBuildPlans = buildPlans;
+		mBuildPlanElement = null;
+		mBuildPlan = null;
+	}
+
+	public int getMaximumBuildPlans() {
+
+		return mMaximumBuildPlans;
+	}
+
+	/**
+	 * Sets the maximum number of BuildPlans to record in the cache (see
+	 * <code>setBuildPlans</code>). Once reached, further inspection results are
+	 * built normally.
+	 */
+
+	public void setMaximumBuildPlans(int maximumBuildPlans) {
+
+		mMaximumBuildPlans = maximumBuildPlans;
+	}
+
 	/**
 	 * Inspect the given Object according to the given path, and return the
 	 * result as a String conforming to inspection-result-1.0.xsd.
@@ -332,12 +415,30 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 	 * to inspect different Objects using our same <code>Inspector</code>.
 	 * <p>
 	 * In addition, this method runs the <code>InspectionResultProcessors</code>.
+	 * <p>
+	 * If the <code>Inspector</code> and all <code>InspectionResultProcessors</code>
+	 * work with Strings, the inspection result is never parsed.
 	 */
 
 	public String inspect(Object toInspect, String type, String... names) {
 
-		E element = inspectAsDom(toInspect, type, names);
-		return elementToString(element);
+		Object inspectionResult = runInspector(toInspect, type, names);
+
+		if (inspectionResult == null) {
+			return null;
+		}
+
+		Object processedInspectionResult = runInspectionResultProcessors(
+				inspectionResult, toInspect, type, names);
+
+		if (processedInspectionResult == null
+				|| processedInspectionResult instanceof String) {
+			return (String) processedInspectionResult;
+		}
+
+		@SuppressWarnings("unchecked")
+		E processedInspectionResultElement = (E) processedInspectionResult;
+		return elementToString(processedInspectionResultElement);
 	}
 
 	/**
@@ -349,31 +450,75 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 	 * wishing to inspect different Objects using our same
 	 * <code>Inspector</code>.
 	 * <p>
-	 * In addition, this method runs the <code>InspectionResultProcessors</code>.
+	 * In addition, this method runs the <code>InspectionResultProcessors</code>
+	 * (or replays a BuildPlan, see <code>setBuildPlans</code>).
 	 */
 
 	public E inspectAsDom(Object toInspect, String type, String... names) {
 
+		return processOrReplayInspectionResult(
+				runInspector(toInspect, type, names), toInspect, type, names);
+	}
+
+	/**
+	 * Asynchronous version of <code>inspectAsDom</code>.
+	 * <p>
+	 * If the configured Inspector is an <code>AsyncInspector</code> (and
+	 * <code>isAsync</code>), this method returns straight away. Once the inspection result arrives, the
+	 * <code>InspectionResultProcessors</code> are run (or a BuildPlan is
+	 * replayed) and the callback is called, possibly on a different thread.
+	 * Otherwise, this method inspects synchronously and calls back before
+	 * returning.
+	 */
+
+	public void inspectAsDom(final Object toInspect, final String type,
+			final String[] names, final AsyncInspectorCallback<E> callback) {
+
 		configureOnce();
 
-		if (mInspector == null) {
-			throw new NullPointerException("No inspector configured");
-		}
+		// Regular Inspectors (including AsyncInspectors that are not actually
+		// asynchronous, so that DomInspectors keep their DOM)...
 
-		Object inspectionResult;
+		if (!(mInspector instanceof AsyncInspector)
+				|| !((AsyncInspector) mInspector).isAsync()) {
+			E inspectionResult;
 
-		if (mInspector instanceof DomInspector<?>) {
-			inspectionResult = ((DomInspector<?>) mInspector).inspectAsDom(
-					toInspect, type, names);
-		} else {
-			inspectionResult = mInspector.inspect(toInspect, type, names);
-		}
+			try {
+				inspectionResult = inspectAsDom(toInspect, type, names);
+			} catch (Exception e) {
+				callback.onFailure(e);
+				return;
+			}
 
-		if (inspectionResult == null) {
-			return null;
+			callback.onSuccess(inspectionResult);
+			return;
 		}
 
-		return processInspectionResult(inspectionResult, toInspect, type, names);
+		// ...or AsyncInspectors
+
+		((AsyncInspector) mInspector).inspect(toInspect, type, names,
+				new AsyncInspectorCallback<String>() {
+
+					public void onSuccess(String inspectionResult) {
+
+						E processedInspectionResult;
+
+						try {
+							processedInspectionResult = processOrReplayInspectionResult(
+									inspectionResult, toInspect, type, names);
+						} catch (Exception e) {
+							callback.onFailure(e);
+							return;
+						}
+
+						callback.onSuccess(processedInspectionResult);
+					}
+
+					public void onFailure(Throwable caught) {
+
+						callback.onFailure(caught);
+					}
+				});
 	}
 
 	/**
@@ -389,7 +534,10 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 		configureOnce();
 		startBuild();
 
-		if (inspectionResult != null) {
+		if (inspectionResult != null && inspectionResult == mBuildPlanElement
+				&& mBuildPlan != null) {
+			replayBuildPlan(mBuildPlan);
+		} else if (inspectionResult != null) {
 			// Build simple widget (from the top-level entity)
 
 			E entity = getFirstChildElement(inspectionResult);
@@ -499,6 +647,8 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 		nestedPipeline.setInspector(getInspector());
 		nestedPipeline.setWidgetBuilder(getWidgetBuilder());
 		nestedPipeline.setLayout(getLayout());
+		nestedPipeline.setBuildPlans(getBuildPlans());
+		nestedPipeline.setMaximumBuildPlans(getMaximumBuildPlans());
 
 		if (mInspectionResultProcessors == null) {
 			nestedPipeline.mInspectionResultProcessors = null;
@@ -523,10 +673,24 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 	 * Build a compound widget by iterating through children of the given
 	 * element, calling <code>buildWidget</code> and <code>addWidget</code> on
 	 * each.
+	 * <p>
+	 * If the element was recorded in a BuildPlan, its children are replayed
+	 * from the BuildPlan instead.
 	 */
 
 	protected void buildCompoundWidget(E entity) throws Exception {
 
+		if (mBuildPlan != null
+				&& entity == getFirstChildElement(mBuildPlanElement)) {
+			for (int loop = 0, length = mBuildPlan.mElementNames.size(); loop < length; loop++) {
+				buildChildWidget(mBuildPlan.mElementNames.get(loop),
+						new HashMap<String, String>(mBuildPlan.mAttributes
+								.get(loop)));
+			}
+
+			return;
+		}
+
 		E child = getFirstChildElement(entity);
 		int loop = 0;
 
@@ -551,66 +715,8 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 						+ NAME);
 			}
 
-			// Metawidget as a whole may have had setReadOnly( true )
-			//
-			// Note: we cannot do this in WidgetBuilderUtils.isReadOnly because:
-			//
-			// 1) There is not a common Metawidget class that we can pass to
-			// WidgetBuilderUtils in
-			// order for it to call isReadOnly
-			// 2) This way WidgetBuilders/Layouts etc don't have to worry about
-			// checking 2 places
-			// for readOnly-ness
-			//
-			// In addition, we are trying to keep the exact nature of the
-			// 'readOnly' mechanism (i.e.
-			// set on attribute, or set on overall Metawidget) out of the
-			// WidgetBuilders/WidgetProcessors/Layouts. This is because not
-			// everybody will need/want
-			// a Metawidget-level 'setReadOnly'
-
-			boolean forcedReadOnly = false;
-
-			if (!TRUE.equals(attributes.get(READ_ONLY)) && isReadOnly()) {
-				attributes.put(READ_ONLY, TRUE);
-				forcedReadOnly = true;
-			}
-
 			try {
-				W widget = buildWidget(elementName, attributes);
-
-				if (widget == null) {
-					if (mMaximumInspectionDepth <= 0) {
-						continue;
-					}
-
-					// If setReadOnly( true ), remove our forced attribute so
-					// the nestedMetawidget
-					// can differentiate whether it was forced or in the
-					// inspector XML
-
-					if (forcedReadOnly) {
-						attributes.remove(READ_ONLY);
-					}
-
-					widget = buildNestedMetawidget(attributes);
-				}
-
-				Map<String, String> additionalAttributes = getAdditionalAttributes(widget);
-
-				if (additionalAttributes != null) {
-					attributes.putAll(additionalAttributes);
-				}
-
-				widget = processWidget(widget, elementName, attributes);
-
-				// A WidgetProcessor could return null to cancel the widget
-
-				if (widget == null) {
-					continue;
-				}
-
-				layoutWidget(widget, elementName, attributes);
+				buildChildWidget(elementName, attributes);
 			} finally {
 				child = getNextSiblingElement(child);
 			}
@@ -679,52 +785,16 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 	protected E processInspectionResult(Object inspectionResult,
 			Object toInspect, String type, String... names) {
 
-		Object inspectionResultToProcess = inspectionResult;
-
-		if (mInspectionResultProcessors != null) {
-			M pipelineOwner = getPipelineOwner();
+		Object processedInspectionResult = runInspectionResultProcessors(
+				inspectionResult, toInspect, type, names);
 
-			for (InspectionResultProcessor<M> inspectionResultProcessor : mInspectionResultProcessors) {
-				if (inspectionResultProcessor instanceof DomInspectionResultProcessor<?, ?>) {
-					if (inspectionResultToProcess instanceof String) {
-						inspectionResultToProcess = stringToElement((String) inspectionResultToProcess);
-					}
-					@SuppressWarnings("unchecked")
-					DomInspectionResultProcessor<E, M> domInspectionResultProcessor = (DomInspectionResultProcessor<E, M>) inspectionResultProcessor;
-					@SuppressWarnings("unchecked")
-					E inspectionResultToProcessElement = (E) inspectionResultToProcess;
-					inspectionResultToProcess = domInspectionResultProcessor
-							.processInspectionResultAsDom(
-									inspectionResultToProcessElement,
-									pipelineOwner, toInspect, type, names);
-				} else {
-					if (!(inspectionResultToProcess instanceof String)) {
-						@SuppressWarnings("unchecked")
-						E inspectionResultToProcessElement = (E) inspectionResultToProcess;
-						inspectionResultToProcess = elementToString(inspectionResultToProcessElement);
-					}
-					inspectionResultToProcess = inspectionResultProcessor
-							.processInspectionResult(
-									(String) inspectionResultToProcess,
-									pipelineOwner, toInspect, type, names);
-				}
-
-				// An InspectionResultProcessor could return null to cancel the
-				// inspection
-
-				if (inspectionResultToProcess == null) {
-					return null;
-				}
-			}
-		}
-
-		if (inspectionResultToProcess instanceof String) {
-			return stringToElement((String) inspectionResultToProcess);
+		if (processedInspectionResult instanceof String) {
+			return stringToElement((String) processedInspectionResult);
 		}
 
 		@SuppressWarnings("unchecked")
-		E processedInspectionResult = (E) inspectionResultToProcess;
-		return processedInspectionResult;
+		E processedInspectionResultElement = (E) processedInspectionResult;
+		return processedInspectionResultElement;
 	}
 
 	/**
@@ -821,4 +891,458 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 					.onEndBuild(pipelineOwner);
 		}
 	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Build, process and lay out a single child of a compound widget.
+	 */
+
+	private void buildChildWidget(String elementName,
+			Map<String, String> attributes) throws Exception {
+
+		// Metawidget as a whole may have had setReadOnly( true )
+		//
+		// Note: we cannot do this in WidgetBuilderUtils.isReadOnly because:
+		//
+		// 1) There is not a common Metawidget class that we can pass to
+		// WidgetBuilderUtils in
+		// order for it to call isReadOnly
+		// 2) This way WidgetBuilders/Layouts etc don't have to worry about
+		// checking 2 places
+		// for readOnly-ness
+		//
+		// In addition, we are trying to keep the exact nature of the
+		// 'readOnly' mechanism (i.e.
+		// set on attribute, or set on overall Metawidget) out of the
+		// WidgetBuilders/WidgetProcessors/Layouts. This is because not
+		// everybody will need/want
+		// a Metawidget-level 'setReadOnly'
+
+		boolean forcedReadOnly = false;
+
+		if (!TRUE.equals(attributes.get(READ_ONLY)) && isReadOnly()) {
+			attributes.put(READ_ONLY, TRUE);
+			forcedReadOnly = true;
+		}
+
+		W widget = buildWidget(elementName, attributes);
+
+		if (widget == null) {
+			if (mMaximumInspectionDepth <= 0) {
+				return;
+			}
+
+			// If setReadOnly( true ), remove our forced attribute so
+			// the nestedMetawidget
+			// can differentiate whether it was forced or in the
+			// inspector XML
+
+			if (forcedReadOnly) {
+				attributes.remove(READ_ONLY);
+			}
+
+			widget = buildNestedMetawidget(attributes);
+		}
+
+		Map<String, String> additionalAttributes = getAdditionalAttributes(widget);
+
+		if (additionalAttributes != null) {
+			attributes.putAll(additionalAttributes);
+		}
+
+		widget = processWidget(widget, elementName, attributes);
+
+		// A WidgetProcessor could return null to cancel the widget
+
+		if (widget == null) {
+			return;
+		}
+
+		layoutWidget(widget, elementName, attributes);
+	}
+
+	/**
+	 * Records a BuildPlan from the given processed inspection result.
+	 * 
+	 * @return the BuildPlan, or null if the inspection result was cancelled or
+	 *         does not pass the sanity checks in <code>buildWidgets</code> (in
+	 *         which case it will be built normally, and fail normally)
+	 */
+
+	private BuildPlan newBuildPlan(E inspectionResult,
+			Object[] inspectionResultProcessors) {
+
+		if (inspectionResult == null) {
+			return null;
+		}
+
+		E entity = getFirstChildElement(inspectionResult);
+
+		if (entity == null || !ENTITY.equals(getElementName(entity))
+				|| getNextSiblingElement(entity) != null) {
+			return null;
+		}
+
+		List<String> elementNames = new ArrayList<String>();
+		List<Map<String, String>> attributes = new ArrayList<Map<String, String>>();
+		E child = getFirstChildElement(entity);
+
+		while (child != null) {
+
+			String elementName = getElementName(child);
+			Map<String, String> childAttributes = getAttributesAsMap(child);
+			String childName = childAttributes.get(NAME);
+
+			if (!PROPERTY.equals(elementName) && !ACTION.equals(elementName)
+					|| childName == null || "".equals(childName)) {
+				return null;
+			}
+
+			elementNames.add(elementName);
+			attributes.add(Collections.unmodifiableMap(childAttributes));
+			child = getNextSiblingElement(child);
+		}
+
+		return new BuildPlan(getClass(), inspectionResultProcessors,
+				inspectionResult,
+				Collections.unmodifiableMap(getAttributesAsMap(entity)),
+				Collections.unmodifiableList(elementNames),
+				Collections.unmodifiableList(attributes));
+	}
+
+	/**
+	 * Builds widgets from the given BuildPlan, the same as
+	 * <code>buildWidgets</code> would from the inspection result it was
+	 * recorded from. Children are built by <code>buildCompoundWidget</code>,
+	 * so that subclasses overriding it still see them.
+	 * <p>
+	 * BuildPlans are shared, so attributes are copied before being passed down
+	 * the pipeline.
+	 */
+
+	private void replayBuildPlan(BuildPlan buildPlan) throws Exception {
+
+		Map<String, String> attributes = new HashMap<String, String>(
+				buildPlan.mEntityAttributes);
+
+		if (isReadOnly()) {
+			attributes.put(READ_ONLY, TRUE);
+		}
+
+		W widget = buildWidget(ENTITY, attributes);
+
+		if (widget == null) {
+			buildCompoundWidget(getFirstChildElement(mBuildPlanElement));
+		} else {
+			widget = processWidget(widget, ENTITY, attributes);
+
+			if (widget != null) {
+				layoutWidget(widget, ENTITY, attributes);
+			}
+		}
+	}
+
+	/**
+	 * Runs the <code>InspectionResultProcessors</code> on the given inspection
+	 * result (or replays a BuildPlan, see <code>setBuildPlans</code>).
+	 * 
+	 * @param inspectionResult
+	 *            a String of XML, or an E, or null
+	 */
+
+	/* package private */E processOrReplayInspectionResult(
+			Object inspectionResult, Object toInspect, String type,
+			String... names) {
+
+		if (inspectionResult == null) {
+			return null;
+		}
+
+		if (mBuildPlans == null) {
+			return processInspectionResult(inspectionResult, toInspect, type,
+					names);
+		}
+
+		// Replay a BuildPlan...
+
+		Object[] inspectionResultProcessors = getInspectionResultProcessorsAsArray();
+		StringBuilder builder = new StringBuilder();
+		appendBuildPlanScope(builder, inspectionResultProcessors);
+
+		if (inspectionResult instanceof String) {
+			builder.append((String) inspectionResult);
+		} else {
+			@SuppressWarnings("unchecked")
+			E inspectionResultElement = (E) inspectionResult;
+			appendBuildPlanKey(builder, inspectionResultElement);
+		}
+
+		String key = builder.toString();
+		BuildPlan buildPlan = mBuildPlans.get(key);
+		E processedInspectionResult;
+
+		if (buildPlan != null
+				&& buildPlan.isRecordedBy(getClass(),
+						inspectionResultProcessors)) {
+			@SuppressWarnings("unchecked")
+			E recordedInspectionResult = (E) buildPlan.mInspectionResult;
+			processedInspectionResult = recordedInspectionResult;
+		} else if (buildPlan != null) {
+
+			// (identity hash codes can collide, so never replay a BuildPlan
+			// recorded by a different configuration)
+
+			buildPlan = null;
+			processedInspectionResult = processInspectionResult(
+					inspectionResult, toInspect, type, names);
+		} else {
+
+			// ...or record one
+
+			processedInspectionResult = processInspectionResult(
+					inspectionResult, toInspect, type, names);
+
+			if (mBuildPlans.size() < mMaximumBuildPlans) {
+				buildPlan = newBuildPlan(processedInspectionResult,
+						inspectionResultProcessors);
+
+				if (buildPlan != null) {
+					mBuildPlans.put(key, buildPlan);
+				}
+			}
+		}
+
+		mBuildPlanElement = processedInspectionResult;
+		mBuildPlan = buildPlan;
+
+		return processedInspectionResult;
+	}
+
+	private Object[] getInspectionResultProcessorsAsArray() {
+
+		if (mInspectionResultProcessors == null) {
+			return new Object[0];
+		}
+
+		return mInspectionResultProcessors.toArray();
+	}
+
+	/**
+	 * Appends the part of a BuildPlan key that scopes it to this pipeline's
+	 * configuration: the pipeline class and the identity of each
+	 * InspectionResultProcessor.
+	 */
+
+	private void appendBuildPlanScope(StringBuilder builder,
+			Object[] inspectionResultProcessors) {
+
+		builder.append(getClass().getName());
+
+		for (Object inspectionResultProcessor : inspectionResultProcessors) {
+			builder.append(' ');
+			builder.append(inspectionResultProcessor.getClass().getName());
+			builder.append('@');
+			builder.append(Integer.toHexString(System
+					.identityHashCode(inspectionResultProcessor)));
+		}
+
+		builder.append('\n');
+	}
+
+	/**
+	 * Appends a key for the given (unprocessed) inspection result, built from
+	 * its element names and attributes. This is cheaper than serializing it
+	 * with <code>elementToString</code>.
+	 */
+
+	private void appendBuildPlanKey(StringBuilder builder, E element) {
+
+		builder.append('<');
+		builder.append(getElementName(element));
+
+		for (Map.Entry<String, String> entry : getAttributesAsMap(element)
+				.entrySet()) {
+			builder.append(' ');
+			builder.append(entry.getKey());
+			builder.append("=\"");
+			builder.append(entry.getValue().replace("\"", "&quot;"));
+			builder.append('"');
+		}
+
+		builder.append('>');
+		E child = getFirstChildElement(element);
+
+		while (child != null) {
+			appendBuildPlanKey(builder, child);
+			child = getNextSiblingElement(child);
+		}
+
+		builder.append("</>");
+	}
+
+	/**
+	 * Runs the configured <code>Inspector</code>.
+	 * 
+	 * @return a String of XML, or an E, depending on whether the Inspector was
+	 *         a DomInspector
+	 */
+
+	private Object runInspector(Object toInspect, String type, String... names) {
+
+		configureOnce();
+
+		if (mInspector == null) {
+			throw new NullPointerException("No inspector configured");
+		}
+
+		if (mInspector instanceof DomInspector<?>) {
+			return ((DomInspector<?>) mInspector).inspectAsDom(toInspect, type,
+					names);
+		}
+
+		return mInspector.inspect(toInspect, type, names);
+	}
+
+	/**
+	 * Runs the <code>InspectionResultProcessors</code> in order.
+	 * <p>
+	 * Conversions between String and E happen lazily, only where a
+	 * <code>DomInspectionResultProcessor</code> follows a String or a plain
+	 * <code>InspectionResultProcessor</code> follows an E. The result is
+	 * returned in whichever form the last step produced, so that callers
+	 * convert it at most once more, and only if they need to.
+	 * 
+	 * @return a String of XML, or an E, or null if an
+	 *         InspectionResultProcessor cancelled the inspection
+	 */
+
+	private Object runInspectionResultProcessors(Object inspectionResult,
+			Object toInspect, String type, String... names) {
+
+		Object inspectionResultToProcess = inspectionResult;
+
+		if (mInspectionResultProcessors != null) {
+			M pipelineOwner = getPipelineOwner();
+
+			for (InspectionResultProcessor<M> inspectionResultProcessor : mInspectionResultProcessors) {
+				if (inspectionResultProcessor instanceof DomInspectionResultProcessor<?, ?>) {
+					if (inspectionResultToProcess instanceof String) {
+						inspectionResultToProcess = stringToElement((String) inspectionResultToProcess);
+					}
+					@SuppressWarnings("unchecked")
+					DomInspectionResultProcessor<E, M> domInspectionResultProcessor = (DomInspectionResultProcessor<E, M>) inspectionResultProcessor;
+					@SuppressWarnings("unchecked")
+					E inspectionResultToProcessElement = (E) inspectionResultToProcess;
+					inspectionResultToProcess = domInspectionResultProcessor
+							.processInspectionResultAsDom(
+									inspectionResultToProcessElement,
+									pipelineOwner, toInspect, type, names);
+				} else {
+					if (!(inspectionResultToProcess instanceof String)) {
+						@SuppressWarnings("unchecked")
+						E inspectionResultToProcessElement = (E) inspectionResultToProcess;
+						inspectionResultToProcess = elementToString(inspectionResultToProcessElement);
+					}
+					inspectionResultToProcess = inspectionResultProcessor
+							.processInspectionResult(
+									(String) inspectionResultToProcess,
+									pipelineOwner, toInspect, type, names);
+				}
+
+				// An InspectionResultProcessor could return null to cancel the
+				// inspection
+
+				if (inspectionResultToProcess == null) {
+					return null;
+				}
+			}
+		}
+
+		return inspectionResultToProcess;
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Recorded result of processing an inspection result, replayed by
+	 * subsequent pipelines that see the same inspection result.
+	 * <p>
+	 * BuildPlans are immutable. Their processed inspection result is shared
+	 * between Metawidgets, so must not be modified.
+	 */
+
+	public static final class BuildPlan {
+
+		//
+		// Private members
+		//
+
+		private final Class<?> mPipelineClass;
+
+		private final Object[] mInspectionResultProcessors;
+
+		/**
+		 * The processed inspection result (an E).
+		 */
+
+		/* package private */final Object mInspectionResult;
+
+		/* package private */final Map<String, String> mEntityAttributes;
+
+		/* package private */final List<String> mElementNames;
+
+		/* package private */final List<Map<String, String>> mAttributes;
+
+		//
+		// Constructor
+		//
+
+		/* package private */BuildPlan(Class<?> pipelineClass,
+				Object[] inspectionResultProcessors, Object inspectionResult,
+				Map<String, String> entityAttributes,
+				List<String> elementNames,
+				List<Map<String, String>> attributes) {
+
+			mPipelineClass = pipelineClass;
+			mInspectionResultProcessors = inspectionResultProcessors;
+			mInspectionResult = inspectionResult;
+			mEntityAttributes = entityAttributes;
+			mElementNames = elementNames;
+			mAttributes = attributes;
+		}
+
+		//
+		// Package private methods
+		//
+
+		/**
+		 * Whether this BuildPlan was recorded by a pipeline of the given class,
+		 * with the same InspectionResultProcessors (by identity).
+		 */
+
+		/* package private */boolean isRecordedBy(Class<?> pipelineClass,
+				Object[] inspectionResultProcessors) {
+
+			if (!mPipelineClass.equals(pipelineClass)) {
+				return false;
+			}
+
+			if (mInspectionResultProcessors.length != inspectionResultProcessors.length) {
+				return false;
+			}
+
+			for (int loop = 0, length = inspectionResultProcessors.length; loop < length; loop++) {
+				if (mInspectionResultProcessors[loop] != inspectionResultProcessors[loop]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+	}
 }
@@ -39,15 +39,22 @@ public abstract class W3CPipeline<W, C extends W, M extends C>
 	// Private statics
 	//
 
-	private static ConfigReader	DEFAULT_CONFIG_READER;
+	/**
+	 * Default <code>ConfigReader</code>, shared by all Pipelines that do not set their own.
+	 * <p>
+	 * Created eagerly, rather than lazily on first use, so that Pipelines built concurrently
+	 * cannot race to create (and then not share the caches of) more than one.
+	 */
+
+	private static final ConfigReader	DEFAULT_CONFIG_READER	= new BaseConfigReader();
 
 	//
 	// Private methods
 	//
 
-	private ConfigReader		mConfigReader;
+	private ConfigReader				mConfigReader;
 
-	private Object				mConfig;
+	private Object						mConfig;
 
 	//
 	// Public methods
@@ -64,10 +71,6 @@ public abstract class W3CPipeline<W, C extends W, M extends C>
 	public final ConfigReader getConfigReader() {
 
 		if ( mConfigReader == null ) {
-			if ( DEFAULT_CONFIG_READER == null ) {
-				DEFAULT_CONFIG_READER = new BaseConfigReader();
-			}
-
 			mConfigReader = DEFAULT_CONFIG_READER;
 		}
 
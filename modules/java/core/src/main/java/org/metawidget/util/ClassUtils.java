@@ -17,12 +17,17 @@
 package org.metawidget.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.security.AccessControlException;
+import java.util.Collections;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.metawidget.util.simple.StringUtils;
 
@@ -365,11 +370,29 @@ public final class ClassUtils {
 	 * <code>Class.forName</code> will always fail. To cope with this, we
 	 * record 'alien' ClassLoaders as and when we encounter them.
 	 * <p>
-	 * This is a static Set, rather than a ThreadLocal, because we couldn't find a good place to
-	 * reset the ThreadLocal.
+	 * This is a static Map, rather than a ThreadLocal, because we couldn't find a good place to
+	 * reset the ThreadLocal. It is a <code>ConcurrentMap</code> (used as a Set) because
+	 * <code>registerAlienClassLoader</code> is called on every inspection, and its keys are weakly
+	 * referenced so that we do not prevent hot-redeployed ClassLoaders from being garbage
+	 * collected.
 	 */
 
-	/* package private */static final Set<ClassLoader>	ALIEN_CLASSLOADERS	= CollectionUtils.newHashSet();
+	/* package private */static final ConcurrentMap<WeakIdentityKey, Boolean>	ALIEN_CLASSLOADERS	= new ConcurrentHashMap<WeakIdentityKey, Boolean>();
+
+	/**
+	 * Cache of <code>niceForName</code> lookups, keyed by the Thread's ClassLoader and then by
+	 * class name.
+	 * <p>
+	 * Values are either a <code>WeakReference</code> to the Class or <code>CLASS_NOT_FOUND</code>.
+	 * Caching negative results is important, because symbolic types (such as 'Login Screen') would
+	 * otherwise cost several <code>ClassNotFoundException</code>s on every inspection. Negative
+	 * results are discarded whenever a new alien ClassLoader is registered.
+	 * <p>
+	 * Both the ClassLoader keys and the Class values are weakly referenced, because a Class
+	 * strongly references its ClassLoader.
+	 */
+
+	/* package private */static final ConcurrentMap<WeakIdentityKey, ConcurrentMap<String, Object>>	CLASS_CACHE	= new ConcurrentHashMap<WeakIdentityKey, ConcurrentMap<String, Object>>();
 
 	/**
 	 * When dealing with multiple isolated ClassLoaders, sometimes the object being inspected may
@@ -396,8 +419,19 @@ public final class ClassUtils {
 			return;
 		}
 
-		synchronized ( ALIEN_CLASSLOADERS ) {
-			ALIEN_CLASSLOADERS.add( classLoader );
+		// Already registered? (the common case, so avoid allocating a queued key)
+
+		if ( ALIEN_CLASSLOADERS.containsKey( new WeakIdentityKey( classLoader, null ) ) ) {
+			return;
+		}
+
+		expungeStaleEntries();
+
+		if ( ALIEN_CLASSLOADERS.putIfAbsent( new WeakIdentityKey( classLoader, STALE_KEYS ), Boolean.TRUE ) == null ) {
+
+			// Previously unresolvable class names may now be resolvable
+
+			CLASS_CACHE.clear();
 		}
 	}
 
@@ -428,7 +462,10 @@ public final class ClassUtils {
 	 * fails, it then tries the Thread's current ClassLoader (this works best for EJB/WAR splits
 	 * where, say, metawidget-core and metawidget-annotations are located in the EJB/lib and the
 	 * other modules are located in the WAR/lib). If that fails, it tries ClassUtils' ClassLoader.
-	 * If that fails, it tries our alien ClassLoader.
+	 * If that fails, it tries our alien ClassLoaders.
+	 * <p>
+	 * Results (including negative results) are cached per Thread ClassLoader, unless a specific
+	 * ClassLoader is given that differs from the Thread's.
 	 *
 	 * @param classLoader
 	 *            the specific ClassLoader to use to try and load this class. In general clients
@@ -450,57 +487,60 @@ public final class ClassUtils {
 			classNameToUse = classNameToUse.substring( 0, indexOf );
 		}
 
-		// Try given ClassLoader (may be none)
+		// Cached?
+		//
+		// Note: if the Thread has no ClassLoader (such as on Android) the lookup order below
+		// is equivalent to using ClassUtils' ClassLoader
 
-		try {
-			if ( classLoader != null ) {
-				return Class.forName( classNameToUse, false, classLoader );
-			}
-		} catch ( ClassNotFoundException e ) {
+		ClassLoader threadClassLoader = Thread.currentThread().getContextClassLoader();
+		ClassLoader cacheClassLoader = threadClassLoader;
 
-			// Fall through and try other ClassLoaders
+		if ( cacheClassLoader == null ) {
+			cacheClassLoader = ClassUtils.class.getClassLoader();
 		}
 
-		// Try given Thread ClassLoader (may be none, such as on Android)
+		ConcurrentMap<String, Object> cache = null;
 
-		ClassLoader threadClassLoader = Thread.currentThread().getContextClassLoader();
+		if ( cacheClassLoader != null && ( classLoader == null || classLoader.equals( threadClassLoader ) ) ) {
+			cache = CLASS_CACHE.get( new WeakIdentityKey( cacheClassLoader, null ) );
 
-		try {
-			if ( threadClassLoader != null && !threadClassLoader.equals( classLoader ) ) {
-				return Class.forName( classNameToUse, false, threadClassLoader );
-			}
-		} catch ( ClassNotFoundException e ) {
+			if ( cache != null ) {
+				Object cached = cache.get( classNameToUse );
 
-			// Fall through and try other ClassLoaders
-		}
+				if ( cached == CLASS_NOT_FOUND ) {
+					return null;
+				}
 
-		// Try our own ClassLoader (if different to threadClassLoader)
+				if ( cached != null ) {
+					@SuppressWarnings( "unchecked" )
+					Class<?> clazz = ( (WeakReference<Class<?>>) cached ).get();
 
-		ClassLoader thisClassLoader = ClassUtils.class.getClassLoader();
+					if ( clazz != null ) {
+						return clazz;
+					}
+				}
+			} else {
+				expungeStaleEntries();
+				cache = new ConcurrentHashMap<String, Object>();
+				ConcurrentMap<String, Object> existingCache = CLASS_CACHE.putIfAbsent( new WeakIdentityKey( cacheClassLoader, STALE_KEYS ), cache );
 
-		try {
-			if ( !thisClassLoader.equals( threadClassLoader ) && !thisClassLoader.equals( classLoader ) ) {
-				return Class.forName( classNameToUse, false, thisClassLoader );
+				if ( existingCache != null ) {
+					cache = existingCache;
+				}
 			}
-		} catch ( ClassNotFoundException e ) {
-
-			// Fall through and try other ClassLoaders
 		}
 
-		// Try our alien ClassLoaders
-
-		synchronized ( ALIEN_CLASSLOADERS ) {
-			for ( ClassLoader alienClassLoader : ALIEN_CLASSLOADERS ) {
-				try {
-					return Class.forName( classNameToUse, false, alienClassLoader );
-				} catch ( ClassNotFoundException e ) {
+		Class<?> clazz = uncachedNiceForName( classNameToUse, classLoader, threadClassLoader );
 
-					// Fall through and try other ClassLoaders
-				}
+		if ( cache != null ) {
+			if ( clazz == null ) {
+				cache.put( classNameToUse, CLASS_NOT_FOUND );
+			} else {
+				cache.put( classNameToUse, new WeakReference<Class<?>>( clazz ) );
 			}
 		}
 
-		return getPrimitive( classNameToUse );
+		return clazz;
 	}
 
 	public static boolean isPrimitive( String className ) {
@@ -570,31 +610,36 @@ public final class ClassUtils {
 
 	public static <T extends Annotation> T getOriginalAnnotation( Method method, Class<T> annotationClass ) {
 
-		Map<Class<? extends Annotation>, Annotation> cache = ORIGINAL_ANNOTATION_CACHE.get( method );
-
-		if ( cache == null ) {
-			cache = CollectionUtils.newWeakHashMap();
-			ORIGINAL_ANNOTATION_CACHE.put( method, cache );
-		}
+		@SuppressWarnings( "unchecked" )
+		T annotation = (T) getOriginalAnnotations( method ).get( annotationClass );
+		return annotation;
+	}
 
-		// Must synchronize, as WeakHashMap is not Thread safe and WeakHashMap:383 contains an
-		// infinite while: while (e != null && !(e.hash == h && eq(k, e.get())))
+	/**
+	 * Gets all annotations defined on the given method, keyed by annotation type, using the same
+	 * rules as <code>getOriginalAnnotation</code>.
+	 * <p>
+	 * The annotations of each method are resolved once (including searching up the class
+	 * heirarchy and across interfaces) and then cached, so subsequent queries for any annotation
+	 * type are a single lookup. Reads do not lock.
+	 *
+	 * @return an unmodifiable Map. Never null
+	 */
 
-		synchronized ( cache ) {
+	public static Map<Class<? extends Annotation>, Annotation> getOriginalAnnotations( Method method ) {
 
-			// Use 'containsKey', because we may cache it as being 'null'
+		Map<Class<? extends Annotation>, Annotation> annotations = ORIGINAL_ANNOTATION_CACHE.get( method );
 
-			if ( cache.containsKey( annotationClass ) ) {
-				@SuppressWarnings( "unchecked" )
-				T annotation = (T) cache.get( annotationClass );
-				return annotation;
-			}
+		if ( annotations == null ) {
 
-			T annotation = internalGetOriginalAnnotation( method, annotationClass );
-			cache.put( annotationClass, annotation );
+			// Note: two Threads may both resolve the same Method, but they will arrive at
+			// equivalent results so it does not matter which is cached
 
-			return annotation;
+			annotations = internalGetOriginalAnnotations( method );
+			ORIGINAL_ANNOTATION_CACHE.putIfAbsent( method, annotations );
 		}
+
+		return annotations;
 	}
 
 	/**
@@ -744,14 +789,28 @@ public final class ClassUtils {
 	// Private statics
 	//
 
-	private static final Map<Method, Map<Class<? extends Annotation>, Annotation>>	ORIGINAL_ANNOTATION_CACHE	= CollectionUtils.newHashMap();
+	private static final ConcurrentMap<Method, Map<Class<? extends Annotation>, Annotation>>	ORIGINAL_ANNOTATION_CACHE	= new ConcurrentHashMap<Method, Map<Class<? extends Annotation>, Annotation>>();
+
+	/**
+	 * Marker for class names that could not be resolved (<code>ConcurrentHashMap</code> does not
+	 * support <code>null</code> values).
+	 */
+
+	private static final Object																CLASS_NOT_FOUND				= new Object();
+
+	/**
+	 * Queue of <code>WeakIdentityKey</code>s whose ClassLoaders have been garbage collected.
+	 */
+
+	private static final ReferenceQueue<Object>												STALE_KEYS					= new ReferenceQueue<Object>();
 
 	/**
 	 * We found <code>getOriginalAnnotation</code> to be around 10x slower that just
-	 * <code>method.getAnnotation</code>, so we cache it.
+	 * <code>method.getAnnotation</code>, so we resolve all of a method's annotations in one pass
+	 * and cache them.
 	 */
 
-	private static <T extends Annotation> T internalGetOriginalAnnotation( Method method, Class<T> annotationClass ) {
+	private static Map<Class<? extends Annotation>, Annotation> internalGetOriginalAnnotations( Method method ) {
 
 		Method methodToUse = method;
 		String name = methodToUse.getName();
@@ -759,7 +818,9 @@ public final class ClassUtils {
 
 		// If no annotations are defined at all, traverse up the hierarchy
 
-		while ( methodToUse.getAnnotations().length == 0 ) {
+		Annotation[] annotations = methodToUse.getAnnotations();
+
+		while ( annotations.length == 0 ) {
 
 			Class<?> superclass = methodToUse.getDeclaringClass().getSuperclass();
 			methodToUse = null;
@@ -779,37 +840,122 @@ public final class ClassUtils {
 			if ( methodToUse == null ) {
 				break;
 			}
+
+			annotations = methodToUse.getAnnotations();
 		}
 
-		// If this method has the annotation, return it
+		// Annotations on this method take precedence...
 
-		if ( methodToUse != null ) {
-			T annotation = methodToUse.getAnnotation( annotationClass );
+		Map<Class<? extends Annotation>, Annotation> resolved = CollectionUtils.newHashMap();
 
-			if ( annotation != null ) {
-				return annotation;
-			}
+		for ( Annotation annotation : annotations ) {
+			resolved.put( annotation.annotationType(), annotation );
 		}
 
-		// Try interfaces too, in case annotation is defined there
+		// ...then try interfaces too, in case annotations are defined there
 
 		for ( Class<?> iface : method.getDeclaringClass().getInterfaces() ) {
 
 			try {
 				methodToUse = iface.getDeclaredMethod( name, parameterTypes );
-				T annotation = methodToUse.getAnnotation( annotationClass );
-
-				if ( annotation != null ) {
-					return annotation;
-				}
 			} catch ( Exception e ) {
 				// Not in this interface
+				continue;
+			}
+
+			for ( Annotation annotation : methodToUse.getAnnotations() ) {
+
+				if ( !resolved.containsKey( annotation.annotationType() ) ) {
+					resolved.put( annotation.annotationType(), annotation );
+				}
 			}
 		}
 
-		// No annotation found
+		// Most methods have few annotations, so store them compactly
 
-		return null;
+		switch ( resolved.size() ) {
+			case 0:
+				return Collections.emptyMap();
+
+			case 1:
+				Map.Entry<Class<? extends Annotation>, Annotation> entry = resolved.entrySet().iterator().next();
+				return Collections.<Class<? extends Annotation>, Annotation> singletonMap( entry.getKey(), entry.getValue() );
+
+			default:
+				return Collections.unmodifiableMap( resolved );
+		}
+	}
+
+	private static Class<?> uncachedNiceForName( String className, ClassLoader classLoader, ClassLoader threadClassLoader ) {
+
+		// Try given ClassLoader (may be none)
+
+		try {
+			if ( classLoader != null ) {
+				return Class.forName( className, false, classLoader );
+			}
+		} catch ( ClassNotFoundException e ) {
+
+			// Fall through and try other ClassLoaders
+		}
+
+		// Try given Thread ClassLoader (may be none, such as on Android)
+
+		try {
+			if ( threadClassLoader != null && !threadClassLoader.equals( classLoader ) ) {
+				return Class.forName( className, false, threadClassLoader );
+			}
+		} catch ( ClassNotFoundException e ) {
+
+			// Fall through and try other ClassLoaders
+		}
+
+		// Try our own ClassLoader (if different to threadClassLoader)
+
+		ClassLoader thisClassLoader = ClassUtils.class.getClassLoader();
+
+		try {
+			if ( !thisClassLoader.equals( threadClassLoader ) && !thisClassLoader.equals( classLoader ) ) {
+				return Class.forName( className, false, thisClassLoader );
+			}
+		} catch ( ClassNotFoundException e ) {
+
+			// Fall through and try other ClassLoaders
+		}
+
+		// Try our alien ClassLoaders (iterating a ConcurrentMap does not need locking)
+
+		for ( WeakIdentityKey alienKey : ALIEN_CLASSLOADERS.keySet() ) {
+
+			ClassLoader alienClassLoader = (ClassLoader) alienKey.get();
+
+			if ( alienClassLoader == null ) {
+				continue;
+			}
+
+			try {
+				return Class.forName( className, false, alienClassLoader );
+			} catch ( ClassNotFoundException e ) {
+
+				// Fall through and try other ClassLoaders
+			}
+		}
+
+		return getPrimitive( className );
+	}
+
+	/**
+	 * Removes entries whose ClassLoaders have been garbage collected.
+	 */
+
+	private static void expungeStaleEntries() {
+
+		Reference<?> staleKey;
+
+		while ( ( staleKey = STALE_KEYS.poll() ) != null ) {
+			ALIEN_CLASSLOADERS.remove( staleKey );
+			CLASS_CACHE.remove( staleKey );
+		}
 	}
 
 	private static Class<?> getPrimitive( String className ) {
@@ -849,6 +995,61 @@ public final class ClassUtils {
 		return null;
 	}
 
+	//
+	// Inner class
+	//
+
+	/**
+	 * Weakly referenced key that compares its referent by identity, for use with
+	 * <code>ConcurrentHashMap</code> (which, unlike <code>WeakHashMap</code>, is safe to read
+	 * without locking).
+	 */
+
+	/* package private */static final class WeakIdentityKey
+		extends WeakReference<Object> {
+
+		//
+		// Private members
+		//
+
+		private final int	mHashCode;
+
+		//
+		// Constructor
+		//
+
+		public WeakIdentityKey( Object referent, ReferenceQueue<Object> queue ) {
+
+			super( referent, queue );
+			mHashCode = System.identityHashCode( referent );
+		}
+
+		//
+		// Public methods
+		//
+
+		@Override
+		public int hashCode() {
+
+			return mHashCode;
+		}
+
+		@Override
+		public boolean equals( Object that ) {
+
+			if ( this == that ) {
+				return true;
+			}
+
+			if ( !( that instanceof WeakIdentityKey ) ) {
+				return false;
+			}
+
+			Object referent = get();
+			return ( referent != null && referent == ( (WeakIdentityKey) that ).get() );
+		}
+	}
+
 	//
 	// Private constructor
 	//
@@ -0,0 +1,236 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.util;
+
+import java.lang.reflect.Method;
+
+import org.metawidget.util.simple.StringUtils;
+
+/**
+ * Compiled path of JavaBean-convention properties, such as <code>address/street</code>.
+ * <p>
+ * Equivalent to calling <code>ClassUtils.getProperty</code> (or <code>setProperty</code>) once for
+ * each name in the path, but only looks up the getter (and setter) of each property once per
+ * class. Each step of the path remembers the getter and setter it last resolved, and reuses them
+ * for as long as it keeps seeing the same class. Binding implementations that repeatedly get and
+ * set the same properties of the same objects (such as saving a large form) therefore avoid
+ * hundreds of reflective method searches.
+ * <p>
+ * A PropertyPath does not hold on to the objects it traverses. It is thread-safe, though under
+ * contention from objects of different classes it may resolve the same methods more than once.
+ * It strongly references the classes it has seen, so should be scoped to something with the same
+ * lifecycle as those classes (such as a Metawidget), rather than held in a static.
+ *
+ * @author Richard Kennard
+ */
+
+public final class PropertyPath {
+
+	//
+	// Private members
+	//
+
+	private final String[]		mNames;
+
+	/**
+	 * Accessors last resolved for each step of the path (or null if not yet resolved).
+	 * <p>
+	 * Accessors are immutable (all their fields are final), so it is safe to publish them to other
+	 * threads through this (non-volatile) array. At worst another thread will not see the latest
+	 * Accessor, and resolve its own.
+	 */
+
+	private final Accessor[]	mAccessors;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * @param names
+	 *            the property names to traverse. If empty, the path refers to the base object
+	 *            itself
+	 */
+
+	public PropertyPath( String... names ) {
+
+		mNames = names.clone();
+		mAccessors = new Accessor[names.length];
+	}
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Gets the value at the end of this path.
+	 *
+	 * @return the value, or null if the value or any value along the path is null. If the path is
+	 *         empty, returns base
+	 */
+
+	@SuppressWarnings( "unchecked" )
+	public <T> T getValue( Object base ) {
+
+		Object traverse = base;
+
+		for ( int loop = 0, length = mNames.length; loop < length; loop++ ) {
+
+			if ( traverse == null ) {
+				return null;
+			}
+
+			traverse = read( loop, traverse );
+		}
+
+		return (T) traverse;
+	}
+
+	/**
+	 * Sets the value at the end of this path.
+	 *
+	 * @return true if the value was set, or false if base or any value along the path was null
+	 */
+
+	public boolean setValue( Object base, Object value ) {
+
+		int last = mNames.length - 1;
+
+		if ( last == -1 ) {
+			throw new RuntimeException( "Unable to set an empty PropertyPath" );
+		}
+
+		Object parent = base;
+
+		for ( int loop = 0; loop < last; loop++ ) {
+
+			if ( parent == null ) {
+				return false;
+			}
+
+			parent = read( loop, parent );
+		}
+
+		if ( parent == null ) {
+			return false;
+		}
+
+		try {
+			Accessor accessor = getAccessor( last, parent.getClass() );
+			Method writeMethod = accessor.mWriteMethod;
+
+			// No setter? (let ClassUtils throw a suitable exception)
+
+			if ( writeMethod == null ) {
+				writeMethod = ClassUtils.getWriteMethod( accessor.mClass, mNames[last], accessor.mReadMethod.getReturnType() );
+			}
+
+			writeMethod.invoke( parent, value );
+		} catch ( Exception e ) {
+			throw new RuntimeException( "Unable to set '" + mNames[last] + "' of '" + parent + "' to '" + value + "'", e );
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString() {
+
+		return ArrayUtils.toString( mNames, StringUtils.SEPARATOR_FORWARD_SLASH );
+	}
+
+	//
+	// Private methods
+	//
+
+	private Object read( int index, Object base ) {
+
+		try {
+			return getAccessor( index, base.getClass() ).mReadMethod.invoke( base );
+		} catch ( Exception e ) {
+			throw new RuntimeException( "Unable to get '" + mNames[index] + "' of '" + base + "' (" + base.getClass() + ")", e );
+		}
+	}
+
+	private Accessor getAccessor( int index, Class<?> clazz ) {
+
+		Accessor accessor = mAccessors[index];
+
+		if ( accessor == null || accessor.mClass != clazz ) {
+			accessor = new Accessor( clazz, mNames[index], index == mNames.length - 1 );
+			mAccessors[index] = accessor;
+		}
+
+		return accessor;
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Getter and setter of a property of a particular class.
+	 */
+
+	private static class Accessor {
+
+		//
+		// Private members
+		//
+
+		/* package private */final Class<?>	mClass;
+
+		/* package private */final Method	mReadMethod;
+
+		/**
+		 * Setter, or null if not resolved (because the property is not at the end of the path) or
+		 * if there is no setter.
+		 */
+
+		/* package private */final Method	mWriteMethod;
+
+		//
+		// Constructor
+		//
+
+		public Accessor( Class<?> clazz, String property, boolean resolveWriteMethod ) {
+
+			mClass = clazz;
+			mReadMethod = ClassUtils.getReadMethod( clazz, property );
+
+			if ( !resolveWriteMethod ) {
+				mWriteMethod = null;
+				return;
+			}
+
+			// Determine the type based on the 'read' method, not the value.getClass(), because
+			// that is unreliable for 'Integer' versus 'int'
+
+			Method writeMethod;
+
+			try {
+				writeMethod = ClassUtils.getWriteMethod( clazz, property, mReadMethod.getReturnType() );
+			} catch ( RuntimeException e ) {
+				// May only ever be read
+
+				writeMethod = null;
+			}
+
+			mWriteMethod = writeMethod;
+		}
+	}
+}
@@ -27,11 +27,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 
+import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 
 import org.metawidget.util.simple.StringUtils;
 import org.w3c.dom.DOMException;
@@ -40,6 +44,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.w3c.dom.Text;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.EntityResolver;
@@ -388,12 +393,14 @@ public final class XmlUtils {
 			return null;
 		}
 
+		DOCUMENT_BUILDER_LOCK.lock();
+
 		try {
-			synchronized ( DOCUMENT_BUILDER ) {
-				return DOCUMENT_BUILDER.parse( new InputSource( new StringReader( xml ) ) );
-			}
+			return DOCUMENT_BUILDER.parse( new InputSource( new StringReader( xml ) ) );
 		} catch ( Exception e ) {
 			throw new RuntimeException( e );
+		} finally {
+			DOCUMENT_BUILDER_LOCK.unlock();
 		}
 	}
 
@@ -404,16 +411,24 @@ public final class XmlUtils {
 
 	public static Document newDocument() {
 
-		synchronized ( DOCUMENT_BUILDER ) {
+		DOCUMENT_BUILDER_LOCK.lock();
+
+		try {
 			return DOCUMENT_BUILDER.newDocument();
+		} finally {
+			DOCUMENT_BUILDER_LOCK.unlock();
 		}
 	}
 
 	public static Document parse( InputStream stream )
 		throws IOException, SAXException {
 
-		synchronized ( DOCUMENT_BUILDER ) {
+		DOCUMENT_BUILDER_LOCK.lock();
+
+		try {
 			return DOCUMENT_BUILDER.parse( stream );
+		} finally {
+			DOCUMENT_BUILDER_LOCK.unlock();
 		}
 	}
 
@@ -565,6 +580,36 @@ public final class XmlUtils {
 		}
 	}
 
+	/**
+	 * Combine the given XML into the given element, as
+	 * <code>combineElements( Element, Element, String, String )</code> would.
+	 * <p>
+	 * Rather than parsing the XML into an interim Document using the shared (and therefore locked)
+	 * DocumentBuilder, this version parses it with its own SAXParser into detached elements of
+	 * <code>master</code>'s Document. Only once the XML has been parsed successfully are they
+	 * combined, so malformed XML leaves <code>master</code> untouched.
+	 */
+
+	public static void combineElements( Element master, String toAdd, String topLevelAttributeToCombineOn, String childAttributeToCombineOn ) {
+
+		// (not all platforms support the SAX features we need)
+
+		if ( SAX_PARSER_FACTORY == null ) {
+			combineElements( master, documentFromString( toAdd ).getDocumentElement(), topLevelAttributeToCombineOn, childAttributeToCombineOn );
+			return;
+		}
+
+		ElementBuildingContentHandler contentHandler = new ElementBuildingContentHandler( master.getOwnerDocument() );
+
+		try {
+			SAX_PARSER_FACTORY.newSAXParser().parse( new InputSource( new StringReader( toAdd ) ), contentHandler );
+		} catch ( Exception e ) {
+			throw new RuntimeException( e );
+		}
+
+		combineElements( master, contentHandler.getRoot(), topLevelAttributeToCombineOn, childAttributeToCombineOn );
+	}
+
 	/**
 	 * Convert the given Element to a JSON Schema String.
 	 * <p>
@@ -1575,12 +1620,123 @@ public final class XmlUtils {
 		}
 	}
 
+	/**
+	 * ContentHandler that builds SAX events into a detached Element of an existing Document.
+	 */
+
+	/* package private */static class ElementBuildingContentHandler
+		extends DefaultHandler {
+
+		//
+		// Private members
+		//
+
+		private final Document		mDocument;
+
+		private final List<Element>	mElements	= CollectionUtils.newArrayList();
+
+		private Element				mRoot;
+
+		//
+		// Constructor
+		//
+
+		public ElementBuildingContentHandler( Document document ) {
+
+			mDocument = document;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Element getRoot() {
+
+			return mRoot;
+		}
+
+		@Override
+		public InputSource resolveEntity( String publicId, String systemId ) {
+
+			return new NopEntityResolver().resolveEntity( publicId, systemId );
+		}
+
+		@Override
+		public void startElement( String uri, String localName, String name, Attributes attributes ) {
+
+			Element element = mDocument.createElementNS( emptyToNull( uri ), name );
+
+			for ( int loop = 0, length = attributes.getLength(); loop < length; loop++ ) {
+				String attributeName = attributes.getQName( loop );
+				String attributeUri = emptyToNull( attributes.getURI( loop ) );
+
+				if ( attributeUri == null && ( XMLConstants.XMLNS_ATTRIBUTE.equals( attributeName ) || attributeName.startsWith( XMLConstants.XMLNS_ATTRIBUTE + ':' ) ) ) {
+					attributeUri = XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+				}
+
+				element.setAttributeNS( attributeUri, attributeName, attributes.getValue( loop ) );
+			}
+
+			if ( mElements.isEmpty() ) {
+				mRoot = element;
+			} else {
+				mElements.get( mElements.size() - 1 ).appendChild( element );
+			}
+
+			mElements.add( element );
+		}
+
+		@Override
+		public void characters( char[] characters, int start, int length ) {
+
+			// Keep text (even whitespace), so that child node numbering matches a DocumentBuilder's
+
+			Element element = mElements.get( mElements.size() - 1 );
+			Node lastChild = element.getLastChild();
+
+			if ( lastChild instanceof Text ) {
+				( (Text) lastChild ).appendData( new String( characters, start, length ) );
+			} else {
+				element.appendChild( mDocument.createTextNode( new String( characters, start, length ) ) );
+			}
+		}
+
+		@Override
+		public void endElement( String uri, String localName, String name ) {
+
+			mElements.remove( mElements.size() - 1 );
+		}
+
+		//
+		// Private methods
+		//
+
+		private String emptyToNull( String uri ) {
+
+			if ( uri == null || uri.length() == 0 ) {
+				return null;
+			}
+
+			return uri;
+		}
+	}
+
 	//
 	// Private statics
 	//
 
 	private static final DocumentBuilder	DOCUMENT_BUILDER;
 
+	/**
+	 * Guards <code>DOCUMENT_BUILDER</code>, which is not thread-safe.
+	 * <p>
+	 * Uses a <code>Lock</code> rather than a <code>synchronized</code> block because parsing may
+	 * block on I/O, and a thread blocked inside a monitor cannot be unmounted from its carrier
+	 * thread by containers that use lightweight (virtual) request threads.
+	 */
+
+	private static final Lock				DOCUMENT_BUILDER_LOCK	= new ReentrantLock();
+
 	static {
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		factory.setNamespaceAware( true );
@@ -1594,15 +1750,43 @@ public final class XmlUtils {
 		}
 	}
 
-	private static final Pattern			PATTERN_AMP		= Pattern.compile( "&", Pattern.LITERAL );
+	/**
+	 * Namespace-aware SAXParserFactory that also reports <code>xmlns</code> attributes (as
+	 * <code>DOCUMENT_BUILDER</code> does). May be <code>null</code> if the platform does not
+	 * support this.
+	 * <p>
+	 * SAXParsers are not thread-safe, so each call creates its own from this (fully configured,
+	 * never modified) factory. A ThreadLocal is not used, as it would hold on to our ClassLoader in
+	 * pooled threads.
+	 */
+
+	private static final SAXParserFactory	SAX_PARSER_FACTORY;
+
+	static {
+		SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
+
+		try {
+			saxParserFactory.setNamespaceAware( true );
+			saxParserFactory.setFeature( "http://xml.org/sax/features/namespace-prefixes", true );
+			saxParserFactory.newSAXParser();
+		} catch ( Exception e ) {
+			// Fall back to DOCUMENT_BUILDER
+
+			saxParserFactory = null;
+		}
+
+		SAX_PARSER_FACTORY = saxParserFactory;
+	}
+
+	private static final Pattern			PATTERN_AMP				= Pattern.compile( "&", Pattern.LITERAL );
 
-	private static final Pattern			PATTERN_LT		= Pattern.compile( "<", Pattern.LITERAL );
+	private static final Pattern			PATTERN_LT				= Pattern.compile( "<", Pattern.LITERAL );
 
-	private static final Pattern			PATTERN_GT		= Pattern.compile( ">", Pattern.LITERAL );
+	private static final Pattern			PATTERN_GT				= Pattern.compile( ">", Pattern.LITERAL );
 
-	private static final Pattern			PATTERN_QUOT	= Pattern.compile( "\"", Pattern.LITERAL );
+	private static final Pattern			PATTERN_QUOT			= Pattern.compile( "\"", Pattern.LITERAL );
 
-	private static final Pattern			PATTERN_APOS	= Pattern.compile( "\'", Pattern.LITERAL );
+	private static final Pattern			PATTERN_APOS			= Pattern.compile( "\'", Pattern.LITERAL );
 
 	//
 	// Private constructor
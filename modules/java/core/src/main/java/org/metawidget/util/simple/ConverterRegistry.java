@@ -0,0 +1,190 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.util.simple;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of converters (or anything else registered against a class, such as binding adapters)
+ * for use by binding implementations.
+ * <p>
+ * Converters are registered against a source class and, optionally, a target class. Resolving a
+ * converter traverses the superclasses of the given source class, so for example registering a
+ * converter for <code>Number.class</code> will match <code>Integer.class</code>,
+ * <code>Double.class</code> etc., unless a more subclass-specific converter is also registered.
+ * <p>
+ * The result of each resolution, including 'no converter', is remembered for each concrete source
+ * and target class, so that binding each widget only costs a lookup rather than a traversal.
+ * <p>
+ * This class is GWT-compatible (it does no reflection beyond <code>Class.getSuperclass</code>).
+ * It is thread-safe. It strongly references the classes it has seen, so should be scoped to
+ * something with the same lifecycle as those classes (such as a WidgetProcessor), rather than held
+ * in a static.
+ *
+ * @author Richard Kennard
+ */
+
+public class ConverterRegistry<C> {
+
+	//
+	// Private members
+	//
+
+	/**
+	 * Registered converters, keyed by target class (or null) and then source class.
+	 * <p>
+	 * Copy-on-write: the Maps are never modified once published, so can be read without locking.
+	 */
+
+	private volatile Map<Class<?>, Map<Class<?>, C>>	mConverters	= new HashMap<Class<?>, Map<Class<?>, C>>();
+
+	/**
+	 * Resolved converters, keyed by target class (or null) and then concrete source class.
+	 * <p>
+	 * Values may be null, to remember a source class has no converter. Copy-on-write, as per
+	 * <code>mConverters</code>.
+	 */
+
+	private volatile Map<Class<?>, Map<Class<?>, C>>	mResolved	= new HashMap<Class<?>, Map<Class<?>, C>>();
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Registers a converter that applies regardless of target class.
+	 */
+
+	public void register( Class<?> source, C converter ) {
+
+		register( source, null, converter );
+	}
+
+	/**
+	 * Registers a converter from the given source class (and its subclasses) to the given target
+	 * class.
+	 *
+	 * @param target
+	 *            the target class, or null if the converter applies regardless of target class
+	 */
+
+	public synchronized void register( Class<?> source, Class<?> target, C converter ) {
+
+		mConverters = copyAndPut( mConverters, target, source, converter );
+
+		// Previous resolutions may no longer be correct
+
+		mResolved = new HashMap<Class<?>, Map<Class<?>, C>>();
+	}
+
+	/**
+	 * Gets the converter registered against the given source class (or its closest superclass),
+	 * regardless of target class.
+	 *
+	 * @return the converter, or null if there is none
+	 */
+
+	public C get( Class<?> source ) {
+
+		return get( source, null );
+	}
+
+	/**
+	 * Gets the converter registered from the given source class (or its closest superclass) to the
+	 * given target class.
+	 * <p>
+	 * Does not lock, unless the source class has not been resolved before.
+	 *
+	 * @param target
+	 *            the target class, or null to match converters registered regardless of target class
+	 * @return the converter, or null if there is none
+	 */
+
+	public C get( Class<?> source, Class<?> target ) {
+
+		// Already resolved?
+
+		Map<Class<?>, C> resolved = mResolved.get( target );
+
+		if ( resolved != null ) {
+			C converter = resolved.get( source );
+
+			if ( converter != null || resolved.containsKey( source ) ) {
+				return converter;
+			}
+		}
+
+		// Resolve (and remember)
+
+		Map<Class<?>, Map<Class<?>, C>> allConverters = mConverters;
+		Map<Class<?>, C> converters = allConverters.get( target );
+		C converter = null;
+
+		if ( converters != null ) {
+			Class<?> sourceTraversal = source;
+
+			while ( sourceTraversal != null ) {
+				converter = converters.get( sourceTraversal );
+
+				if ( converter != null ) {
+					break;
+				}
+
+				sourceTraversal = sourceTraversal.getSuperclass();
+			}
+		}
+
+		remember( allConverters, source, target, converter );
+		return converter;
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Remembers the given resolution, unless a converter has been registered since it was resolved.
+	 */
+
+	private synchronized void remember( Map<Class<?>, Map<Class<?>, C>> resolvedFrom, Class<?> source, Class<?> target, C converter ) {
+
+		if ( resolvedFrom != mConverters ) {
+			return;
+		}
+
+		mResolved = copyAndPut( mResolved, target, source, converter );
+	}
+
+	private static <C> Map<Class<?>, Map<Class<?>, C>> copyAndPut( Map<Class<?>, Map<Class<?>, C>> map, Class<?> target, Class<?> source, C converter ) {
+
+		Map<Class<?>, C> inner = map.get( target );
+
+		if ( inner == null ) {
+			inner = new HashMap<Class<?>, C>();
+		} else {
+			inner = new HashMap<Class<?>, C>( inner );
+		}
+
+		inner.put( source, converter );
+
+		Map<Class<?>, Map<Class<?>, C>> copy = new HashMap<Class<?>, Map<Class<?>, C>>( map );
+		copy.put( target, inner );
+
+		return copy;
+	}
+}
@@ -16,9 +16,13 @@
 
 package org.metawidget.widgetbuilder.composite;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.metawidget.widgetbuilder.iface.AdvancedWidgetBuilder;
+import org.metawidget.widgetbuilder.iface.SelectiveWidgetBuilder;
 import org.metawidget.widgetbuilder.iface.WidgetBuilder;
 import org.metawidget.widgetbuilder.iface.WidgetBuilderException;
 
@@ -29,6 +33,10 @@ import org.metawidget.widgetbuilder.iface.WidgetBuilderException;
  * method. The first non-null result is returned. If all sub-WidgetBuilders return null, null is
  * returned (the parent Metawidget will generally instantiate a nested Metawidget in this case).
  * <p>
+ * For sub-WidgetBuilders that implement <code>SelectiveWidgetBuilder</code>, CompositeWidgetBuilder
+ * remembers which returned null for each combination of element name and selector attributes.
+ * Subsequent widgets with the same combination skip straight past them.
+ * <p>
  * Note: the name <em>Composite</em>WidgetBuilder refers to the Composite design pattern.
  *
  * @author Richard Kennard
@@ -37,12 +45,50 @@ import org.metawidget.widgetbuilder.iface.WidgetBuilderException;
 public class CompositeWidgetBuilder<W, M extends W>
 	implements AdvancedWidgetBuilder<W, M> {
 
+	//
+	// Private statics
+	//
+
+	/**
+	 * Upper bound on the size of the dispatch table. Selector attributes are expected to have few
+	 * distinct values (types, lookups, flags), but this guards against a WidgetBuilder declaring
+	 * one that does not.
+	 */
+
+	private static final int	MAXIMUM_DISPATCH_TABLE_SIZE	= 1024;
+
+	private static final char	DISPATCH_KEY_SEPARATOR		= '\u0000';
+
 	//
 	// Private members
 	//
 
 	/* package private */final WidgetBuilder<W, M>[]	mWidgetBuilders;
 
+	/**
+	 * Bitmask of which of (the first 64) <code>mWidgetBuilders</code> are
+	 * <code>SelectiveWidgetBuilder</code>s.
+	 */
+
+	private final long									mSelectiveWidgetBuilders;
+
+	/**
+	 * Union of the selector attributes of all <code>SelectiveWidgetBuilder</code>s.
+	 */
+
+	private final String[]								mSelectorAttributes;
+
+	/**
+	 * Dispatch table from element name and selector attribute values, to a bitmask of the
+	 * <code>SelectiveWidgetBuilder</code>s known to return null for them.
+	 * <p>
+	 * The table is never modified in place. Instead it is copied, modified, and the copy published.
+	 * This keeps lookups lock-free without <code>java.util.concurrent</code>, which GWT does not
+	 * support.
+	 */
+
+	private volatile Map<String, Long>					mDispatchTable	= new HashMap<String, Long>();
+
 	//
 	// Constructor
 	//
@@ -73,6 +119,31 @@ public class CompositeWidgetBuilder<W, M extends W>
 
 			mWidgetBuilders[loop] = widgetBuilder;
 		}
+
+		// Collect SelectiveWidgetBuilders and their selector attributes
+
+		long selectiveWidgetBuilders = 0;
+		List<String> selectorAttributes = new ArrayList<String>();
+
+		for ( int loop = 0, length = Math.min( mWidgetBuilders.length, Long.SIZE ); loop < length; loop++ ) {
+			WidgetBuilder<W, M> widgetBuilder = mWidgetBuilders[loop];
+
+			if ( !( widgetBuilder instanceof SelectiveWidgetBuilder<?, ?> ) ) {
+				continue;
+			}
+
+			for ( String selectorAttribute : ( (SelectiveWidgetBuilder<W, M>) widgetBuilder ).getSelectorAttributes() ) {
+
+				if ( !selectorAttributes.contains( selectorAttribute ) ) {
+					selectorAttributes.add( selectorAttribute );
+				}
+			}
+
+			selectiveWidgetBuilders |= 1L << loop;
+		}
+
+		mSelectiveWidgetBuilders = selectiveWidgetBuilders;
+		mSelectorAttributes = selectorAttributes.toArray( new String[selectorAttributes.size()] );
 	}
 
 	//
@@ -91,14 +162,46 @@ public class CompositeWidgetBuilder<W, M extends W>
 
 	public W buildWidget( String elementName, Map<String, String> attributes, M metawidget ) {
 
-		for ( WidgetBuilder<W, M> widgetBuilder : mWidgetBuilders ) {
-			W widget = widgetBuilder.buildWidget( elementName, attributes, metawidget );
+		// Look up which SelectiveWidgetBuilders are already known to return null...
+
+		String dispatchKey = getDispatchKey( elementName, attributes );
+		long knownNull = 0;
+
+		if ( dispatchKey != null ) {
+			Long dispatch = mDispatchTable.get( dispatchKey );
+
+			if ( dispatch != null ) {
+				knownNull = dispatch;
+			}
+		}
+
+		// ...and skip them
+
+		long returnedNull = knownNull;
+
+		for ( int loop = 0, length = mWidgetBuilders.length; loop < length; loop++ ) {
+
+			long bit = 0;
+
+			if ( loop < Long.SIZE ) {
+				bit = 1L << loop;
+			}
+
+			if ( ( knownNull & bit ) != 0 ) {
+				continue;
+			}
+
+			W widget = mWidgetBuilders[loop].buildWidget( elementName, attributes, metawidget );
 
 			if ( widget != null ) {
+				putDispatch( dispatchKey, knownNull, returnedNull );
 				return widget;
 			}
+
+			returnedNull |= ( bit & mSelectiveWidgetBuilders );
 		}
 
+		putDispatch( dispatchKey, knownNull, returnedNull );
 		return null;
 	}
 
@@ -126,4 +229,57 @@ public class CompositeWidgetBuilder<W, M extends W>
 
 		return widgetBuilders;
 	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * @return the key into the dispatch table, or null if there are no SelectiveWidgetBuilders
+	 */
+
+	private String getDispatchKey( String elementName, Map<String, String> attributes ) {
+
+		if ( mSelectiveWidgetBuilders == 0 || attributes == null ) {
+			return null;
+		}
+
+		StringBuilder builder = new StringBuilder();
+		builder.append( elementName );
+
+		for ( String selectorAttribute : mSelectorAttributes ) {
+
+			builder.append( DISPATCH_KEY_SEPARATOR );
+			String value = attributes.get( selectorAttribute );
+
+			// Distinguish null from empty
+
+			if ( value != null ) {
+				builder.append( '=' );
+				builder.append( value );
+			}
+		}
+
+		return builder.toString();
+	}
+
+	private void putDispatch( String dispatchKey, long knownNull, long returnedNull ) {
+
+		if ( dispatchKey == null || returnedNull == knownNull ) {
+			return;
+		}
+
+		Map<String, Long> dispatchTable = mDispatchTable;
+
+		if ( knownNull == 0 && dispatchTable.size() >= MAXIMUM_DISPATCH_TABLE_SIZE ) {
+			return;
+		}
+
+		// Copy-on-write. Concurrent updates may occasionally lose an entry, but it will simply be
+		// learned again
+
+		Map<String, Long> newDispatchTable = new HashMap<String, Long>( dispatchTable );
+		newDispatchTable.put( dispatchKey, returnedNull );
+		mDispatchTable = newDispatchTable;
+	}
 }
@@ -0,0 +1,51 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.widgetbuilder.iface;
+
+/**
+ * Interface for WidgetBuilders that can declare which attributes decide whether they build a
+ * widget.
+ * <p>
+ * Given the same element name and the same values for its <em>selector attributes</em>, a
+ * SelectiveWidgetBuilder must always return either <code>null</code> or non-<code>null</code> from
+ * <code>buildWidget</code>, regardless of any other attributes or the state of the Metawidget.
+ * <code>CompositeWidgetBuilder</code> uses this to remember which SelectiveWidgetBuilders will
+ * return <code>null</code> for a given combination, and skip straight past them.
+ * <p>
+ * WidgetBuilders whose decision depends on anything else (such as <code>OverriddenWidgetBuilder</code>
+ * looking for existing child widgets, or <code>ReadOnlyWidgetBuilder</code> checking whether the
+ * Metawidget is read-only) should not implement this interface.
+ *
+ * @author Richard Kennard
+ */
+
+public interface SelectiveWidgetBuilder<W, M extends W>
+	extends WidgetBuilder<W, M> {
+
+	//
+	// Methods
+	//
+
+	/**
+	 * Names of the attributes (in addition to the element name) that decide whether
+	 * <code>buildWidget</code> returns a widget.
+	 *
+	 * @return the attribute names. Never null
+	 */
+
+	String[] getSelectorAttributes();
+}
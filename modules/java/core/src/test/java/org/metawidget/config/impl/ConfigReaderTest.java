@@ -21,6 +21,11 @@ import java.io.ByteArrayOutputStream;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import javax.swing.SwingConstants;
@@ -37,6 +42,7 @@ import org.metawidget.inspector.xml.XmlInspector;
 import org.metawidget.util.IOUtils;
 import org.metawidget.util.LogUtils;
 import org.metawidget.util.LogUtilsTest;
+import org.metawidget.util.XmlUtils;
 
 /**
  * @author Richard Kennard
@@ -696,6 +702,73 @@ public class ConfigReaderTest
 		}
 	}
 
+	/**
+	 * Test reading configuration and inspecting, from thousands of concurrent tasks sharing the
+	 * same <code>ConfigReader</code>. Exercises the locks (rather than monitors) guarding
+	 * <code>BaseConfigReader</code>'s caches, <code>BaseXmlInspector</code>'s DOM,
+	 * <code>XmlUtils</code>' DocumentBuilder and <code>BaseTraitStyle</code>'s cache.
+	 */
+
+	public void testConcurrency()
+		throws Exception {
+
+		final ConfigReader configReader = new BaseConfigReader();
+		final String resource = "org/metawidget/config/metawidget-test-concurrency.xml";
+		final ConcurrencyFoo toInspect = new ConcurrencyFoo();
+		final String type = ConcurrencyFoo.class.getName();
+
+		// Expected result (single-threaded)
+
+		Inspector inspector = (Inspector) configReader.configure( resource, Inspector.class );
+		final String expected = inspector.inspect( toInspect, type );
+		assertTrue( expected.contains( "name=\"name\"" ) );
+		assertTrue( expected.contains( "type=\"int\"" ) );
+		assertTrue( expected.contains( "required=\"true\"" ) );
+
+		// Many concurrent inspections, on far fewer threads
+
+		final List<Throwable> concurrencyFailures = new CopyOnWriteArrayList<Throwable>();
+		final int concurrentInspections = 2000;
+		final CountDownLatch startSignal = new CountDownLatch( 1 );
+		final CountDownLatch doneSignal = new CountDownLatch( concurrentInspections );
+		ExecutorService executor = Executors.newFixedThreadPool( 100 );
+
+		try {
+			for ( int loop = 0; loop < concurrentInspections; loop++ ) {
+
+				executor.execute( new Runnable() {
+
+					public void run() {
+
+						try {
+							startSignal.await();
+
+							Inspector concurrentInspector = (Inspector) configReader.configure( resource, Inspector.class );
+							String inspectionResult = concurrentInspector.inspect( toInspect, type );
+							assertEquals( expected, inspectionResult );
+							assertEquals( inspectionResult, XmlUtils.nodeToString( XmlUtils.documentFromString( inspectionResult ).getDocumentElement(), false ) );
+						} catch ( Throwable t ) {
+							concurrencyFailures.add( t );
+						} finally {
+							doneSignal.countDown();
+						}
+					}
+				} );
+			}
+
+			startSignal.countDown();
+			assertTrue( doneSignal.await( 60, TimeUnit.SECONDS ) );
+		} finally {
+			executor.shutdown();
+		}
+
+		assertTrue( concurrencyFailures.toString(), concurrencyFailures.isEmpty() );
+
+		// Immutables should still have been shared
+
+		assertTrue( inspector == configReader.configure( resource, Inspector.class ) );
+	}
+
 	//
 	// Inner class
 	//
@@ -704,4 +777,31 @@ public class ConfigReaderTest
 
 		// Just an inner class
 	}
+
+	public static class ConcurrencyFoo {
+
+		private String	mName;
+
+		private int		mAge;
+
+		public String getName() {
+
+			return mName;
+		}
+
+		public void setName( String name ) {
+
+			mName = name;
+		}
+
+		public int getAge() {
+
+			return mAge;
+		}
+
+		public void setAge( int age ) {
+
+			mAge = age;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.async;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.iface.AsyncInspectorCallback;
+import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.util.MetawidgetTestUtils;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class AsyncInspectorAdapterTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testAsyncInspectorAdapter() {
+
+		Inspector inspector = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				if ( "fail".equals( type ) ) {
+					throw InspectorException.newException( "Failed" );
+				}
+
+				return type + ( names.length == 0 ? "" : names[0] );
+			}
+		};
+
+		AsyncInspectorAdapter asyncInspector = new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( inspector ) );
+
+		// Synchronous
+
+		assertEquals( "foobar", asyncInspector.inspect( null, "foo", "bar" ) );
+
+		// Asynchronous (without an Executor, calls back before returning)
+
+		final StringBuilder builder = new StringBuilder();
+
+		AsyncInspectorCallback<String> callback = new AsyncInspectorCallback<String>() {
+
+			public void onSuccess( String inspectionResult ) {
+
+				builder.append( inspectionResult );
+			}
+
+			public void onFailure( Throwable caught ) {
+
+				builder.append( "failed: " + caught.getMessage() );
+			}
+		};
+
+		asyncInspector.inspect( null, "foo", new String[] { "baz" }, callback );
+		assertEquals( "foobaz", builder.toString() );
+
+		builder.setLength( 0 );
+		asyncInspector.inspect( null, "fail", new String[0], callback );
+		assertEquals( "failed: Failed", builder.toString() );
+
+		// Needs an Inspector
+
+		try {
+			new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig() );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "AsyncInspectorAdapter needs an Inspector", e.getMessage() );
+		}
+	}
+
+	public void testConfig() {
+
+		MetawidgetTestUtils.testEqualsAndHashcode( AsyncInspectorAdapterConfig.class, new AsyncInspectorAdapterConfig() {
+			// Subclass
+		} );
+	}
+}
@@ -19,9 +19,19 @@ package org.metawidget.inspector.composite;
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.io.ByteArrayInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import junit.framework.TestCase;
 
+import org.metawidget.inspector.async.AsyncInspectorAdapter;
+import org.metawidget.inspector.async.AsyncInspectorAdapterConfig;
+import org.metawidget.inspector.iface.AsyncInspector;
+import org.metawidget.inspector.iface.AsyncInspectorCallback;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.inspector.iface.InspectorException;
 import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle;
@@ -144,10 +154,272 @@ public class CompositeInspectorTest
 		} );
 	}
 
+	public void testAsyncInspection()
+		throws Exception {
+
+		// Set up (the slow Inspector cannot finish until the regular one has run, so they must
+		// overlap)
+
+		final CountDownLatch slowInspectorStarted = new CountDownLatch( 1 );
+		final CountDownLatch regularInspectorFinished = new CountDownLatch( 1 );
+
+		Inspector slowInspector = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				slowInspectorStarted.countDown();
+
+				try {
+					regularInspectorFinished.await();
+				} catch ( InterruptedException e ) {
+					throw new RuntimeException( e );
+				}
+
+				return "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"foo\"><property name=\"abc\"/></entity></inspection-result>";
+			}
+		};
+
+		Inspector regularInspector = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				try {
+					assertTrue( slowInspectorStarted.await( 5, TimeUnit.SECONDS ) );
+				} catch ( InterruptedException e ) {
+					throw new RuntimeException( e );
+				}
+
+				regularInspectorFinished.countDown();
+				return "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"foo\"><property name=\"def\"/><property name=\"abc\" required=\"true\"/></entity></inspection-result>";
+			}
+		};
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			AsyncInspectorAdapter asyncInspector = new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( slowInspector ).setExecutor( executor ) );
+			CompositeInspector compositeInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( asyncInspector, regularInspector ) );
+
+			// Test (results should be combined in Inspector order, not arrival order)
+
+			Document document = XmlUtils.documentFromString( inspectAsync( compositeInspector, null, "foo" ) );
+			Element entity = (Element) document.getDocumentElement().getFirstChild();
+			assertEquals( "foo", entity.getAttribute( TYPE ) );
+			Element property = XmlUtils.getFirstChildElement( entity );
+			assertEquals( "abc", property.getAttribute( NAME ) );
+			assertEquals( TRUE, property.getAttribute( REQUIRED ) );
+			property = XmlUtils.getNextSiblingElement( property );
+			assertEquals( "def", property.getAttribute( NAME ) );
+			assertEquals( null, XmlUtils.getNextSiblingElement( property ) );
+
+			// Failures
+
+			Inspector failingInspector = new Inspector() {
+
+				public String inspect( Object toInspect, String type, String... names ) {
+
+					throw InspectorException.newException( "Failed" );
+				}
+			};
+
+			asyncInspector = new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( failingInspector ).setExecutor( executor ) );
+			compositeInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( asyncInspector, new PropertyTypeInspector() ) );
+
+			try {
+				inspectAsync( compositeInspector, null, "foo" );
+				fail();
+			} catch ( InspectorException e ) {
+				assertEquals( "Failed", e.getMessage() );
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testSyncInspectionOverlapsAsyncInspectors()
+		throws Exception {
+
+		// Set up (neither slow Inspector can finish until both have started, so they must
+		// overlap)
+
+		final CyclicBarrier bothStarted = new CyclicBarrier( 2 );
+
+		Inspector slowInspector1 = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				try {
+					bothStarted.await( 5, TimeUnit.SECONDS );
+				} catch ( Exception e ) {
+					throw InspectorException.newException( e );
+				}
+
+				return "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"foo\"><property name=\"abc\"/></entity></inspection-result>";
+			}
+		};
+
+		Inspector slowInspector2 = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				try {
+					bothStarted.await( 5, TimeUnit.SECONDS );
+				} catch ( Exception e ) {
+					throw InspectorException.newException( e );
+				}
+
+				return "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"foo\"><property name=\"def\"/><property name=\"abc\" required=\"true\"/></entity></inspection-result>";
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool( 2 );
+
+		try {
+			AsyncInspectorAdapter asyncInspector1 = new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( slowInspector1 ).setExecutor( executor ) );
+			AsyncInspectorAdapter asyncInspector2 = new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( slowInspector2 ).setExecutor( executor ) );
+			CompositeInspector compositeInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( asyncInspector1, new PropertyTypeInspector(), asyncInspector2 ) );
+
+			// Test (results should be combined in Inspector order)
+
+			Element entity = XmlUtils.getFirstChildElement( compositeInspector.inspectAsDom( null, "foo" ) );
+			assertEquals( "foo", entity.getAttribute( TYPE ) );
+			Element property = XmlUtils.getFirstChildElement( entity );
+			assertEquals( "abc", property.getAttribute( NAME ) );
+			assertEquals( TRUE, property.getAttribute( REQUIRED ) );
+			property = XmlUtils.getNextSiblingElement( property );
+			assertEquals( "def", property.getAttribute( NAME ) );
+			assertEquals( null, XmlUtils.getNextSiblingElement( property ) );
+
+			// Failures
+
+			Inspector failingInspector = new Inspector() {
+
+				public String inspect( Object toInspect, String type, String... names ) {
+
+					throw InspectorException.newException( "Failed" );
+				}
+			};
+
+			AsyncInspectorAdapter failingAsyncInspector = new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( failingInspector ).setExecutor( executor ) );
+			compositeInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( failingAsyncInspector, new PropertyTypeInspector() ) );
+
+			try {
+				compositeInspector.inspect( null, "foo" );
+				fail();
+			} catch ( InspectorException e ) {
+				assertEquals( "Failed", e.getMessage() );
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testNestedCompositeInspectors()
+		throws Exception {
+
+		// Nested CompositeInspectors with no asynchronous sub-Inspectors are not asynchronous
+
+		CompositeInspector innerInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( new PropertyTypeInspector() ) );
+		CompositeInspector compositeInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( innerInspector, new XmlInspector( new XmlInspectorConfig().setInputStream( new ByteArrayInputStream( "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"java.lang.String\"><property name=\"abc\"/></entity></inspection-result>".getBytes() ) ) ) ) );
+		assertFalse( innerInspector.isAsync() );
+		assertFalse( compositeInspector.isAsync() );
+
+		Element entity = XmlUtils.getFirstChildElement( compositeInspector.inspectAsDom( "foo", String.class.getName() ) );
+		assertEquals( String.class.getName(), entity.getAttribute( TYPE ) );
+		assertEquals( "abc", XmlUtils.getFirstChildElement( entity ).getAttribute( NAME ) );
+
+		// AsyncInspectorAdapters without an Executor are not asynchronous either
+
+		AsyncInspectorAdapter asyncInspector = new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( new PropertyTypeInspector() ) );
+		assertFalse( new CompositeInspector( new CompositeInspectorConfig().setInspectors( asyncInspector ) ).isAsync() );
+
+		// ...but nested asynchronous sub-Inspectors are
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			asyncInspector = new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( new PropertyTypeInspector() ).setExecutor( executor ) );
+			innerInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( asyncInspector ) );
+			compositeInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( innerInspector ) );
+			assertTrue( innerInspector.isAsync() );
+			assertTrue( compositeInspector.isAsync() );
+
+			entity = XmlUtils.getFirstChildElement( compositeInspector.inspectAsDom( "foo", String.class.getName() ) );
+			assertEquals( String.class.getName(), entity.getAttribute( TYPE ) );
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testTimeout() {
+
+		AsyncInspector neverInspector = new AsyncInspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				throw new UnsupportedOperationException();
+			}
+
+			public void inspect( Object toInspect, String type, String[] names, AsyncInspectorCallback<String> callback ) {
+
+				// Never calls back
+			}
+
+			public boolean isAsync() {
+
+				return true;
+			}
+		};
+
+		CompositeInspector compositeInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( neverInspector, new PropertyTypeInspector() ).setTimeout( 100 ) );
+
+		try {
+			compositeInspector.inspect( null, "foo" );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "Timed out after 100 milliseconds waiting for asynchronous Inspectors to inspect foo", e.getMessage() );
+		}
+	}
+
 	//
 	// Private methods
 	//
 
+	/**
+	 * Inspect asynchronously, and wait for the result.
+	 */
+
+	private String inspectAsync( CompositeInspector compositeInspector, Object toInspect, String type, String... names )
+		throws Exception {
+
+		final CountDownLatch done = new CountDownLatch( 1 );
+		final AtomicReference<String> result = new AtomicReference<String>();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		compositeInspector.inspect( toInspect, type, names, new AsyncInspectorCallback<String>() {
+
+			public void onSuccess( String inspectionResult ) {
+
+				result.set( inspectionResult );
+				done.countDown();
+			}
+
+			public void onFailure( Throwable caught ) {
+
+				failure.set( caught );
+				done.countDown();
+			}
+		} );
+
+		assertTrue( done.await( 5, TimeUnit.SECONDS ) );
+
+		if ( failure.get() != null ) {
+			throw (Exception) failure.get();
+		}
+
+		return result.get();
+	}
+
 	private void internalTestInspection( Document document ) {
 
 		// Test
@@ -16,9 +16,21 @@
 
 package org.metawidget.inspector.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Map;
+
 import junit.framework.TestCase;
 
+import org.metawidget.config.iface.ResourceResolver;
+import org.metawidget.inspector.xml.XmlInspector;
+import org.metawidget.inspector.xml.XmlInspectorConfig;
+import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.MetawidgetTestUtils;
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Element;
 
 /**
  * @author Richard Kennard
@@ -27,6 +39,12 @@ import org.metawidget.util.MetawidgetTestUtils;
 public class BaseXmlInspectorTest
 	extends TestCase {
 
+	//
+	// Private members
+	//
+
+	private File	mSnapshotDirectory;
+
 	//
 	// Public methods
 	//
@@ -37,4 +55,233 @@ public class BaseXmlInspectorTest
 			// Subclass
 		} );
 	}
+
+	public void testSnapshot()
+		throws Exception {
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<inspection-result xmlns=\"http://metawidget.org/inspection-result\">";
+		xml += "<entity type=\"Foo\"><property name=\"bar\" type=\"Bar\" label=\"B&amp;r\"/></entity>";
+		xml += "</inspection-result>";
+
+		Map<String, String> resources = CollectionUtils.newHashMap();
+		resources.put( "included.xml", "<inspection-result xmlns=\"http://metawidget.org/inspection-result\"><entity type=\"Bar\"><property name=\"baz\"/></entity></inspection-result>" );
+		MapResourceResolver resolver = new MapResourceResolver( resources );
+
+		// First time parses, and writes a snapshot
+
+		IncludingXmlInspector inspector = newInspector( xml, resolver );
+		assertEquals( 1, IncludingXmlInspector.PARSED );
+		String foo = inspector.inspect( null, "Foo" );
+		String bar = inspector.inspect( null, "Bar" );
+		assertTrue( foo.contains( "label=\"B&amp;r\"" ) );
+		assertTrue( bar.contains( "name=\"baz\"" ) );
+
+		File[] snapshots = mSnapshotDirectory.listFiles();
+		assertEquals( 1, snapshots.length );
+		assertTrue( snapshots[0].getName().startsWith( IncludingXmlInspector.class.getName() + "-" ) );
+		assertTrue( snapshots[0].getName().endsWith( ".snapshot" ) );
+
+		// Second time reads the snapshot
+
+		inspector = newInspector( xml, resolver );
+		assertEquals( 1, IncludingXmlInspector.PARSED );
+		assertEquals( foo, inspector.inspect( null, "Foo" ) );
+		assertEquals( bar, inspector.inspect( null, "Bar" ) );
+
+		// Changing an included resource invalidates the snapshot
+
+		resources.put( "included.xml", "<inspection-result xmlns=\"http://metawidget.org/inspection-result\"><entity type=\"Bar\"><property name=\"abc\"/></entity></inspection-result>" );
+		inspector = newInspector( xml, resolver );
+		assertEquals( 2, IncludingXmlInspector.PARSED );
+		assertTrue( inspector.inspect( null, "Bar" ).contains( "name=\"abc\"" ) );
+
+		inspector = newInspector( xml, resolver );
+		assertEquals( 2, IncludingXmlInspector.PARSED );
+		assertTrue( inspector.inspect( null, "Bar" ).contains( "name=\"abc\"" ) );
+
+		// Changing the XML uses a different snapshot
+
+		inspector = newInspector( xml.replace( "Foo", "Foo2" ), resolver );
+		assertEquals( 3, IncludingXmlInspector.PARSED );
+		assertEquals( null, inspector.inspect( null, "Foo" ) );
+		assertEquals( 2, mSnapshotDirectory.listFiles().length );
+
+		// Corrupt snapshots are ignored (and replaced)
+
+		for ( File snapshot : mSnapshotDirectory.listFiles() ) {
+			FileOutputStream out = new FileOutputStream( snapshot );
+			out.write( "corrupt".getBytes() );
+			out.close();
+		}
+
+		inspector = newInspector( xml, resolver );
+		assertEquals( 4, IncludingXmlInspector.PARSED );
+		assertEquals( foo, inspector.inspect( null, "Foo" ) );
+
+		inspector = newInspector( xml, resolver );
+		assertEquals( 4, IncludingXmlInspector.PARSED );
+		assertEquals( foo, inspector.inspect( null, "Foo" ) );
+	}
+
+	public void testSnapshotNestedRoot()
+		throws Exception {
+
+		String xml = "<?xml version=\"1.0\"?><definitions><message/><types><schema xmlns=\"http://www.w3.org/2001/XMLSchema\"><element name=\"foo\"/></schema></types></definitions>";
+		NestedXmlInspector inspector = new NestedXmlInspector();
+		MapResourceResolver resolver = new MapResourceResolver( CollectionUtils.<String, String> newHashMap() );
+
+		Element parsed = XmlSnapshot.getDocumentElement( inspector, mSnapshotDirectory, resolver, new ByteArrayInputStream( xml.getBytes( "UTF-8" ) ) );
+		Element snapshotted = XmlSnapshot.getDocumentElement( inspector, mSnapshotDirectory, resolver, new ByteArrayInputStream( xml.getBytes( "UTF-8" ) ) );
+
+		assertTrue( parsed != snapshotted );
+		assertEquals( "schema", snapshotted.getLocalName() );
+		assertEquals( "http://www.w3.org/2001/XMLSchema", snapshotted.getNamespaceURI() );
+		assertEquals( XmlUtils.nodeToString( parsed, false ), XmlUtils.nodeToString( snapshotted, false ) );
+	}
+
+	//
+	// Protected methods
+	//
+
+	@Override
+	protected void setUp()
+		throws Exception {
+
+		mSnapshotDirectory = File.createTempFile( "BaseXmlInspectorTest", "" );
+		assertTrue( mSnapshotDirectory.delete() );
+		assertTrue( mSnapshotDirectory.mkdir() );
+		IncludingXmlInspector.PARSED = 0;
+	}
+
+	@Override
+	protected void tearDown() {
+
+		for ( File file : mSnapshotDirectory.listFiles() ) {
+			file.delete();
+		}
+
+		mSnapshotDirectory.delete();
+	}
+
+	//
+	// Private methods
+	//
+
+	private IncludingXmlInspector newInspector( String xml, ResourceResolver resolver )
+		throws Exception {
+
+		XmlInspectorConfig config = new XmlInspectorConfig().setInputStream( new ByteArrayInputStream( xml.getBytes( "UTF-8" ) ) ).setSnapshotDirectory( mSnapshotDirectory.getPath() );
+		config.setResourceResolver( resolver );
+
+		return new IncludingXmlInspector( config );
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * XmlInspector that also includes another resource, the way <code>HibernateInspector</code>
+	 * includes mapping files.
+	 */
+
+	/* package private */static class IncludingXmlInspector
+		extends XmlInspector {
+
+		//
+		// Public statics
+		//
+
+		public static int	PARSED;
+
+		//
+		// Constructor
+		//
+
+		public IncludingXmlInspector( XmlInspectorConfig config ) {
+
+			super( config );
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected Element getDocumentElement( ResourceResolver resolver, InputStream... files )
+			throws Exception {
+
+			PARSED++;
+
+			Element root = super.getDocumentElement( resolver, files );
+			Element included = XmlUtils.parse( resolver.openResource( "included.xml" ) ).getDocumentElement();
+			XmlUtils.combineElements( root, included, getTopLevelTypeAttribute(), getNameAttribute() );
+
+			return root;
+		}
+	}
+
+	/**
+	 * BaseXmlInspector that returns an element nested inside its document, the way
+	 * <code>WsdlInspector</code> does.
+	 */
+
+	/* package private */static class NestedXmlInspector
+		extends XmlInspector {
+
+		//
+		// Constructor
+		//
+
+		public NestedXmlInspector() {
+
+			super( new XmlInspectorConfig().setInputStream( new ByteArrayInputStream( "<inspection-result/>".getBytes() ) ) );
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected Element getDocumentElement( ResourceResolver resolver, InputStream... files )
+			throws Exception {
+
+			Element root = super.getDocumentElement( resolver, files );
+
+			if ( !"definitions".equals( root.getNodeName() ) ) {
+				return root;
+			}
+
+			return XmlUtils.getChildNamed( XmlUtils.getChildNamed( root, "types" ), "schema" );
+		}
+	}
+
+	/* package private */static class MapResourceResolver
+		implements ResourceResolver {
+
+		//
+		// Private members
+		//
+
+		private Map<String, String>	mResources;
+
+		//
+		// Constructor
+		//
+
+		public MapResourceResolver( Map<String, String> resources ) {
+
+			mResources = resources;
+		}
+
+		//
+		// Public methods
+		//
+
+		public InputStream openResource( String resource ) {
+
+			return new ByteArrayInputStream( mResources.get( resource ).getBytes() );
+		}
+	}
 }
@@ -0,0 +1,250 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.composite.CompositeInspector;
+import org.metawidget.inspector.composite.CompositeInspectorConfig;
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.inspector.impl.propertystyle.Property;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle;
+import org.metawidget.inspector.propertytype.PropertyTypeInspector;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.MetawidgetTestUtils;
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Element;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class FusedObjectInspectorTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testSameAsComposite() {
+
+		PropertyTypeInspector propertyTypeInspector = new PropertyTypeInspector();
+		LabelInspector labelInspector = new LabelInspector();
+
+		CompositeInspector compositeInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( propertyTypeInspector, labelInspector ) );
+		FusedObjectInspector fusedInspector = new FusedObjectInspector( new FusedObjectInspectorConfig().setInspectors( propertyTypeInspector, labelInspector ) );
+
+		// Top level
+
+		Foo foo = new Foo();
+		foo.setBar( new Bar() );
+		String compositeXml = compositeInspector.inspect( foo, Foo.class.getName() );
+		String fusedXml = fusedInspector.inspect( foo, Foo.class.getName() );
+		assertEquals( compositeXml, fusedXml );
+
+		Element entity = XmlUtils.getFirstChildElement( fusedInspector.inspectAsDom( foo, Foo.class.getName() ) );
+		assertEquals( Foo.class.getName(), entity.getAttribute( TYPE ) );
+
+		Element property = XmlUtils.getChildWithAttributeValue( entity, NAME, "bar" );
+		assertEquals( Bar.class.getName(), property.getAttribute( TYPE ) );
+		assertEquals( "Bar Label", property.getAttribute( LABEL ) );
+		assertEquals( "true", property.getAttribute( REQUIRED ) );
+
+		// Later Inspectors override earlier ones
+
+		property = XmlUtils.getChildWithAttributeValue( entity, NAME, "baz" );
+		assertEquals( "overridden", property.getAttribute( TYPE ) );
+
+		// Nested, with parent attributes
+
+		compositeXml = compositeInspector.inspect( foo, Foo.class.getName(), "bar" );
+		fusedXml = fusedInspector.inspect( foo, Foo.class.getName(), "bar" );
+		assertEquals( compositeXml, fusedXml );
+
+		entity = XmlUtils.getFirstChildElement( fusedInspector.inspectAsDom( foo, Foo.class.getName(), "bar" ) );
+		assertEquals( "bar", entity.getAttribute( NAME ) );
+		assertEquals( "Bar Label", entity.getAttribute( LABEL ) );
+		assertEquals( "Entity Label", entity.getAttribute( SECTION ) );
+
+		// Null
+
+		assertEquals( null, fusedInspector.inspect( null, null ) );
+	}
+
+	public void testValidation() {
+
+		PropertyTypeInspector propertyTypeInspector = new PropertyTypeInspector();
+
+		try {
+			new FusedObjectInspector( new FusedObjectInspectorConfig() );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "FusedObjectInspector needs at least one Inspector", e.getMessage() );
+		}
+
+		try {
+			new FusedObjectInspector( new FusedObjectInspectorConfig().setInspectors( propertyTypeInspector, propertyTypeInspector ) );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "FusedObjectInspector's list of Inspectors contains two of the same org.metawidget.inspector.propertytype.PropertyTypeInspector", e.getMessage() );
+		}
+
+		try {
+			new FusedObjectInspector( new FusedObjectInspectorConfig().setInspectors( propertyTypeInspector, new LabelInspector( new BaseObjectInspectorConfig().setPropertyStyle( new JavaBeanPropertyStyle() ) ) ) );
+			fail();
+		} catch ( InspectorException e ) {
+			assertTrue( e.getMessage().startsWith( "FusedObjectInspector's Inspectors must share the same PropertyStyle, but org.metawidget.inspector.impl.FusedObjectInspectorTest$LabelInspector uses " ) );
+		}
+
+		try {
+			new FusedObjectInspector( new FusedObjectInspectorConfig().setInspectors( propertyTypeInspector, new TraversingInspector() ) );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "org.metawidget.inspector.impl.FusedObjectInspectorTest$TraversingInspector overrides inspectAsDom or inspectTraits, so cannot be fused", e.getMessage() );
+		}
+	}
+
+	public void testConfig() {
+
+		Map<Class<?>, Object> dummyTypes = CollectionUtils.newHashMap();
+		dummyTypes.put( BaseObjectInspector[].class, new BaseObjectInspector[] { new PropertyTypeInspector() } );
+
+		MetawidgetTestUtils.testEqualsAndHashcode( FusedObjectInspectorConfig.class, new FusedObjectInspectorConfig() {
+			// Subclass
+		}, dummyTypes );
+	}
+
+	//
+	// Inner class
+	//
+
+	public static class Foo {
+
+		//
+		// Private members
+		//
+
+		private Bar	mBar;
+
+		//
+		// Public methods
+		//
+
+		public Bar getBar() {
+
+			return mBar;
+		}
+
+		public void setBar( Bar bar ) {
+
+			mBar = bar;
+		}
+
+		public String getBaz() {
+
+			return null;
+		}
+
+		public int getAbc() {
+
+			return 0;
+		}
+	}
+
+	public static class Bar {
+
+		public String getName() {
+
+			return null;
+		}
+	}
+
+	/* package private */static class LabelInspector
+		extends BaseObjectInspector {
+
+		//
+		// Constructor
+		//
+
+		public LabelInspector() {
+
+			super();
+		}
+
+		public LabelInspector( BaseObjectInspectorConfig config ) {
+
+			super( config );
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected Map<String, String> inspectEntity( String declaredClass, String actualClass ) {
+
+			if ( !Bar.class.getName().equals( declaredClass ) ) {
+				return null;
+			}
+
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+			attributes.put( SECTION, "Entity Label" );
+			return attributes;
+		}
+
+		@Override
+		protected Map<String, String> inspectTrait( Trait trait ) {
+
+			if ( !"bar".equals( trait.getName() ) ) {
+				return null;
+			}
+
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+			attributes.put( LABEL, "Bar Trait" );
+			attributes.put( REQUIRED, "true" );
+			return attributes;
+		}
+
+		@Override
+		protected Map<String, String> inspectProperty( Property property ) {
+
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+
+			if ( "bar".equals( property.getName() ) ) {
+				attributes.put( LABEL, "Bar Label" );
+			} else if ( "baz".equals( property.getName() ) ) {
+				attributes.put( TYPE, "overridden" );
+			}
+
+			return attributes;
+		}
+	}
+
+	/* package private */static class TraversingInspector
+		extends LabelInspector {
+
+		@Override
+		protected void inspectTraits( Object toInspect, String type, Element toAddTo ) {
+
+			// Do nothing
+		}
+	}
+}
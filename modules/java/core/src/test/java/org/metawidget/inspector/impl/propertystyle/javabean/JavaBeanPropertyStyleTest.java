@@ -20,6 +20,7 @@ import java.beans.BeanInfo;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
+import java.text.MessageFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -257,6 +258,30 @@ public class JavaBeanPropertyStyleTest
 		assertEquals( 3, properties.size() );
 	}
 
+	public void testAnnotations()
+		throws Exception {
+
+		JavaBeanPropertyStyleConfig config = new JavaBeanPropertyStyleConfig();
+		config.setPrivateFieldConvention( new MessageFormat( "m{1}" ) );
+		JavaBeanPropertyStyle propertyStyle = new JavaBeanPropertyStyle( config );
+		Map<String, Property> properties = propertyStyle.getProperties( AnnotationsFoo.class.getName() );
+
+		// Getter takes precedence over private field
+
+		Property property = properties.get( "getterAndField" );
+		Deprecated annotation = property.getAnnotation( Deprecated.class );
+		assertTrue( annotation != null );
+		assertTrue( annotation == AnnotationsFoo.class.getMethod( "getGetterAndField" ).getAnnotation( Deprecated.class ) );
+		assertTrue( annotation == property.getAnnotation( Deprecated.class ) );
+
+		// Setter and private field
+
+		assertTrue( properties.get( "setter" ).isAnnotationPresent( Deprecated.class ) );
+		assertTrue( properties.get( "field" ).isAnnotationPresent( Deprecated.class ) );
+		assertTrue( !properties.get( "none" ).isAnnotationPresent( Deprecated.class ) );
+		assertEquals( 4, properties.size() );
+	}
+
 	public void testConfig() {
 
 		MetawidgetTestUtils.testEqualsAndHashcode( JavaBeanPropertyStyleConfig.class, new JavaBeanPropertyStyleConfig() {
@@ -509,6 +534,55 @@ public class JavaBeanPropertyStyleTest
 		}
 	}
 
+	static class AnnotationsFoo {
+
+		//
+		// Private members
+		//
+
+		@Deprecated
+		private String	mGetterAndField;
+
+		@Deprecated
+		private String	mField;
+
+		//
+		// Public methods
+		//
+
+		@Deprecated
+		public String getGetterAndField() {
+
+			return mGetterAndField;
+		}
+
+		public String getSetter() {
+
+			return null;
+		}
+
+		/**
+		 * @param setter
+		 *            ignored
+		 */
+
+		@Deprecated
+		public void setSetter( String setter ) {
+
+			// Do nothing
+		}
+
+		public String getField() {
+
+			return mField;
+		}
+
+		public String getNone() {
+
+			return null;
+		}
+	}
+
 	static class UppercaseLowerCaseTest {
 
 		//
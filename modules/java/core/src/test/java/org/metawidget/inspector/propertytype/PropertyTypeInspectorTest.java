@@ -21,7 +21,9 @@ import static org.metawidget.inspector.propertytype.PropertyTypeInspectionResult
 
 import java.beans.PropertyChangeListener;
 import java.beans.VetoableChangeListener;
+import java.io.ByteArrayOutputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 
@@ -29,12 +31,14 @@ import junit.framework.TestCase;
 
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.inspector.impl.BaseObjectInspectorConfig;
+import org.metawidget.inspector.impl.propertystyle.Property;
 import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle;
 import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyleConfig;
 import org.metawidget.util.ClassUtils;
 import org.metawidget.util.ClassUtilsTest;
 import org.metawidget.util.ClassUtilsTest.AlienClassLoader;
 import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.IOUtils;
 import org.metawidget.util.LogUtils;
 import org.metawidget.util.LogUtilsTest;
 import org.metawidget.util.XmlUtils;
@@ -459,6 +463,81 @@ public class PropertyTypeInspectorTest
 		assertTrue( List.class.isAssignableFrom( ClassUtils.niceForName( type ) ) );
 	}
 
+	public void testMemoization()
+		throws Exception {
+
+		// Declaration-dependent attributes are memoized...
+
+		JavaBeanPropertyStyle propertyStyle = new JavaBeanPropertyStyle( new JavaBeanPropertyStyleConfig().setSupportPublicFields( true ) );
+		PropertyTypeInspector inspector = new PropertyTypeInspector( new BaseObjectInspectorConfig().setPropertyStyle( propertyStyle ) );
+		Property property = propertyStyle.getProperties( DeclaredTypeTester.class.getName() ).get( "foo" );
+		assertTrue( inspector.inspectProperty( property ) == inspector.inspectProperty( property ) );
+
+		// ...but value-dependent ones are not
+
+		DeclaredTypeTester tester = new DeclaredTypeTester();
+		tester.foo = Boolean.TRUE;
+		Document document = XmlUtils.documentFromString( inspector.inspect( tester, DeclaredTypeTester.class.getName() ) );
+		Element property1 = XmlUtils.getChildWithAttributeValue( (Element) document.getDocumentElement().getFirstChild(), NAME, "foo" );
+		assertEquals( Object.class.getName(), property1.getAttribute( TYPE ) );
+		assertEquals( Boolean.class.getName(), property1.getAttribute( ACTUAL_CLASS ) );
+		assertEquals( "true, false", property1.getAttribute( LOOKUP ) );
+
+		tester.foo = "Foo";
+		document = XmlUtils.documentFromString( inspector.inspect( tester, DeclaredTypeTester.class.getName() ) );
+		property1 = XmlUtils.getChildWithAttributeValue( (Element) document.getDocumentElement().getFirstChild(), NAME, "foo" );
+		assertEquals( String.class.getName(), property1.getAttribute( ACTUAL_CLASS ) );
+		assertFalse( property1.hasAttribute( LOOKUP ) );
+
+		tester.foo = null;
+		document = XmlUtils.documentFromString( inspector.inspect( tester, DeclaredTypeTester.class.getName() ) );
+		property1 = XmlUtils.getChildWithAttributeValue( (Element) document.getDocumentElement().getFirstChild(), NAME, "foo" );
+		assertFalse( property1.hasAttribute( ACTUAL_CLASS ) );
+		assertFalse( property1.hasAttribute( LOOKUP ) );
+	}
+
+	public void testRedeployedLookups()
+		throws Exception {
+
+		PropertyTypeInspector inspector = new PropertyTypeInspector();
+		Map<String, String> attributes = inspector.getLookupAttributes( Gender.class );
+		assertEquals( "MALE,FEMALE", attributes.get( LOOKUP ) );
+		assertTrue( attributes == inspector.getLookupAttributes( Gender.class ) );
+
+		// Same class name, different Class
+
+		ClassLoader redeployingClassLoader = new ClassLoader( Gender.class.getClassLoader() ) {
+
+			@Override
+			protected synchronized Class<?> loadClass( String name, boolean resolve )
+				throws ClassNotFoundException {
+
+				if ( !Gender.class.getName().equals( name ) ) {
+					return super.loadClass( name, resolve );
+				}
+
+				Class<?> clazz = findLoadedClass( name );
+
+				if ( clazz != null ) {
+					return clazz;
+				}
+
+				ByteArrayOutputStream streamOut = new ByteArrayOutputStream();
+				IOUtils.streamBetween( getResourceAsStream( name.replace( '.', '/' ) + ".class" ), streamOut );
+				byte[] bytes = streamOut.toByteArray();
+				return defineClass( name, bytes, 0, bytes.length );
+			}
+		};
+
+		Class<?> redeployedGender = redeployingClassLoader.loadClass( Gender.class.getName() );
+		assertTrue( Gender.class != redeployedGender );
+
+		Map<String, String> redeployedAttributes = inspector.getLookupAttributes( redeployedGender );
+		assertTrue( attributes != redeployedAttributes );
+		assertEquals( "MALE,FEMALE", redeployedAttributes.get( LOOKUP ) );
+		assertTrue( redeployedAttributes == inspector.getLookupAttributes( redeployedGender ) );
+	}
+
 	/**
 	 * Test BaseObjectInspector under high concurrency.
 	 */
@@ -578,6 +657,11 @@ public class PropertyTypeInspectorTest
 	// Inner classes
 	//
 
+	protected static enum Gender {
+
+		MALE, FEMALE
+	}
+
 	protected static class PersonalContact
 		extends Contact {
 
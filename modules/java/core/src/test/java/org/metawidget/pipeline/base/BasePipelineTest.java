@@ -21,6 +21,7 @@ import static org.metawidget.inspector.InspectionResultConstants.*;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.swing.JComponent;
 import javax.swing.JPanel;
@@ -29,7 +30,13 @@ import junit.framework.TestCase;
 
 import org.metawidget.config.iface.ConfigReader;
 import org.metawidget.config.impl.BaseConfigReader;
+import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessor;
 import org.metawidget.inspectionresultprocessor.sort.ComesAfterInspectionResultProcessor;
+import org.metawidget.inspector.async.AsyncInspectorAdapter;
+import org.metawidget.inspector.async.AsyncInspectorAdapterConfig;
+import org.metawidget.inspector.iface.AsyncInspectorCallback;
+import org.metawidget.inspector.iface.DomInspector;
+import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.inspector.propertytype.PropertyTypeInspector;
 import org.metawidget.layout.iface.AdvancedLayout;
 import org.metawidget.layout.iface.Layout;
@@ -41,6 +48,7 @@ import org.metawidget.widgetbuilder.iface.WidgetBuilder;
 import org.metawidget.widgetprocessor.iface.AdvancedWidgetProcessor;
 import org.metawidget.widgetprocessor.iface.WidgetProcessor;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 /**
  * @author Richard Kennard
@@ -92,6 +100,284 @@ public class BasePipelineTest
 		}
 	}
 
+	public void testConversions() {
+
+		final String xml = "<inspection-result><entity type=\"foo\"><property name=\"bar\"/></entity></inspection-result>";
+		CountingPipeline pipeline = new CountingPipeline();
+		pipeline.setInspector( new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				return xml;
+			}
+		} );
+
+		// String all the way through: never parsed
+
+		assertEquals( xml, pipeline.inspect( null, "foo" ) );
+		assertEquals( 0, pipeline.mStringToElement );
+		assertEquals( 0, pipeline.mElementToString );
+
+		InspectionResultProcessor<JComponent> stringProcessor = new InspectionResultProcessor<JComponent>() {
+
+			public String processInspectionResult( String inspectionResult, JComponent metawidget, Object toInspect, String type, String... names ) {
+
+				return inspectionResult;
+			}
+		};
+
+		pipeline.setInspectionResultProcessors( stringProcessor, stringProcessor );
+		assertEquals( xml, pipeline.inspect( null, "foo" ) );
+		assertEquals( 0, pipeline.mStringToElement );
+		assertEquals( 0, pipeline.mElementToString );
+
+		// Parsed once for a DOM consumer
+
+		assertEquals( "foo", XmlUtils.getFirstChildElement( pipeline.inspectAsDom( null, "foo" ) ).getAttribute( TYPE ) );
+		assertEquals( 1, pipeline.mStringToElement );
+		assertEquals( 0, pipeline.mElementToString );
+
+		// Parsed once for a DOM processor, and serialized once for a String consumer
+
+		pipeline.mStringToElement = 0;
+		pipeline.setInspectionResultProcessors( stringProcessor, new ComesAfterInspectionResultProcessor<JComponent>() );
+		assertTrue( pipeline.inspect( null, "foo" ).endsWith( "<entity type=\"foo\"><property name=\"bar\"/></entity></inspection-result>" ) );
+		assertEquals( 1, pipeline.mStringToElement );
+		assertEquals( 1, pipeline.mElementToString );
+	}
+
+	public void testAsyncInspection() {
+
+		final String xml = "<inspection-result><entity type=\"foo\"><property name=\"bar\"/></entity></inspection-result>";
+		Inspector inspector = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				return xml;
+			}
+		};
+
+		InspectionResultProcessor<JComponent> renamingProcessor = new InspectionResultProcessor<JComponent>() {
+
+			public String processInspectionResult( String inspectionResult, JComponent metawidget, Object toInspect, String type, String... names ) {
+
+				return inspectionResult.replace( "bar", "baz" );
+			}
+		};
+
+		final List<Element> inspectionResults = CollectionUtils.newArrayList();
+		AsyncInspectorCallback<Element> callback = new AsyncInspectorCallback<Element>() {
+
+			public void onSuccess( Element inspectionResult ) {
+
+				inspectionResults.add( inspectionResult );
+			}
+
+			public void onFailure( Throwable caught ) {
+
+				fail( caught.getMessage() );
+			}
+		};
+
+		// Regular Inspector
+
+		CountingPipeline pipeline = new CountingPipeline();
+		pipeline.setInspector( inspector );
+		pipeline.setInspectionResultProcessors( renamingProcessor );
+		pipeline.inspectAsDom( null, "foo", new String[0], callback );
+
+		// AsyncInspector (InspectionResultProcessors still run)
+
+		pipeline.setInspector( new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( inspector ) ) );
+		pipeline.inspectAsDom( null, "foo", new String[0], callback );
+
+		// Asynchronous AsyncInspector (calls back on the calling thread, for simplicity)
+
+		pipeline.setInspector( new AsyncInspectorAdapter( new AsyncInspectorAdapterConfig().setInspector( inspector ).setExecutor( new Executor() {
+
+			public void execute( Runnable command ) {
+
+				command.run();
+			}
+		} ) ) );
+		pipeline.inspectAsDom( null, "foo", new String[0], callback );
+
+		assertEquals( 3, inspectionResults.size() );
+
+		for ( Element inspectionResult : inspectionResults ) {
+			Element property = XmlUtils.getFirstChildElement( XmlUtils.getFirstChildElement( inspectionResult ) );
+			assertEquals( "baz", property.getAttribute( NAME ) );
+		}
+	}
+
+	public void testBuildPlans()
+		throws Exception {
+
+		final String xml = "<inspection-result><entity type=\"foo\"><property name=\"bar\"/><action name=\"baz\"/></entity></inspection-result>";
+		final List<String> events = CollectionUtils.newArrayList();
+
+		Inspector inspector = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				return xml;
+			}
+		};
+
+		InspectionResultProcessor<JComponent> inspectionResultProcessor = new InspectionResultProcessor<JComponent>() {
+
+			public String processInspectionResult( String inspectionResult, JComponent metawidget, Object toInspect, String type, String... names ) {
+
+				events.add( "InspectionResultProcessor::processInspectionResult" );
+				return inspectionResult.replace( "baz", "abc" );
+			}
+		};
+
+		WidgetBuilder<JComponent, JComponent> widgetBuilder = new WidgetBuilder<JComponent, JComponent>() {
+
+			public JComponent buildWidget( String elementName, Map<String, String> attributes, JComponent metawidget ) {
+
+				if ( ENTITY.equals( elementName ) ) {
+					return null;
+				}
+
+				// Should not affect the BuildPlan
+
+				attributes.put( "built", TRUE );
+				return new JPanel();
+			}
+		};
+
+		Layout<JComponent, JComponent, JComponent> layout = new Layout<JComponent, JComponent, JComponent>() {
+
+			public void layoutWidget( JComponent widget, String elementName, Map<String, String> attributes, JComponent container, JComponent metawidget ) {
+
+				events.add( elementName + " " + attributes.get( NAME ) + " " + attributes.get( READ_ONLY ) );
+			}
+		};
+
+		Map<String, BasePipeline.BuildPlan> buildPlans = CollectionUtils.newHashMap();
+
+		// First pipeline records
+
+		CountingPipeline pipeline = new CountingPipeline();
+		pipeline.setInspector( inspector );
+		pipeline.setInspectionResultProcessors( inspectionResultProcessor );
+		pipeline.setWidgetBuilder( widgetBuilder );
+		pipeline.setLayout( layout );
+		pipeline.setBuildPlans( buildPlans );
+		Element recordedInspectionResult = pipeline.inspectAsDom( null, "foo" );
+		pipeline.buildWidgets( recordedInspectionResult );
+
+		assertEquals( "InspectionResultProcessor::processInspectionResult", events.get( 0 ) );
+		assertEquals( "property bar null", events.get( 1 ) );
+		assertEquals( "action abc null", events.get( 2 ) );
+		assertEquals( 3, events.size() );
+		assertEquals( 1, buildPlans.size() );
+		assertEquals( 1, pipeline.mBuildCompoundWidget );
+
+		// Second pipeline replays (skipping the InspectionResultProcessor), but still
+		// applies its own read-only-ness
+
+		events.clear();
+		pipeline = new CountingPipeline();
+		pipeline.setInspector( inspector );
+		pipeline.setInspectionResultProcessors( inspectionResultProcessor );
+		pipeline.setWidgetBuilder( widgetBuilder );
+		pipeline.setLayout( layout );
+		pipeline.setReadOnly( true );
+		pipeline.setBuildPlans( buildPlans );
+
+		Element inspectionResult = pipeline.inspectAsDom( null, "foo" );
+		assertTrue( recordedInspectionResult == inspectionResult );
+		assertEquals( "abc", XmlUtils.getNextSiblingElement( XmlUtils.getFirstChildElement( XmlUtils.getFirstChildElement( inspectionResult ) ) ).getAttribute( NAME ) );
+		pipeline.buildWidgets( inspectionResult );
+
+		assertEquals( "property bar true", events.get( 0 ) );
+		assertEquals( "action abc true", events.get( 1 ) );
+		assertEquals( 2, events.size() );
+		assertEquals( 1, buildPlans.size() );
+		assertEquals( 0, pipeline.mStringToElement );
+		assertEquals( 0, pipeline.mElementToString );
+
+		// Replays still go through buildCompoundWidget, so subclass hooks are called
+
+		assertEquals( 1, pipeline.mBuildCompoundWidget );
+
+		// Differently configured pipelines can share a cache, but do not replay each other's
+		// BuildPlans
+
+		Map<String, BasePipeline.BuildPlan> sharedBuildPlans = CollectionUtils.newHashMap();
+		pipeline = new CountingPipeline();
+		pipeline.setInspector( inspector );
+		pipeline.setInspectionResultProcessors( inspectionResultProcessor );
+		pipeline.setBuildPlans( sharedBuildPlans );
+		assertEquals( "abc", XmlUtils.getNextSiblingElement( XmlUtils.getFirstChildElement( XmlUtils.getFirstChildElement( pipeline.inspectAsDom( null, "foo" ) ) ) ).getAttribute( NAME ) );
+
+		pipeline = new CountingPipeline();
+		pipeline.setInspector( inspector );
+		pipeline.setBuildPlans( sharedBuildPlans );
+		assertEquals( "baz", XmlUtils.getNextSiblingElement( XmlUtils.getFirstChildElement( XmlUtils.getFirstChildElement( pipeline.inspectAsDom( null, "foo" ) ) ) ).getAttribute( NAME ) );
+		assertEquals( 2, sharedBuildPlans.size() );
+
+		// DomInspectors are keyed without serializing their inspection result
+
+		events.clear();
+		final Element domInspectionResult = XmlUtils.documentFromString( xml ).getDocumentElement();
+		DomInspector<Element> domInspector = new DomInspector<Element>() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				throw new UnsupportedOperationException();
+			}
+
+			public Element inspectAsDom( Object toInspect, String type, String... names ) {
+
+				if ( "bar".equals( type ) ) {
+					return XmlUtils.documentFromString( "<inspection-result><entity type=\"bar\"/></inspection-result>" ).getDocumentElement();
+				}
+
+				return domInspectionResult;
+			}
+		};
+
+		pipeline = new CountingPipeline();
+		pipeline.setInspector( domInspector );
+		pipeline.setWidgetBuilder( widgetBuilder );
+		pipeline.setLayout( layout );
+		pipeline.setBuildPlans( buildPlans );
+		pipeline.buildWidgets( pipeline.inspectAsDom( null, "foo" ) );
+		pipeline.buildWidgets( pipeline.inspectAsDom( null, "foo" ) );
+
+		assertEquals( "property bar null", events.get( 0 ) );
+		assertEquals( "action baz null", events.get( 1 ) );
+		assertEquals( 4, events.size() );
+		assertEquals( 2, buildPlans.size() );
+		assertEquals( 0, pipeline.mElementToString );
+		assertEquals( 2, pipeline.mBuildCompoundWidget );
+
+		// Cache is bounded
+
+		pipeline.setMaximumBuildPlans( 2 );
+		pipeline.inspectAsDom( null, "bar" );
+		assertEquals( 2, buildPlans.size() );
+
+		// Nested pipelines share BuildPlans
+
+		CountingPipeline nestedPipeline = new CountingPipeline();
+		pipeline.initNestedPipeline( nestedPipeline, null );
+		assertTrue( buildPlans == nestedPipeline.getBuildPlans() );
+		assertEquals( 2, nestedPipeline.getMaximumBuildPlans() );
+
+		// Other inspection results are built normally
+
+		events.clear();
+		pipeline.setBuildPlans( null );
+		pipeline.buildWidgets( XmlUtils.documentFromString( "<inspection-result><entity type=\"foo\"><property name=\"def\"/></entity></inspection-result>" ).getDocumentElement() );
+		assertEquals( "property def null", events.get( 0 ) );
+		assertEquals( 1, events.size() );
+	}
+
 	public void testInitNestedPipeline()
 		throws Exception {
 
@@ -278,6 +564,46 @@ public class BasePipelineTest
 	// Inner class
 	//
 
+	/* package private */static class CountingPipeline
+		extends MockPipeline {
+
+		//
+		// Private members
+		//
+
+		/* package private */int	mStringToElement;
+
+		/* package private */int	mElementToString;
+
+		/* package private */int	mBuildCompoundWidget;
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected void buildCompoundWidget( Element entity )
+			throws Exception {
+
+			mBuildCompoundWidget++;
+			super.buildCompoundWidget( entity );
+		}
+
+		@Override
+		protected Element stringToElement( String xml ) {
+
+			mStringToElement++;
+			return super.stringToElement( xml );
+		}
+
+		@Override
+		protected String elementToString( Element element ) {
+
+			mElementToString++;
+			return super.elementToString( element );
+		}
+	}
+
 	/* package private */static class MockPipeline
 		extends W3CPipeline<JComponent, JComponent, JComponent> {
 
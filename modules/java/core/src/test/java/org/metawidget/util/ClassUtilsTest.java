@@ -238,13 +238,79 @@ public class ClassUtilsTest
 		assertEquals( null, ClassUtils.niceForName( "org.metawidget.util.AlienSet" ) );
 	}
 
-	public static void unregisterAllAlienClassLoaders() {
+	public void testForNameCache() {
+
+		ClassUtilsTest.unregisterAllAlienClassLoaders();
+
+		// Symbolic types
+
+		assertEquals( null, ClassUtils.niceForName( "Login Screen" ) );
+		assertEquals( null, ClassUtils.niceForName( "Login Screen" ) );
+		assertEquals( 1, ClassUtils.CLASS_CACHE.size() );
+
+		// Parameterized types share their raw type's cache entry
+
+		assertEquals( Set.class, ClassUtils.niceForName( "java.util.Set" ) );
+		assertEquals( Set.class, ClassUtils.niceForName( "java.util.Set<java.lang.String>" ) );
+		assertEquals( int.class, ClassUtils.niceForName( "int" ) );
+
+		// Registering an alien ClassLoader discards negative results
+
+		ClassLoader alienClassLoader = new AlienClassLoader();
+
+		try {
+			assertEquals( null, ClassUtils.niceForName( "org.metawidget.util.AlienSet" ) );
+			ClassUtils.registerAlienClassLoader( alienClassLoader );
+			assertTrue( ClassUtils.CLASS_CACHE.isEmpty() );
+			assertEquals( "org.metawidget.util.AlienSet", ClassUtils.niceForName( "org.metawidget.util.AlienSet" ).getName() );
+
+			// Registering the same ClassLoader again does not
 
-		synchronized ( ClassUtils.ALIEN_CLASSLOADERS ) {
-			ClassUtils.ALIEN_CLASSLOADERS.clear();
+			ClassUtils.registerAlienClassLoader( alienClassLoader );
+			assertEquals( 1, ClassUtils.ALIEN_CLASSLOADERS.size() );
+			assertTrue( !ClassUtils.CLASS_CACHE.isEmpty() );
+		} finally {
+			ClassUtilsTest.unregisterAllAlienClassLoaders();
 		}
 	}
 
+	public void testGetOriginalAnnotations()
+		throws Exception {
+
+		// Overridden without annotations
+
+		Method method = OverriddenAnnotations.class.getMethod( "getSuperclassAnnotated" );
+		assertTrue( method.getAnnotation( Deprecated.class ) == null );
+		assertTrue( ClassUtils.getOriginalAnnotation( method, Deprecated.class ) != null );
+		assertEquals( 1, ClassUtils.getOriginalAnnotations( method ).size() );
+		assertTrue( ClassUtils.getOriginalAnnotation( method, Deprecated.class ) == ClassUtils.getOriginalAnnotations( method ).get( Deprecated.class ) );
+
+		// Defined on interface
+
+		method = OverriddenAnnotations.class.getMethod( "getInterfaceAnnotated" );
+		assertTrue( method.getAnnotation( Deprecated.class ) == null );
+		assertTrue( ClassUtils.getOriginalAnnotation( method, Deprecated.class ) != null );
+
+		// Not annotated anywhere
+
+		method = OverriddenAnnotations.class.getMethod( "getNotAnnotated" );
+		assertTrue( ClassUtils.getOriginalAnnotation( method, Deprecated.class ) == null );
+		assertTrue( ClassUtils.getOriginalAnnotations( method ).isEmpty() );
+
+		try {
+			ClassUtils.getOriginalAnnotations( method ).put( Deprecated.class, null );
+			fail();
+		} catch ( UnsupportedOperationException e ) {
+			// Should fail
+		}
+	}
+
+	public static void unregisterAllAlienClassLoaders() {
+
+		ClassUtils.ALIEN_CLASSLOADERS.clear();
+		ClassUtils.CLASS_CACHE.clear();
+	}
+
 	public static void testGetPackagesAsFolderNames() {
 
 		assertEquals( "/java/lang", ClassUtils.getPackagesAsFolderNames( String.class ) );
@@ -324,6 +390,43 @@ public class ClassUtilsTest
 		// Do not override equals
 	}
 
+	static interface InterfaceAnnotated {
+
+		@Deprecated
+		String getInterfaceAnnotated();
+	}
+
+	public static class SuperclassAnnotated {
+
+		@Deprecated
+		public String getSuperclassAnnotated() {
+
+			return null;
+		}
+	}
+
+	@SuppressWarnings( "all" )
+	public static class OverriddenAnnotations
+		extends SuperclassAnnotated
+		implements InterfaceAnnotated {
+
+		@Override
+		public String getSuperclassAnnotated() {
+
+			return null;
+		}
+
+		public String getInterfaceAnnotated() {
+
+			return null;
+		}
+
+		public String getNotAnnotated() {
+
+			return null;
+		}
+	}
+
 	@SuppressWarnings( "all" )
 	static class EqualsSkipped
 		extends SuperEqualsSkipped {
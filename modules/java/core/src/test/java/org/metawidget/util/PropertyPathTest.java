@@ -0,0 +1,200 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.util;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class PropertyPathTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testPropertyPath() {
+
+		PropertyPath path = new PropertyPath( "address", "street" );
+		assertEquals( "address/street", path.toString() );
+
+		// Null intermediates
+
+		Contact contact = new Contact();
+		assertEquals( null, path.getValue( null ) );
+		assertEquals( null, path.getValue( contact ) );
+		assertFalse( path.setValue( contact, "Foo Street" ) );
+
+		// Get and set
+
+		contact.setAddress( new Address() );
+		assertTrue( path.setValue( contact, "Foo Street" ) );
+		assertEquals( "Foo Street", path.getValue( contact ) );
+		assertEquals( "Foo Street", contact.getAddress().getStreet() );
+
+		// Subclasses (resolved again)
+
+		contact.setAddress( new BusinessAddress() );
+		assertTrue( path.setValue( contact, "Bar Street" ) );
+		assertEquals( "Bar Street", path.getValue( contact ) );
+		assertEquals( "Bar Street (business)", ( (BusinessAddress) contact.getAddress() ).getDescription() );
+
+		// Primitives and booleans
+
+		path = new PropertyPath( "address", "number" );
+		assertTrue( path.setValue( contact, 42 ) );
+		assertEquals( 42, contact.getAddress().getNumber() );
+		assertEquals( Integer.valueOf( 42 ), path.getValue( contact ) );
+
+		path = new PropertyPath( "active" );
+		assertEquals( Boolean.FALSE, path.getValue( contact ) );
+		assertTrue( path.setValue( contact, true ) );
+		assertEquals( Boolean.TRUE, path.getValue( contact ) );
+	}
+
+	public void testBadPath() {
+
+		Contact contact = new Contact();
+		contact.setAddress( new Address() );
+
+		try {
+			new PropertyPath( "address", "foo" ).getValue( contact );
+			fail();
+		} catch ( RuntimeException e ) {
+			assertTrue( e.getMessage().startsWith( "Unable to get 'foo' of '" ) );
+		}
+
+		// Read-only property can be read, but not written
+
+		PropertyPath path = new PropertyPath( "address", "readOnly" );
+		assertEquals( "Read only", path.getValue( contact ) );
+
+		try {
+			path.setValue( contact, "Foo" );
+			fail();
+		} catch ( RuntimeException e ) {
+			assertTrue( e.getMessage().startsWith( "Unable to set 'readOnly' of '" ) );
+			assertTrue( e.getCause().getMessage().startsWith( "No such method setReadOnly" ) );
+		}
+
+		// Empty path
+
+		path = new PropertyPath();
+		assertTrue( contact == path.getValue( contact ) );
+
+		try {
+			path.setValue( contact, "Foo" );
+			fail();
+		} catch ( RuntimeException e ) {
+			assertEquals( "Unable to set an empty PropertyPath", e.getMessage() );
+		}
+	}
+
+	//
+	// Inner class
+	//
+
+	public static class Contact {
+
+		//
+		// Private members
+		//
+
+		private Address	mAddress;
+
+		private boolean	mActive;
+
+		//
+		// Public methods
+		//
+
+		public Address getAddress() {
+
+			return mAddress;
+		}
+
+		public void setAddress( Address address ) {
+
+			mAddress = address;
+		}
+
+		public boolean isActive() {
+
+			return mActive;
+		}
+
+		public void setActive( boolean active ) {
+
+			mActive = active;
+		}
+	}
+
+	public static class Address {
+
+		//
+		// Private members
+		//
+
+		private String	mStreet;
+
+		private int		mNumber;
+
+		//
+		// Public methods
+		//
+
+		public String getStreet() {
+
+			return mStreet;
+		}
+
+		public void setStreet( String street ) {
+
+			mStreet = street;
+		}
+
+		public int getNumber() {
+
+			return mNumber;
+		}
+
+		public void setNumber( int number ) {
+
+			mNumber = number;
+		}
+
+		public String getReadOnly() {
+
+			return "Read only";
+		}
+	}
+
+	public static class BusinessAddress
+		extends Address {
+
+		//
+		// Public methods
+		//
+
+		public String getDescription() {
+
+			return getStreet() + " (business)";
+		}
+	}
+}
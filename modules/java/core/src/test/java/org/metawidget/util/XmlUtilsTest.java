@@ -16,6 +16,8 @@
 
 package org.metawidget.util;
 
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
 import java.lang.reflect.Field;
 import java.util.List;
 import java.util.Map;
@@ -276,6 +278,64 @@ public class XmlUtilsTest
 		assertEquals( "<inspection-result><foo fooAttr=\"1\"><bar barAttr=\"2\" data=\"bar2\"/></foo><foo fooAttr=\"2\"><bar barAttr=\"3\" data=\"bar3\"/></foo></inspection-result>", XmlUtils.documentToString( documentMaster, false ) );
 	}
 
+	public void testCombineElementsFromString() {
+
+		String master = "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"Foo\"><property name=\"abc\"/><property name=\"def\" required=\"true\"/><action name=\"ghi\"/></entity></inspection-result>";
+
+		// Same result as combining Elements
+
+		String[] toAdds = new String[] {
+				"<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"Foo\" label=\"Foo Label\"><property name=\"def\" required=\"\" lookup=\"a,b\"/><property name=\"jkl\"><text>Text</text></property><property name=\"abc\"/><property name=\"mno\"/></entity></inspection-result>",
+				"<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"Bar\"><property name=\"abc\"/></entity></inspection-result>",
+				"<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\">\n\t<entity type=\"Foo\">\n\t\t<action name=\"ghi\" label=\"Ghi\"/>\n\t\t<property name=\"pqr\">\n\t\t</property>\n\t</entity>\n</inspection-result>" };
+
+		for ( String toAdd : toAdds ) {
+			Document expected = XmlUtils.documentFromString( master );
+			XmlUtils.combineElements( expected.getDocumentElement(), XmlUtils.documentFromString( toAdd ).getDocumentElement(), TYPE, NAME );
+
+			Document actual = XmlUtils.documentFromString( master );
+			XmlUtils.combineElements( actual.getDocumentElement(), toAdd, TYPE, NAME );
+
+			assertEquals( XmlUtils.documentToString( expected, false ), XmlUtils.documentToString( actual, false ) );
+		}
+
+		// Errors
+
+		Document documentMaster = XmlUtils.documentFromString( "<inspection-result><foo fooAttr=\"1\"><bar barAttr=\"2\" data=\"bar2\"/></foo></inspection-result>" );
+
+		try {
+			XmlUtils.combineElements( documentMaster.getDocumentElement(), "<inspection-result><foo fooAttr=\"1\"><bar bazAttr=\"3\"/></foo></inspection-result>", "fooAttr", "barAttr" );
+			fail();
+		} catch ( Exception e ) {
+			assertEquals( "Child node #1 has no @barAttr: <bar bazAttr=\"3\"/>", e.getMessage() );
+		}
+
+		try {
+			XmlUtils.combineElements( documentMaster.getDocumentElement(), "<inspection-result><foo fooAttr=\"1\"><bar barAttr=\"3\"/><bar barAttr=\"3\"/></foo></inspection-result>", "fooAttr", "barAttr" );
+			fail();
+		} catch ( Exception e ) {
+			assertEquals( "Element has more than one child with @barAttr '3'", e.getMessage() );
+		}
+
+		try {
+			XmlUtils.combineElements( documentMaster.getDocumentElement(), "<inspection-result><foo fooAttr=\"1\"><baz barAttr=\"2\"/></foo></inspection-result>", "fooAttr", "barAttr" );
+			fail();
+		} catch ( Exception e ) {
+			assertEquals( "Matching elements named '2', but existing one is a 'bar' whilst new one is a 'baz'", e.getMessage() );
+		}
+
+		// Malformed XML is not partially combined
+
+		String before = XmlUtils.documentToString( documentMaster, false );
+
+		try {
+			XmlUtils.combineElements( documentMaster.getDocumentElement(), "<inspection-result><foo fooAttr=\"1\" data=\"foo1\"><bar barAttr=\"3\"/></foo><foo fooAttr=\"2\"></inspection-result>", "fooAttr", "barAttr" );
+			fail();
+		} catch ( RuntimeException e ) {
+			assertEquals( before, XmlUtils.documentToString( documentMaster, false ) );
+		}
+	}
+
 	public void testElementToJsonSchema() {
 
 		// Normal case
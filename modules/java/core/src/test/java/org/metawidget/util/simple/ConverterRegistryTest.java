@@ -0,0 +1,65 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.util.simple;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class ConverterRegistryTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testConverterRegistry() {
+
+		ConverterRegistry<String> registry = new ConverterRegistry<String>();
+		registry.register( Number.class, String.class, "numberToString" );
+		registry.register( Integer.class, String.class, "integerToString" );
+		registry.register( String.class, Number.class, "stringToNumber" );
+		registry.register( Boolean.class, "boolean" );
+
+		// Exact and superclass matches
+
+		assertEquals( "integerToString", registry.get( Integer.class, String.class ) );
+		assertEquals( "numberToString", registry.get( Long.class, String.class ) );
+		assertEquals( "stringToNumber", registry.get( String.class, Number.class ) );
+		assertEquals( "boolean", registry.get( Boolean.class ) );
+
+		// Negative results
+
+		assertEquals( null, registry.get( String.class, Integer.class ) );
+		assertEquals( null, registry.get( Integer.class ) );
+		assertEquals( null, registry.get( Boolean.class, String.class ) );
+		assertEquals( null, registry.get( Object.class, String.class ) );
+
+		// Remembered results are discarded on register
+
+		assertEquals( "numberToString", registry.get( Long.class, String.class ) );
+		registry.register( Long.class, String.class, "longToString" );
+		assertEquals( "longToString", registry.get( Long.class, String.class ) );
+
+		assertEquals( null, registry.get( Object.class, String.class ) );
+		registry.register( Object.class, String.class, "objectToString" );
+		assertEquals( "objectToString", registry.get( Object.class, String.class ) );
+		assertEquals( "objectToString", registry.get( Boolean.class, String.class ) );
+	}
+}
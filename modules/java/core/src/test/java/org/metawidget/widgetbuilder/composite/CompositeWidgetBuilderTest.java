@@ -20,11 +20,14 @@ import java.util.List;
 import java.util.Map;
 
 import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JTextField;
 
 import junit.framework.TestCase;
 
 import org.metawidget.util.CollectionUtils;
 import org.metawidget.widgetbuilder.iface.AdvancedWidgetBuilder;
+import org.metawidget.widgetbuilder.iface.SelectiveWidgetBuilder;
 import org.metawidget.widgetbuilder.iface.WidgetBuilder;
 
 /**
@@ -70,6 +73,82 @@ public class CompositeWidgetBuilderTest
 		assertEquals( 7, events.size() );
 	}
 
+	public void testSelectiveWidgetBuilders() {
+
+		final List<String> events = CollectionUtils.newArrayList();
+
+		WidgetBuilder<JComponent, JComponent> simpleWidgetBuilder = new WidgetBuilder<JComponent, JComponent>() {
+
+			public JComponent buildWidget( String elementName, Map<String, String> attributes, JComponent metawidget ) {
+
+				events.add( "simpleWidgetBuilder" );
+
+				if ( "overridden".equals( attributes.get( "name" ) ) ) {
+					return new JLabel();
+				}
+
+				return null;
+			}
+		};
+
+		@SuppressWarnings( "unchecked" )
+		CompositeWidgetBuilderConfig<JComponent, JComponent> config = new CompositeWidgetBuilderConfig<JComponent, JComponent>().setWidgetBuilders( new MySelectiveWidgetBuilder( events, "int" ), simpleWidgetBuilder, new MySelectiveWidgetBuilder( events, "java.lang.String" ) );
+		CompositeWidgetBuilder<JComponent, JComponent> widgetBuilder = new CompositeWidgetBuilder<JComponent, JComponent>( config );
+
+		Map<String, String> attributes = CollectionUtils.newHashMap();
+		attributes.put( "name", "foo" );
+		attributes.put( "type", "java.lang.String" );
+
+		// First time tries every WidgetBuilder
+
+		assertTrue( widgetBuilder.buildWidget( "property", attributes, null ) instanceof JTextField );
+		assertEquals( "selectiveWidgetBuilder:int", events.get( 0 ) );
+		assertEquals( "simpleWidgetBuilder", events.get( 1 ) );
+		assertEquals( "selectiveWidgetBuilder:java.lang.String", events.get( 2 ) );
+		assertEquals( 3, events.size() );
+
+		// Second time skips SelectiveWidgetBuilders known to return null, but still tries other
+		// WidgetBuilders
+
+		events.clear();
+		attributes.put( "name", "bar" );
+		assertTrue( widgetBuilder.buildWidget( "property", attributes, null ) instanceof JTextField );
+		assertEquals( "simpleWidgetBuilder", events.get( 0 ) );
+		assertEquals( "selectiveWidgetBuilder:java.lang.String", events.get( 1 ) );
+		assertEquals( 2, events.size() );
+
+		events.clear();
+		attributes.put( "name", "overridden" );
+		assertTrue( widgetBuilder.buildWidget( "property", attributes, null ) instanceof JLabel );
+		assertEquals( "simpleWidgetBuilder", events.get( 0 ) );
+		assertEquals( 1, events.size() );
+
+		// Different selector attributes (or element name) are tried afresh
+
+		events.clear();
+		attributes.put( "name", "foo" );
+		attributes.put( "type", "int" );
+		assertTrue( widgetBuilder.buildWidget( "property", attributes, null ) instanceof JTextField );
+		assertEquals( "selectiveWidgetBuilder:int", events.get( 0 ) );
+		assertEquals( 1, events.size() );
+
+		events.clear();
+		attributes.put( "type", "java.lang.String" );
+		assertTrue( widgetBuilder.buildWidget( "action", attributes, null ) instanceof JTextField );
+		assertEquals( "selectiveWidgetBuilder:int", events.get( 0 ) );
+		assertEquals( 3, events.size() );
+
+		events.clear();
+		attributes.remove( "type" );
+		assertEquals( null, widgetBuilder.buildWidget( "property", attributes, null ) );
+		assertEquals( 3, events.size() );
+
+		events.clear();
+		assertEquals( null, widgetBuilder.buildWidget( "property", attributes, null ) );
+		assertEquals( "simpleWidgetBuilder", events.get( 0 ) );
+		assertEquals( 1, events.size() );
+	}
+
 	//
 	// Inner class
 	//
@@ -115,4 +194,46 @@ public class CompositeWidgetBuilderTest
 			mEvents.add( "advancedWidgetBuilder" + mNumber + "::onEndBuild" );
 		}
 	}
+
+	private static class MySelectiveWidgetBuilder
+		implements SelectiveWidgetBuilder<JComponent, JComponent> {
+
+		//
+		// Private members
+		//
+
+		private List<String>	mEvents;
+
+		private String			mType;
+
+		//
+		// Constructor
+		//
+
+		public MySelectiveWidgetBuilder( List<String> events, String type ) {
+
+			mEvents = events;
+			mType = type;
+		}
+
+		//
+		// Public methods
+		//
+
+		public String[] getSelectorAttributes() {
+
+			return new String[] { "type" };
+		}
+
+		public JComponent buildWidget( String elementName, Map<String, String> attributes, JComponent metawidget ) {
+
+			mEvents.add( "selectiveWidgetBuilder:" + mType );
+
+			if ( mType.equals( attributes.get( "type" ) ) ) {
+				return new JTextField();
+			}
+
+			return null;
+		}
+	}
 }
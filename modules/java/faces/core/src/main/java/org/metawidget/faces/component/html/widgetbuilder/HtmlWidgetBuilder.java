@@ -18,6 +18,7 @@ package org.metawidget.faces.component.html.widgetbuilder;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 import static org.metawidget.inspector.faces.FacesInspectionResultConstants.*;
+import static org.metawidget.inspector.propertytype.PropertyTypeInspectionResultConstants.*;
 
 import java.util.Collection;
 import java.util.Date;
@@ -62,7 +63,7 @@ import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.WidgetBuilderUtils;
 import org.metawidget.util.XmlUtils;
 import org.metawidget.util.simple.StringUtils;
-import org.metawidget.widgetbuilder.iface.WidgetBuilder;
+import org.metawidget.widgetbuilder.iface.SelectiveWidgetBuilder;
 import org.metawidget.widgetbuilder.iface.WidgetBuilderException;
 import org.metawidget.widgetprocessor.iface.WidgetProcessor;
 import org.w3c.dom.Element;
@@ -80,13 +81,13 @@ import org.w3c.dom.NodeList;
 
 @SuppressWarnings( "deprecation" )
 public class HtmlWidgetBuilder
-	implements WidgetBuilder<UIComponent, UIMetawidget> {
+	implements SelectiveWidgetBuilder<UIComponent, UIMetawidget> {
 
 	//
 	// Private statics
 	//
 
-	private static final String	DATATABLE_ROW_ACTION	= "dataTableRowAction";
+	private static final String		DATATABLE_ROW_ACTION	= "dataTableRowAction";
 
 	/**
 	 * The number of items in a multi-select lookup at which it should change from being a
@@ -94,19 +95,26 @@ public class HtmlWidgetBuilder
 	 * stops the Metawidget blowing out horizontally.
 	 */
 
-	private static final int	SHORT_LOOKUP_SIZE		= 3;
+	private static final int		SHORT_LOOKUP_SIZE		= 3;
+
+	/**
+	 * Attributes that decide whether <code>buildWidget</code> returns a widget, as opposed to null
+	 * (for a nested Metawidget).
+	 */
+
+	private static final String[]	SELECTOR_ATTRIBUTES		= new String[] { HIDDEN, FACES_COMPONENT, ACTUAL_CLASS, TYPE, FACES_LOOKUP, REQUIRED, LOOKUP, DONT_EXPAND };
 
 	//
 	// Private members
 	//
 
-	private final String		mDataTableStyleClass;
+	private final String			mDataTableStyleClass;
 
-	private final String[]		mDataTableColumnClasses;
+	private final String[]			mDataTableColumnClasses;
 
-	private final String[]		mDataTableRowClasses;
+	private final String[]			mDataTableRowClasses;
 
-	private final int			mMaximumColumnsInDataTable;
+	private final int				mMaximumColumnsInDataTable;
 
 	//
 	// Constructor
@@ -129,6 +137,11 @@ public class HtmlWidgetBuilder
 	// Public methods
 	//
 
+	public String[] getSelectorAttributes() {
+
+		return SELECTOR_ATTRIBUTES.clone();
+	}
+
 	/**
 	 * Purely creates the widget. Does not concern itself with the widget's id, value binding or
 	 * preparing metadata for the renderer.
@@ -201,13 +201,19 @@ public class GroovyPropertyStyle
 		// Private members
 		//
 
-		private MetaBeanProperty	mProperty;
+		private MetaBeanProperty										mProperty;
 
-		private Field				mField;
+		private Field													mField;
 
-		private Method				mGetterMethod;
+		private Method													mGetterMethod;
 
-		private Method				mSetterMethod;
+		private Method													mSetterMethod;
+
+		/**
+		 * Snapshot of annotations, indexed by type. Lazily initialized.
+		 */
+
+		private volatile Map<Class<? extends Annotation>, Annotation>	mAnnotations;
 
 		//
 		// Constructor
@@ -276,19 +282,24 @@ public class GroovyPropertyStyle
 
 		public <T extends Annotation> T getAnnotation( Class<T> annotation ) {
 
-			if ( mField != null ) {
-				return mField.getAnnotation( annotation );
-			}
+			Map<Class<? extends Annotation>, Annotation> annotations = mAnnotations;
 
-			if ( mGetterMethod != null ) {
-				return mGetterMethod.getAnnotation( annotation );
-			}
+			if ( annotations == null ) {
 
-			if ( mSetterMethod != null ) {
-				return mSetterMethod.getAnnotation( annotation );
+				if ( mField != null ) {
+					annotations = indexAnnotations( mField.getAnnotations() );
+				} else if ( mGetterMethod != null ) {
+					annotations = indexAnnotations( mGetterMethod.getAnnotations() );
+				} else if ( mSetterMethod != null ) {
+					annotations = indexAnnotations( mSetterMethod.getAnnotations() );
+				} else {
+					throw InspectorException.newException( "Don't know how to getAnnotation from " + getName() );
+				}
+
+				mAnnotations = annotations;
 			}
 
-			throw InspectorException.newException( "Don't know how to getAnnotation from " + getName() );
+			return annotation.cast( annotations.get( annotation ) );
 		}
 
 		public String getGenericType() {
@@ -34,6 +34,8 @@ import org.metawidget.gwt.client.widgetbuilder.ReadOnlyWidgetBuilder;
 import org.metawidget.gwt.client.widgetprocessor.StyleNameProcessor;
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessor;
 import org.metawidget.inspector.gwt.remote.client.GwtRemoteInspectorProxy;
+import org.metawidget.inspector.iface.AsyncInspector;
+import org.metawidget.inspector.iface.AsyncInspectorCallback;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.layout.iface.Layout;
 import org.metawidget.util.simple.PathUtils;
@@ -46,7 +48,6 @@ import org.metawidget.widgetprocessor.iface.WidgetProcessor;
 
 import com.google.gwt.i18n.client.Dictionary;
 import com.google.gwt.user.client.Timer;
-import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.ui.FlowPanel;
 import com.google.gwt.user.client.ui.HasName;
 import com.google.gwt.user.client.ui.Panel;
@@ -853,11 +854,11 @@ public class GwtMetawidget
 			Inspector inspector = mPipeline.getInspector();
 
 			if ( mLastInspection == null ) {
-				// Special support for GwtRemoteInspectorProxy
+				// Asynchronous support (eg. for GwtRemoteInspectorProxy)
 
-				if ( inspector instanceof GwtRemoteInspectorProxy ) {
+				if ( inspector instanceof AsyncInspector ) {
 					TypeAndNames typeAndNames = PathUtils.parsePath( mPath );
-					( (GwtRemoteInspectorProxy) inspector ).inspect( mToInspect, typeAndNames.getType(), typeAndNames.getNamesAsArray(), new AsyncCallback<String>() {
+					mPipeline.inspectAsDom( mToInspect, typeAndNames.getType(), typeAndNames.getNamesAsArray(), new AsyncInspectorCallback<Element>() {
 
 						public void onFailure( Throwable caught ) {
 
@@ -866,9 +867,9 @@ public class GwtMetawidget
 							mNeedToBuildWidgets = BUILDING_COMPLETE;
 						}
 
-						public void onSuccess( String inspectionResult ) {
+						public void onSuccess( Element inspectionResult ) {
 
-							mLastInspection = mPipeline.stringToElement( inspectionResult );
+							mLastInspection = inspectionResult;
 
 							try {
 								mIgnoreAddRemove = true;
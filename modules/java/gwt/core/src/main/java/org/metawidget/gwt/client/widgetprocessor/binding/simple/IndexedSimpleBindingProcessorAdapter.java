@@ -0,0 +1,48 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.gwt.client.widgetprocessor.binding.simple;
+
+/**
+ * <code>SimpleBindingProcessorAdapter</code> that can also access properties by a precomputed
+ * index.
+ * <p>
+ * <code>SimpleBindingProcessor</code> looks up the index of each bound property once, at bind time.
+ * Thereafter <code>rebind</code> and <code>save</code> access the property by index, avoiding
+ * comparing property names. The supplied <code>SimpleBindingProcessorAdapterGenerator</code>
+ * generates adapters that implement this interface.
+ *
+ * @author Richard Kennard
+ */
+
+public interface IndexedSimpleBindingProcessorAdapter<T>
+	extends SimpleBindingProcessorAdapter<T> {
+
+	//
+	// Methods
+	//
+
+	/**
+	 * @return the index of the given property, or -1 if the property cannot be accessed by index
+	 *         (in which case clients should continue to use the name-based methods)
+	 */
+
+	int getPropertyIndex( String... property );
+
+	Object getProperty( T object, int propertyIndex );
+
+	void setProperty( T object, Object value, int propertyIndex );
+}
@@ -18,13 +18,16 @@ package org.metawidget.gwt.client.widgetprocessor.binding.simple;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.metawidget.gwt.client.ui.GwtMetawidget;
 import org.metawidget.gwt.client.ui.Stub;
+import org.metawidget.util.simple.ConverterRegistry;
+import org.metawidget.util.simple.ObjectUtils;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.util.simple.StringUtils;
 import org.metawidget.widgetprocessor.iface.AdvancedWidgetProcessor;
@@ -38,6 +41,10 @@ import com.google.gwt.user.client.ui.Widget;
 
 /**
  * Simple, Generator-based property and action binding processor.
+ * <p>
+ * Tracks which widgets have changed, so that <code>save</code> only converts and writes
+ * back those properties, and <code>isDirty</code> can cheaply check whether there is anything to
+ * save.
  *
  * @author Richard Kennard
  */
@@ -49,9 +56,9 @@ public class SimpleBindingProcessor
 	// Private members
 	//
 
-	private final Map<Class<?>, SimpleBindingProcessorAdapter<?>>	mAdapters;
+	private final ConverterRegistry<SimpleBindingProcessorAdapter<?>>	mAdapters	= new ConverterRegistry<SimpleBindingProcessorAdapter<?>>();
 
-	private final Map<Class<?>, Converter<?>>						mConverters;
+	private final ConverterRegistry<Converter<?>>						mConverters	= new ConverterRegistry<Converter<?>>();
 
 	//
 	// Constructor
@@ -65,33 +72,29 @@ public class SimpleBindingProcessor
 	public SimpleBindingProcessor( SimpleBindingProcessorConfig config ) {
 
 		// Custom adapters
+		//
+		// (WeakHashMap would be better for these registries, but not supported by GWT:
+		// http://code.google.com/webtoolkit/doc/latest/RefJreEmulation.html#Package_java_util)
 
-		if ( config.getAdapters() == null ) {
-			mAdapters = null;
-		} else {
-
-			// WeakHashMap would be better here, but not supported by GWT:
-			// http://code.google.com/webtoolkit/doc/latest/RefJreEmulation.html#Package_java_util
-
-			mAdapters = new HashMap<Class<?>, SimpleBindingProcessorAdapter<?>>( config.getAdapters() );
+		if ( config.getAdapters() != null ) {
+			for ( Map.Entry<Class<?>, SimpleBindingProcessorAdapter<?>> entry : config.getAdapters().entrySet() ) {
+				mAdapters.register( entry.getKey(), entry.getValue() );
+			}
 		}
 
 		// Default converters
-		//
-		// WeakHashMap would be better here, but not supported by GWT:
-		// http://code.google.com/webtoolkit/doc/latest/RefJreEmulation.html#Package_java_util
-
-		mConverters = new HashMap<Class<?>, Converter<?>>();
 
 		Converter<?> simpleConverter = new SimpleConverter();
-		mConverters.put( Boolean.class, simpleConverter );
-		mConverters.put( Character.class, simpleConverter );
-		mConverters.put( Number.class, simpleConverter );
+		mConverters.register( Boolean.class, simpleConverter );
+		mConverters.register( Character.class, simpleConverter );
+		mConverters.register( Number.class, simpleConverter );
 
 		// Custom converters
 
 		if ( config.getConverters() != null ) {
-			mConverters.putAll( config.getConverters() );
+			for ( Map.Entry<Class<?>, Converter<?>> entry : config.getConverters().entrySet() ) {
+				mConverters.register( entry.getKey(), entry.getValue() );
+			}
 		}
 	}
 
@@ -217,7 +220,18 @@ public class SimpleBindingProcessor
 				state.bindings = new HashSet<Object[]>();
 			}
 
-			state.bindings.add( new Object[] { widget, names, converter, propertyType } );
+			// (remember the property index, if the adapter supports them, so that rebind and save
+			// need not match the names again)
+
+			Integer propertyIndex = null;
+
+			if ( adapter instanceof IndexedSimpleBindingProcessorAdapter<?> ) {
+				propertyIndex = ( (IndexedSimpleBindingProcessorAdapter<Object>) adapter ).getPropertyIndex( names );
+			}
+
+			// (track changes after setting the value, so as not to count the initial value)
+
+			state.bindings.add( new Object[] { widget, names, converter, propertyType, new ChangeTracker( metawidget, widget ), adapter, propertyIndex } );
 		} catch ( Exception e ) {
 			Window.alert( path + ": " + e.getMessage() );
 		}
@@ -232,47 +246,91 @@ public class SimpleBindingProcessor
 	 * <em>without</em> calling setToInspect, and therefore without reinspecting the object or
 	 * recreating the components. It is the client's responsbility to ensure the rebound object is
 	 * compatible with the original setToInspect.
+	 * <p>
+	 * Rebinding happens in two passes. First, the values for every binding (of this Metawidget and
+	 * its nested Metawidgets) are fetched, using a single adapter lookup. Then, if every fetch
+	 * succeeded, the Metawidgets are updated to the new object and all the values are pushed into
+	 * their widgets in a single batch.
 	 */
 
 	public void rebind( Object toRebind, GwtMetawidget metawidget ) {
 
-		metawidget.updateToInspectWithoutInvalidate( toRebind );
+		// Fetch all values...
+
+		Class<?> classToRebind = toRebind.getClass();
+		SimpleBindingProcessorAdapter<Object> adapter = getAdapter( classToRebind );
+		List<GwtMetawidget> metawidgets = new ArrayList<GwtMetawidget>();
+		List<Object[]> metawidgetBindingValues = new ArrayList<Object[]>();
+		fetchValues( toRebind, adapter, metawidget, metawidgets, metawidgetBindingValues );
+
+		// ...then push them all
+
+		for ( GwtMetawidget metawidgetToUpdate : metawidgets ) {
+			metawidgetToUpdate.updateToInspectWithoutInvalidate( toRebind );
+		}
+
+		for ( Object[] metawidgetBindingValue : metawidgetBindingValues ) {
+			GwtMetawidget owner = (GwtMetawidget) metawidgetBindingValue[0];
+			Object[] binding = (Object[]) metawidgetBindingValue[1];
+
+			owner.setValue( metawidgetBindingValue[2], (Widget) binding[0] );
+			( (ChangeTracker) binding[4] ).reset( owner.getValue( (Widget) binding[0] ) );
+		}
+	}
+
+	public void save( GwtMetawidget metawidget ) {
 
 		State state = getState( metawidget );
 
 		// Our bindings
 
 		if ( state.bindings != null ) {
+			Object toSave = metawidget.getToInspect();
+
+			if ( toSave == null ) {
+				return;
+			}
+
 			// From the adapter...
 
-			Class<?> classToRebind = toRebind.getClass();
-			SimpleBindingProcessorAdapter<Object> adapter = getAdapter( classToRebind );
+			Class<?> classToBindTo = toSave.getClass();
+			SimpleBindingProcessorAdapter<Object> adapter = getAdapter( classToBindTo );
 
 			if ( adapter == null ) {
-				throw new RuntimeException( "Don't know how to rebind to a " + classToRebind );
+				throw new RuntimeException( "Don't know how to save to a " + classToBindTo );
 			}
 
 			// ...for each bound property...
 
 			for ( Object[] binding : state.bindings ) {
+
 				Widget widget = (Widget) binding[0];
 				String[] names = (String[]) binding[1];
 				@SuppressWarnings( "unchecked" )
 				Converter<Object> converter = (Converter<Object>) binding[2];
+				Class<?> type = (Class<?>) binding[3];
 
-				// ...fetch the value...
+				// ...fetch the value (only saving widgets that have changed)...
+
+				Object widgetValue = metawidget.getValue( widget );
+				ChangeTracker changeTracker = (ChangeTracker) binding[4];
+
+				if ( !changeTracker.isChanged( widgetValue ) ) {
+					continue;
+				}
 
-				Object value = adapter.getProperty( toRebind, names );
+				Object value = widgetValue;
 
 				// ...convert it (if necessary)...
 
-				if ( converter != null ) {
-					value = converter.convertForWidget( widget, value );
+				if ( value != null && converter != null ) {
+					value = converter.convertFromWidget( widget, value, type );
 				}
 
 				// ...and set it
 
-				metawidget.setValue( value, widget );
+				setProperty( adapter, toSave, value, binding );
+				changeTracker.reset( widgetValue );
 			}
 		}
 
@@ -280,55 +338,120 @@ public class SimpleBindingProcessor
 
 		if ( state.nestedMetawidgets != null ) {
 			for ( GwtMetawidget nestedMetawidget : state.nestedMetawidgets ) {
-				rebind( toRebind, nestedMetawidget );
+				save( nestedMetawidget );
 			}
 		}
 	}
 
-	public void save( GwtMetawidget metawidget ) {
+	/**
+	 * Returns true if any bound widget (of this Metawidget or its nested Metawidgets) has been
+	 * changed since it was last bound, rebound or saved. Cheap enough to be polled frequently, for
+	 * example to implement auto-save.
+	 */
+
+	public boolean isDirty( GwtMetawidget metawidget ) {
 
 		State state = getState( metawidget );
 
 		// Our bindings
 
 		if ( state.bindings != null ) {
-			Object toSave = metawidget.getToInspect();
+			for ( Object[] binding : state.bindings ) {
+				if ( ( (ChangeTracker) binding[4] ).isChanged( metawidget.getValue( (Widget) binding[0] ) ) ) {
+					return true;
+				}
+			}
+		}
 
-			if ( toSave == null ) {
-				return;
+		// Nested Metawidgets
+
+		if ( state.nestedMetawidgets != null ) {
+			for ( GwtMetawidget nestedMetawidget : state.nestedMetawidgets ) {
+				if ( isDirty( nestedMetawidget ) ) {
+					return true;
+				}
 			}
+		}
 
-			// From the adapter...
+		return false;
+	}
 
-			Class<?> classToBindTo = toSave.getClass();
-			SimpleBindingProcessorAdapter<Object> adapter = getAdapter( classToBindTo );
+	public void onEndBuild( GwtMetawidget metawidget ) {
+
+		// Do nothing
+	}
+
+	//
+	// Protected methods
+	//
+
+	/**
+	 * Gets the Adapter for the given class (if any).
+	 * <p>
+	 * Includes traversing superclasses of the given <code>classToBindTo</code> for a suitable
+	 * Adapter, so for example registering an Adapter for <code>Contact.class</code> will match
+	 * <code>PersonalContact.class</code>, <code>BusinessContact.class</code> etc., unless a more
+	 * subclass-specific Adapter is also registered.
+	 */
+
+	@SuppressWarnings( "unchecked" )
+	protected <T extends SimpleBindingProcessorAdapter<?>> T getAdapter( Class<?> classToBindTo ) {
+
+		return (T) mAdapters.get( classToBindTo );
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Fetches (and converts) the values for all bindings of the given Metawidget and its nested
+	 * Metawidgets.
+	 * <p>
+	 * Does not update the Metawidgets themselves, so that a failed fetch leaves them all bound to
+	 * their original object.
+	 *
+	 * @param adapter
+	 *            the adapter for <code>toRebind</code>, or null if there is none
+	 * @param metawidgets
+	 *            list to add the given Metawidget and its nested Metawidgets to
+	 * @param metawidgetBindingValues
+	 *            list to add an <code>Object[] { metawidget, binding, value }</code> to, for each
+	 *            binding
+	 */
+
+	private void fetchValues( Object toRebind, SimpleBindingProcessorAdapter<Object> adapter, GwtMetawidget metawidget, List<GwtMetawidget> metawidgets, List<Object[]> metawidgetBindingValues ) {
+
+		metawidgets.add( metawidget );
+		State state = getState( metawidget );
+
+		// Our bindings
+
+		if ( state.bindings != null ) {
+			// From the adapter...
 
 			if ( adapter == null ) {
-				throw new RuntimeException( "Don't know how to save to a " + classToBindTo );
+				throw new RuntimeException( "Don't know how to rebind to a " + toRebind.getClass() );
 			}
 
 			// ...for each bound property...
 
 			for ( Object[] binding : state.bindings ) {
 				Widget widget = (Widget) binding[0];
-				String[] names = (String[]) binding[1];
 				@SuppressWarnings( "unchecked" )
 				Converter<Object> converter = (Converter<Object>) binding[2];
-				Class<?> type = (Class<?>) binding[3];
 
 				// ...fetch the value...
 
-				Object value = metawidget.getValue( widget );
+				Object value = getProperty( adapter, toRebind, binding );
 
-				// ...convert it (if necessary)...
+				// ...and convert it (if necessary)
 
-				if ( value != null && converter != null ) {
-					value = converter.convertFromWidget( widget, value, type );
+				if ( converter != null ) {
+					value = converter.convertForWidget( widget, value );
 				}
 
-				// ...and set it
-
-				adapter.setProperty( toSave, value, names );
+				metawidgetBindingValues.add( new Object[] { metawidget, binding, value } );
 			}
 		}
 
@@ -336,55 +459,59 @@ public class SimpleBindingProcessor
 
 		if ( state.nestedMetawidgets != null ) {
 			for ( GwtMetawidget nestedMetawidget : state.nestedMetawidgets ) {
-				save( nestedMetawidget );
+				fetchValues( toRebind, adapter, nestedMetawidget, metawidgets, metawidgetBindingValues );
 			}
 		}
 	}
 
-	public void onEndBuild( GwtMetawidget metawidget ) {
+	/**
+	 * Gets the value of the given binding's property, by index if the binding was made using the
+	 * same <code>IndexedSimpleBindingProcessorAdapter</code>, otherwise by name.
+	 */
 
-		// Do nothing
-	}
+	private Object getProperty( SimpleBindingProcessorAdapter<Object> adapter, Object object, Object[] binding ) {
 
-	//
-	// Protected methods
-	//
+		int propertyIndex = getPropertyIndex( adapter, binding );
+
+		if ( propertyIndex != -1 ) {
+			return ( (IndexedSimpleBindingProcessorAdapter<Object>) adapter ).getProperty( object, propertyIndex );
+		}
+
+		return adapter.getProperty( object, (String[]) binding[1] );
+	}
 
 	/**
-	 * Gets the Adapter for the given class (if any).
-	 * <p>
-	 * Includes traversing superclasses of the given <code>classToBindTo</code> for a suitable
-	 * Adapter, so for example registering an Adapter for <code>Contact.class</code> will match
-	 * <code>PersonalContact.class</code>, <code>BusinessContact.class</code> etc., unless a more
-	 * subclass-specific Adapter is also registered.
+	 * Sets the value of the given binding's property, by index if the binding was made using the
+	 * same <code>IndexedSimpleBindingProcessorAdapter</code>, otherwise by name.
 	 */
 
-	protected <T extends SimpleBindingProcessorAdapter<?>> T getAdapter( Class<?> classToBindTo ) {
+	private void setProperty( SimpleBindingProcessorAdapter<Object> adapter, Object object, Object value, Object[] binding ) {
+
+		int propertyIndex = getPropertyIndex( adapter, binding );
 
-		if ( mAdapters == null ) {
-			return null;
+		if ( propertyIndex != -1 ) {
+			( (IndexedSimpleBindingProcessorAdapter<Object>) adapter ).setProperty( object, value, propertyIndex );
+			return;
 		}
 
-		Class<?> classTraversal = classToBindTo;
+		adapter.setProperty( object, value, (String[]) binding[1] );
+	}
 
-		while ( classTraversal != null ) {
-			@SuppressWarnings( "unchecked" )
-			T adapter = (T) mAdapters.get( classTraversal );
+	/**
+	 * @return the property index of the given binding, or -1 if the binding was made using a
+	 *         different adapter (eg. rebinding to a subclass with its own adapter) or its property
+	 *         has no index
+	 */
 
-			if ( adapter != null ) {
-				return adapter;
-			}
+	private int getPropertyIndex( SimpleBindingProcessorAdapter<Object> adapter, Object[] binding ) {
 
-			classTraversal = classTraversal.getSuperclass();
+		if ( binding[5] != adapter || binding[6] == null ) {
+			return -1;
 		}
 
-		return null;
+		return (Integer) binding[6];
 	}
 
-	//
-	// Private methods
-	//
-
 	/**
 	 * Gets the Converter for the given Class (if any).
 	 * <p>
@@ -394,22 +521,10 @@ public class SimpleBindingProcessor
 	 * Converter is also registered.
 	 */
 
+	@SuppressWarnings( "unchecked" )
 	private <T extends Converter<?>> T getConverter( Class<?> classToConvert ) {
 
-		Class<?> classTraversal = classToConvert;
-
-		while ( classTraversal != null ) {
-			@SuppressWarnings( "unchecked" )
-			T converter = (T) mConverters.get( classTraversal );
-
-			if ( converter != null ) {
-				return converter;
-			}
-
-			classTraversal = classTraversal.getSuperclass();
-		}
-
-		return null;
+		return (T) mConverters.get( classToConvert );
 	}
 
 	/* package private */State getState( GwtMetawidget metawidget ) {
@@ -438,4 +553,50 @@ public class SimpleBindingProcessor
 
 		/* package private */Set<GwtMetawidget>	nestedMetawidgets;
 	}
+
+	/**
+	 * Tracks whether the value of a bound Widget has changed, by comparing it against a snapshot
+	 * taken when it was bound, rebound or saved.
+	 * <p>
+	 * Compares values rather than listening for events, because GWT widgets do not fire events for
+	 * programmatic changes (such as <code>TextBox.setText</code> or
+	 * <code>GwtMetawidget.setValue</code>).
+	 */
+
+	/* package private */static class ChangeTracker {
+
+		//
+		// Private members
+		//
+
+		private Object	mSnapshot;
+
+		//
+		// Constructor
+		//
+
+		public ChangeTracker( GwtMetawidget metawidget, Widget widget ) {
+
+			mSnapshot = metawidget.getValue( widget );
+		}
+
+		//
+		// Public methods
+		//
+
+		/**
+		 * @param widgetValue
+		 *            the current (unconverted) value of the Widget
+		 */
+
+		public boolean isChanged( Object widgetValue ) {
+
+			return !ObjectUtils.nullSafeEquals( widgetValue, mSnapshot );
+		}
+
+		public void reset( Object widgetValue ) {
+
+			mSnapshot = widgetValue;
+		}
+	}
 }
@@ -17,9 +17,14 @@
 package org.metawidget.gwt.generator.widgetprocessor.binding.simple;
 
 import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import org.metawidget.gwt.client.widgetprocessor.binding.simple.SimpleBindingProcessorAdapter;
+import org.metawidget.gwt.client.widgetprocessor.binding.simple.IndexedSimpleBindingProcessorAdapter;
 import org.metawidget.util.ClassUtils;
+import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.simple.StringUtils;
 
 import com.google.gwt.core.ext.Generator;
@@ -30,7 +35,6 @@ import com.google.gwt.core.ext.typeinfo.JMethod;
 import com.google.gwt.core.ext.typeinfo.JPrimitiveType;
 import com.google.gwt.core.ext.typeinfo.JType;
 import com.google.gwt.core.ext.typeinfo.NotFoundException;
-import com.google.gwt.core.ext.typeinfo.TypeOracle;
 import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 import com.google.gwt.user.rebind.SourceWriter;
 
@@ -68,6 +72,13 @@ import com.google.gwt.user.rebind.SourceWriter;
  * Clients needing to avoid such restrictions must write their own class that implements
  * <code>SimpleBindingProcessorAdapter</code> or, more drastically, their own binding implementation
  * that implements <code>PropertyBinding</code>.
+ * <p>
+ * The generated adapter implements <code>IndexedSimpleBindingProcessorAdapter</code>. Every
+ * property path is assigned an index, and accessed by index through a single <code>switch</code>
+ * of direct, typed getter/setter calls (nested paths reuse the getter of their parent path). The
+ * name-based methods look up the index, rather than comparing names level by level. If the same
+ * path resolves to differently typed properties in different subtypes, its getter returns
+ * <code>Object</code> and chooses between them using <code>instanceof</code>.
  *
  * @author Richard Kennard
  */
@@ -88,14 +99,6 @@ public class SimpleBindingProcessorAdapterGenerator
 
 	private static final String	VARIABLE_NAME_PREFIX	= "the";
 
-	private static final int	WRITE_GETTER			= 0;
-
-	private static final int	WRITE_TYPE_GETTER		= 1;
-
-	private static final int	WRITE_SETTER			= 2;
-
-	private static final int	WRITE_ACTION			= 3;
-
 	/**
 	 * Maximum depth of recursion to avoid infinite recursion.
 	 * <p>
@@ -106,12 +109,6 @@ public class SimpleBindingProcessorAdapterGenerator
 
 	private static final int	MAXIMUM_DEPTH			= 10;
 
-	//
-	// Private members
-	//
-
-	private TypeOracle			mTypeOracle;
-
 	//
 	// Public methods
 	//
@@ -121,18 +118,16 @@ public class SimpleBindingProcessorAdapterGenerator
 
 		// Lookup the type
 
-		mTypeOracle = context.getTypeOracle();
 		JClassType classType;
 
 		try {
-			classType = mTypeOracle.getType( typeName );
+			classType = context.getTypeOracle().getType( typeName );
 		} catch ( NotFoundException e ) {
 			throw new RuntimeException( e );
 		}
 
 		String packageName = classType.getPackage().getName();
-		String sourceClassName = classType.getSimpleSourceName();
-		String bindingClassName = sourceClassName + "BindingAdapter";
+		String bindingClassName = classType.getSimpleSourceName() + "BindingAdapter";
 		PrintWriter printWriter = context.tryCreate( logger, packageName, bindingClassName );
 
 		// Already generated?
@@ -146,63 +141,479 @@ public class SimpleBindingProcessorAdapterGenerator
 		// Start the BindingAdapter subclass
 
 		ClassSourceFileComposerFactory composer = new ClassSourceFileComposerFactory( packageName, bindingClassName );
-		composer.addImplementedInterface( SimpleBindingProcessorAdapter.class.getName() + "<" + classType.getQualifiedSourceName() + ">" );
+		composer.addImplementedInterface( IndexedSimpleBindingProcessorAdapter.class.getName() + "<" + classType.getQualifiedSourceName() + ">" );
 		SourceWriter sourceWriter = composer.createSourceWriter( context, printWriter );
 
 		if ( sourceWriter != null ) {
-			String variableName = VARIABLE_NAME_PREFIX + sourceClassName;
-			sourceWriter.println();
-			sourceWriter.println( "// Public methods" );
+			writeAdapter( sourceWriter, classType );
 
-			// getProperty method
+			// End the BindingAdapter subclass
 
-			sourceWriter.println();
-			sourceWriter.println( "public Object getProperty( " + classType.getQualifiedSourceName() + " " + variableName + ", String... names ) {" );
-			sourceWriter.indent();
-			writeMethod( sourceWriter, classType, variableName, WRITE_GETTER );
-			sourceWriter.outdent();
-			sourceWriter.println( "}" );
+			sourceWriter.commit( logger );
+		}
 
-			// getPropertyType method
+		return qualifiedBindingClassName;
+	}
 
-			sourceWriter.println();
-			sourceWriter.println( "public Class<?> getPropertyType( " + classType.getQualifiedSourceName() + " " + variableName + ", String... names ) {" );
+	//
+	// Package private methods
+	//
+
+	/**
+	 * Writes the body of the BindingAdapter for the given type.
+	 * <p>
+	 * Refactored to support unit tests, which cannot easily create a <code>GeneratorContext</code>.
+	 */
+
+	/* package private */void writeAdapter( SourceWriter sourceWriter, JClassType classType ) {
+
+		String variableName = VARIABLE_NAME_PREFIX + classType.getSimpleSourceName();
+
+		// Index every property path
+
+		Map<String, IndexedProperty> indexedProperties = CollectionUtils.newLinkedHashMap();
+		collectSubtypes( classType, null, indexedProperties, 0 );
+
+		writeIndexTables( sourceWriter, indexedProperties );
+
+		sourceWriter.println();
+		sourceWriter.println( "// Public methods" );
+
+		writeIndexedMethods( sourceWriter, classType, variableName, indexedProperties );
+
+		// Name-based methods use the index
+
+		sourceWriter.println();
+		sourceWriter.println( "public Object getProperty( " + classType.getQualifiedSourceName() + " " + variableName + ", String... names ) {" );
+		sourceWriter.indent();
+		sourceWriter.println( "return getProperty( " + variableName + ", getKnownPropertyIndex( names ) );" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+
+		writeGetPropertyType( sourceWriter, classType, variableName, indexedProperties );
+
+		sourceWriter.println();
+		sourceWriter.println( "public void setProperty( " + classType.getQualifiedSourceName() + " " + variableName + ", Object value, String... names ) {" );
+		sourceWriter.indent();
+		sourceWriter.println( "setProperty( " + variableName + ", value, getKnownPropertyIndex( names ) );" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+
+		// invokeAction method
+
+		sourceWriter.println();
+		sourceWriter.println( "public void invokeAction( " + classType.getQualifiedSourceName() + " " + variableName + ", String... names ) {" );
+		sourceWriter.indent();
+		writeActionMethod( sourceWriter, classType, variableName );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+
+		// Private methods
+
+		writeIndexedGetters( sourceWriter, classType, variableName, indexedProperties );
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Collects an IndexedProperty for every property path reachable from the given type, following
+	 * the same rules (subtypes, superclasses, packages, depth) as <code>writeSubtypes</code>.
+	 */
+
+	private void collectSubtypes( JClassType classType, IndexedProperty parent, Map<String, IndexedProperty> indexedProperties, int depth ) {
+
+		// Avoid going too deep
+
+		if ( depth > MAXIMUM_DEPTH ) {
+			return;
+		}
+
+		// For each subclass...
+
+		for ( JClassType subtype : classType.getSubtypes() ) {
+			// ...collect its subclass-level properties...
+
+			collectProperties( subtype, true, classType, parent, indexedProperties, depth );
+		}
+
+		// ...and for the base class collect every superclass
+
+		JClassType typeTraversal = classType;
+
+		while ( typeTraversal != null ) {
+			collectProperties( typeTraversal, false, classType, parent, indexedProperties, depth );
+
+			typeTraversal = typeTraversal.getSuperclass();
+		}
+	}
+
+	/**
+	 * @param instanceOf
+	 *            whether <code>classType</code> is a subtype of <code>parentType</code>, so its
+	 *            properties can only be accessed after an <code>instanceof</code> check
+	 */
+
+	private void collectProperties( JClassType classType, boolean instanceOf, JClassType parentType, IndexedProperty parent, Map<String, IndexedProperty> indexedProperties, int depth ) {
+
+		for ( JMethod method : classType.getMethods() ) {
+
+			if ( !method.isPublic() ) {
+				continue;
+			}
+
+			String propertyName = getPropertyName( method );
+
+			if ( propertyName == null ) {
+				continue;
+			}
+
+			String decapitalizedPropertyName = StringUtils.decapitalize( propertyName );
+			String path = decapitalizedPropertyName;
+
+			if ( parent != null ) {
+				path = parent.getPath() + StringUtils.SEPARATOR_FORWARD_SLASH_CHAR + decapitalizedPropertyName;
+			}
+
+			// Already collected (eg. through a different subtype)?
+
+			JType returnType = method.getReturnType();
+			IndexedProperty indexedProperty = indexedProperties.get( path );
+
+			if ( indexedProperty == null ) {
+				indexedProperty = new IndexedProperty( indexedProperties.size(), path, parent );
+				indexedProperties.put( path, indexedProperty );
+			}
+
+			indexedProperty.getAccessors().add( new Accessor( instanceOf ? classType : parentType, instanceOf, classType, returnType, propertyName, method.getName() ) );
+
+			// Recurse if the return type is within our own package (and, for a path that is
+			// differently typed in different subtypes, not already recursed into)
+
+			JClassType nestedClassType = returnType.isClass();
+
+			if ( nestedClassType != null && nestedClassType.getPackage().getName().startsWith( parentType.getPackage().getName() ) ) {
+				if ( indexedProperty.getTraversedTypes().add( nestedClassType.getQualifiedSourceName() ) ) {
+					collectSubtypes( nestedClassType, indexedProperty, indexedProperties, depth + 1 );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the static tables of property paths and their types.
+	 */
+
+	private void writeIndexTables( SourceWriter sourceWriter, Map<String, IndexedProperty> indexedProperties ) {
+
+		sourceWriter.println();
+		sourceWriter.println( "// Private statics" );
+		sourceWriter.println();
+		sourceWriter.println( "private static final String[] PROPERTY_PATHS = {" );
+		sourceWriter.indent();
+
+		for ( IndexedProperty indexedProperty : indexedProperties.values() ) {
+			sourceWriter.println( "\"" + indexedProperty.getPath() + "\"," );
+		}
+
+		sourceWriter.outdent();
+		sourceWriter.println( "};" );
+
+		// (the type of a differently typed path depends on the subtype)
+
+		sourceWriter.println();
+		sourceWriter.println( "private static final Class<?>[] PROPERTY_TYPES = {" );
+		sourceWriter.indent();
+
+		for ( IndexedProperty indexedProperty : indexedProperties.values() ) {
+			if ( indexedProperty.isConflicting() ) {
+				sourceWriter.println( "null," );
+			} else {
+				sourceWriter.println( getWrapperSourceName( indexedProperty.getType(), false ) + ".class," );
+			}
+		}
+
+		sourceWriter.outdent();
+		sourceWriter.println( "};" );
+
+		sourceWriter.println();
+		sourceWriter.println( "// Private members" );
+		sourceWriter.println();
+		sourceWriter.println( "private " + Map.class.getName() + "<String, Integer> mPropertyIndexes;" );
+	}
+
+	/**
+	 * Writes <code>getPropertyIndex</code>, and index-based <code>getProperty</code> and
+	 * <code>setProperty</code>.
+	 */
+
+	private void writeIndexedMethods( SourceWriter sourceWriter, JClassType classType, String variableName, Map<String, IndexedProperty> indexedProperties ) {
+
+		// getPropertyIndex method (built lazily, on first use)
+
+		sourceWriter.println();
+		sourceWriter.println( "public int getPropertyIndex( String... names ) {" );
+		sourceWriter.indent();
+		sourceWriter.println( "if ( names == null || names.length == 0 ) return -1;" );
+		sourceWriter.println( "if ( mPropertyIndexes == null ) {" );
+		sourceWriter.indent();
+		sourceWriter.println( Map.class.getName() + "<String, Integer> propertyIndexes = new " + HashMap.class.getName() + "<String, Integer>();" );
+		sourceWriter.println( "for ( int loop = 0; loop < PROPERTY_PATHS.length; loop++ ) { propertyIndexes.put( PROPERTY_PATHS[loop], loop ); }" );
+		sourceWriter.println( "mPropertyIndexes = propertyIndexes;" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+		sourceWriter.println( "StringBuilder path = new StringBuilder( names[0] );" );
+		sourceWriter.println( "for ( int loop = 1; loop < names.length; loop++ ) { path.append( '" + StringUtils.SEPARATOR_FORWARD_SLASH_CHAR + "' ).append( names[loop] ); }" );
+		sourceWriter.println( "Integer index = mPropertyIndexes.get( path.toString() );" );
+		sourceWriter.println( "return ( index == null ? -1 : index );" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+
+		// getProperty (by index) method
+
+		sourceWriter.println();
+		sourceWriter.println( "public Object getProperty( " + classType.getQualifiedSourceName() + " " + variableName + ", int propertyIndex ) {" );
+		sourceWriter.indent();
+		sourceWriter.println( "switch ( propertyIndex ) {" );
+		sourceWriter.indent();
+
+		for ( IndexedProperty indexedProperty : indexedProperties.values() ) {
+			sourceWriter.println( "case " + indexedProperty.getIndex() + ": return getProperty" + indexedProperty.getIndex() + "( " + variableName + " );" );
+		}
+
+		sourceWriter.println( "default: throw new RuntimeException( \"Unknown property index \" + propertyIndex );" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+
+		// setProperty (by index) method
+
+		sourceWriter.println();
+		sourceWriter.println( "public void setProperty( " + classType.getQualifiedSourceName() + " " + variableName + ", Object value, int propertyIndex ) {" );
+		sourceWriter.indent();
+		sourceWriter.println( "switch ( propertyIndex ) {" );
+		sourceWriter.indent();
+
+		for ( IndexedProperty indexedProperty : indexedProperties.values() ) {
+			sourceWriter.println( "case " + indexedProperty.getIndex() + ": {" );
 			sourceWriter.indent();
-			writeMethod( sourceWriter, classType, variableName, WRITE_TYPE_GETTER );
+			String parentVariableName = writeIndexedParent( sourceWriter, variableName, indexedProperty );
+
+			for ( Accessor accessor : indexedProperty.getAccessors() ) {
+				String target = writeAccessorTarget( sourceWriter, parentVariableName, indexedProperty, accessor );
+
+				try {
+					String setterMethodName = "set" + accessor.getPropertyName();
+					accessor.getDeclaringType().getMethod( setterMethodName, new JType[] { accessor.getType() } );
+					sourceWriter.println( target + StringUtils.SEPARATOR_DOT_CHAR + setterMethodName + "( (" + getWrapperSourceName( accessor.getType(), true ) + ") value );" );
+					sourceWriter.println( "return;" );
+				} catch ( NotFoundException e ) {
+					sourceWriter.println( "throw new RuntimeException( \"No setter for property '" + StringUtils.decapitalize( accessor.getPropertyName() ) + "'\" );" );
+				}
+
+				if ( indexedProperty.isConditional( accessor ) ) {
+					sourceWriter.outdent();
+					sourceWriter.println( "}" );
+				} else {
+					break;
+				}
+			}
+
+			if ( !indexedProperty.hasUnconditionalAccessor() ) {
+				sourceWriter.println( "throw new RuntimeException( \"Unknown property '" + indexedProperty.getPath() + "' of \" + " + parentVariableName + ".getClass() );" );
+			}
+
 			sourceWriter.outdent();
 			sourceWriter.println( "}" );
+		}
 
-			// setProperty method
+		sourceWriter.println( "default: throw new RuntimeException( \"Unknown property index \" + propertyIndex );" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+	}
 
-			sourceWriter.println();
-			sourceWriter.println( "public void setProperty( " + classType.getQualifiedSourceName() + " " + variableName + ", Object value, String... names ) {" );
+	/**
+	 * Writes the name-based <code>getPropertyType</code>. Uses <code>PROPERTY_TYPES</code>, except
+	 * for paths that are differently typed in different subtypes.
+	 */
+
+	private void writeGetPropertyType( SourceWriter sourceWriter, JClassType classType, String variableName, Map<String, IndexedProperty> indexedProperties ) {
+
+		sourceWriter.println();
+		sourceWriter.println( "public Class<?> getPropertyType( " + classType.getQualifiedSourceName() + " " + variableName + ", String... names ) {" );
+		sourceWriter.indent();
+		sourceWriter.println( "int propertyIndex = getKnownPropertyIndex( names );" );
+		sourceWriter.println( "if ( PROPERTY_TYPES[propertyIndex] != null ) return PROPERTY_TYPES[propertyIndex];" );
+		sourceWriter.println( "switch ( propertyIndex ) {" );
+		sourceWriter.indent();
+
+		for ( IndexedProperty indexedProperty : indexedProperties.values() ) {
+			if ( !indexedProperty.isConflicting() ) {
+				continue;
+			}
+
+			sourceWriter.println( "case " + indexedProperty.getIndex() + ": {" );
 			sourceWriter.indent();
-			writeMethod( sourceWriter, classType, variableName, WRITE_SETTER );
+			String parentVariableName = writeIndexedParent( sourceWriter, variableName, indexedProperty );
+
+			for ( Accessor accessor : indexedProperty.getAccessors() ) {
+				String returnType = "return " + getWrapperSourceName( accessor.getType(), false ) + ".class;";
+
+				if ( indexedProperty.isConditional( accessor ) ) {
+					sourceWriter.println( "if ( " + parentVariableName + " instanceof " + accessor.getOwnerType().getQualifiedSourceName() + " ) " + returnType );
+					continue;
+				}
+
+				sourceWriter.println( returnType );
+				break;
+			}
+
+			if ( !indexedProperty.hasUnconditionalAccessor() ) {
+				sourceWriter.println( "throw new RuntimeException( \"Unknown property '" + indexedProperty.getPath() + "' of \" + " + parentVariableName + ".getClass() );" );
+			}
+
 			sourceWriter.outdent();
 			sourceWriter.println( "}" );
+		}
+
+		sourceWriter.println( "default: throw new RuntimeException( \"Unknown property index \" + propertyIndex );" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+	}
+
+	/**
+	 * Writes a private getter for each property path, plus <code>getKnownPropertyIndex</code>.
+	 */
 
-			// invokeAction method
+	private void writeIndexedGetters( SourceWriter sourceWriter, JClassType classType, String variableName, Map<String, IndexedProperty> indexedProperties ) {
 
+		sourceWriter.println();
+		sourceWriter.println( "private int getKnownPropertyIndex( String... names ) {" );
+		sourceWriter.indent();
+		sourceWriter.println( "if ( names == null || names.length == 0 ) throw new RuntimeException( \"No names specified\" );" );
+		sourceWriter.println( "int propertyIndex = getPropertyIndex( names );" );
+		sourceWriter.println( "if ( propertyIndex == -1 ) throw new RuntimeException( \"Unknown property '\" + java.util.Arrays.asList( names ) + \"' of " + classType.getParameterizedQualifiedSourceName() + "\" );" );
+		sourceWriter.println( "return propertyIndex;" );
+		sourceWriter.outdent();
+		sourceWriter.println( "}" );
+
+		for ( IndexedProperty indexedProperty : indexedProperties.values() ) {
+			sourceWriter.println();
+			sourceWriter.println( "// " + indexedProperty.getPath() );
 			sourceWriter.println();
-			sourceWriter.println( "public void invokeAction( " + classType.getQualifiedSourceName() + " " + variableName + ", String... names ) {" );
+			sourceWriter.println( "private " + getSourceName( indexedProperty ) + " getProperty" + indexedProperty.getIndex() + "( " + classType.getQualifiedSourceName() + " " + variableName + " ) {" );
 			sourceWriter.indent();
-			writeMethod( sourceWriter, classType, variableName, WRITE_ACTION );
+			String parentVariableName = writeIndexedParent( sourceWriter, variableName, indexedProperty );
+
+			for ( Accessor accessor : indexedProperty.getAccessors() ) {
+				if ( indexedProperty.isConditional( accessor ) ) {
+					sourceWriter.println( "if ( " + parentVariableName + " instanceof " + accessor.getOwnerType().getQualifiedSourceName() + " ) return ( (" + accessor.getOwnerType().getParameterizedQualifiedSourceName() + ") " + parentVariableName + " )." + accessor.getMethodName() + "();" );
+					continue;
+				}
+
+				sourceWriter.println( "return " + parentVariableName + StringUtils.SEPARATOR_DOT_CHAR + accessor.getMethodName() + "();" );
+				break;
+			}
+
+			if ( !indexedProperty.hasUnconditionalAccessor() ) {
+				sourceWriter.println( "throw new RuntimeException( \"Unknown property '" + indexedProperty.getPath() + "' of \" + " + parentVariableName + ".getClass() );" );
+			}
+
 			sourceWriter.outdent();
 			sourceWriter.println( "}" );
+		}
+	}
 
-			// End the BindingAdapter subclass
+	/**
+	 * Writes a local variable holding the parent of the given property (using the getter of the
+	 * parent path), unless the parent is the adaptee itself.
+	 *
+	 * @return the name of the variable holding the parent
+	 */
 
-			sourceWriter.commit( logger );
+	private String writeIndexedParent( SourceWriter sourceWriter, String variableName, IndexedProperty indexedProperty ) {
+
+		IndexedProperty parent = indexedProperty.getParent();
+
+		if ( parent == null ) {
+			return variableName;
 		}
 
-		return qualifiedBindingClassName;
+		// (variableName is always prefixed, so cannot clash)
+
+		String parentVariableName = "parent";
+		sourceWriter.println( getSourceName( parent ) + " " + parentVariableName + " = getProperty" + parent.getIndex() + "( " + variableName + " );" );
+
+		return parentVariableName;
 	}
 
-	//
-	// Private methods
-	//
+	/**
+	 * Writes the <code>instanceof</code> check (if any) needed to use the given accessor.
+	 *
+	 * @return the expression to call the accessor's methods on
+	 */
+
+	private String writeAccessorTarget( SourceWriter sourceWriter, String parentVariableName, IndexedProperty indexedProperty, Accessor accessor ) {
+
+		if ( !indexedProperty.isConditional( accessor ) ) {
+			return parentVariableName;
+		}
+
+		sourceWriter.println( "if ( " + parentVariableName + " instanceof " + accessor.getOwnerType().getQualifiedSourceName() + " ) {" );
+		sourceWriter.indent();
+
+		return "( (" + accessor.getOwnerType().getParameterizedQualifiedSourceName() + ") " + parentVariableName + " )";
+	}
+
+	/**
+	 * @return the source name of the type of the given property, or <code>Object</code> if it is
+	 *         differently typed in different subtypes
+	 */
+
+	private String getSourceName( IndexedProperty indexedProperty ) {
+
+		if ( indexedProperty.isConflicting() ) {
+			return Object.class.getName();
+		}
+
+		return indexedProperty.getType().getParameterizedQualifiedSourceName();
+	}
+
+	/**
+	 * @return the capitalized name of the JavaBean property the given method is a getter for, or
+	 *         null if it is not a getter
+	 */
+
+	private String getPropertyName( JMethod method ) {
+
+		String methodName = method.getName();
+		JType returnType = method.getReturnType();
+
+		if ( JPrimitiveType.VOID.equals( returnType ) ) {
+			return null;
+		}
+
+		if ( methodName.startsWith( ClassUtils.JAVABEAN_GET_PREFIX ) ) {
+			return methodName.substring( ClassUtils.JAVABEAN_GET_PREFIX.length() );
+		}
+
+		// As per section 8.3.2 (Boolean properties) of The JavaBeans API specification, 'is'
+		// only applies to boolean (little 'b')
 
-	private void writeMethod( SourceWriter sourceWriter, JClassType classType, String variableName, int writeType ) {
+		if ( methodName.startsWith( ClassUtils.JAVABEAN_IS_PREFIX ) && "boolean".equals( returnType.getQualifiedSourceName() ) ) {
+			return methodName.substring( ClassUtils.JAVABEAN_IS_PREFIX.length() );
+		}
+
+		return null;
+	}
+
+	private void writeActionMethod( SourceWriter sourceWriter, JClassType classType, String variableName ) {
 
 		// Sanity check
 
@@ -211,10 +622,10 @@ public class SimpleBindingProcessorAdapterGenerator
 		sourceWriter.println();
 		sourceWriter.println( "if ( names == null || names.length == 0 ) throw new RuntimeException( \"No names specified\" );" );
 
-		writeSubtypes( sourceWriter, classType, variableName, 0, writeType, 0 );
+		writeSubtypes( sourceWriter, classType, variableName, 0, 0 );
 	}
 
-	private void writeSubtypes( SourceWriter sourceWriter, JClassType classType, String variableName, int nameIndex, int writeType, int depth ) {
+	private void writeSubtypes( SourceWriter sourceWriter, JClassType classType, String variableName, int nameIndex, int depth ) {
 
 		// Avoid going too deep
 
@@ -225,9 +636,9 @@ public class SimpleBindingProcessorAdapterGenerator
 		// For each subclass...
 
 		for ( JClassType subtype : classType.getSubtypes() ) {
-			// ...write its subclass-level properties...
+			// ...write its subclass-level actions...
 
-			writeProperties( sourceWriter, subtype, variableName, nameIndex, true, classType, writeType, depth );
+			writeActions( sourceWriter, subtype, variableName, nameIndex, true, classType, depth );
 		}
 
 		// ...and for the base class write every superclass
@@ -235,7 +646,7 @@ public class SimpleBindingProcessorAdapterGenerator
 		JClassType typeTraversal = classType;
 
 		while ( typeTraversal != null ) {
-			writeProperties( sourceWriter, typeTraversal, variableName, nameIndex, false, classType, writeType, depth );
+			writeActions( sourceWriter, typeTraversal, variableName, nameIndex, false, classType, depth );
 
 			typeTraversal = typeTraversal.getSuperclass();
 		}
@@ -248,7 +659,7 @@ public class SimpleBindingProcessorAdapterGenerator
 		sourceWriter.println( "throw new RuntimeException( \"Unknown property '\" + names[" + nameIndex + "] + \"' of " + classType.getParameterizedQualifiedSourceName() + "\" );" );
 	}
 
-	private void writeProperties( SourceWriter sourceWriter, JClassType classType, String variableName, int nameIndex, boolean writeInstanceOf, JClassType parentType, int writeType, int depth ) {
+	private void writeActions( SourceWriter sourceWriter, JClassType classType, String variableName, int nameIndex, boolean writeInstanceOf, JClassType parentType, int depth ) {
 
 		String currentVariableName = variableName;
 		boolean writtenAProperty = false;
@@ -266,28 +677,18 @@ public class SimpleBindingProcessorAdapterGenerator
 			// ...and follows the action convention...
 
 			if ( JPrimitiveType.VOID.equals( returnType ) ) {
-				if ( writeType == WRITE_ACTION ) {
-					if ( method.getParameters().length == 0 ) {
-						sourceWriter.println( "if ( \"" + methodName + "\".equals( names[" + nameIndex + "] )) { " + currentVariableName + StringUtils.SEPARATOR_DOT_CHAR + methodName + "(); return; }" );
-					}
+				if ( method.getParameters().length == 0 ) {
+					sourceWriter.println( "if ( \"" + methodName + "\".equals( names[" + nameIndex + "] )) { " + currentVariableName + StringUtils.SEPARATOR_DOT_CHAR + methodName + "(); return; }" );
 				}
 
 				continue;
 			}
 
-			// ...or follows the JavaBean convention...
-
-			String propertyName;
-
-			if ( methodName.startsWith( ClassUtils.JAVABEAN_GET_PREFIX ) ) {
-				propertyName = methodName.substring( ClassUtils.JAVABEAN_GET_PREFIX.length() );
-			} else if ( methodName.startsWith( ClassUtils.JAVABEAN_IS_PREFIX ) && "boolean".equals( method.getReturnType().getQualifiedSourceName() )) {
+			// ...or follows the JavaBean convention (so may lead to nested actions)...
 
-				// As per section 8.3.2 (Boolean properties) of The JavaBeans API specification, 'is'
-				// only applies to boolean (little 'b')
+			String propertyName = getPropertyName( method );
 
-				propertyName = methodName.substring( ClassUtils.JAVABEAN_IS_PREFIX.length() );
-			} else {
+			if ( propertyName == null ) {
 				continue;
 			}
 
@@ -330,28 +731,7 @@ public class SimpleBindingProcessorAdapterGenerator
 				}
 
 				sourceWriter.println( nestedClassType.getParameterizedQualifiedSourceName() + " " + nestedVariableName + " = " + currentVariableName + StringUtils.SEPARATOR_DOT_CHAR + methodName + "();" );
-
-				switch ( writeType ) {
-					case WRITE_GETTER:
-						sourceWriter.println( "if ( names.length == " + nextNameIndex + " ) return " + nestedVariableName + ";" );
-						break;
-
-					case WRITE_TYPE_GETTER:
-						sourceWriter.println( "if ( names.length == " + nextNameIndex + " ) return " + getWrapperType( returnType ).getQualifiedSourceName() + ".class;" );
-						break;
-
-					case WRITE_SETTER:
-						try {
-							String setterMethodName = "set" + propertyName;
-							classType.getMethod( setterMethodName, new JType[] { returnType } );
-							sourceWriter.println( "if ( names.length == " + nextNameIndex + " ) { " + currentVariableName + StringUtils.SEPARATOR_DOT_CHAR + setterMethodName + "( (" + getWrapperType( returnType ).getParameterizedQualifiedSourceName() + ") value ); return; }" );
-						} catch ( NotFoundException e ) {
-							sourceWriter.println( "if ( names.length == " + nextNameIndex + " ) throw new RuntimeException( \"No setter for name '" + decapitalizedPropertyName + "'\" );" );
-						}
-						break;
-				}
-
-				writeSubtypes( sourceWriter, nestedClassType, nestedVariableName, nextNameIndex, writeType, depth + 1 );
+				writeSubtypes( sourceWriter, nestedClassType, nestedVariableName, nextNameIndex, depth + 1 );
 				sourceWriter.outdent();
 				sourceWriter.println( "}" );
 				continue;
@@ -360,32 +740,7 @@ public class SimpleBindingProcessorAdapterGenerator
 			// ...or non-recursively for other types (eg. boolean, Date, Class)
 
 			sourceWriter.println( "if ( names.length > " + nextNameIndex + " ) throw new RuntimeException( \"Cannot traverse into property '" + decapitalizedPropertyName + ".\" + names[" + nextNameIndex + "] + \"'\" );" );
-
-			switch ( writeType ) {
-				case WRITE_GETTER:
-					sourceWriter.println( "return " + currentVariableName + StringUtils.SEPARATOR_DOT_CHAR + methodName + "();" );
-					break;
-
-				case WRITE_TYPE_GETTER:
-					sourceWriter.println( "return " + getWrapperType( returnType ).getQualifiedSourceName() + ".class;" );
-					break;
-
-				case WRITE_SETTER:
-					try {
-						String setterMethodName = "set" + propertyName;
-						classType.getMethod( setterMethodName, new JType[] { returnType } );
-						sourceWriter.println( currentVariableName + StringUtils.SEPARATOR_DOT_CHAR + setterMethodName + "( (" + getWrapperType( returnType ).getParameterizedQualifiedSourceName() + ") value );" );
-						sourceWriter.println( "return;" );
-					} catch ( NotFoundException e ) {
-						sourceWriter.println( "throw new RuntimeException( \"No setter for property '" + decapitalizedPropertyName + "'\" );" );
-					}
-					break;
-
-				case WRITE_ACTION:
-					sourceWriter.println( "if ( names.length == " + nextNameIndex + " ) throw new RuntimeException( \"Cannot execute '" + decapitalizedPropertyName + "' - is a property, not an action\" );" );
-					break;
-			}
-
+			sourceWriter.println( "if ( names.length == " + nextNameIndex + " ) throw new RuntimeException( \"Cannot execute '" + decapitalizedPropertyName + "' - is a property, not an action\" );" );
 			sourceWriter.outdent();
 			sourceWriter.println( "}" );
 		}
@@ -398,46 +753,262 @@ public class SimpleBindingProcessorAdapterGenerator
 		}
 	}
 
-	private JType getWrapperType( JType classType ) {
+	/**
+	 * @param parameterized
+	 *            whether to return the parameterized name (for casts) or the raw name (for class
+	 *            literals)
+	 * @return the source name of the given type, or of its wrapper type if it is a primitive
+	 */
+
+	private String getWrapperSourceName( JType type, boolean parameterized ) {
 
-		JPrimitiveType primitiveType = classType.isPrimitive();
+		JPrimitiveType primitiveType = type.isPrimitive();
 
 		if ( primitiveType == null ) {
-			return classType;
+			if ( parameterized ) {
+				return type.getParameterizedQualifiedSourceName();
+			}
+
+			return type.getQualifiedSourceName();
 		}
 
 		if ( primitiveType.equals( JPrimitiveType.BOOLEAN ) ) {
-			return mTypeOracle.findType( Boolean.class.getName() );
+			return Boolean.class.getName();
 		}
 
 		if ( primitiveType.equals( JPrimitiveType.BYTE ) ) {
-			return mTypeOracle.findType( Byte.class.getName() );
+			return Byte.class.getName();
 		}
 
 		if ( primitiveType.equals( JPrimitiveType.CHAR ) ) {
-			return mTypeOracle.findType( Character.class.getName() );
+			return Character.class.getName();
 		}
 
 		if ( primitiveType.equals( JPrimitiveType.DOUBLE ) ) {
-			return mTypeOracle.findType( Double.class.getName() );
+			return Double.class.getName();
 		}
 
 		if ( primitiveType.equals( JPrimitiveType.FLOAT ) ) {
-			return mTypeOracle.findType( Float.class.getName() );
+			return Float.class.getName();
 		}
 
 		if ( primitiveType.equals( JPrimitiveType.INT ) ) {
-			return mTypeOracle.findType( Integer.class.getName() );
+			return Integer.class.getName();
 		}
 
 		if ( primitiveType.equals( JPrimitiveType.LONG ) ) {
-			return mTypeOracle.findType( Long.class.getName() );
+			return Long.class.getName();
 		}
 
 		if ( primitiveType.equals( JPrimitiveType.SHORT ) ) {
-			return mTypeOracle.findType( Short.class.getName() );
+			return Short.class.getName();
 		}
 
 		throw new RuntimeException( "No wrapper for " + primitiveType );
 	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * A property path, and the (possibly subtype-specific) getters that access it.
+	 */
+
+	private static class IndexedProperty {
+
+		//
+		// Private members
+		//
+
+		private int				mIndex;
+
+		private String			mPath;
+
+		private IndexedProperty	mParent;
+
+		private List<Accessor>	mAccessors		= CollectionUtils.newArrayList();
+
+		/**
+		 * Types already recursed into, to collect the paths beneath this one.
+		 */
+
+		private Set<String>		mTraversedTypes	= CollectionUtils.newHashSet();
+
+		//
+		// Constructor
+		//
+
+		public IndexedProperty( int index, String path, IndexedProperty parent ) {
+
+			mIndex = index;
+			mPath = path;
+			mParent = parent;
+		}
+
+		//
+		// Public methods
+		//
+
+		public int getIndex() {
+
+			return mIndex;
+		}
+
+		public String getPath() {
+
+			return mPath;
+		}
+
+		public IndexedProperty getParent() {
+
+			return mParent;
+		}
+
+		/**
+		 * @return the type of the first accessor (which, unless <code>isConflicting</code>, is the
+		 *         type of them all)
+		 */
+
+		public JType getType() {
+
+			return mAccessors.get( 0 ).getType();
+		}
+
+		public List<Accessor> getAccessors() {
+
+			return mAccessors;
+		}
+
+		public Set<String> getTraversedTypes() {
+
+			return mTraversedTypes;
+		}
+
+		/**
+		 * @return true if the given accessor needs an <code>instanceof</code> check, either because
+		 *         it belongs to a subtype or because the parent path is differently typed in
+		 *         different subtypes (so is held as an <code>Object</code>)
+		 */
+
+		public boolean isConditional( Accessor accessor ) {
+
+			if ( accessor.isInstanceOf() ) {
+				return true;
+			}
+
+			return ( mParent != null && mParent.isConflicting() );
+		}
+
+		/**
+		 * @return true if at least one accessor does not need an <code>instanceof</code> check
+		 */
+
+		public boolean hasUnconditionalAccessor() {
+
+			for ( Accessor accessor : mAccessors ) {
+				if ( !isConditional( accessor ) ) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * @return true if subtypes declare this path with different types
+		 */
+
+		public boolean isConflicting() {
+
+			String typeName = getType().getParameterizedQualifiedSourceName();
+
+			for ( Accessor accessor : mAccessors ) {
+				if ( !typeName.equals( accessor.getType().getParameterizedQualifiedSourceName() ) ) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+
+	private static class Accessor {
+
+		//
+		// Private members
+		//
+
+		private JClassType	mOwnerType;
+
+		private boolean		mInstanceOf;
+
+		private JClassType	mDeclaringType;
+
+		private JType		mType;
+
+		private String		mPropertyName;
+
+		private String		mMethodName;
+
+		//
+		// Constructor
+		//
+
+		public Accessor( JClassType ownerType, boolean instanceOf, JClassType declaringType, JType type, String propertyName, String methodName ) {
+
+			mOwnerType = ownerType;
+			mInstanceOf = instanceOf;
+			mDeclaringType = declaringType;
+			mType = type;
+			mPropertyName = propertyName;
+			mMethodName = methodName;
+		}
+
+		//
+		// Public methods
+		//
+
+		/**
+		 * @return the type the parent must be cast to in order to use this accessor
+		 */
+
+		public JClassType getOwnerType() {
+
+			return mOwnerType;
+		}
+
+		/**
+		 * @return whether the owner type is a subtype of the parent's type
+		 */
+
+		public boolean isInstanceOf() {
+
+			return mInstanceOf;
+		}
+
+		public JClassType getDeclaringType() {
+
+			return mDeclaringType;
+		}
+
+		public JType getType() {
+
+			return mType;
+		}
+
+		/**
+		 * @return the capitalized property name
+		 */
+
+		public String getPropertyName() {
+
+			return mPropertyName;
+		}
+
+		public String getMethodName() {
+
+			return mMethodName;
+		}
+	}
 }
@@ -17,12 +17,23 @@
 package org.metawidget.inspector.gwt.remote.client;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResult;
 import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspector;
 import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectorAsync;
-import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.inspector.iface.AsyncInspector;
+import org.metawidget.inspector.iface.AsyncInspectorCallback;
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.util.simple.ObjectUtils;
+import org.metawidget.util.simple.StringUtils;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.rpc.ServiceDefTarget;
 
@@ -36,19 +47,51 @@ import com.google.gwt.user.client.rpc.ServiceDefTarget;
  * Note it is not possible to generically optimize this call to, say, only pass the class name
  * rather than the entire object. This is because some <code>Inspectors</code> inspect the
  * <em>value</em> of the properties (eg. <code>PropertyTypeInspector</code>). On a case-by-case
- * basis, however, such optimization is possible - see <code>GwtMetawidget.rebind</code>.
+ * basis, however, such optimization is possible - see <code>GwtMetawidget.rebind</code> and
+ * <code>GwtRemoteInspectorProxyConfig.setCacheInspectionResults</code>.
+ * <p>
+ * Inspections requested before the browser next regains control (such as by a Metawidget and all
+ * its nested Metawidgets) are coalesced into a single AJAX call. Identical inspections (same object,
+ * type and names) within the same call are only sent once. Each inspection in the call succeeds or
+ * fails independently.
  *
  * @author Richard Kennard
  */
 
 public class GwtRemoteInspectorProxy
-	implements Inspector {
+	implements AsyncInspector {
+
+	//
+	// Private statics
+	//
+
+	private static final String						LOCAL_STORAGE_PREFIX	= "org.metawidget.inspector.gwt.remote:";
 
 	//
 	// Private members
 	//
 
-	private GwtRemoteInspectorAsync	mInspector;
+	private GwtRemoteInspectorAsync					mInspector;
+
+	/**
+	 * Cached inspection results, or null if not caching.
+	 * <p>
+	 * HashMap is safe here, as client-side JavaScript is single-threaded.
+	 */
+
+	private Map<String, String>						mInspectionResults;
+
+	/**
+	 * Prefix for inspection results persisted to local storage, or null if not persisting.
+	 */
+
+	private String									mLocalStoragePrefix;
+
+	/**
+	 * Inspections waiting to be sent to the server, or null if none.
+	 */
+
+	/* package private */List<PendingInspection>	mPendingInspections;
 
 	//
 	// Constructor
@@ -60,7 +103,7 @@ public class GwtRemoteInspectorProxy
 
 	public GwtRemoteInspectorProxy() {
 
-		mInspector = (GwtRemoteInspectorAsync) GWT.create( GwtRemoteInspector.class );
+		this( new GwtRemoteInspectorProxyConfig() );
 	}
 
 	/**
@@ -76,9 +119,41 @@ public class GwtRemoteInspectorProxy
 
 	public GwtRemoteInspectorProxy( String serviceEntryPoint ) {
 
-		this();
+		this( new GwtRemoteInspectorProxyConfig().setServiceEntryPoint( serviceEntryPoint ) );
+	}
+
+	public GwtRemoteInspectorProxy( GwtRemoteInspectorProxyConfig config ) {
 
-		( (ServiceDefTarget) mInspector ).setServiceEntryPoint( GWT.getModuleBaseURL() + serviceEntryPoint );
+		this( (GwtRemoteInspectorAsync) GWT.create( GwtRemoteInspector.class ), config );
+	}
+
+	/**
+	 * Refactored to support unit tests, which cannot use <code>GWT.create</code>.
+	 */
+
+	/* package private */GwtRemoteInspectorProxy( GwtRemoteInspectorAsync inspector, GwtRemoteInspectorProxyConfig config ) {
+
+		mInspector = inspector;
+
+		if ( config.getServiceEntryPoint() != null ) {
+			( (ServiceDefTarget) mInspector ).setServiceEntryPoint( GWT.getModuleBaseURL() + config.getServiceEntryPoint() );
+		}
+
+		if ( config.isCacheInspectionResults() ) {
+			mInspectionResults = new HashMap<String, String>();
+
+			String localStorageVersion = config.getLocalStorageVersion();
+
+			if ( localStorageVersion != null ) {
+
+				// Key by service entry point, so different servlets (with different
+				// configurations) do not share inspection results
+
+				String servicePrefix = LOCAL_STORAGE_PREFIX + ( (ServiceDefTarget) mInspector ).getServiceEntryPoint() + StringUtils.SEPARATOR_COLON;
+				mLocalStoragePrefix = servicePrefix + localStorageVersion + StringUtils.SEPARATOR_COLON;
+				removeLocalStorageItems( servicePrefix, mLocalStoragePrefix );
+			}
+		}
 	}
 
 	//
@@ -90,24 +165,384 @@ public class GwtRemoteInspectorProxy
 		throw new UnsupportedOperationException( "Use async inspection instead" );
 	}
 
-	public void inspect( Object toInspect, String type, String[] names, final AsyncCallback<String> callback ) {
+	public void inspect( Object toInspect, String type, String[] names, final AsyncInspectorCallback<String> callback ) {
+
+		inspect( toInspect, type, names, new AsyncCallback<String>() {
+
+			public void onFailure( Throwable caught ) {
+
+				callback.onFailure( caught );
+			}
+
+			public void onSuccess( String inspectionResult ) {
+
+				callback.onSuccess( inspectionResult );
+			}
+		} );
+	}
+
+	public boolean isAsync() {
+
+		return true;
+	}
+
+	public void inspect( Object toInspect, String type, String[] names, AsyncCallback<String> callback ) {
 
 		if ( !( toInspect instanceof Serializable ) ) {
 			throw new RuntimeException( "Objects passed to GwtRemoteInspector must be Serializable" );
 		}
 
-		mInspector.inspect( (Serializable) toInspect, type, names, new AsyncCallback<String>() {
+		// Cached?
+
+		String cacheKey = null;
+
+		if ( mInspectionResults != null ) {
+			StringBuilder builder = new StringBuilder( toInspect.getClass().getName() );
+			builder.append( StringUtils.SEPARATOR_COLON_CHAR );
+			builder.append( type );
+
+			if ( names != null ) {
+				for ( String name : names ) {
+					builder.append( StringUtils.SEPARATOR_FORWARD_SLASH_CHAR );
+					builder.append( name );
+				}
+			}
+
+			cacheKey = builder.toString();
+
+			String inspectionResult = mInspectionResults.get( cacheKey );
+
+			if ( inspectionResult == null && mLocalStoragePrefix != null ) {
+				inspectionResult = getLocalStorageItem( mLocalStoragePrefix + cacheKey );
+
+				if ( inspectionResult != null ) {
+					mInspectionResults.put( cacheKey, inspectionResult );
+				}
+			}
+
+			if ( inspectionResult != null ) {
+				callback.onSuccess( inspectionResult );
+				return;
+			}
+		}
+
+		// Already pending?
+
+		if ( mPendingInspections == null ) {
+			mPendingInspections = new ArrayList<PendingInspection>();
+			scheduleSendPendingInspections();
+		} else {
+			for ( PendingInspection pendingInspection : mPendingInspections ) {
+				if ( pendingInspection.isSameInspection( toInspect, type, names ) ) {
+					pendingInspection.mCallbacks.add( callback );
+					return;
+				}
+			}
+		}
+
+		mPendingInspections.add( new PendingInspection( (Serializable) toInspect, type, names, cacheKey, callback ) );
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Schedules <code>sendPendingInspections</code> for when the browser next regains control.
+	 * <p>
+	 * Nested Metawidgets are built using Timers that all fall due together (see
+	 * <code>GwtMetawidget.invalidateWidgets</code>), so their inspections are requested before the
+	 * browser regains control. A deferred command, rather than a Timer with a delay, means a lone
+	 * inspection is sent without waiting.
+	 */
+
+	/* package private */void scheduleSendPendingInspections() {
+
+		Scheduler.get().scheduleDeferred( new ScheduledCommand() {
+
+			public void execute() {
+
+				sendPendingInspections();
+			}
+		} );
+	}
+
+	/* package private */void sendPendingInspections() {
+
+		final List<PendingInspection> pendingInspections = mPendingInspections;
+		mPendingInspections = null;
+
+		// Single inspection
+
+		if ( pendingInspections.size() == 1 ) {
+			final PendingInspection pendingInspection = pendingInspections.get( 0 );
+
+			mInspector.inspect( pendingInspection.mToInspect, pendingInspection.mType, pendingInspection.mNames, new AsyncCallback<String>() {
+
+				public void onFailure( Throwable caught ) {
+
+					rethrow( pendingInspection.onFailure( caught ) );
+				}
+
+				public void onSuccess( String inspectionResult ) {
+
+					rethrow( onInspectionResult( pendingInspection, inspectionResult ) );
+				}
+			} );
+
+			return;
+		}
+
+		// Multiple inspections (GWT serialization will only send each toInspect once, even if it
+		// is shared by several inspections)
+
+		int size = pendingInspections.size();
+		Serializable[] toInspect = new Serializable[size];
+		String[] types = new String[size];
+		String[][] names = new String[size][];
+
+		for ( int loop = 0; loop < size; loop++ ) {
+			PendingInspection pendingInspection = pendingInspections.get( loop );
+			toInspect[loop] = pendingInspection.mToInspect;
+			types[loop] = pendingInspection.mType;
+			names[loop] = pendingInspection.mNames;
+		}
+
+		mInspector.inspectAll( toInspect, types, names, new AsyncCallback<GwtRemoteInspectionResult[]>() {
 
 			public void onFailure( Throwable caught ) {
 
-				callback.onFailure( caught );
+				RuntimeException firstException = null;
+
+				for ( PendingInspection pendingInspection : pendingInspections ) {
+					RuntimeException exception = pendingInspection.onFailure( caught );
+
+					if ( firstException == null ) {
+						firstException = exception;
+					}
+				}
+
+				rethrow( firstException );
 			}
 
-			public void onSuccess( String xml ) {
+			public void onSuccess( GwtRemoteInspectionResult[] inspectionResults ) {
+
+				RuntimeException firstException = null;
+
+				for ( int loop = 0, length = inspectionResults.length; loop < length; loop++ ) {
+					PendingInspection pendingInspection = pendingInspections.get( loop );
+					GwtRemoteInspectionResult inspectionResult = inspectionResults[loop];
+					RuntimeException exception;
+
+					if ( inspectionResult.getFailure() != null ) {
+						exception = pendingInspection.onFailure( InspectorException.newException( inspectionResult.getFailure() ) );
+					} else {
+						exception = onInspectionResult( pendingInspection, inspectionResult.getInspectionResult() );
+					}
 
-				callback.onSuccess( xml );
+					if ( firstException == null ) {
+						firstException = exception;
+					}
+				}
+
+				rethrow( firstException );
 			}
 		} );
+	}
+
+	/**
+	 * Caches the given inspection result (if caching) and delivers it to everyone waiting for it.
+	 *
+	 * @return the first exception thrown by a callback, or null
+	 */
+
+	/* package private */RuntimeException onInspectionResult( PendingInspection pendingInspection, String inspectionResult ) {
+
+		String cacheKey = pendingInspection.mCacheKey;
+
+		if ( cacheKey != null && inspectionResult != null ) {
+			mInspectionResults.put( cacheKey, inspectionResult );
+
+			if ( mLocalStoragePrefix != null ) {
+				setLocalStorageItem( mLocalStoragePrefix + cacheKey, inspectionResult );
+			}
+		}
+
+		return pendingInspection.onSuccess( inspectionResult );
+	}
+
+	/**
+	 * Rethrows an exception thrown by a callback, once all callbacks have been called, so that it
+	 * still reaches GWT's <code>UncaughtExceptionHandler</code>.
+	 */
+
+	/* package private */static void rethrow( RuntimeException exception ) {
+
+		if ( exception != null ) {
+			throw exception;
+		}
+	}
+
+	//
+	// Private native methods
+	//
+	// (GWT 2.2 has no Storage API. Local storage may be missing, disabled or full, in which case
+	// we just go without)
+	//
+
+	private static native String getLocalStorageItem( String key ) /*-{
+		try {
+			return ( $wnd.localStorage ? $wnd.localStorage.getItem( key ) : null );
+		} catch( e ) {
+			return null;
+		}
+	}-*/;
+
+	private static native void setLocalStorageItem( String key, String value ) /*-{
+		try {
+			if ( $wnd.localStorage ) {
+				$wnd.localStorage.setItem( key, value );
+			}
+		} catch( e ) {
+			// Do nothing
+		}
+	}-*/;
+
+	/**
+	 * Removes all local storage items that start with <code>prefix</code>, except those that start
+	 * with <code>exceptPrefix</code>.
+	 */
+
+	private static native void removeLocalStorageItems( String prefix, String exceptPrefix ) /*-{
+		try {
+			var storage = $wnd.localStorage;
+
+			if ( storage ) {
+				for ( var loop = storage.length - 1; loop >= 0; loop-- ) {
+					var key = storage.key( loop );
 
+					if ( key.indexOf( prefix ) == 0 && key.indexOf( exceptPrefix ) != 0 ) {
+						storage.removeItem( key );
+					}
+				}
+			}
+		} catch( e ) {
+			// Do nothing
+		}
+	}-*/;
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Inspection waiting to be sent to the server, together with everyone waiting for its result.
+	 */
+
+	/* package private */static class PendingInspection {
+
+		//
+		// Private members
+		//
+
+		/* package private */Serializable					mToInspect;
+
+		/* package private */String							mType;
+
+		/* package private */String[]						mNames;
+
+		/**
+		 * Key to cache the result under, or null if not caching.
+		 */
+
+		/* package private */String							mCacheKey;
+
+		/* package private */List<AsyncCallback<String>>	mCallbacks	= new ArrayList<AsyncCallback<String>>();
+
+		//
+		// Constructor
+		//
+
+		public PendingInspection( Serializable toInspect, String type, String[] names, String cacheKey, AsyncCallback<String> callback ) {
+
+			mToInspect = toInspect;
+			mType = type;
+			mNames = names;
+			mCacheKey = cacheKey;
+			mCallbacks.add( callback );
+		}
+
+		//
+		// Public methods
+		//
+
+		public boolean isSameInspection( Object toInspect, String type, String[] names ) {
+
+			if ( mToInspect != toInspect || !ObjectUtils.nullSafeEquals( mType, type ) ) {
+				return false;
+			}
+
+			if ( mNames == null || names == null ) {
+				return ( mNames == names );
+			}
+
+			if ( mNames.length != names.length ) {
+				return false;
+			}
+
+			for ( int loop = 0, length = names.length; loop < length; loop++ ) {
+				if ( !mNames[loop].equals( names[loop] ) ) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Delivers the result to every callback, even if an earlier one throws.
+		 *
+		 * @return the first exception thrown by a callback, or null
+		 */
+
+		public RuntimeException onSuccess( String inspectionResult ) {
+
+			RuntimeException firstException = null;
+
+			for ( AsyncCallback<String> callback : mCallbacks ) {
+				try {
+					callback.onSuccess( inspectionResult );
+				} catch ( RuntimeException e ) {
+					if ( firstException == null ) {
+						firstException = e;
+					}
+				}
+			}
+
+			return firstException;
+		}
+
+		/**
+		 * Delivers the failure to every callback, even if an earlier one throws.
+		 *
+		 * @return the first exception thrown by a callback, or null
+		 */
+
+		public RuntimeException onFailure( Throwable caught ) {
+
+			RuntimeException firstException = null;
+
+			for ( AsyncCallback<String> callback : mCallbacks ) {
+				try {
+					callback.onFailure( caught );
+				} catch ( RuntimeException e ) {
+					if ( firstException == null ) {
+						firstException = e;
+					}
+				}
+			}
+
+			return firstException;
+		}
 	}
 }
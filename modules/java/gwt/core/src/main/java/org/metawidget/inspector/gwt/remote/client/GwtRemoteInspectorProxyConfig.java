@@ -0,0 +1,151 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.client;
+
+import org.metawidget.util.simple.ObjectUtils;
+
+/**
+ * Configures a GwtRemoteInspectorProxy prior to use. Once instantiated, Inspectors are immutable.
+ *
+ * @author Richard Kennard
+ */
+
+public class GwtRemoteInspectorProxyConfig {
+
+	//
+	// Private members
+	//
+
+	private String	mServiceEntryPoint;
+
+	private boolean	mCacheInspectionResults;
+
+	private String	mLocalStorageVersion;
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Overrides the 'service entry point' of the <code>GwtRemoteInspectorImpl</code> servlet,
+	 * relative to <code>GWT.getModuleBaseURL</code>. This can be useful for setting up multiple
+	 * servlets, each with their own <code>metawidget.xml</code> configuration.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public GwtRemoteInspectorProxyConfig setServiceEntryPoint( String serviceEntryPoint ) {
+
+		mServiceEntryPoint = serviceEntryPoint;
+
+		return this;
+	}
+
+	/**
+	 * Sets whether to cache inspection results on the client, keyed by the class of the inspected
+	 * object plus the type and path being inspected.
+	 * <p>
+	 * Caching is off by default, because some <code>Inspectors</code> inspect the <em>value</em>
+	 * of the properties (eg. <code>PropertyTypeInspector</code> returning the subtype of a
+	 * property's current value). Only enable caching if the server-side inspection result does not
+	 * depend on those values.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public GwtRemoteInspectorProxyConfig setCacheInspectionResults( boolean cacheInspectionResults ) {
+
+		mCacheInspectionResults = cacheInspectionResults;
+
+		return this;
+	}
+
+	/**
+	 * Sets a version string under which to persist cached inspection results to HTML 5 local
+	 * storage (where supported by the browser), so that they survive page reloads.
+	 * <p>
+	 * The version would typically be supplied by the server (such as written into the host page
+	 * by the application's build). Whenever the version changes, inspection results persisted
+	 * under previous versions are discarded. Only applies if <code>setCacheInspectionResults</code>
+	 * is true.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public GwtRemoteInspectorProxyConfig setLocalStorageVersion( String localStorageVersion ) {
+
+		mLocalStorageVersion = localStorageVersion;
+
+		return this;
+	}
+
+	@Override
+	public boolean equals( Object that ) {
+
+		if ( this == that ) {
+			return true;
+		}
+
+		if ( !ObjectUtils.nullSafeClassEquals( this, that ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mServiceEntryPoint, ( (GwtRemoteInspectorProxyConfig) that ).mServiceEntryPoint ) ) {
+			return false;
+		}
+
+		if ( mCacheInspectionResults != ( (GwtRemoteInspectorProxyConfig) that ).mCacheInspectionResults ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mLocalStorageVersion, ( (GwtRemoteInspectorProxyConfig) that ).mLocalStorageVersion ) ) {
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+
+		int hashCode = 1;
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mServiceEntryPoint );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mCacheInspectionResults );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mLocalStorageVersion );
+
+		return hashCode;
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected String getServiceEntryPoint() {
+
+		return mServiceEntryPoint;
+	}
+
+	protected boolean isCacheInspectionResults() {
+
+		return mCacheInspectionResults;
+	}
+
+	protected String getLocalStorageVersion() {
+
+		return mLocalStorageVersion;
+	}
+}
@@ -0,0 +1,78 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.iface;
+
+import java.io.Serializable;
+
+/**
+ * Result of one of the inspections requested by <code>GwtRemoteInspector.inspectAll</code>.
+ * <p>
+ * Holds either the inspection result or, if that inspection failed, a description of the failure.
+ * The failure is sent as a String rather than a Throwable, because server-side exceptions are not
+ * generally serializable to the client.
+ *
+ * @author Richard Kennard
+ */
+
+public class GwtRemoteInspectionResult
+	implements Serializable {
+
+	//
+	// Private members
+	//
+
+	private String	mInspectionResult;
+
+	private String	mFailure;
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * Required for GWT serialization.
+	 */
+
+	public GwtRemoteInspectionResult() {
+
+		// Default constructor
+	}
+
+	public GwtRemoteInspectionResult( String inspectionResult, String failure ) {
+
+		mInspectionResult = inspectionResult;
+		mFailure = failure;
+	}
+
+	//
+	// Public methods
+	//
+
+	public String getInspectionResult() {
+
+		return mInspectionResult;
+	}
+
+	/**
+	 * @return description of why this inspection failed, or null if it succeeded
+	 */
+
+	public String getFailure() {
+
+		return mFailure;
+	}
+}
@@ -52,4 +52,14 @@ public interface GwtRemoteInspector
 	//
 
 	String inspect( Serializable toInspect, String type, String[] names );
+
+	/**
+	 * Inspects several Serializable/types in a single round trip.
+	 * <p>
+	 * The three arrays must be of the same length. Element <code>n</code> of the returned array is
+	 * the result of inspecting element <code>n</code> of each array. Each inspection succeeds or
+	 * fails independently of the others.
+	 */
+
+	GwtRemoteInspectionResult[] inspectAll( Serializable[] toInspect, String[] types, String[][] names );
 }
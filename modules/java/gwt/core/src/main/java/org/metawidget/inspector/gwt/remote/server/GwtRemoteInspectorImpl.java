@@ -17,7 +17,10 @@
 package org.metawidget.inspector.gwt.remote.server;
 
 import java.io.Serializable;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -25,10 +28,14 @@ import javax.servlet.ServletException;
 import org.metawidget.config.impl.BaseConfigReader;
 import org.metawidget.config.impl.ServletResourceResolver;
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessor;
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResult;
 import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspector;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.pipeline.w3c.W3CPipeline;
 import org.metawidget.util.ClassUtils;
+import org.metawidget.util.LogUtils;
+import org.metawidget.util.LogUtils.Log;
+import org.metawidget.util.simple.StringUtils;
 
 import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 
@@ -39,8 +46,16 @@ import com.google.gwt.user.server.rpc.RemoteServiceServlet;
  * <ul>
  * <li><code>config</code> - fully qualified path to (optional) <code>metawidget.xml</code>, for
  * example <code>com/foo/metawidget.xml</code>.
+ * <li><code>cacheInspectionResults</code> - (optional) <code>true</code> to cache inspection
+ * results (see <code>setCacheInspectionResults</code>).
+ * <li><code>cacheSize</code> - (optional) maximum number of inspection results to cache (see
+ * <code>setCacheSize</code>).
  * </ul>
  * <p>
+ * The servlet keeps running totals of requests, inspections and time taken (see
+ * <code>getRequestCount</code> etc.) and logs each request at debug level, to help size it for the
+ * number of concurrent GWT clients.
+ * <p>
  * <strong>This Inspector is designed to work 'out of the box' for most cases. However, use of
  * Serializable as a parameter type is not optimal for GWT. We recommend deriving your own interface
  * with your own business-model-specific base class instead.</strong>
@@ -52,12 +67,34 @@ public class GwtRemoteInspectorImpl
 	extends RemoteServiceServlet
 	implements GwtRemoteInspector {
 
+	//
+	// Private statics
+	//
+
+	private static final Log							LOG						= LogUtils.getLog( GwtRemoteInspectorImpl.class );
+
 	//
 	// Private members
 	//
 
 	private transient GwtRemoteInspectorImplPipeline	mPipeline;
 
+	/**
+	 * Cached inspection results, or null if not caching.
+	 */
+
+	private transient volatile Map<String, String>		mInspectionResults;
+
+	private volatile int								mCacheSize				= 1000;
+
+	private final AtomicLong							mRequestCount			= new AtomicLong();
+
+	private final AtomicLong							mInspectionCount		= new AtomicLong();
+
+	private final AtomicLong							mCachedInspectionCount	= new AtomicLong();
+
+	private final AtomicLong							mRequestTime			= new AtomicLong();
+
 	//
 	// Constructor
 	//
@@ -86,6 +123,16 @@ public class GwtRemoteInspectorImpl
 		if ( config != null ) {
 			mPipeline.setConfig( config );
 		}
+
+		if ( Boolean.parseBoolean( getCacheInspectionResultsInitParameter() ) ) {
+			setCacheInspectionResults( true );
+		}
+
+		String cacheSize = getCacheSizeInitParameter();
+
+		if ( cacheSize != null ) {
+			setCacheSize( Integer.parseInt( cacheSize ) );
+		}
 	}
 
 	/**
@@ -99,17 +146,125 @@ public class GwtRemoteInspectorImpl
 
 	public String inspect( Serializable toInspect, String type, String[] names ) {
 
-		return mPipeline.inspect( toInspect, type, names );
+		long start = System.nanoTime();
+
+		try {
+			return inspectUsingCache( toInspect, type, names );
+		} finally {
+			recordRequest( 1, start );
+		}
+	}
+
+	/**
+	 * Inspect several Serializable/types in a single round trip.
+	 * <p>
+	 * Used by <code>GwtRemoteInspectorProxy</code> to coalesce the inspections of Metawidgets (and
+	 * nested Metawidgets) that are built at the same time. A failed inspection is returned as a
+	 * failed <code>GwtRemoteInspectionResult</code>, so does not fail the others.
+	 */
+
+	public GwtRemoteInspectionResult[] inspectAll( Serializable[] toInspect, String[] types, String[][] names ) {
+
+		long start = System.nanoTime();
+		int length = types.length;
+
+		try {
+			GwtRemoteInspectionResult[] inspectionResults = new GwtRemoteInspectionResult[length];
+
+			for ( int loop = 0; loop < length; loop++ ) {
+				try {
+					inspectionResults[loop] = new GwtRemoteInspectionResult( inspectUsingCache( toInspect[loop], types[loop], names[loop] ), null );
+				} catch ( Exception e ) {
+					LOG.error( "Unable to inspect {0}", types[loop], e );
+					inspectionResults[loop] = new GwtRemoteInspectionResult( null, e.toString() );
+				}
+			}
+
+			return inspectionResults;
+		} finally {
+			recordRequest( length, start );
+		}
 	}
 
 	public void setInspector( Inspector inspector ) {
 
 		mPipeline.setInspector( inspector );
+		clearCache();
 	}
 
 	public void setInspectionResultProcessors( InspectionResultProcessor<GwtRemoteInspectorImpl>... inspectionResultProcessors ) {
 
 		mPipeline.setInspectionResultProcessors( inspectionResultProcessors );
+		clearCache();
+	}
+
+	/**
+	 * Sets whether to cache inspection results, keyed by the class of the inspected object plus the
+	 * type and path being inspected.
+	 * <p>
+	 * Caching is off by default, because some <code>Inspectors</code> inspect the <em>value</em>
+	 * of the properties (eg. <code>PropertyTypeInspector</code> returning the subtype of a
+	 * property's current value). Only enable caching if the inspection result does not depend on
+	 * those values.
+	 * <p>
+	 * Cache keys come from clients, so only inspections of types that resolve to a class (and that
+	 * return a result) are cached, and the cache is bounded (see <code>setCacheSize</code>).
+	 */
+
+	public void setCacheInspectionResults( boolean cacheInspectionResults ) {
+
+		if ( cacheInspectionResults ) {
+			mInspectionResults = new ConcurrentHashMap<String, String>();
+		} else {
+			mInspectionResults = null;
+		}
+	}
+
+	/**
+	 * Sets the maximum number of inspection results to cache, if caching. Defaults to 1000. Once
+	 * reached, other inspection results are evicted (in no particular order) to make room.
+	 */
+
+	public void setCacheSize( int cacheSize ) {
+
+		mCacheSize = cacheSize;
+	}
+
+	/**
+	 * @return the number of requests served (a request to <code>inspectAll</code> counts as one
+	 *         request, but several inspections)
+	 */
+
+	public long getRequestCount() {
+
+		return mRequestCount.get();
+	}
+
+	/**
+	 * @return the number of inspections served, including those served from the cache
+	 */
+
+	public long getInspectionCount() {
+
+		return mInspectionCount.get();
+	}
+
+	/**
+	 * @return the number of inspections served from the cache
+	 */
+
+	public long getCachedInspectionCount() {
+
+		return mCachedInspectionCount.get();
+	}
+
+	/**
+	 * @return the total time, in milliseconds, spent serving requests
+	 */
+
+	public long getRequestTime() {
+
+		return mRequestTime.get() / 1000000;
 	}
 
 	//
@@ -137,6 +292,98 @@ public class GwtRemoteInspectorImpl
 		return getServletConfig().getInitParameter( "config" );
 	}
 
+	protected String getCacheInspectionResultsInitParameter() {
+
+		return getServletConfig().getInitParameter( "cacheInspectionResults" );
+	}
+
+	protected String getCacheSizeInitParameter() {
+
+		return getServletConfig().getInitParameter( "cacheSize" );
+	}
+
+	//
+	// Private methods
+	//
+
+	private String inspectUsingCache( Serializable toInspect, String type, String[] names ) {
+
+		Map<String, String> inspectionResults = mInspectionResults;
+
+		if ( inspectionResults == null ) {
+			return mPipeline.inspect( toInspect, type, names );
+		}
+
+		StringBuilder builder = new StringBuilder();
+
+		if ( toInspect != null ) {
+			builder.append( toInspect.getClass().getName() );
+		}
+
+		builder.append( StringUtils.SEPARATOR_COLON_CHAR );
+		builder.append( type );
+
+		if ( names != null ) {
+			for ( String name : names ) {
+				builder.append( StringUtils.SEPARATOR_FORWARD_SLASH_CHAR );
+				builder.append( name );
+			}
+		}
+
+		String cacheKey = builder.toString();
+		String inspectionResult = inspectionResults.get( cacheKey );
+
+		if ( inspectionResult != null ) {
+			mCachedInspectionCount.incrementAndGet();
+			return inspectionResult;
+		}
+
+		// (concurrent misses may inspect the same thing twice, but that is harmless)
+
+		inspectionResult = mPipeline.inspect( toInspect, type, names );
+
+		// Only cache types that resolved successfully, so that clients cannot fill the cache with
+		// arbitrary type names
+
+		int cacheSize = mCacheSize;
+
+		if ( inspectionResult == null || cacheSize < 1 || ClassUtils.niceForName( type ) == null ) {
+			return inspectionResult;
+		}
+
+		inspectionResults.put( cacheKey, inspectionResult );
+
+		// Evict other inspection results (in no particular order) if over size
+
+		for ( Iterator<String> i = inspectionResults.keySet().iterator(); i.hasNext() && inspectionResults.size() > cacheSize; ) {
+			if ( !cacheKey.equals( i.next() ) ) {
+				i.remove();
+			}
+		}
+
+		return inspectionResult;
+	}
+
+	private void clearCache() {
+
+		if ( mInspectionResults != null ) {
+			mInspectionResults.clear();
+		}
+	}
+
+	private void recordRequest( int inspections, long start ) {
+
+		long elapsed = System.nanoTime() - start;
+
+		mRequestCount.incrementAndGet();
+		mInspectionCount.addAndGet( inspections );
+		mRequestTime.addAndGet( elapsed );
+
+		if ( LOG.isDebugEnabled() ) {
+			LOG.debug( "Served {0} inspection(s) in {1}ms (totals: {2} requests, {3} inspections, {4} cached)", inspections, elapsed / 1000000, mRequestCount.get(), mInspectionCount.get(), mCachedInspectionCount.get() );
+		}
+	}
+
 	//
 	// Inner class
 	//
@@ -0,0 +1,373 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.gwt.generator.widgetprocessor.binding.simple;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.metawidget.util.CollectionUtils;
+
+import com.google.gwt.core.ext.typeinfo.JClassType;
+import com.google.gwt.core.ext.typeinfo.JMethod;
+import com.google.gwt.core.ext.typeinfo.JPackage;
+import com.google.gwt.core.ext.typeinfo.JParameter;
+import com.google.gwt.core.ext.typeinfo.JPrimitiveType;
+import com.google.gwt.core.ext.typeinfo.JType;
+import com.google.gwt.core.ext.typeinfo.NotFoundException;
+import com.google.gwt.user.rebind.SourceWriter;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class SimpleBindingProcessorAdapterGeneratorTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testIndexedProperties() {
+
+		MockClassType string = new MockClassType( "java.lang", "String" );
+		MockClassType address = new MockClassType( "com.foo", "Address" );
+		address.addGetter( "getStreet", string );
+		address.addSetter( "setStreet", string );
+
+		MockClassType contact = new MockClassType( "com.foo", "Contact" );
+		contact.addGetter( "getName", string );
+		contact.addGetter( "getAge", JPrimitiveType.INT );
+		contact.addSetter( "setAge", JPrimitiveType.INT );
+		contact.addGetter( "getAddress", address );
+		contact.addAction( "save" );
+
+		String source = generate( contact.getProxy() );
+
+		// Every path is indexed
+
+		assertTrue( source.contains( "\"name\",\n\"age\",\n\"address\",\n\"address/street\",\n};" ) );
+		assertTrue( source.contains( "java.lang.String.class,\njava.lang.Integer.class,\ncom.foo.Address.class,\njava.lang.String.class,\n};" ) );
+		assertTrue( source.contains( "case 0: return getProperty0( theContact );" ) );
+		assertTrue( source.contains( "case 3: return getProperty3( theContact );" ) );
+
+		// Nested paths reuse the getter of their parent path
+
+		assertTrue( source.contains( "private java.lang.String getProperty3( com.foo.Contact theContact ) {\ncom.foo.Address parent = getProperty2( theContact );\nreturn parent.getStreet();\n}" ) );
+
+		// Setters box primitives
+
+		assertTrue( source.contains( "case 1: {\ntheContact.setAge( (java.lang.Integer) value );\nreturn;\n}" ) );
+		assertTrue( source.contains( "case 0: {\nthrow new RuntimeException( \"No setter for property 'name'\" );\n}" ) );
+
+		// Name-based methods use the index
+
+		assertNameBasedMethodsIndexed( source );
+
+		// Actions still compare names
+
+		assertTrue( source.contains( "if ( \"save\".equals( names[0] )) { theContact.save(); return; }" ) );
+	}
+
+	public void testConflictingProperties() {
+
+		MockClassType string = new MockClassType( "java.lang", "String" );
+		MockClassType address = new MockClassType( "com.foo", "Address" );
+		address.addGetter( "getStreet", string );
+		address.addSetter( "setStreet", string );
+
+		MockClassType contact = new MockClassType( "com.foo", "Contact" );
+		contact.addGetter( "getName", string );
+
+		MockClassType personalContact = new MockClassType( "com.foo", "PersonalContact" );
+		personalContact.addGetter( "getTitle", string );
+		personalContact.addSetter( "setTitle", string );
+
+		MockClassType businessContact = new MockClassType( "com.foo", "BusinessContact" );
+		businessContact.addGetter( "getTitle", address );
+		businessContact.addSetter( "setTitle", address );
+
+		contact.addSubtype( personalContact );
+		contact.addSubtype( businessContact );
+
+		String source = generate( contact.getProxy() );
+
+		// Conflicting path (and the paths beneath it) are still indexed...
+
+		assertTrue( source.contains( "\"title\",\n\"title/street\",\n\"name\",\n};" ) );
+		assertTrue( source.contains( "null,\njava.lang.String.class,\njava.lang.String.class,\n};" ) );
+		assertTrue( source.contains( "case 0: return getProperty0( theContact );" ) );
+		assertTrue( source.contains( "case 1: return getProperty1( theContact );" ) );
+
+		// ...with a getter that returns Object and chooses using instanceof...
+
+		assertTrue( source.contains( "private java.lang.Object getProperty0( com.foo.Contact theContact ) {\n"
+				+ "if ( theContact instanceof com.foo.PersonalContact ) return ( (com.foo.PersonalContact) theContact ).getTitle();\n"
+				+ "if ( theContact instanceof com.foo.BusinessContact ) return ( (com.foo.BusinessContact) theContact ).getTitle();\n"
+				+ "throw new RuntimeException( \"Unknown property 'title' of \" + theContact.getClass() );\n}" ) );
+
+		assertTrue( source.contains( "private java.lang.String getProperty1( com.foo.Contact theContact ) {\n"
+				+ "java.lang.Object parent = getProperty0( theContact );\n"
+				+ "if ( parent instanceof com.foo.Address ) return ( (com.foo.Address) parent ).getStreet();\n"
+				+ "throw new RuntimeException( \"Unknown property 'title/street' of \" + parent.getClass() );\n}" ) );
+
+		// ...setters that cast to the type of each subtype...
+
+		assertTrue( source.contains( "case 0: {\n"
+				+ "if ( theContact instanceof com.foo.PersonalContact ) {\n( (com.foo.PersonalContact) theContact ).setTitle( (java.lang.String) value );\nreturn;\n}\n"
+				+ "if ( theContact instanceof com.foo.BusinessContact ) {\n( (com.foo.BusinessContact) theContact ).setTitle( (com.foo.Address) value );\nreturn;\n}\n"
+				+ "throw new RuntimeException( \"Unknown property 'title' of \" + theContact.getClass() );\n}" ) );
+
+		// ...and types that depend on the subtype
+
+		assertTrue( source.contains( "if ( PROPERTY_TYPES[propertyIndex] != null ) return PROPERTY_TYPES[propertyIndex];\n"
+				+ "switch ( propertyIndex ) {\n"
+				+ "case 0: {\n"
+				+ "if ( theContact instanceof com.foo.PersonalContact ) return java.lang.String.class;\n"
+				+ "if ( theContact instanceof com.foo.BusinessContact ) return com.foo.Address.class;\n" ) );
+
+		// No name-based fallback
+
+		assertNameBasedMethodsIndexed( source );
+	}
+
+	//
+	// Private methods
+	//
+
+	private String generate( JClassType classType ) {
+
+		final StringBuilder builder = new StringBuilder();
+
+		SourceWriter sourceWriter = (SourceWriter) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { SourceWriter.class }, new InvocationHandler() {
+
+			public Object invoke( Object proxy, Method method, Object[] args ) {
+
+				// (ignore indentation, to keep the assertions readable)
+
+				if ( "println".equals( method.getName() ) ) {
+					if ( args != null ) {
+						builder.append( args[0] );
+					}
+
+					builder.append( '\n' );
+				}
+
+				return null;
+			}
+		} );
+
+		new SimpleBindingProcessorAdapterGenerator().writeAdapter( sourceWriter, classType );
+		return builder.toString();
+	}
+
+	private void assertNameBasedMethodsIndexed( String source ) {
+
+		assertTrue( source.contains( "String... names ) {\nreturn getProperty( theContact, getKnownPropertyIndex( names ) );\n}" ) );
+		assertTrue( source.contains( "String... names ) {\nsetProperty( theContact, value, getKnownPropertyIndex( names ) );\n}" ) );
+		assertTrue( source.contains( "String... names ) {\nint propertyIndex = getKnownPropertyIndex( names );\n" ) );
+
+		// Only invokeAction compares names
+
+		String beforeInvokeAction = source.substring( 0, source.indexOf( "public void invokeAction(" ) );
+		assertFalse( beforeInvokeAction.contains( "equals( names[" ) );
+		assertEquals( source.indexOf( "// Sanity check" ), source.lastIndexOf( "// Sanity check" ) );
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Mock <code>JClassType</code>, whose <code>getProxy</code> implements the GWT interfaces.
+	 */
+
+	private static class MockClassType
+		implements InvocationHandler {
+
+		//
+		// Private members
+		//
+
+		private String				mPackageName;
+
+		private String				mName;
+
+		private JClassType			mProxy;
+
+		private List<JClassType>	mSubtypes	= CollectionUtils.newArrayList();
+
+		private List<JMethod>		mMethods	= CollectionUtils.newArrayList();
+
+		private Map<String, JType>	mSetters	= CollectionUtils.newHashMap();
+
+		//
+		// Constructor
+		//
+
+		public MockClassType( String packageName, String name ) {
+
+			mPackageName = packageName;
+			mName = name;
+			mProxy = (JClassType) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { JClassType.class }, this );
+		}
+
+		//
+		// Public methods
+		//
+
+		public JClassType getProxy() {
+
+			return mProxy;
+		}
+
+		public void addGetter( String methodName, Object returnType ) {
+
+			mMethods.add( newMethod( methodName, toType( returnType ), 0 ) );
+		}
+
+		public void addSetter( String methodName, Object parameterType ) {
+
+			mMethods.add( newMethod( methodName, JPrimitiveType.VOID, 1 ) );
+			mSetters.put( methodName, toType( parameterType ) );
+		}
+
+		public void addAction( String methodName ) {
+
+			mMethods.add( newMethod( methodName, JPrimitiveType.VOID, 0 ) );
+		}
+
+		public void addSubtype( MockClassType subtype ) {
+
+			mSubtypes.add( subtype.mProxy );
+		}
+
+		public Object invoke( Object proxy, Method method, Object[] args )
+			throws Exception {
+
+			String methodName = method.getName();
+			String qualifiedName = mPackageName + '.' + mName;
+
+			if ( "getQualifiedSourceName".equals( methodName ) || "getParameterizedQualifiedSourceName".equals( methodName ) || "getName".equals( methodName ) || "toString".equals( methodName ) ) {
+				return qualifiedName;
+			}
+
+			if ( "getSimpleSourceName".equals( methodName ) ) {
+				return mName;
+			}
+
+			if ( "isClass".equals( methodName ) ) {
+				return mProxy;
+			}
+
+			if ( "getPackage".equals( methodName ) ) {
+				return newProxy( JPackage.class, "getName", mPackageName );
+			}
+
+			if ( "getSubtypes".equals( methodName ) ) {
+				return mSubtypes.toArray( new JClassType[mSubtypes.size()] );
+			}
+
+			if ( "getMethods".equals( methodName ) ) {
+				return mMethods.toArray( new JMethod[mMethods.size()] );
+			}
+
+			if ( "getMethod".equals( methodName ) ) {
+				JType parameterType = mSetters.get( args[0] );
+
+				if ( parameterType == null || !parameterType.equals( ( (JType[]) args[1] )[0] ) ) {
+					throw new NotFoundException();
+				}
+
+				return null;
+			}
+
+			if ( "equals".equals( methodName ) ) {
+				return ( proxy == args[0] );
+			}
+
+			if ( "hashCode".equals( methodName ) ) {
+				return System.identityHashCode( proxy );
+			}
+
+			// (eg. getSuperclass, isPrimitive)
+
+			return null;
+		}
+
+		//
+		// Private methods
+		//
+
+		private JType toType( Object type ) {
+
+			if ( type instanceof MockClassType ) {
+				return ( (MockClassType) type ).mProxy;
+			}
+
+			return (JType) type;
+		}
+
+		private JMethod newMethod( final String name, final JType returnType, final int parameters ) {
+
+			return (JMethod) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { JMethod.class }, new InvocationHandler() {
+
+				public Object invoke( Object proxy, Method method, Object[] args ) {
+
+					String methodName = method.getName();
+
+					if ( "isPublic".equals( methodName ) ) {
+						return true;
+					}
+
+					if ( "getName".equals( methodName ) ) {
+						return name;
+					}
+
+					if ( "getReturnType".equals( methodName ) ) {
+						return returnType;
+					}
+
+					if ( "getParameters".equals( methodName ) ) {
+						return new JParameter[parameters];
+					}
+
+					return null;
+				}
+			} );
+		}
+
+		private Object newProxy( Class<?> iface, final String getter, final Object value ) {
+
+			return Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { iface }, new InvocationHandler() {
+
+				public Object invoke( Object proxy, Method method, Object[] args ) {
+
+					if ( getter.equals( method.getName() ) ) {
+						return value;
+					}
+
+					return null;
+				}
+			} );
+		}
+	}
+}
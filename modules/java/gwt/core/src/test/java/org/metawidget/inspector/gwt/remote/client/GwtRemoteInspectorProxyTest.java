@@ -0,0 +1,275 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.client;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResult;
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectorAsync;
+import org.metawidget.inspector.iface.InspectorException;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class GwtRemoteInspectorProxyTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testSingleInspection() {
+
+		MockInspectorAsync inspector = new MockInspectorAsync();
+		MockGwtRemoteInspectorProxy proxy = new MockGwtRemoteInspectorProxy( inspector, new GwtRemoteInspectorProxyConfig() );
+		RecordingCallback callback = new RecordingCallback();
+
+		proxy.inspect( new Foo(), "Foo", null, callback );
+		assertEquals( 1, proxy.mScheduled );
+		assertEquals( 0, inspector.mInspectCallbacks.size() );
+
+		// A lone inspection does not use inspectAll
+
+		proxy.sendPendingInspections();
+		assertEquals( 1, inspector.mInspectCallbacks.size() );
+		assertEquals( 0, inspector.mInspectAllCallbacks.size() );
+
+		inspector.mInspectCallbacks.get( 0 ).onSuccess( "<inspection-result/>" );
+		assertEquals( "<inspection-result/>", callback.mInspectionResult );
+
+		// Next inspection is scheduled again
+
+		proxy.inspect( new Foo(), "Foo", null, new RecordingCallback() );
+		assertEquals( 2, proxy.mScheduled );
+	}
+
+	public void testBatchAndDedupe() {
+
+		MockInspectorAsync inspector = new MockInspectorAsync();
+		MockGwtRemoteInspectorProxy proxy = new MockGwtRemoteInspectorProxy( inspector, new GwtRemoteInspectorProxyConfig() );
+		Foo foo = new Foo();
+		RecordingCallback callback1 = new RecordingCallback();
+		RecordingCallback callback2 = new RecordingCallback();
+		RecordingCallback callback3 = new RecordingCallback();
+		RecordingCallback callback4 = new RecordingCallback();
+
+		proxy.inspect( foo, "Foo", new String[] { "abc" }, callback1 );
+		proxy.inspect( foo, "Foo", new String[] { "abc" }, callback2 );
+		proxy.inspect( foo, "Foo", new String[] { "def" }, callback3 );
+		proxy.inspect( new Foo(), "Foo", new String[] { "abc" }, callback4 );
+		assertEquals( 1, proxy.mScheduled );
+
+		// Identical inspections are only sent once
+
+		proxy.sendPendingInspections();
+		assertEquals( 0, inspector.mInspectCallbacks.size() );
+		assertEquals( 1, inspector.mInspectAllCallbacks.size() );
+		assertEquals( 3, inspector.mTypes.get( 0 ).length );
+		assertEquals( "abc", inspector.mNames.get( 0 )[0][0] );
+		assertEquals( "def", inspector.mNames.get( 0 )[1][0] );
+		assertTrue( foo == inspector.mToInspect.get( 0 )[0] );
+		assertTrue( foo == inspector.mToInspect.get( 0 )[1] );
+		assertTrue( foo != inspector.mToInspect.get( 0 )[2] );
+
+		inspector.mInspectAllCallbacks.get( 0 ).onSuccess( new GwtRemoteInspectionResult[] { new GwtRemoteInspectionResult( "abc", null ), new GwtRemoteInspectionResult( "def", null ), new GwtRemoteInspectionResult( "abc2", null ) } );
+		assertEquals( "abc", callback1.mInspectionResult );
+		assertEquals( "abc", callback2.mInspectionResult );
+		assertEquals( "def", callback3.mInspectionResult );
+		assertEquals( "abc2", callback4.mInspectionResult );
+	}
+
+	public void testPartialFailure() {
+
+		MockInspectorAsync inspector = new MockInspectorAsync();
+		MockGwtRemoteInspectorProxy proxy = new MockGwtRemoteInspectorProxy( inspector, new GwtRemoteInspectorProxyConfig().setCacheInspectionResults( true ) );
+		Foo foo = new Foo();
+		RecordingCallback callback1 = new RecordingCallback();
+		RecordingCallback callback2 = new RecordingCallback();
+
+		proxy.inspect( foo, "Foo", new String[] { "abc" }, callback1 );
+		proxy.inspect( foo, "Foo", new String[] { "def" }, callback2 );
+		proxy.sendPendingInspections();
+		inspector.mInspectAllCallbacks.get( 0 ).onSuccess( new GwtRemoteInspectionResult[] { new GwtRemoteInspectionResult( "abc", null ), new GwtRemoteInspectionResult( null, "java.lang.RuntimeException: def" ) } );
+
+		assertEquals( "abc", callback1.mInspectionResult );
+		assertTrue( callback1.mCaught == null );
+		assertTrue( callback2.mInspectionResult == null );
+		assertTrue( callback2.mCaught instanceof InspectorException );
+		assertEquals( "java.lang.RuntimeException: def", callback2.mCaught.getMessage() );
+
+		// Successes are cached, failures are not
+
+		RecordingCallback callback3 = new RecordingCallback();
+		proxy.inspect( foo, "Foo", new String[] { "abc" }, callback3 );
+		assertEquals( "abc", callback3.mInspectionResult );
+		assertEquals( 1, proxy.mScheduled );
+
+		proxy.inspect( foo, "Foo", new String[] { "def" }, new RecordingCallback() );
+		assertEquals( 2, proxy.mScheduled );
+
+		// Whole batch failures fail everyone
+
+		proxy.inspect( foo, "Foo", new String[] { "ghi" }, callback1 );
+		proxy.sendPendingInspections();
+		RuntimeException exception = new RuntimeException( "batch" );
+		inspector.mInspectAllCallbacks.get( 1 ).onFailure( exception );
+		assertTrue( exception == callback1.mCaught );
+	}
+
+	public void testThrowingCallback() {
+
+		MockInspectorAsync inspector = new MockInspectorAsync();
+		MockGwtRemoteInspectorProxy proxy = new MockGwtRemoteInspectorProxy( inspector, new GwtRemoteInspectorProxyConfig() );
+		Foo foo = new Foo();
+		RecordingCallback callback2 = new RecordingCallback();
+		RecordingCallback callback3 = new RecordingCallback();
+		final RuntimeException exception = new RuntimeException( "callback" );
+
+		proxy.inspect( foo, "Foo", new String[] { "abc" }, new RecordingCallback() {
+
+			@Override
+			public void onSuccess( String inspectionResult ) {
+
+				throw exception;
+			}
+		} );
+		proxy.inspect( foo, "Foo", new String[] { "abc" }, callback2 );
+		proxy.inspect( foo, "Foo", new String[] { "def" }, callback3 );
+		proxy.sendPendingInspections();
+
+		// Everyone else still gets their result, then the exception is rethrown
+
+		try {
+			inspector.mInspectAllCallbacks.get( 0 ).onSuccess( new GwtRemoteInspectionResult[] { new GwtRemoteInspectionResult( "abc", null ), new GwtRemoteInspectionResult( "def", null ) } );
+			fail();
+		} catch ( RuntimeException e ) {
+			assertTrue( exception == e );
+		}
+
+		assertEquals( "abc", callback2.mInspectionResult );
+		assertEquals( "def", callback3.mInspectionResult );
+	}
+
+	//
+	// Inner class
+	//
+
+	/* package private */static class Foo
+		implements Serializable {
+
+		// Just an object to inspect
+	}
+
+	/* package private */static class MockGwtRemoteInspectorProxy
+		extends GwtRemoteInspectorProxy {
+
+		//
+		// Package private members
+		//
+
+		/* package private */int	mScheduled;
+
+		//
+		// Constructor
+		//
+
+		public MockGwtRemoteInspectorProxy( GwtRemoteInspectorAsync inspector, GwtRemoteInspectorProxyConfig config ) {
+
+			super( inspector, config );
+		}
+
+		//
+		// Package private methods
+		//
+
+		@Override
+		/* package private */void scheduleSendPendingInspections() {
+
+			// Test calls sendPendingInspections itself
+
+			mScheduled++;
+		}
+	}
+
+	/* package private */static class MockInspectorAsync
+		implements GwtRemoteInspectorAsync {
+
+		//
+		// Package private members
+		//
+
+		/* package private */List<AsyncCallback<String>>						mInspectCallbacks		= new ArrayList<AsyncCallback<String>>();
+
+		/* package private */List<Serializable[]>								mToInspect				= new ArrayList<Serializable[]>();
+
+		/* package private */List<String[]>									mTypes					= new ArrayList<String[]>();
+
+		/* package private */List<String[][]>									mNames					= new ArrayList<String[][]>();
+
+		/* package private */List<AsyncCallback<GwtRemoteInspectionResult[]>>	mInspectAllCallbacks	= new ArrayList<AsyncCallback<GwtRemoteInspectionResult[]>>();
+
+		//
+		// Public methods
+		//
+
+		public void inspect( Serializable toInspect, String type, String[] names, AsyncCallback<String> callback ) {
+
+			mInspectCallbacks.add( callback );
+		}
+
+		public void inspectAll( Serializable[] toInspect, String[] types, String[][] names, AsyncCallback<GwtRemoteInspectionResult[]> callback ) {
+
+			mToInspect.add( toInspect );
+			mTypes.add( types );
+			mNames.add( names );
+			mInspectAllCallbacks.add( callback );
+		}
+	}
+
+	/* package private */static class RecordingCallback
+		implements AsyncCallback<String> {
+
+		//
+		// Package private members
+		//
+
+		/* package private */String		mInspectionResult;
+
+		/* package private */Throwable	mCaught;
+
+		//
+		// Public methods
+		//
+
+		public void onSuccess( String inspectionResult ) {
+
+			mInspectionResult = inspectionResult;
+		}
+
+		public void onFailure( Throwable caught ) {
+
+			mCaught = caught;
+		}
+	}
+}
@@ -0,0 +1,252 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.server;
+
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessor;
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResult;
+import org.metawidget.inspector.iface.Inspector;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class GwtRemoteInspectorImplTest
+	extends TestCase {
+
+	//
+	// Private statics
+	//
+
+	/* package private */static final String	FOO	= Foo.class.getName();
+
+	/* package private */static final String	BAR	= Bar.class.getName();
+
+	//
+	// Public methods
+	//
+
+	public void testCacheKey() {
+
+		GwtRemoteInspectorImpl gwtRemoteInspector = new GwtRemoteInspectorImpl();
+		CountingInspector inspector = new CountingInspector();
+		gwtRemoteInspector.setInspector( inspector );
+
+		// Not cached by default
+
+		Foo foo = new Foo();
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		assertEquals( 2, inspector.mInspections );
+
+		// Cached by class, type and names
+
+		gwtRemoteInspector.setCacheInspectionResults( true );
+		String inspectionResult = gwtRemoteInspector.inspect( foo, FOO, new String[] { "abc" } );
+		assertTrue( inspectionResult.contains( "type=\"" + FOO + "\"" ) );
+		assertEquals( 3, inspector.mInspections );
+		assertEquals( inspectionResult, gwtRemoteInspector.inspect( new Foo(), FOO, new String[] { "abc" } ) );
+		assertEquals( 3, inspector.mInspections );
+
+		gwtRemoteInspector.inspect( foo, FOO, new String[] { "def" } );
+		assertEquals( 4, inspector.mInspections );
+		gwtRemoteInspector.inspect( foo, FOO, new String[] { "abc", "def" } );
+		assertEquals( 5, inspector.mInspections );
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		assertEquals( 6, inspector.mInspections );
+		gwtRemoteInspector.inspect( foo, BAR, new String[] { "abc" } );
+		assertEquals( 7, inspector.mInspections );
+		gwtRemoteInspector.inspect( "Foo", FOO, new String[] { "abc" } );
+		assertEquals( 8, inspector.mInspections );
+		gwtRemoteInspector.inspect( null, FOO, new String[] { "abc" } );
+		assertEquals( 9, inspector.mInspections );
+		gwtRemoteInspector.inspect( null, FOO, new String[] { "abc" } );
+		assertEquals( 9, inspector.mInspections );
+
+		// Turning caching off and on again starts afresh
+
+		gwtRemoteInspector.setCacheInspectionResults( false );
+		gwtRemoteInspector.setCacheInspectionResults( true );
+		gwtRemoteInspector.inspect( foo, FOO, new String[] { "abc" } );
+		assertEquals( 10, inspector.mInspections );
+	}
+
+	public void testCacheBounds() {
+
+		GwtRemoteInspectorImpl gwtRemoteInspector = new GwtRemoteInspectorImpl();
+		gwtRemoteInspector.setCacheInspectionResults( true );
+		CountingInspector inspector = new CountingInspector();
+		gwtRemoteInspector.setInspector( inspector );
+
+		// Types that do not resolve to a class are not cached
+
+		Foo foo = new Foo();
+		gwtRemoteInspector.inspect( foo, "Unknown", null );
+		gwtRemoteInspector.inspect( foo, "Unknown", null );
+		assertEquals( 2, inspector.mInspections );
+
+		// Cache is bounded
+
+		gwtRemoteInspector.setCacheSize( 1 );
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		assertEquals( 3, inspector.mInspections );
+		gwtRemoteInspector.inspect( foo, BAR, null );
+		gwtRemoteInspector.inspect( foo, BAR, null );
+		assertEquals( 4, inspector.mInspections );
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		assertEquals( 5, inspector.mInspections );
+
+		// Cache size less than 1 disables caching
+
+		gwtRemoteInspector.setCacheSize( 0 );
+		gwtRemoteInspector.inspect( foo, BAR, new String[] { "abc" } );
+		gwtRemoteInspector.inspect( foo, BAR, new String[] { "abc" } );
+		assertEquals( 7, inspector.mInspections );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	public void testInvalidation() {
+
+		GwtRemoteInspectorImpl gwtRemoteInspector = new GwtRemoteInspectorImpl();
+		gwtRemoteInspector.setCacheInspectionResults( true );
+		CountingInspector inspector = new CountingInspector();
+		gwtRemoteInspector.setInspector( inspector );
+
+		Foo foo = new Foo();
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		assertEquals( 1, inspector.mInspections );
+
+		// setInspector clears the cache
+
+		CountingInspector inspector2 = new CountingInspector();
+		gwtRemoteInspector.setInspector( inspector2 );
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		assertEquals( 1, inspector.mInspections );
+		assertEquals( 1, inspector2.mInspections );
+
+		// setInspectionResultProcessors clears the cache
+
+		gwtRemoteInspector.setInspectionResultProcessors( new InspectionResultProcessor<GwtRemoteInspectorImpl>() {
+
+			public String processInspectionResult( String inspectionResult, GwtRemoteInspectorImpl metawidget, Object toInspect, String type, String... names ) {
+
+				return inspectionResult.replace( "type=\"" + FOO + "\"", "type=\"Processed\"" );
+			}
+		} );
+
+		assertTrue( gwtRemoteInspector.inspect( foo, FOO, null ).contains( "type=\"Processed\"" ) );
+		assertEquals( 2, inspector2.mInspections );
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		assertEquals( 2, inspector2.mInspections );
+	}
+
+	public void testCounters() {
+
+		GwtRemoteInspectorImpl gwtRemoteInspector = new GwtRemoteInspectorImpl();
+		gwtRemoteInspector.setCacheInspectionResults( true );
+		CountingInspector inspector = new CountingInspector();
+		gwtRemoteInspector.setInspector( inspector );
+
+		assertEquals( 0, gwtRemoteInspector.getRequestCount() );
+		assertEquals( 0, gwtRemoteInspector.getInspectionCount() );
+		assertEquals( 0, gwtRemoteInspector.getCachedInspectionCount() );
+
+		Foo foo = new Foo();
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		gwtRemoteInspector.inspect( foo, FOO, null );
+		assertEquals( 2, gwtRemoteInspector.getRequestCount() );
+		assertEquals( 2, gwtRemoteInspector.getInspectionCount() );
+		assertEquals( 1, gwtRemoteInspector.getCachedInspectionCount() );
+
+		// inspectAll is one request, but several inspections
+
+		GwtRemoteInspectionResult[] inspectionResults = gwtRemoteInspector.inspectAll( new Serializable[] { foo, foo, foo }, new String[] { FOO, BAR, "Fail" }, new String[][] { null, null, null } );
+		assertEquals( 3, inspectionResults.length );
+		assertEquals( 3, gwtRemoteInspector.getRequestCount() );
+		assertEquals( 5, gwtRemoteInspector.getInspectionCount() );
+		assertEquals( 2, gwtRemoteInspector.getCachedInspectionCount() );
+
+		// ...each of which succeeds or fails independently
+
+		assertTrue( inspectionResults[0].getInspectionResult().contains( "type=\"" + FOO + "\"" ) );
+		assertTrue( inspectionResults[0].getFailure() == null );
+		assertTrue( inspectionResults[1].getInspectionResult().contains( "type=\"" + BAR + "\"" ) );
+		assertTrue( inspectionResults[2].getInspectionResult() == null );
+		assertTrue( inspectionResults[2].getFailure().contains( "Fail" ) );
+
+		// Failed requests are still counted
+
+		try {
+			gwtRemoteInspector.inspect( foo, "Fail", null );
+			fail();
+		} catch ( RuntimeException e ) {
+			assertEquals( 4, gwtRemoteInspector.getRequestCount() );
+			assertEquals( 6, gwtRemoteInspector.getInspectionCount() );
+		}
+
+		assertTrue( gwtRemoteInspector.getRequestTime() >= 0 );
+	}
+
+	//
+	// Inner class
+	//
+
+	/* package private */static class Foo
+		implements Serializable {
+
+		// Just an object to inspect
+	}
+
+	/* package private */static class Bar {
+
+		// Just another type to inspect
+	}
+
+	/**
+	 * Inspector that counts its inspections, and fails for type 'Fail'.
+	 */
+
+	/* package private */static class CountingInspector
+		implements Inspector {
+
+		//
+		// Package private members
+		//
+
+		/* package private */int	mInspections;
+
+		//
+		// Public methods
+		//
+
+		public String inspect( Object toInspect, String type, String... names ) {
+
+			mInspections++;
+
+			if ( "Fail".equals( type ) ) {
+				throw new RuntimeException( "Fail" );
+			}
+
+			return "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"" + type + "\"/></inspection-result>";
+		}
+	}
+}
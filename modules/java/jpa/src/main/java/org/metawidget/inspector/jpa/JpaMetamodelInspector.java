@@ -0,0 +1,292 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.jpa;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.persistence.Column;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Lob;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import javax.persistence.Temporal;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.metawidget.inspector.iface.DomInspector;
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Inspects the JPA <code>Metamodel</code> of an <code>EntityManagerFactory</code>.
+ * <p>
+ * Unlike <code>JpaInspector</code>, which looks up annotations on every property each time it
+ * inspects, JpaMetamodelInspector reads the <code>Metamodel</code> once, at construction time, and
+ * precomputes the attributes of every managed type (entities, mapped superclasses and
+ * embeddables). Inspection is then just a lookup. Because the <code>Metamodel</code> reflects the
+ * mapping as the persistence provider sees it, ids, versions and optionality declared in
+ * <code>orm.xml</code> are honoured too.
+ * <p>
+ * The <code>Metamodel</code> does not expose column lengths, <code>@Lob</code>,
+ * <code>@Temporal</code> or <code>mappedBy</code>. For these, JpaMetamodelInspector reads the
+ * annotations on each attribute's Java member, again only at construction time.
+ * <p>
+ * Managed types have no inherent property order, so properties are returned in alphabetical
+ * order. Generally JpaMetamodelInspector should be combined (using <code>CompositeInspector</code>)
+ * with an Inspector that does define an order, such as <code>PropertyTypeInspector</code>.
+ *
+ * @author Richard Kennard
+ */
+
+public class JpaMetamodelInspector
+	implements DomInspector<Element> {
+
+	//
+	// Private members
+	//
+
+	/**
+	 * Precomputed attributes for each property of each managed type, keyed by class name then
+	 * property name.
+	 */
+
+	private final Map<String, Map<String, Map<String, String>>>	mAttributes;
+
+	/**
+	 * Java type of each property of each managed type, keyed by class name then property name.
+	 * Used to traverse paths.
+	 */
+
+	private final Map<String, Map<String, String>>				mTypes;
+
+	//
+	// Constructor
+	//
+
+	public JpaMetamodelInspector( JpaMetamodelInspectorConfig config ) {
+
+		EntityManagerFactory entityManagerFactory = config.getEntityManagerFactory();
+
+		if ( entityManagerFactory == null ) {
+			throw InspectorException.newException( "No EntityManagerFactory specified" );
+		}
+
+		boolean hideIds = config.isHideIds();
+		boolean hideVersions = config.isHideVersions();
+
+		Map<String, Map<String, Map<String, String>>> attributes = CollectionUtils.newHashMap();
+		Map<String, Map<String, String>> types = CollectionUtils.newHashMap();
+
+		for ( ManagedType<?> managedType : entityManagerFactory.getMetamodel().getManagedTypes() ) {
+
+			Map<String, Map<String, String>> propertyAttributes = CollectionUtils.newTreeMap();
+			Map<String, String> propertyTypes = CollectionUtils.newHashMap();
+
+			for ( Attribute<?, ?> attribute : managedType.getAttributes() ) {
+				String name = attribute.getName();
+				propertyAttributes.put( name, Collections.unmodifiableMap( inspectAttribute( attribute, hideIds, hideVersions ) ) );
+				propertyTypes.put( name, attribute.getJavaType().getName() );
+			}
+
+			String className = managedType.getJavaType().getName();
+			attributes.put( className, Collections.unmodifiableMap( propertyAttributes ) );
+			types.put( className, propertyTypes );
+		}
+
+		mAttributes = attributes;
+		mTypes = types;
+	}
+
+	//
+	// Public methods
+	//
+
+	public final String inspect( Object toInspect, String type, String... names ) {
+
+		Element element = inspectAsDom( toInspect, type, names );
+
+		if ( element == null ) {
+			return null;
+		}
+
+		return XmlUtils.nodeToString( element, false );
+	}
+
+	public Element inspectAsDom( Object toInspect, String type, String... names ) {
+
+		// If no type, return nothing
+
+		if ( type == null ) {
+			return null;
+		}
+
+		// Traverse names
+		//
+		// Note: like other static Inspectors, we traverse the declared types, not the values
+
+		String declaredType = type;
+		Map<String, String> parentAttributes = null;
+
+		if ( names != null ) {
+			for ( String name : names ) {
+				Map<String, Map<String, String>> propertyAttributes = mAttributes.get( declaredType );
+
+				if ( propertyAttributes == null || !propertyAttributes.containsKey( name ) ) {
+					return null;
+				}
+
+				parentAttributes = propertyAttributes.get( name );
+				declaredType = mTypes.get( declaredType ).get( name );
+			}
+		}
+
+		Map<String, Map<String, String>> propertyAttributes = mAttributes.get( declaredType );
+
+		if ( propertyAttributes == null && ( parentAttributes == null || parentAttributes.isEmpty() ) ) {
+			return null;
+		}
+
+		// Start the DOM
+
+		Document document = XmlUtils.newDocument();
+		Element root = document.createElementNS( NAMESPACE, ROOT );
+		root.setAttribute( VERSION, "1.0" );
+		document.appendChild( root );
+
+		Element entity = document.createElementNS( NAMESPACE, ENTITY );
+		XmlUtils.setMapAsAttributes( entity, parentAttributes );
+		entity.setAttribute( TYPE, declaredType );
+
+		if ( names != null && names.length > 0 ) {
+			entity.setAttribute( NAME, names[names.length - 1] );
+		}
+
+		root.appendChild( entity );
+
+		// Write all (non-empty) properties
+
+		if ( propertyAttributes != null ) {
+			for ( Map.Entry<String, Map<String, String>> entry : propertyAttributes.entrySet() ) {
+
+				if ( entry.getValue().isEmpty() ) {
+					continue;
+				}
+
+				Element property = document.createElementNS( NAMESPACE, PROPERTY );
+				property.setAttribute( NAME, entry.getKey() );
+				XmlUtils.setMapAsAttributes( property, entry.getValue() );
+				entity.appendChild( property );
+			}
+		}
+
+		return root;
+	}
+
+	//
+	// Protected methods
+	//
+
+	/**
+	 * Inspect the given attribute of the Metamodel. Called once per attribute, from the
+	 * constructor, so subclasses must not rely on their own fields having been initialized.
+	 */
+
+	protected Map<String, String> inspectAttribute( Attribute<?, ?> attribute, boolean hideIds, boolean hideVersions ) {
+
+		Map<String, String> attributes = CollectionUtils.newHashMap();
+
+		// From the Metamodel
+
+		if ( attribute instanceof SingularAttribute<?, ?> ) {
+			SingularAttribute<?, ?> singularAttribute = (SingularAttribute<?, ?>) attribute;
+
+			if ( singularAttribute.isId() ) {
+				if ( hideIds ) {
+					attributes.put( HIDDEN, TRUE );
+				}
+			} else if ( singularAttribute.isVersion() ) {
+				if ( hideVersions ) {
+					attributes.put( HIDDEN, TRUE );
+				}
+			} else if ( !singularAttribute.isOptional() && !attribute.getJavaType().isPrimitive() ) {
+				attributes.put( REQUIRED, TRUE );
+			}
+		}
+
+		// From the Java member (if any)
+
+		if ( !( attribute.getJavaMember() instanceof AnnotatedElement ) ) {
+			return attributes;
+		}
+
+		AnnotatedElement member = (AnnotatedElement) attribute.getJavaMember();
+
+		if ( member.isAnnotationPresent( Lob.class ) ) {
+			attributes.put( LARGE, TRUE );
+		}
+
+		// Length (see JpaInspector regarding the default of 255)
+
+		Column column = member.getAnnotation( Column.class );
+
+		if ( column != null && column.length() != 255 ) {
+			attributes.put( MAXIMUM_LENGTH, String.valueOf( column.length() ) );
+		}
+
+		// Inverse relationships
+
+		OneToOne oneToOne = member.getAnnotation( OneToOne.class );
+
+		if ( oneToOne != null && !"".equals( oneToOne.mappedBy() ) ) {
+			attributes.put( INVERSE_RELATIONSHIP, oneToOne.mappedBy() );
+		}
+
+		OneToMany oneToMany = member.getAnnotation( OneToMany.class );
+
+		if ( oneToMany != null && !"".equals( oneToMany.mappedBy() ) ) {
+			attributes.put( INVERSE_RELATIONSHIP, oneToMany.mappedBy() );
+		}
+
+		// Temporal
+
+		Temporal temporal = member.getAnnotation( Temporal.class );
+
+		if ( temporal != null ) {
+			switch ( temporal.value() ) {
+				case DATE:
+					attributes.put( DATETIME_TYPE, "date" );
+					break;
+				case TIME:
+					attributes.put( DATETIME_TYPE, "time" );
+					break;
+				case TIMESTAMP:
+					attributes.put( DATETIME_TYPE, "both" );
+					break;
+			}
+		}
+
+		return attributes;
+	}
+}
@@ -0,0 +1,147 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.jpa;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.metawidget.util.simple.ObjectUtils;
+
+/**
+ * Configures a JpaMetamodelInspector prior to use. Once instantiated, Inspectors are immutable.
+ *
+ * @author Richard Kennard
+ */
+
+public class JpaMetamodelInspectorConfig {
+
+	//
+	// Private members
+	//
+
+	private EntityManagerFactory	mEntityManagerFactory;
+
+	private boolean					mHideIds		= true;
+
+	private boolean					mHideVersions	= true;
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Sets the EntityManagerFactory whose <code>Metamodel</code> should be inspected.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public JpaMetamodelInspectorConfig setEntityManagerFactory( EntityManagerFactory entityManagerFactory ) {
+
+		mEntityManagerFactory = entityManagerFactory;
+
+		// Fluent interface
+
+		return this;
+	}
+
+	/**
+	 * Sets whether the Inspector returns Id properties as <code>hidden="true"</code>. True by
+	 * default.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public JpaMetamodelInspectorConfig setHideIds( boolean hideIds ) {
+
+		mHideIds = hideIds;
+
+		// Fluent interface
+
+		return this;
+	}
+
+	/**
+	 * Sets whether the Inspector returns Version properties as <code>hidden="true"</code>. True by
+	 * default.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public JpaMetamodelInspectorConfig setHideVersions( boolean hideVersions ) {
+
+		mHideVersions = hideVersions;
+
+		// Fluent interface
+
+		return this;
+	}
+
+	@Override
+	public boolean equals( Object that ) {
+
+		if ( this == that ) {
+			return true;
+		}
+
+		if ( !ObjectUtils.nullSafeClassEquals( this, that ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mEntityManagerFactory, ( (JpaMetamodelInspectorConfig) that ).mEntityManagerFactory ) ) {
+			return false;
+		}
+
+		if ( mHideIds != ( (JpaMetamodelInspectorConfig) that ).mHideIds ) {
+			return false;
+		}
+
+		if ( mHideVersions != ( (JpaMetamodelInspectorConfig) that ).mHideVersions ) {
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+
+		int hashCode = 1;
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mEntityManagerFactory );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mHideIds );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mHideVersions );
+
+		return hashCode;
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected EntityManagerFactory getEntityManagerFactory() {
+
+		return mEntityManagerFactory;
+	}
+
+	protected boolean isHideIds() {
+
+		return mHideIds;
+	}
+
+	protected boolean isHideVersions() {
+
+		return mHideVersions;
+	}
+}
@@ -0,0 +1,307 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.jpa;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.Set;
+
+import javax.persistence.Column;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Lob;
+import javax.persistence.OneToMany;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.MetawidgetTestUtils;
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Element;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class JpaMetamodelInspectorTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testInspection() {
+
+		JpaMetamodelInspector inspector = new JpaMetamodelInspector( new JpaMetamodelInspectorConfig().setEntityManagerFactory( newEntityManagerFactory() ) );
+		Element entity = XmlUtils.getFirstChildElement( XmlUtils.documentFromString( inspector.inspect( null, Foo.class.getName() ) ).getDocumentElement() );
+
+		assertEquals( ENTITY, entity.getNodeName() );
+		assertEquals( Foo.class.getName(), entity.getAttribute( TYPE ) );
+		assertFalse( entity.hasAttribute( NAME ) );
+
+		// Properties (in alphabetical order)
+
+		Element property = XmlUtils.getFirstChildElement( entity );
+		assertEquals( PROPERTY, property.getNodeName() );
+		assertEquals( "bar", property.getAttribute( NAME ) );
+		assertEquals( TRUE, property.getAttribute( REQUIRED ) );
+		assertEquals( 2, property.getAttributes().getLength() );
+
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "bars", property.getAttribute( NAME ) );
+		assertEquals( "foo", property.getAttribute( INVERSE_RELATIONSHIP ) );
+		assertEquals( 2, property.getAttributes().getLength() );
+
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "date", property.getAttribute( NAME ) );
+		assertEquals( "date", property.getAttribute( DATETIME_TYPE ) );
+		assertEquals( 2, property.getAttributes().getLength() );
+
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "description", property.getAttribute( NAME ) );
+		assertEquals( TRUE, property.getAttribute( LARGE ) );
+		assertEquals( 2, property.getAttributes().getLength() );
+
+		// Id mapped in orm.xml (no annotation)
+
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "id", property.getAttribute( NAME ) );
+		assertEquals( TRUE, property.getAttribute( HIDDEN ) );
+		assertEquals( 2, property.getAttributes().getLength() );
+
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "name", property.getAttribute( NAME ) );
+		assertEquals( "10", property.getAttribute( MAXIMUM_LENGTH ) );
+		assertEquals( 2, property.getAttributes().getLength() );
+
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "version", property.getAttribute( NAME ) );
+		assertEquals( TRUE, property.getAttribute( HIDDEN ) );
+		assertEquals( 2, property.getAttributes().getLength() );
+
+		// (primitive 'count' is not optional, but needs no REQUIRED)
+
+		assertEquals( null, XmlUtils.getNextSiblingElement( property ) );
+
+		// Traversal
+
+		entity = XmlUtils.getFirstChildElement( XmlUtils.documentFromString( inspector.inspect( null, Foo.class.getName(), "bar" ) ).getDocumentElement() );
+		assertEquals( Bar.class.getName(), entity.getAttribute( TYPE ) );
+		assertEquals( "bar", entity.getAttribute( NAME ) );
+		assertEquals( TRUE, entity.getAttribute( REQUIRED ) );
+		property = XmlUtils.getFirstChildElement( entity );
+		assertEquals( "abc", property.getAttribute( NAME ) );
+		assertEquals( TRUE, property.getAttribute( LARGE ) );
+		assertEquals( null, XmlUtils.getNextSiblingElement( property ) );
+
+		assertEquals( null, inspector.inspect( null, Foo.class.getName(), "baz" ) );
+		assertEquals( null, inspector.inspect( null, Foo.class.getName(), "count" ) );
+		entity = XmlUtils.getFirstChildElement( XmlUtils.documentFromString( inspector.inspect( null, Foo.class.getName(), "name" ) ).getDocumentElement() );
+		assertEquals( String.class.getName(), entity.getAttribute( TYPE ) );
+		assertEquals( "10", entity.getAttribute( MAXIMUM_LENGTH ) );
+		assertEquals( null, XmlUtils.getFirstChildElement( entity ) );
+		assertEquals( null, inspector.inspect( null, String.class.getName() ) );
+		assertEquals( null, inspector.inspect( null, null ) );
+
+		// Hide nothing
+
+		inspector = new JpaMetamodelInspector( new JpaMetamodelInspectorConfig().setEntityManagerFactory( newEntityManagerFactory() ).setHideIds( false ).setHideVersions( false ) );
+		entity = XmlUtils.getFirstChildElement( XmlUtils.documentFromString( inspector.inspect( null, Foo.class.getName() ) ).getDocumentElement() );
+		assertEquals( null, XmlUtils.getChildWithAttributeValue( entity, NAME, "id" ) );
+		assertEquals( null, XmlUtils.getChildWithAttributeValue( entity, NAME, "version" ) );
+	}
+
+	public void testConfig() {
+
+		MetawidgetTestUtils.testEqualsAndHashcode( JpaMetamodelInspectorConfig.class, new JpaMetamodelInspectorConfig() {
+			// Subclass
+		} );
+
+		try {
+			new JpaMetamodelInspector( new JpaMetamodelInspectorConfig() );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "No EntityManagerFactory specified", e.getMessage() );
+		}
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Mock up the Metamodel a persistence provider would build for Foo and Bar.
+	 */
+
+	private EntityManagerFactory newEntityManagerFactory() {
+
+		final Set<ManagedType<?>> managedTypes = CollectionUtils.newHashSet();
+		managedTypes.add( newManagedType( Foo.class, newAttribute( Foo.class, "id", true, false, true ), newAttribute( Foo.class, "version", false, true, true ), newAttribute( Foo.class, "name", false, false, true ), newAttribute( Foo.class, "description", false, false, true ), newAttribute( Foo.class, "date", false, false, true ), newAttribute( Foo.class, "count", false, false, false ), newAttribute( Foo.class, "bar", false, false, false ), newAttribute( Foo.class, "bars", false, false, true ) ) );
+		managedTypes.add( newManagedType( Bar.class, newAttribute( Bar.class, "abc", false, false, true ) ) );
+
+		final Metamodel metamodel = newProxy( Metamodel.class, new InvocationHandler() {
+
+			public Object invoke( Object proxy, Method method, Object[] args ) {
+
+				return managedTypes;
+			}
+		} );
+
+		return newProxy( EntityManagerFactory.class, new InvocationHandler() {
+
+			public Object invoke( Object proxy, Method method, Object[] args ) {
+
+				return metamodel;
+			}
+		} );
+	}
+
+	private ManagedType<?> newManagedType( final Class<?> javaType, Attribute<?, ?>... attributes ) {
+
+		final Set<Attribute<?, ?>> attributesSet = CollectionUtils.newHashSet();
+
+		for ( Attribute<?, ?> attribute : attributes ) {
+			attributesSet.add( attribute );
+		}
+
+		return newProxy( ManagedType.class, new InvocationHandler() {
+
+			public Object invoke( Object proxy, Method method, Object[] args ) {
+
+				if ( "getJavaType".equals( method.getName() ) ) {
+					return javaType;
+				}
+
+				return attributesSet;
+			}
+		} );
+	}
+
+	private Attribute<?, ?> newAttribute( Class<?> declaringType, String name, final boolean id, final boolean version, final boolean optional ) {
+
+		try {
+			final java.lang.reflect.Field field = declaringType.getDeclaredField( name );
+			Class<?> attributeClass = ( Set.class.equals( field.getType() ) ? PluralAttribute.class : SingularAttribute.class );
+
+			return (Attribute<?, ?>) newProxy( attributeClass, new InvocationHandler() {
+
+				public Object invoke( Object proxy, Method method, Object[] args ) {
+
+					String methodName = method.getName();
+
+					if ( "getName".equals( methodName ) ) {
+						return field.getName();
+					}
+
+					if ( "getJavaType".equals( methodName ) ) {
+						return field.getType();
+					}
+
+					if ( "getJavaMember".equals( methodName ) ) {
+						return field;
+					}
+
+					if ( "isId".equals( methodName ) ) {
+						return id;
+					}
+
+					if ( "isVersion".equals( methodName ) ) {
+						return version;
+					}
+
+					if ( "isOptional".equals( methodName ) ) {
+						return optional;
+					}
+
+					throw new UnsupportedOperationException( methodName );
+				}
+			} );
+		} catch ( NoSuchFieldException e ) {
+			throw new RuntimeException( e );
+		}
+	}
+
+	/**
+	 * Creates a proxy for the given interface, handling <code>hashCode</code> and
+	 * <code>equals</code> by identity so that proxies can be put in Sets.
+	 */
+
+	@SuppressWarnings( "unchecked" )
+	private <T> T newProxy( Class<?> iface, final InvocationHandler handler ) {
+
+		return (T) Proxy.newProxyInstance( getClass().getClassLoader(), new Class[] { iface }, new InvocationHandler() {
+
+			public Object invoke( Object proxy, Method method, Object[] args )
+				throws Throwable {
+
+				if ( "hashCode".equals( method.getName() ) ) {
+					return System.identityHashCode( proxy );
+				}
+
+				if ( "equals".equals( method.getName() ) ) {
+					return ( proxy == args[0] );
+				}
+
+				return handler.invoke( proxy, method, args );
+			}
+		} );
+	}
+
+	//
+	// Inner class
+	//
+
+	public static class Foo {
+
+		public long			id;
+
+		public int			version;
+
+		@Column( length = 10 )
+		public String		name;
+
+		@Lob
+		public String		description;
+
+		@Temporal( TemporalType.DATE )
+		public Date			date;
+
+		public int			count;
+
+		public Bar			bar;
+
+		@OneToMany( mappedBy = "foo" )
+		public Set<Bar>		bars;
+	}
+
+	public static class Bar {
+
+		@Lob
+		public String	abc;
+	}
+}
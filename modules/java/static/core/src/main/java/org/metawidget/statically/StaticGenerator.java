@@ -0,0 +1,570 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.statically;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.metawidget.config.iface.ConfigReader;
+import org.metawidget.config.iface.ResourceResolver;
+import org.metawidget.config.impl.BaseConfigReader;
+import org.metawidget.config.impl.SimpleResourceResolver;
+import org.metawidget.iface.MetawidgetException;
+import org.metawidget.util.ClassUtils;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.LogUtils;
+import org.metawidget.util.LogUtils.Log;
+import org.metawidget.util.XmlUtils;
+import org.metawidget.util.simple.PathUtils;
+import org.metawidget.util.simple.PathUtils.TypeAndNames;
+import org.metawidget.util.simple.StringUtils;
+import org.w3c.dom.Element;
+
+/**
+ * Batch front-end for StaticMetawidgets.
+ * <p>
+ * Generates one file per path (such as <code>com.myapp.Person</code>) using the configured
+ * <code>StaticMetawidget</code> subclass. Paths are generated in parallel, each on its own
+ * Metawidget instance, but all sharing the same <code>ConfigReader</code> and therefore the same
+ * immutable Inspectors, WidgetBuilders, WidgetProcessors and Layouts.
+ * <p>
+ * Each file is written as soon as it is generated. A hash is recorded in the output directory, and
+ * on subsequent runs paths whose hash is unchanged (and whose file still exists) are skipped. The
+ * hash covers the Metawidget class, the contents of the configuration resource, the path's
+ * inspection result and the inspection results of every nested path (such as nested Metawidgets,
+ * or Collection types inspected by WidgetBuilders) visited while generating it. Paths are never
+ * skipped if the configuration resource cannot be read, or if generating them inspected an Object
+ * (which cannot be inspected again to check for changes).
+ * <p>
+ * Can also be run from the command line:
+ * <p>
+ * <code>
+ * java org.metawidget.statically.StaticGenerator [-config metawidget.xml] [-threads n] metawidgetClass outputDirectory fileExtension path... [&#64;pathsFile]
+ * </code>
+ *
+ * @author Richard Kennard
+ */
+
+public class StaticGenerator {
+
+	//
+	// Private statics
+	//
+
+	/**
+	 * Name of the file, within the output directory, that records inspection result hashes.
+	 */
+
+	private static final String										HASHES_FILE			= ".metawidget-static-hashes.properties";
+
+	/**
+	 * Suffix of the key, within the hashes file, that records the nested paths visited while
+	 * generating a path.
+	 */
+
+	private static final String										NESTED_PATHS_SUFFIX	= "#nestedPaths";
+
+	private static final String										TEMPORARY_SUFFIX	= ".tmp";
+
+	private static final String										ENCODING			= "UTF-8";
+
+	private static final Log										LOG					= LogUtils.getLog( StaticGenerator.class );
+
+	//
+	// Private members
+	//
+
+	/* package private */final Class<? extends StaticMetawidget>	mMetawidgetClass;
+
+	/* package private */final ConfigReader							mConfigReader;
+
+	/* package private */final String								mConfig;
+
+	private final File												mOutputDirectory;
+
+	/* package private */final String								mFileExtension;
+
+	/* package private */final int									mInitialIndent;
+
+	private final int												mThreads;
+
+	//
+	// Constructor
+	//
+
+	public StaticGenerator( StaticGeneratorConfig config ) {
+
+		mMetawidgetClass = config.getMetawidgetClass();
+
+		if ( mMetawidgetClass == null ) {
+			throw MetawidgetException.newException( "No metawidgetClass specified" );
+		}
+
+		mOutputDirectory = config.getOutputDirectory();
+
+		if ( mOutputDirectory == null ) {
+			throw MetawidgetException.newException( "No outputDirectory specified" );
+		}
+
+		if ( config.getThreads() < 1 ) {
+			throw MetawidgetException.newException( "Threads must be at least 1" );
+		}
+
+		if ( config.getConfigReader() == null ) {
+			mConfigReader = new BaseConfigReader();
+		} else {
+			mConfigReader = config.getConfigReader();
+		}
+
+		mConfig = config.getConfig();
+		mFileExtension = config.getFileExtension();
+		mInitialIndent = config.getInitialIndent();
+		mThreads = config.getThreads();
+	}
+
+	//
+	// Public statics
+	//
+
+	public static void main( String[] args )
+		throws Exception {
+
+		StaticGeneratorConfig config = new StaticGeneratorConfig();
+		List<String> arguments = CollectionUtils.newArrayList();
+
+		for ( int loop = 0, length = args.length; loop < length; loop++ ) {
+
+			String arg = args[loop];
+
+			if ( "-config".equals( arg ) && loop + 1 < length ) {
+				config.setConfig( args[++loop] );
+			} else if ( "-threads".equals( arg ) && loop + 1 < length ) {
+				config.setThreads( Integer.parseInt( args[++loop] ) );
+			} else {
+				arguments.add( arg );
+			}
+		}
+
+		if ( arguments.size() < 4 ) {
+			System.err.println( "Usage: StaticGenerator [-config metawidget.xml] [-threads n] metawidgetClass outputDirectory fileExtension path... [@pathsFile]" );
+			return;
+		}
+
+		Class<?> metawidgetClass = ClassUtils.niceForName( arguments.get( 0 ) );
+
+		if ( metawidgetClass == null || !StaticMetawidget.class.isAssignableFrom( metawidgetClass ) ) {
+			throw MetawidgetException.newException( arguments.get( 0 ) + " is not a " + StaticMetawidget.class.getName() );
+		}
+
+		config.setMetawidgetClass( metawidgetClass.asSubclass( StaticMetawidget.class ) );
+		config.setOutputDirectory( new File( arguments.get( 1 ) ) );
+		config.setFileExtension( arguments.get( 2 ) );
+
+		// Paths (possibly read from a file)
+
+		List<String> paths = CollectionUtils.newArrayList();
+
+		for ( String path : arguments.subList( 3, arguments.size() ) ) {
+
+			if ( path.startsWith( "@" ) ) {
+				paths.addAll( readPaths( new File( path.substring( 1 ) ) ) );
+			} else {
+				paths.add( path );
+			}
+		}
+
+		List<String> generated = new StaticGenerator( config ).generate( paths.toArray( new String[paths.size()] ) );
+		System.out.println( "Generated " + generated.size() + " of " + paths.size() + " file(s)" );
+	}
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Generates a file for each of the given paths, in parallel.
+	 * <p>
+	 * If generating any path fails, the remaining paths are still generated (and their hashes
+	 * recorded) before the first failure is rethrown.
+	 *
+	 * @return the paths that were generated, in the order given. Paths whose inspection result was
+	 *         unchanged since the last run are not included
+	 */
+
+	public List<String> generate( String... paths ) {
+
+		List<String> generated = CollectionUtils.newArrayList();
+
+		if ( paths.length == 0 ) {
+			return generated;
+		}
+
+		// (Properties is a Hashtable, so is safe to update from multiple threads)
+
+		Properties hashes = readHashes();
+		byte[] configDigest = digestConfig();
+		ExecutorService executor = Executors.newFixedThreadPool( Math.min( mThreads, paths.length ) );
+
+		try {
+			List<Future<Boolean>> futures = CollectionUtils.newArrayList();
+
+			for ( String path : paths ) {
+				futures.add( executor.submit( new GenerateTask( path, hashes, configDigest ) ) );
+			}
+
+			// Wait for results
+
+			MetawidgetException firstException = null;
+
+			for ( int loop = 0, length = paths.length; loop < length; loop++ ) {
+
+				try {
+					if ( futures.get( loop ).get() ) {
+						generated.add( paths[loop] );
+					}
+				} catch ( ExecutionException e ) {
+					hashes.remove( paths[loop] );
+					hashes.remove( paths[loop] + NESTED_PATHS_SUFFIX );
+
+					if ( firstException == null ) {
+						firstException = MetawidgetException.newException( "Unable to generate " + paths[loop], e.getCause() );
+					}
+				}
+			}
+
+			writeHashes( hashes );
+
+			if ( firstException != null ) {
+				throw firstException;
+			}
+
+			LOG.debug( "Generated {0} of {1} paths", generated.size(), paths.length );
+			return generated;
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw MetawidgetException.newException( e );
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	//
+	// Private methods
+	//
+
+	/* package private */File getOutputFile( String path ) {
+
+		String fileName = path.replace( StringUtils.SEPARATOR_FORWARD_SLASH_CHAR, StringUtils.SEPARATOR_DOT_CHAR );
+
+		if ( mFileExtension != null ) {
+			fileName += mFileExtension;
+		}
+
+		return new File( mOutputDirectory, fileName );
+	}
+
+	/**
+	 * Digests the Metawidget class and the contents of the configuration resource (or, if none, the
+	 * Metawidget class's default configuration) that will render every path.
+	 *
+	 * @return the digest, or null if the configuration resource could not be read (in which case
+	 *         no path will be skipped)
+	 */
+
+	/* package private */byte[] digestConfig() {
+
+		String config = mConfig;
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+			digest.update( mMetawidgetClass.getName().getBytes( ENCODING ) );
+
+			if ( config == null ) {
+				config = mMetawidgetClass.newInstance().getDefaultConfiguration();
+			}
+
+			if ( config != null ) {
+				digest.update( config.getBytes( ENCODING ) );
+
+				ResourceResolver resourceResolver;
+
+				if ( mConfigReader instanceof ResourceResolver ) {
+					resourceResolver = (ResourceResolver) mConfigReader;
+				} else {
+					resourceResolver = new SimpleResourceResolver();
+				}
+
+				InputStream in = resourceResolver.openResource( config );
+
+				try {
+					byte[] buffer = new byte[4096];
+
+					for ( int read = in.read( buffer ); read != -1; read = in.read( buffer ) ) {
+						digest.update( buffer, 0, read );
+					}
+				} finally {
+					in.close();
+				}
+			}
+
+			return digest.digest();
+		} catch ( Exception e ) {
+
+			// Regenerate everything, rather than fail
+
+			LOG.warn( "Unable to read {0}, so not skipping unchanged paths: {1}", config, e.getMessage() );
+			return null;
+		}
+	}
+
+	/**
+	 * Hashes the given inspection result, together with the configuration that will render it and
+	 * the current inspection results of the given nested paths.
+	 */
+
+	/* package private */String hash( byte[] configDigest, Element inspectionResult, StaticMetawidget metawidget, List<String> nestedPaths )
+		throws Exception {
+
+		MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+		digest.update( configDigest );
+
+		if ( inspectionResult != null ) {
+			digest.update( XmlUtils.nodeToString( inspectionResult, false ).getBytes( ENCODING ) );
+		}
+
+		for ( String nestedPath : nestedPaths ) {
+			TypeAndNames typeAndNames = PathUtils.parsePath( nestedPath, StringUtils.SEPARATOR_FORWARD_SLASH_CHAR );
+			String nestedInspectionResult = metawidget.inspect( null, typeAndNames.getType(), typeAndNames.getNamesAsArray() );
+
+			// (separate each nested path and inspection result, so that they cannot run together)
+
+			digest.update( (byte) 0 );
+			digest.update( nestedPath.getBytes( ENCODING ) );
+			digest.update( (byte) 0 );
+
+			if ( nestedInspectionResult != null ) {
+				digest.update( nestedInspectionResult.getBytes( ENCODING ) );
+			}
+		}
+
+		StringBuilder builder = new StringBuilder();
+
+		for ( byte b : digest.digest() ) {
+			builder.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) );
+			builder.append( Character.forDigit( b & 0xF, 16 ) );
+		}
+
+		return builder.toString();
+	}
+
+	private Properties readHashes() {
+
+		Properties hashes = new Properties();
+		File hashesFile = new File( mOutputDirectory, HASHES_FILE );
+
+		if ( !hashesFile.exists() ) {
+			return hashes;
+		}
+
+		try {
+			InputStream in = new FileInputStream( hashesFile );
+
+			try {
+				hashes.load( in );
+			} finally {
+				in.close();
+			}
+		} catch ( Exception e ) {
+
+			// Regenerate everything, rather than fail
+
+			LOG.warn( "Unable to read {0}: {1}", hashesFile, e.getMessage() );
+			hashes.clear();
+		}
+
+		return hashes;
+	}
+
+	private void writeHashes( Properties hashes ) {
+
+		mOutputDirectory.mkdirs();
+
+		try {
+			OutputStream out = new FileOutputStream( new File( mOutputDirectory, HASHES_FILE ) );
+
+			try {
+				hashes.store( out, "Generated by " + StaticGenerator.class.getName() );
+			} finally {
+				out.close();
+			}
+		} catch ( Exception e ) {
+			throw MetawidgetException.newException( e );
+		}
+	}
+
+	//
+	// Private statics
+	//
+
+	private static List<String> readPaths( File pathsFile )
+		throws Exception {
+
+		List<String> paths = CollectionUtils.newArrayList();
+		BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( pathsFile ), ENCODING ) );
+
+		try {
+			String line;
+
+			while ( ( line = reader.readLine() ) != null ) {
+
+				line = line.trim();
+
+				if ( line.length() > 0 && !line.startsWith( "#" ) ) {
+					paths.add( line );
+				}
+			}
+		} finally {
+			reader.close();
+		}
+
+		return paths;
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Generates a single path on its own Metawidget.
+	 */
+
+	private class GenerateTask
+		implements Callable<Boolean> {
+
+		//
+		// Private members
+		//
+
+		private final String		mPath;
+
+		private final Properties	mHashes;
+
+		private final byte[]		mConfigDigest;
+
+		//
+		// Constructor
+		//
+
+		public GenerateTask( String path, Properties hashes, byte[] configDigest ) {
+
+			mPath = path;
+			mHashes = hashes;
+			mConfigDigest = configDigest;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Boolean call()
+			throws Exception {
+
+			StaticMetawidget metawidget = mMetawidgetClass.newInstance();
+			metawidget.setConfigReader( mConfigReader );
+
+			if ( mConfig != null ) {
+				metawidget.setConfig( mConfig );
+			}
+
+			metawidget.setPath( mPath );
+
+			// Skip unchanged (re-inspecting the nested paths visited last time)
+
+			Element inspectionResult = metawidget.inspect();
+			File file = getOutputFile( mPath );
+			String nestedPaths = mHashes.getProperty( mPath + NESTED_PATHS_SUFFIX );
+
+			if ( mConfigDigest != null && nestedPaths != null && file.exists() ) {
+				String hash = hash( mConfigDigest, inspectionResult, metawidget, CollectionUtils.fromString( nestedPaths ) );
+
+				if ( hash.equals( mHashes.getProperty( mPath ) ) ) {
+					LOG.trace( "Skipping unchanged {0}", mPath );
+					return Boolean.FALSE;
+				}
+			}
+
+			// Write to a temporary file first, so that a failure never leaves a partial file that
+			// a subsequent run would consider up to date
+
+			file.getParentFile().mkdirs();
+			File temporaryFile = new File( file.getPath() + TEMPORARY_SUFFIX );
+			Writer writer = new OutputStreamWriter( new FileOutputStream( temporaryFile ), ENCODING );
+
+			Set<String> inspectedPaths = new LinkedHashSet<String>();
+
+			try {
+				metawidget.setInspectionResult( inspectionResult );
+				metawidget.setInspectedPaths( inspectedPaths );
+				metawidget.write( writer, mInitialIndent );
+			} finally {
+				metawidget.setInspectedPaths( null );
+				writer.close();
+			}
+
+			if ( !temporaryFile.renameTo( file ) ) {
+
+				// (renameTo cannot overwrite on some platforms)
+
+				if ( !file.delete() || !temporaryFile.renameTo( file ) ) {
+					throw MetawidgetException.newException( "Unable to write " + file );
+				}
+			}
+
+			// Record the hash, unless the nested inspections cannot be repeated
+
+			if ( mConfigDigest == null || inspectedPaths.contains( null ) ) {
+				mHashes.remove( mPath );
+				mHashes.remove( mPath + NESTED_PATHS_SUFFIX );
+			} else {
+				List<String> nestedPathsToRecord = CollectionUtils.newArrayList( inspectedPaths );
+				mHashes.setProperty( mPath + NESTED_PATHS_SUFFIX, CollectionUtils.toString( nestedPathsToRecord ) );
+				mHashes.setProperty( mPath, hash( mConfigDigest, inspectionResult, metawidget, nestedPathsToRecord ) );
+			}
+
+			LOG.debug( "Generated {0}", file );
+
+			return Boolean.TRUE;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.statically;
+
+import java.io.File;
+
+import org.metawidget.config.iface.ConfigReader;
+import org.metawidget.util.simple.ObjectUtils;
+
+/**
+ * Configures a StaticGenerator prior to use. Once instantiated, StaticGenerators are immutable.
+ *
+ * @author Richard Kennard
+ */
+
+public class StaticGeneratorConfig {
+
+	//
+	// Private members
+	//
+
+	private Class<? extends StaticMetawidget>	mMetawidgetClass;
+
+	private ConfigReader						mConfigReader;
+
+	private String								mConfig;
+
+	private File								mOutputDirectory;
+
+	private String								mFileExtension	= "";
+
+	private int									mInitialIndent;
+
+	private int									mThreads		= Runtime.getRuntime().availableProcessors();
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Sets the StaticMetawidget subclass to generate with, such as <code>StaticHtmlMetawidget</code>.
+	 * The class must have a public, no-argument constructor.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public StaticGeneratorConfig setMetawidgetClass( Class<? extends StaticMetawidget> metawidgetClass ) {
+
+		mMetawidgetClass = metawidgetClass;
+
+		return this;
+	}
+
+	/**
+	 * Sets the ConfigReader shared by every generated Metawidget. Sharing a single ConfigReader
+	 * means the configuration is read once, and its immutable Inspectors, WidgetBuilders and so on
+	 * are reused across all threads.
+	 * <p>
+	 * If not set, a new <code>BaseConfigReader</code> is used.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public StaticGeneratorConfig setConfigReader( ConfigReader configReader ) {
+
+		mConfigReader = configReader;
+
+		return this;
+	}
+
+	/**
+	 * Sets the configuration resource (such as <code>metawidget.xml</code>) to configure each
+	 * Metawidget with. If not set, each Metawidget uses its default configuration.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public StaticGeneratorConfig setConfig( String config ) {
+
+		mConfig = config;
+
+		return this;
+	}
+
+	/**
+	 * Sets the directory generated files are written to. This directory also holds the hashes used
+	 * to skip unchanged entities on subsequent runs.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public StaticGeneratorConfig setOutputDirectory( File outputDirectory ) {
+
+		mOutputDirectory = outputDirectory;
+
+		return this;
+	}
+
+	/**
+	 * Sets the extension (such as <code>.xhtml</code>) appended to the name of each generated file.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public StaticGeneratorConfig setFileExtension( String fileExtension ) {
+
+		mFileExtension = fileExtension;
+
+		return this;
+	}
+
+	/**
+	 * Sets the initial indent passed to <code>StaticMetawidget.write</code>. Defaults to 0.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public StaticGeneratorConfig setInitialIndent( int initialIndent ) {
+
+		mInitialIndent = initialIndent;
+
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads to generate with. Defaults to the number of available processors.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public StaticGeneratorConfig setThreads( int threads ) {
+
+		mThreads = threads;
+
+		return this;
+	}
+
+	@Override
+	public boolean equals( Object that ) {
+
+		if ( this == that ) {
+			return true;
+		}
+
+		if ( !ObjectUtils.nullSafeClassEquals( this, that ) ) {
+			return false;
+		}
+
+		StaticGeneratorConfig thatConfig = (StaticGeneratorConfig) that;
+
+		if ( !ObjectUtils.nullSafeEquals( mMetawidgetClass, thatConfig.mMetawidgetClass ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mConfigReader, thatConfig.mConfigReader ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mConfig, thatConfig.mConfig ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mOutputDirectory, thatConfig.mOutputDirectory ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mFileExtension, thatConfig.mFileExtension ) ) {
+			return false;
+		}
+
+		if ( mInitialIndent != thatConfig.mInitialIndent ) {
+			return false;
+		}
+
+		if ( mThreads != thatConfig.mThreads ) {
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+
+		int hashCode = 1;
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mMetawidgetClass );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mConfigReader );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mConfig );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mOutputDirectory );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mFileExtension );
+		hashCode = 31 * hashCode + mInitialIndent;
+		hashCode = 31 * hashCode + mThreads;
+
+		return hashCode;
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected Class<? extends StaticMetawidget> getMetawidgetClass() {
+
+		return mMetawidgetClass;
+	}
+
+	protected ConfigReader getConfigReader() {
+
+		return mConfigReader;
+	}
+
+	protected String getConfig() {
+
+		return mConfig;
+	}
+
+	protected File getOutputDirectory() {
+
+		return mOutputDirectory;
+	}
+
+	protected String getFileExtension() {
+
+		return mFileExtension;
+	}
+
+	protected int getInitialIndent() {
+
+		return mInitialIndent;
+	}
+
+	protected int getThreads() {
+
+		return mThreads;
+	}
+}
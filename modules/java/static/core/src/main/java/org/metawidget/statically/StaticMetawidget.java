@@ -21,6 +21,7 @@ import static org.metawidget.inspector.InspectionResultConstants.*;
 import java.io.Writer;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.metawidget.config.iface.ConfigReader;
 import org.metawidget.iface.MetawidgetException;
@@ -29,6 +30,7 @@ import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.layout.iface.Layout;
 import org.metawidget.pipeline.w3c.W3CPipeline;
 import org.metawidget.statically.StaticUtils.IndentedWriter;
+import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.util.simple.PathUtils.TypeAndNames;
 import org.metawidget.util.simple.StringUtils;
@@ -70,6 +72,19 @@ public abstract class StaticMetawidget
 
 	private Pipeline	mPipeline;
 
+	/**
+	 * Inspection result to use for the next <code>write</code>, instead of inspecting.
+	 */
+
+	private Element		mInspectionResult;
+
+	/**
+	 * Paths inspected by this Metawidget, its nested Metawidgets and their WidgetBuilders, or null
+	 * if not recording.
+	 */
+
+	private Set<String>	mInspectedPaths;
+
 	//
 	// Constructor
 	//
@@ -175,6 +190,17 @@ public abstract class StaticMetawidget
 
 	public String inspect( Object toInspect, String type, String... names ) {
 
+		if ( mInspectedPaths != null ) {
+
+			// (an Object cannot be inspected again later, so record it as an unknown path)
+
+			if ( toInspect == null ) {
+				mInspectedPaths.add( type + ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ) );
+			} else {
+				mInspectedPaths.add( null );
+			}
+		}
+
 		return mPipeline.inspect( toInspect, type, names );
 	}
 
@@ -192,6 +218,7 @@ public abstract class StaticMetawidget
 		// ...instead, copy runtime values
 
 		mPipeline.initNestedPipeline( nestedMetawidget.mPipeline, attributes );
+		nestedMetawidget.mInspectedPaths = mInspectedPaths;
 
 		if ( nestedMetawidget.getPath() == null ) {
 			nestedMetawidget.setPath( mPath + StringUtils.SEPARATOR_FORWARD_SLASH_CHAR + attributes.get( NAME ) );
@@ -279,7 +306,15 @@ public abstract class StaticMetawidget
 	public void write( Writer writer, int initialIndent ) {
 
 		try {
-			mPipeline.buildWidgets( inspect() );
+			Element inspectionResult = mInspectionResult;
+
+			if ( inspectionResult == null ) {
+				inspectionResult = inspect();
+			} else {
+				mInspectionResult = null;
+			}
+
+			mPipeline.buildWidgets( inspectionResult );
 
 			Writer writerToUse = writer;
 
@@ -330,6 +365,10 @@ public abstract class StaticMetawidget
 			return null;
 		}
 
+		if ( mInspectedPaths != null ) {
+			mInspectedPaths.add( mPath );
+		}
+
 		TypeAndNames typeAndNames = PathUtils.parsePath( mPath, StringUtils.SEPARATOR_FORWARD_SLASH_CHAR );
 		String type = typeAndNames.getType();
 
@@ -338,6 +377,36 @@ public abstract class StaticMetawidget
 
 	protected abstract String getDefaultConfiguration();
 
+	//
+	// Private methods
+	//
+
+	/**
+	 * Supply an already-obtained inspection result to be used by the next <code>write</code>.
+	 * <p>
+	 * Used by <code>StaticGenerator</code>, which inspects first so that it can skip unchanged
+	 * entities, and should not then inspect a second time.
+	 */
+
+	/* package private */void setInspectionResult( Element inspectionResult ) {
+
+		mInspectionResult = inspectionResult;
+	}
+
+	/**
+	 * Record the paths inspected during subsequent <code>write</code>s into the given Set, including
+	 * those inspected by nested Metawidgets and WidgetBuilders. Paths that cannot be inspected again
+	 * (because they inspected an Object) are recorded as null.
+	 * <p>
+	 * Used by <code>StaticGenerator</code>, so that it can tell whether nested inspection results
+	 * have changed.
+	 */
+
+	/* package private */void setInspectedPaths( Set<String> inspectedPaths ) {
+
+		mInspectedPaths = inspectedPaths;
+	}
+
 	//
 	// Inner class
 	//
@@ -0,0 +1,356 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.statically;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.Arrays;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.metawidget.iface.MetawidgetException;
+import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.inspector.impl.BaseObjectInspectorConfig;
+import org.metawidget.inspector.impl.propertystyle.statically.StaticPropertyStyle;
+import org.metawidget.inspector.propertytype.PropertyTypeInspector;
+import org.metawidget.statically.layout.SimpleLayout;
+import org.metawidget.widgetbuilder.iface.WidgetBuilder;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class StaticGeneratorTest
+	extends TestCase {
+
+	//
+	// Private members
+	//
+
+	private File	mOutputDirectory;
+
+	//
+	// Public methods
+	//
+
+	public void testGenerate()
+		throws Exception {
+
+		StaticGenerator generator = new StaticGenerator( new StaticGeneratorConfig().setMetawidgetClass( TestMetawidget.class ).setOutputDirectory( mOutputDirectory ).setFileExtension( ".xml" ).setThreads( 2 ) );
+
+		// First run generates everything
+
+		assertEquals( Arrays.asList( Foo.class.getName(), Bar.class.getName(), Foo.class.getName() + "/bar" ), generator.generate( Foo.class.getName(), Bar.class.getName(), Foo.class.getName() + "/bar" ) );
+		assertEquals( "<bar/><name/>", read( new File( mOutputDirectory, Foo.class.getName() + ".xml" ) ) );
+		assertEquals( "<abc/>", read( new File( mOutputDirectory, Bar.class.getName() + ".xml" ) ) );
+		assertEquals( "<abc/>", read( new File( mOutputDirectory, Foo.class.getName() + ".bar.xml" ) ) );
+		assertFalse( new File( mOutputDirectory, Foo.class.getName() + ".xml.tmp" ).exists() );
+
+		// Second run (even with a new StaticGenerator) skips unchanged
+
+		generator = new StaticGenerator( new StaticGeneratorConfig().setMetawidgetClass( TestMetawidget.class ).setOutputDirectory( mOutputDirectory ).setFileExtension( ".xml" ) );
+		assertTrue( generator.generate( Foo.class.getName(), Bar.class.getName(), Foo.class.getName() + "/bar" ).isEmpty() );
+
+		// Missing files are regenerated
+
+		assertTrue( new File( mOutputDirectory, Bar.class.getName() + ".xml" ).delete() );
+		assertEquals( Arrays.asList( Bar.class.getName() ), generator.generate( Foo.class.getName(), Bar.class.getName() ) );
+
+		// Different Metawidget class is regenerated
+
+		generator = new StaticGenerator( new StaticGeneratorConfig().setMetawidgetClass( UpperCaseMetawidget.class ).setOutputDirectory( mOutputDirectory ).setFileExtension( ".xml" ) );
+		assertEquals( Arrays.asList( Foo.class.getName() ), generator.generate( Foo.class.getName() ) );
+		assertEquals( "<BAR/><NAME/>", read( new File( mOutputDirectory, Foo.class.getName() + ".xml" ) ) );
+
+		// Nothing to do
+
+		assertTrue( generator.generate().isEmpty() );
+	}
+
+	public void testNestedPaths()
+		throws Exception {
+
+		StaticGenerator generator = new StaticGenerator( new StaticGeneratorConfig().setMetawidgetClass( NestingMetawidget.class ).setOutputDirectory( mOutputDirectory ).setFileExtension( ".xml" ) );
+
+		NestingMetawidget.NESTED_PROPERTY = "abc";
+		assertEquals( Arrays.asList( Foo.class.getName() ), generator.generate( Foo.class.getName() ) );
+		assertTrue( generator.generate( Foo.class.getName() ).isEmpty() );
+
+		// Changes to a nested inspection result (with an unchanged top-level inspection result)
+		// are regenerated
+
+		NestingMetawidget.NESTED_PROPERTY = "def";
+		assertEquals( Arrays.asList( Foo.class.getName() ), generator.generate( Foo.class.getName() ) );
+		assertTrue( generator.generate( Foo.class.getName() ).isEmpty() );
+	}
+
+	public void testFailure()
+		throws Exception {
+
+		StaticGenerator generator = new StaticGenerator( new StaticGeneratorConfig().setMetawidgetClass( TestMetawidget.class ).setOutputDirectory( mOutputDirectory ).setFileExtension( ".xml" ) );
+
+		try {
+			generator.generate( Foo.class.getName(), Bad.class.getName() );
+			fail();
+		} catch ( MetawidgetException e ) {
+			assertEquals( "Unable to generate " + Bad.class.getName(), e.getMessage() );
+		}
+
+		// Other paths are still generated, and remembered
+
+		assertEquals( "<bar/><name/>", read( new File( mOutputDirectory, Foo.class.getName() + ".xml" ) ) );
+		assertTrue( generator.generate( Foo.class.getName() ).isEmpty() );
+	}
+
+	public void testValidation() {
+
+		try {
+			new StaticGenerator( new StaticGeneratorConfig().setOutputDirectory( mOutputDirectory ) );
+			fail();
+		} catch ( MetawidgetException e ) {
+			assertEquals( "No metawidgetClass specified", e.getMessage() );
+		}
+
+		try {
+			new StaticGenerator( new StaticGeneratorConfig().setMetawidgetClass( TestMetawidget.class ) );
+			fail();
+		} catch ( MetawidgetException e ) {
+			assertEquals( "No outputDirectory specified", e.getMessage() );
+		}
+
+		try {
+			new StaticGenerator( new StaticGeneratorConfig().setMetawidgetClass( TestMetawidget.class ).setOutputDirectory( mOutputDirectory ).setThreads( 0 ) );
+			fail();
+		} catch ( MetawidgetException e ) {
+			assertEquals( "Threads must be at least 1", e.getMessage() );
+		}
+	}
+
+	public void testConfig() {
+
+		StaticGeneratorConfig config1 = new StaticGeneratorConfig().setMetawidgetClass( TestMetawidget.class ).setOutputDirectory( mOutputDirectory );
+		StaticGeneratorConfig config2 = new StaticGeneratorConfig().setMetawidgetClass( TestMetawidget.class ).setOutputDirectory( mOutputDirectory );
+
+		assertEquals( config1, config2 );
+		assertEquals( config1.hashCode(), config2.hashCode() );
+
+		config2.setThreads( 99 );
+		assertFalse( config1.equals( config2 ) );
+	}
+
+	//
+	// Protected methods
+	//
+
+	@Override
+	protected void setUp()
+		throws Exception {
+
+		mOutputDirectory = File.createTempFile( "StaticGeneratorTest", "" );
+		assertTrue( mOutputDirectory.delete() );
+		assertTrue( mOutputDirectory.mkdir() );
+	}
+
+	@Override
+	protected void tearDown() {
+
+		for ( File file : mOutputDirectory.listFiles() ) {
+			file.delete();
+		}
+
+		mOutputDirectory.delete();
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Reads the given file, ignoring indenting and line breaks.
+	 */
+
+	private String read( File file )
+		throws Exception {
+
+		BufferedReader reader = new BufferedReader( new FileReader( file ) );
+
+		try {
+			StringBuilder builder = new StringBuilder();
+			String line;
+
+			while ( ( line = reader.readLine() ) != null ) {
+				builder.append( line.trim() );
+			}
+
+			return builder.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+	//
+	// Inner class
+	//
+
+	public static class Foo {
+
+		public String getName() {
+
+			return null;
+		}
+
+		public Bar getBar() {
+
+			return null;
+		}
+	}
+
+	public static class Bar {
+
+		public String getAbc() {
+
+			return null;
+		}
+	}
+
+	public static class Bad {
+
+		public String getBad() {
+
+			return null;
+		}
+	}
+
+	public static class TestMetawidget
+		extends StaticXmlMetawidget {
+
+		//
+		// Constructor
+		//
+
+		public TestMetawidget() {
+
+			setInspector( new PropertyTypeInspector( new BaseObjectInspectorConfig().setPropertyStyle( new StaticPropertyStyle() ) ) );
+			setWidgetBuilder( new TestWidgetBuilder() );
+			setLayout( new SimpleLayout() );
+		}
+
+		//
+		// Public methods
+		//
+
+		public String getTagName( String name ) {
+
+			return name;
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected String getDefaultConfiguration() {
+
+			return null;
+		}
+	}
+
+	public static class UpperCaseMetawidget
+		extends TestMetawidget {
+
+		//
+		// Public methods
+		//
+
+		@Override
+		public String getTagName( String name ) {
+
+			return name.toUpperCase();
+		}
+	}
+
+	public static class NestingMetawidget
+		extends TestMetawidget {
+
+		//
+		// Public statics
+		//
+
+		public static volatile String	NESTED_PROPERTY;
+
+		//
+		// Constructor
+		//
+
+		public NestingMetawidget() {
+
+			setInspector( new Inspector() {
+
+				public String inspect( Object toInspect, String type, String... names ) {
+
+					if ( names.length == 0 ) {
+						return "<inspection-result><entity type=\"" + type + "\"><property name=\"bar\"/></entity></inspection-result>";
+					}
+
+					return "<inspection-result><entity type=\"" + type + "\" name=\"bar\"><property name=\"" + NESTED_PROPERTY + "\"/></entity></inspection-result>";
+				}
+			} );
+
+			// (build a nested Metawidget for bar)
+
+			setWidgetBuilder( new TestWidgetBuilder() {
+
+				@Override
+				public StaticXmlWidget buildWidget( String elementName, Map<String, String> attributes, TestMetawidget metawidget ) {
+
+					if ( "bar".equals( attributes.get( NAME ) ) ) {
+						return null;
+					}
+
+					return super.buildWidget( elementName, attributes, metawidget );
+				}
+			} );
+		}
+	}
+
+	/* package private */static class TestWidgetBuilder
+		implements WidgetBuilder<StaticXmlWidget, TestMetawidget> {
+
+		//
+		// Public methods
+		//
+
+		public StaticXmlWidget buildWidget( String elementName, Map<String, String> attributes, TestMetawidget metawidget ) {
+
+			if ( ENTITY.equals( elementName ) ) {
+				return null;
+			}
+
+			if ( "bad".equals( attributes.get( NAME ) ) ) {
+				throw MetawidgetException.newException( "Bad property" );
+			}
+
+			return new BaseStaticXmlWidget( null, metawidget.getTagName( attributes.get( NAME ) ), null ) {
+				// Just a concrete version
+			};
+		}
+	}
+}
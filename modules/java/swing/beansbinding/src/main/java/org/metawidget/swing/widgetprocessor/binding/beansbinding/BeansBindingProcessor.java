@@ -33,9 +33,11 @@ import org.jdesktop.beansbinding.Bindings;
 import org.jdesktop.beansbinding.Converter;
 import org.metawidget.swing.SwingMetawidget;
 import org.metawidget.swing.widgetprocessor.binding.BindingConverter;
+import org.metawidget.swing.widgetprocessor.binding.ChangeTracker;
 import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.WidgetBuilderUtils;
+import org.metawidget.util.simple.ConverterRegistry;
 import org.metawidget.util.simple.ObjectUtils;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.util.simple.StringUtils;
@@ -57,6 +59,10 @@ import org.metawidget.widgetprocessor.iface.WidgetProcessorException;
  * there is no need to call <code>BeansBindingProcessor.save</code>.
  * </ul>
  * <p>
+ * When not using <code>READ_WRITE</code>, BeansBindingProcessor tracks which components the user
+ * has changed, so that <code>save</code> only writes back those properties, and
+ * <code>isDirty</code> can cheaply check whether there is anything to save.
+ * <p>
  * Note: <code>BeansBinding</code> does not bind <em>actions</em>, such as invoking a method when a
  * <code>JButton</code> is pressed. For that, see <code>ReflectionBindingProcessor</code> and
  * <code>MetawidgetActionStyle</code> or <code>SwingAppFrameworkActionStyle</code>.
@@ -71,9 +77,9 @@ public class BeansBindingProcessor
 	// Private members
 	//
 
-	private final UpdateStrategy							mUpdateStrategy;
+	private final UpdateStrategy						mUpdateStrategy;
 
-	private final Map<ConvertFromTo<?, ?>, Converter<?, ?>>	mConverters	= CollectionUtils.newHashMap();
+	private final ConverterRegistry<Converter<?, ?>>	mConverters	= new ConverterRegistry<Converter<?, ?>>();
 
 	//
 	// Constructor
@@ -101,7 +107,10 @@ public class BeansBindingProcessor
 		// Custom converters (defensive copy)
 
 		if ( config.getConverters() != null ) {
-			mConverters.putAll( config.getConverters() );
+			for ( Map.Entry<ConvertFromTo<?, ?>, Converter<?, ?>> entry : config.getConverters().entrySet() ) {
+				ConvertFromTo<?, ?> convertFromTo = entry.getKey();
+				mConverters.register( convertFromTo.getSource(), convertFromTo.getTarget(), entry.getValue() );
+			}
 		}
 	}
 
@@ -169,6 +178,8 @@ public class BeansBindingProcessor
 
 		if ( state.bindings != null ) {
 			for ( org.jdesktop.beansbinding.Binding<Object, ?, ? extends Component, ?> binding : state.bindings ) {
+				ChangeTracker changeTracker = state.changeTrackers.get( binding );
+
 				binding.unbind();
 				binding.setSourceObject( toRebind );
 				binding = processBinding( binding, metawidget );
@@ -184,6 +195,8 @@ public class BeansBindingProcessor
 				if ( failure != null ) {
 					throw WidgetProcessorException.newException( failure.getType().toString() );
 				}
+
+				changeTracker.reset();
 			}
 		}
 
@@ -220,12 +233,22 @@ public class BeansBindingProcessor
 					continue;
 				}
 
+				// Only save components that have changed
+
+				ChangeTracker changeTracker = state.changeTrackers.get( binding );
+
+				if ( !changeTracker.isChanged() ) {
+					continue;
+				}
+
 				try {
 					SyncFailure failure = binding.save();
 
 					if ( failure != null ) {
 						throw WidgetProcessorException.newException( failure.getConversionException() );
 					}
+
+					changeTracker.reset();
 				} catch ( ClassCastException e ) {
 					throw WidgetProcessorException.newException( "When saving from " + binding.getTargetObject().getClass() + " to " + sourceProperty + " (have you used BeansBindingProcessorConfig.setConverter?)", e );
 				}
@@ -241,6 +264,49 @@ public class BeansBindingProcessor
 		}
 	}
 
+	/**
+	 * Returns true if any bound component (of this Metawidget or its nested Metawidgets) has been
+	 * changed since it was last bound, rebound or saved. Cheap enough to be polled frequently, for
+	 * example to implement auto-save.
+	 * <p>
+	 * Always returns false when using <code>READ_WRITE</code>, as changes are saved immediately.
+	 */
+
+	public boolean isDirty( SwingMetawidget metawidget ) {
+
+		if ( UpdateStrategy.READ_WRITE.equals( mUpdateStrategy ) ) {
+			return false;
+		}
+
+		State state = getState( metawidget );
+
+		// Our bindings
+
+		if ( state.bindings != null ) {
+			for ( org.jdesktop.beansbinding.Binding<Object, ?, ? extends Component, ?> binding : state.bindings ) {
+				if ( binding.getConverter() instanceof ReadOnlyToStringConverter<?> ) {
+					continue;
+				}
+
+				if ( state.changeTrackers.get( binding ).isChanged() ) {
+					return true;
+				}
+			}
+		}
+
+		// Nested Metawidgets
+
+		if ( state.nestedMetawidgets != null ) {
+			for ( SwingMetawidget nestedMetawidget : state.nestedMetawidgets ) {
+				if ( isDirty( nestedMetawidget ) ) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
 	public Object convertFromString( String value, Class<?> expectedType ) {
 
 		if ( String.class.equals( expectedType ) ) {
@@ -361,10 +427,15 @@ public class BeansBindingProcessor
 
 		if ( state.bindings == null ) {
 			state.bindings = CollectionUtils.newHashSet();
+			state.changeTrackers = CollectionUtils.newHashMap();
 		}
 
 		state.bindings.add( (org.jdesktop.beansbinding.Binding<Object, V, T, W>) binding );
 
+		// Track changes (after binding, so as not to count the initial value)
+
+		state.changeTrackers.put( binding, new ChangeTracker( component ) );
+
 		return binding;
 	}
 
@@ -422,7 +493,7 @@ public class BeansBindingProcessor
 
 	private <S, T> void registerConverter( Class<S> source, Class<T> target, Converter<S, T> converter ) {
 
-		mConverters.put( new ConvertFromTo<S, T>( source, target ), converter );
+		mConverters.register( source, target, converter );
 	}
 
 	/**
@@ -432,28 +503,18 @@ public class BeansBindingProcessor
 	@SuppressWarnings( "unchecked" )
 	private <V, W> Converter<V, W> getConverter( Class<V> sourceClass, Class<W> targetClass ) {
 
-		Class<V> sourceClassTraversal = sourceClass;
-		Class<W> targetClassTraversal = targetClass;
-
-		if ( sourceClassTraversal.isPrimitive() ) {
-			sourceClassTraversal = (Class<V>) ClassUtils.getWrapperClass( sourceClassTraversal );
-		}
+		Class<?> source = sourceClass;
+		Class<?> target = targetClass;
 
-		if ( targetClassTraversal.isPrimitive() ) {
-			targetClassTraversal = (Class<W>) ClassUtils.getWrapperClass( targetClassTraversal );
+		if ( source.isPrimitive() ) {
+			source = ClassUtils.getWrapperClass( source );
 		}
 
-		while ( sourceClassTraversal != null ) {
-			Converter<V, W> converter = (Converter<V, W>) mConverters.get( new ConvertFromTo<V, W>( sourceClassTraversal, targetClassTraversal ) );
-
-			if ( converter != null ) {
-				return converter;
-			}
-
-			sourceClassTraversal = (Class<V>) sourceClassTraversal.getSuperclass();
+		if ( target.isPrimitive() ) {
+			target = ClassUtils.getWrapperClass( target );
 		}
 
-		return null;
+		return (Converter<V, W>) mConverters.get( source, target );
 	}
 
 	//
@@ -469,6 +530,8 @@ public class BeansBindingProcessor
 		public Set<org.jdesktop.beansbinding.Binding<Object, ?, ? extends Component, ?>>	bindings;
 
 		public Set<SwingMetawidget>															nestedMetawidgets;
+
+		public Map<org.jdesktop.beansbinding.Binding<?, ?, ?, ?>, ChangeTracker>			changeTrackers;
 	}
 
 	/* package private */static final class ConvertFromTo<S, T> {
@@ -495,6 +558,16 @@ public class BeansBindingProcessor
 		// Public methods
 		//
 
+		public Class<S> getSource() {
+
+			return mSource;
+		}
+
+		public Class<T> getTarget() {
+
+			return mTarget;
+		}
+
 		@Override
 		public boolean equals( Object that ) {
 
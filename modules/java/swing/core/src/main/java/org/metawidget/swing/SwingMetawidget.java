@@ -41,10 +41,12 @@ import org.metawidget.iface.MetawidgetException;
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessor;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.layout.iface.Layout;
+import org.metawidget.pipeline.base.BasePipeline;
 import org.metawidget.pipeline.w3c.W3CPipeline;
 import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.PropertyPath;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.util.simple.PathUtils.TypeAndNames;
 import org.metawidget.util.simple.StringUtils;
@@ -76,17 +78,17 @@ public class SwingMetawidget
 	// Private members
 	//
 
-	private Object					mToInspect;
+	private Object						mToInspect;
 
-	private String					mPath;
+	private String						mPath;
 
-	private ResourceBundle			mBundle;
+	private ResourceBundle				mBundle;
 
-	private boolean					mNeedToBuildWidgets;
+	private boolean						mNeedToBuildWidgets;
 
-	private Element					mLastInspectionResult;
+	private Element						mLastInspectionResult;
 
-	private boolean					mIgnoreAddRemove;
+	private boolean						mIgnoreAddRemove;
 
 	/**
 	 * List of existing, manually added components.
@@ -95,7 +97,7 @@ public class SwingMetawidget
 	 * is consistent.
 	 */
 
-	private List<JComponent>		mExistingComponents	= CollectionUtils.newArrayList();
+	private List<JComponent>			mExistingComponents	= CollectionUtils.newArrayList();
 
 	/**
 	 * List of existing, manually added, but unused by Metawidget components.
@@ -103,11 +105,26 @@ public class SwingMetawidget
 	 * This is a List, not a Set, for consistency during endBuild.
 	 */
 
-	private List<JComponent>		mExistingUnusedComponents;
+	private List<JComponent>			mExistingUnusedComponents;
 
-	private Map<String, Facet>		mFacets				= CollectionUtils.newHashMap();
+	private Map<String, Facet>			mFacets				= CollectionUtils.newHashMap();
 
-	/* package private */Pipeline	mPipeline;
+	/**
+	 * PropertyPaths used by <code>getValue</code> and <code>setValue</code>, keyed by component
+	 * class and value property, so that each resolves its getter and setter only once.
+	 */
+
+	private Map<String, PropertyPath>	mValuePropertyPaths	= CollectionUtils.newHashMap();
+
+	/**
+	 * Layouts deferred until first shown (such as lazy tabs). These must be run before looking up
+	 * components by name, so that <code>getComponent</code>, <code>getValue</code> and
+	 * <code>setValue</code> can see widgets the user has not yet opened.
+	 */
+
+	private List<Runnable>				mDeferredLayouts	= CollectionUtils.newArrayList();
+
+	/* package private */Pipeline		mPipeline;
 
 	//
 	// Constructor
@@ -410,6 +427,19 @@ public class SwingMetawidget
 		invalidateWidgets();
 	}
 
+	/**
+	 * Shares BuildPlans between SwingMetawidgets that render the same inspection result many times
+	 * (such as repeated address blocks).
+	 *
+	 * @see BasePipeline#setBuildPlans(Map)
+	 */
+
+	public void setBuildPlans( Map<String, BasePipeline.BuildPlan> buildPlans ) {
+
+		mPipeline.setBuildPlans( buildPlans );
+		invalidateInspection();
+	}
+
 	/**
 	 * Fetch a list of <code>JComponents</code> that were added manually, and have so far not been
 	 * used.
@@ -565,7 +595,8 @@ public class SwingMetawidget
 	public <T> T getValue( String... names ) {
 
 		ComponentAndValueProperty componentAndValueProperty = getComponentAndValueProperty( names );
-		return (T) ClassUtils.getProperty( componentAndValueProperty.getComponent(), componentAndValueProperty.getValueProperty() );
+		Component component = componentAndValueProperty.getComponent();
+		return (T) getValuePropertyPath( component, componentAndValueProperty.getValueProperty() ).getValue( component );
 	}
 
 	/**
@@ -579,7 +610,8 @@ public class SwingMetawidget
 	public void setValue( Object value, String... names ) {
 
 		ComponentAndValueProperty componentAndValueProperty = getComponentAndValueProperty( names );
-		ClassUtils.setProperty( componentAndValueProperty.getComponent(), componentAndValueProperty.getValueProperty(), value );
+		Component component = componentAndValueProperty.getComponent();
+		getValuePropertyPath( component, componentAndValueProperty.getValueProperty() ).setValue( component, value );
 	}
 
 	/**
@@ -618,9 +650,15 @@ public class SwingMetawidget
 				( (SwingMetawidget) topComponent ).buildWidgets();
 			}
 
-			// Try to find a component
+			// Try to find a component, laying out any deferred sections if necessary
+
+			Component component = getComponent( (Container) topComponent, name );
 
-			topComponent = getComponent( (Container) topComponent, name );
+			if ( component == null && topComponent instanceof SwingMetawidget && ( (SwingMetawidget) topComponent ).runDeferredLayouts() ) {
+				component = getComponent( (Container) topComponent, name );
+			}
+
+			topComponent = component;
 
 			if ( loop == length - 1 ) {
 				return (T) topComponent;
@@ -634,6 +672,20 @@ public class SwingMetawidget
 		return (T) topComponent;
 	}
 
+	/**
+	 * Registers a layout that has been deferred until first shown (such as a lazy tab).
+	 * <p>
+	 * Deferred layouts are run 'just in time' if a component cannot otherwise be found by
+	 * <code>getComponent</code>, <code>getValue</code> or <code>setValue</code>. Implementations
+	 * must therefore tolerate being run more than once. Deferred layouts are discarded on the next
+	 * build.
+	 */
+
+	public void addDeferredLayout( Runnable deferredLayout ) {
+
+		mDeferredLayouts.add( deferredLayout );
+	}
+
 	public Facet getFacet( String name ) {
 
 		buildWidgets();
@@ -834,6 +886,10 @@ public class SwingMetawidget
 				mLastInspectionResult = inspect();
 			}
 
+			// (clear before, not during, the build: the Pipeline starts the container layout,
+			// which may defer further layouts, before calling startBuild)
+
+			mDeferredLayouts.clear();
 			mPipeline.buildWidgets( mLastInspectionResult );
 		} catch ( Exception e ) {
 			throw MetawidgetException.newException( e );
@@ -915,6 +971,30 @@ public class SwingMetawidget
 		return mPipeline.inspectAsDom( mToInspect, typeAndNames.getType(), typeAndNames.getNamesAsArray() );
 	}
 
+	/**
+	 * Runs any deferred layouts.
+	 *
+	 * @return true if there were deferred layouts to run
+	 */
+
+	private boolean runDeferredLayouts() {
+
+		if ( mDeferredLayouts.isEmpty() ) {
+			return false;
+		}
+
+		// (copy, in case running a layout defers further layouts)
+
+		List<Runnable> deferredLayouts = CollectionUtils.newArrayList( mDeferredLayouts );
+		mDeferredLayouts.clear();
+
+		for ( Runnable deferredLayout : deferredLayouts ) {
+			deferredLayout.run();
+		}
+
+		return true;
+	}
+
 	private ComponentAndValueProperty getComponentAndValueProperty( String... names ) {
 
 		Component component = getComponent( names );
@@ -938,6 +1018,19 @@ public class SwingMetawidget
 		return new ComponentAndValueProperty( component, componentProperty );
 	}
 
+	private PropertyPath getValuePropertyPath( Component component, String valueProperty ) {
+
+		String key = component.getClass().getName() + StringUtils.SEPARATOR_DOT_CHAR + valueProperty;
+		PropertyPath valuePropertyPath = mValuePropertyPaths.get( key );
+
+		if ( valuePropertyPath == null ) {
+			valuePropertyPath = new PropertyPath( valueProperty );
+			mValuePropertyPaths.put( key, valuePropertyPath );
+		}
+
+		return valuePropertyPath;
+	}
+
 	private String getValueProperty( Component component, WidgetBuilder<JComponent, SwingMetawidget> widgetBuilder ) {
 
 		// Recurse into CompositeWidgetBuilders
@@ -25,6 +25,8 @@ import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
 import javax.swing.border.Border;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 import org.metawidget.swing.SwingMetawidget;
 import org.metawidget.util.CollectionUtils;
@@ -61,6 +63,8 @@ public class TabbedPaneLayoutDecorator
 
 	private final int			mTabPlacement;
 
+	private final boolean		mLazy;
+
 	//
 	// Constructor
 	//
@@ -70,6 +74,7 @@ public class TabbedPaneLayoutDecorator
 		super( config );
 
 		mTabPlacement = config.getTabPlacement();
+		mLazy = config.isLazy();
 	}
 
 	//
@@ -115,4 +120,47 @@ public class TabbedPaneLayoutDecorator
 
 		return tabPanel;
 	}
+
+	/**
+	 * Defers all but the selected tab, if lazy.
+	 */
+
+	@Override
+	protected boolean isDeferred( JComponent sectionWidget, SwingMetawidget metawidget ) {
+
+		if ( !mLazy ) {
+			return false;
+		}
+
+		return ( ( (JTabbedPane) sectionWidget.getParent() ).getSelectedComponent() != sectionWidget );
+	}
+
+	/**
+	 * Lays out the deferred tab when it is first selected. Also registers it with the Metawidget, so
+	 * that <code>getComponent</code>, <code>getValue</code> and <code>setValue</code> can lay it out
+	 * sooner if they need to.
+	 */
+
+	@Override
+	protected void deferSection( final DeferredSection<JComponent, JComponent, SwingMetawidget> deferredSection, SwingMetawidget metawidget ) {
+
+		metawidget.addDeferredLayout( deferredSection );
+
+		final JComponent tabPanel = deferredSection.getSectionWidget();
+		final JTabbedPane tabbedPane = (JTabbedPane) tabPanel.getParent();
+
+		tabbedPane.addChangeListener( new ChangeListener() {
+
+			public void stateChanged( ChangeEvent event ) {
+
+				if ( tabbedPane.getSelectedComponent() != tabPanel ) {
+					return;
+				}
+
+				tabbedPane.removeChangeListener( this );
+				deferredSection.run();
+				tabPanel.revalidate();
+			}
+		} );
+	}
 }
@@ -37,7 +37,9 @@ public class TabbedPaneLayoutDecoratorConfig
 	// Private members
 	//
 
-	private int	mTabPlacement	= SwingConstants.TOP;
+	private int		mTabPlacement	= SwingConstants.TOP;
+
+	private boolean	mLazy;
 
 	//
 	// Public methods
@@ -71,6 +73,24 @@ public class TabbedPaneLayoutDecoratorConfig
 		return this;
 	}
 
+	/**
+	 * Whether to defer laying out the components of each tab until that tab is first selected.
+	 * <p>
+	 * Lazy tabs make large, multi-tab forms quicker to display. However, until a tab is selected,
+	 * its components are not children of the SwingMetawidget, so cannot be found by
+	 * <code>getComponent</code>, <code>getValue</code> or those binding implementations (such as
+	 * <code>ReflectionBindingProcessor</code>) that find components by walking the SwingMetawidget.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public TabbedPaneLayoutDecoratorConfig setLazy( boolean lazy ) {
+
+		mLazy = lazy;
+
+		return this;
+	}
+
 	@Override
 	public boolean equals( Object that ) {
 
@@ -86,6 +106,10 @@ public class TabbedPaneLayoutDecoratorConfig
 			return false;
 		}
 
+		if ( mLazy != ( (TabbedPaneLayoutDecoratorConfig) that ).mLazy ) {
+			return false;
+		}
+
 		return super.equals( that );
 	}
 
@@ -94,6 +118,7 @@ public class TabbedPaneLayoutDecoratorConfig
 
 		int hashCode = super.hashCode();
 		hashCode = 31 * hashCode + mTabPlacement;
+		hashCode = 31 * hashCode + ( mLazy ? 1231 : 1237 );
 
 		return hashCode;
 	}
@@ -106,4 +131,9 @@ public class TabbedPaneLayoutDecoratorConfig
 
 		return mTabPlacement;
 	}
+
+	protected boolean isLazy() {
+
+		return mLazy;
+	}
 }
@@ -0,0 +1,602 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.swing.layout;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Insets;
+import java.awt.LayoutManager;
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import org.metawidget.layout.iface.AdvancedLayout;
+import org.metawidget.swing.Facet;
+import org.metawidget.swing.Stub;
+import org.metawidget.swing.SwingMetawidget;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.simple.SimpleLayoutUtils;
+
+/**
+ * Layout to arrange widgets in fixed-height rows, adding only those rows that are visible.
+ * <p>
+ * For entities with hundreds of properties, <code>GridBagLayout</code> must add, measure and
+ * position every component each time the Metawidget is laid out. VirtualLayout instead gives every
+ * row the same height, so that it can work out which rows are within the enclosing
+ * <code>JViewport</code> (if any). Only those rows are added to the container, and positioned.
+ * Rows are removed again as they scroll out of view, and their labels are recycled for the rows
+ * scrolling into view. Labels are only created for visible rows.
+ * <p>
+ * Components themselves are built by the WidgetBuilders, not by the Layout, so are still created
+ * up front. Binding implementations (such as <code>BeansBindingProcessor</code> and
+ * <code>ReflectionBindingProcessor</code>) hold references to them, so keep working for rows that
+ * are off screen. If <code>getComponent</code>, <code>getValue</code> or <code>setValue</code> ask
+ * for a component that has not been added, VirtualLayout adds all rows (but still only positions
+ * those that are visible).
+ * <p>
+ * Rows are clipped to the row height, so VirtualLayout best suits large forms of single-line
+ * components.
+ *
+ * @author Richard Kennard
+ */
+
+public class VirtualLayout
+	implements AdvancedLayout<JComponent, JComponent, SwingMetawidget> {
+
+	//
+	// Private statics
+	//
+
+	private static final int	SMALL_GAP			= 3;
+
+	private static final String	LABEL_NAME_SUFFIX	= "_label";
+
+	//
+	// Private members
+	//
+
+	private final int			mRowHeight;
+
+	private final String		mLabelSuffix;
+
+	/**
+	 * Preferred size of a single-line component, measured once. Used for the default row height, and
+	 * for the preferred width of the component column (so that the components themselves need never
+	 * be measured).
+	 * <p>
+	 * Layouts are immutable and shared, but this is only ever accessed from the Swing event thread.
+	 */
+
+	private Dimension			mPrototypeSize;
+
+	//
+	// Constructor
+	//
+
+	public VirtualLayout() {
+
+		this( new VirtualLayoutConfig() );
+	}
+
+	public VirtualLayout( VirtualLayoutConfig config ) {
+
+		mRowHeight = config.getRowHeight();
+		mLabelSuffix = config.getLabelSuffix();
+	}
+
+	//
+	// Public methods
+	//
+
+	public void onStartBuild( SwingMetawidget metawidget ) {
+
+		// Do nothing
+	}
+
+	public void startContainerLayout( JComponent container, SwingMetawidget metawidget ) {
+
+		if ( mPrototypeSize == null ) {
+			mPrototypeSize = new JTextField( 20 ).getPreferredSize();
+		}
+
+		int rowHeight = mRowHeight;
+
+		if ( rowHeight == 0 ) {
+			rowHeight = mPrototypeSize.height + SMALL_GAP;
+		}
+
+		// Rows are added to, and removed from, their own panel. This stops them invalidating the
+		// Metawidget as the user scrolls
+
+		JPanel rows = new JPanel();
+		rows.setOpaque( false );
+		rows.setLayout( new RowLayoutManager( rows, rowHeight, mPrototypeSize.width ) );
+
+		container.setLayout( new BorderLayout() );
+		container.add( rows, BorderLayout.CENTER );
+		container.putClientProperty( VirtualLayout.class, rows );
+	}
+
+	public void layoutWidget( JComponent component, String elementName, Map<String, String> attributes, JComponent container, SwingMetawidget metawidget ) {
+
+		// Do not render empty stubs
+
+		if ( component instanceof Stub && ( (Stub) component ).getComponentCount() == 0 ) {
+			return;
+		}
+
+		// Label
+
+		String labelText = null;
+		String labelName = null;
+
+		if ( attributes != null ) {
+			labelText = metawidget.getLabelString( attributes );
+		}
+
+		if ( SimpleLayoutUtils.needsLabel( labelText, elementName ) ) {
+			labelText = SimpleLayoutUtils.stripMnemonic( labelText ).getStrippedMnemonic();
+
+			if ( mLabelSuffix != null ) {
+				labelText += mLabelSuffix;
+			}
+
+			labelName = attributes.get( NAME ) + LABEL_NAME_SUFFIX;
+		} else {
+			labelText = null;
+		}
+
+		addRow( labelText, labelName, component, container, metawidget );
+	}
+
+	public void endContainerLayout( JComponent container, SwingMetawidget metawidget ) {
+
+		// Do nothing
+	}
+
+	public void onEndBuild( SwingMetawidget metawidget ) {
+
+		// Buttons
+
+		Facet buttonsFacet = metawidget.getFacet( "buttons" );
+
+		if ( buttonsFacet != null ) {
+			addRow( null, null, buttonsFacet, metawidget, metawidget );
+		}
+	}
+
+	//
+	// Private methods
+	//
+
+	private void addRow( String labelText, String labelName, JComponent component, JComponent container, SwingMetawidget metawidget ) {
+
+		JComponent rows = (JComponent) container.getClientProperty( VirtualLayout.class );
+		RowLayoutManager rowLayoutManager = (RowLayoutManager) rows.getLayout();
+
+		// Let getComponent add rows that are not yet visible
+
+		if ( rowLayoutManager.getRowCount() == 0 ) {
+			metawidget.addDeferredLayout( rowLayoutManager );
+		}
+
+		rowLayoutManager.addRow( labelText, labelName, component );
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * LayoutManager that adds and positions only the rows within the visible rectangle of its
+	 * container.
+	 * <p>
+	 * Registers itself with the enclosing <code>JViewport</code> (if any) so that it can add newly
+	 * visible rows as the user scrolls. As a <code>Runnable</code>, adds all rows.
+	 */
+
+	/* package private */static class RowLayoutManager
+		implements LayoutManager, ChangeListener, Runnable {
+
+		//
+		// Private members
+		//
+
+		private final JComponent	mContainer;
+
+		private final int			mRowHeight;
+
+		private final int			mPrototypeWidth;
+
+		private List<String>		mLabelTexts		= CollectionUtils.newArrayList();
+
+		private List<String>		mLabelNames		= CollectionUtils.newArrayList();
+
+		private List<JComponent>	mComponents		= CollectionUtils.newArrayList();
+
+		/**
+		 * Label of each row currently added to the container, or null.
+		 */
+
+		private List<JLabel>		mLabels			= CollectionUtils.newArrayList();
+
+		/**
+		 * Labels of rows that have scrolled out of view, for reuse.
+		 */
+
+		private List<JLabel>		mUnusedLabels	= CollectionUtils.newArrayList();
+
+		/**
+		 * Labels of rows whose components have been removed by a client. These cannot be removed
+		 * during <code>removeLayoutComponent</code> (the container is part way through its own
+		 * removal) so are removed by the next <code>layoutContainer</code>.
+		 */
+
+		private List<JLabel>		mOrphanedLabels	= CollectionUtils.newArrayList();
+
+		/**
+		 * Width of the label column, or -1 if it needs calculating.
+		 */
+
+		private int					mLabelWidth		= -1;
+
+		/**
+		 * First and last rows added by the previous <code>layoutContainer</code>, so that they can
+		 * be removed without visiting every row.
+		 */
+
+		private int					mFirstRow;
+
+		private int					mLastRow		= -1;
+
+		/**
+		 * Whether all rows have been added (by <code>run</code>).
+		 */
+
+		private boolean				mAllRowsAdded;
+
+		/**
+		 * Whether we are adding or removing rows ourselves (as opposed to a client removing them).
+		 */
+
+		private boolean				mAddingOrRemoving;
+
+		private JViewport			mViewport;
+
+		//
+		// Constructor
+		//
+
+		public RowLayoutManager( JComponent container, int rowHeight, int prototypeWidth ) {
+
+			mContainer = container;
+			mRowHeight = rowHeight;
+			mPrototypeWidth = prototypeWidth;
+		}
+
+		//
+		// Public methods
+		//
+
+		/**
+		 * @param labelText
+		 *            text of the label, or null for no label
+		 */
+
+		public void addRow( String labelText, String labelName, JComponent component ) {
+
+			mLabelTexts.add( labelText );
+			mLabelNames.add( labelName );
+			mComponents.add( component );
+			mLabels.add( null );
+			mLabelWidth = -1;
+
+			if ( mAllRowsAdded ) {
+				addRowToContainer( mComponents.size() - 1 );
+			}
+		}
+
+		public int getRowCount() {
+
+			return mComponents.size();
+		}
+
+		/**
+		 * Adds all rows to the container, so that they can be found by name. Only visible rows are
+		 * positioned.
+		 */
+
+		public void run() {
+
+			if ( mAllRowsAdded ) {
+				return;
+			}
+
+			mAllRowsAdded = true;
+
+			for ( int row = 0, size = mComponents.size(); row < size; row++ ) {
+				addRowToContainer( row );
+			}
+		}
+
+		public void addLayoutComponent( String name, Component component ) {
+
+			// Rows are added using addRow
+		}
+
+		public void removeLayoutComponent( Component component ) {
+
+			if ( mAddingOrRemoving ) {
+				return;
+			}
+
+			// Search from the end, as Container.removeAll removes from the end
+
+			int index = mComponents.lastIndexOf( component );
+
+			if ( index != -1 ) {
+				mLabelTexts.remove( index );
+				mLabelNames.remove( index );
+				mComponents.remove( index );
+
+				JLabel label = mLabels.remove( index );
+
+				if ( label != null ) {
+					label.setBounds( 0, 0, 0, 0 );
+					mOrphanedLabels.add( label );
+				}
+
+				mLastRow = Math.min( mLastRow, mComponents.size() - 1 );
+				mLabelWidth = -1;
+				return;
+			}
+
+			index = mLabels.lastIndexOf( component );
+
+			if ( index != -1 ) {
+				mLabels.set( index, null );
+				return;
+			}
+
+			mOrphanedLabels.remove( component );
+		}
+
+		public Dimension preferredLayoutSize( Container parent ) {
+
+			// Never measure the components themselves (that would defeat the purpose)
+
+			Insets insets = parent.getInsets();
+			int width = insets.left + getLabelWidth() + mPrototypeWidth + insets.right;
+			int height = insets.top + mComponents.size() * mRowHeight + insets.bottom;
+
+			return new Dimension( width, height );
+		}
+
+		public Dimension minimumLayoutSize( Container parent ) {
+
+			return preferredLayoutSize( parent );
+		}
+
+		public void layoutContainer( Container parent ) {
+
+			listenToViewport();
+			removeOrphanedLabels();
+
+			Insets insets = parent.getInsets();
+			Rectangle visible = mContainer.getVisibleRect();
+			int size = mComponents.size();
+			int firstRow = Math.max( 0, ( visible.y - insets.top ) / mRowHeight );
+			int lastRow = Math.min( size - 1, ( visible.y + visible.height - insets.top ) / mRowHeight );
+
+			// Remove rows that are no longer visible
+
+			for ( int row = mFirstRow; row <= mLastRow; row++ ) {
+				if ( row < firstRow || row > lastRow ) {
+					removeRowFromContainer( row );
+				}
+			}
+
+			// Add and position rows that are
+
+			int labelWidth = getLabelWidth();
+			int left = insets.left;
+			int width = parent.getWidth() - insets.left - insets.right;
+
+			for ( int row = firstRow; row <= lastRow; row++ ) {
+				addRowToContainer( row );
+
+				int top = insets.top + row * mRowHeight;
+				JLabel label = mLabels.get( row );
+
+				if ( label == null ) {
+					mComponents.get( row ).setBounds( left, top, width, mRowHeight - SMALL_GAP );
+				} else {
+					label.setBounds( left, top, labelWidth - SMALL_GAP, mRowHeight - SMALL_GAP );
+					mComponents.get( row ).setBounds( left + labelWidth, top, width - labelWidth, mRowHeight - SMALL_GAP );
+				}
+			}
+
+			mFirstRow = firstRow;
+			mLastRow = lastRow;
+		}
+
+		/**
+		 * Called when the enclosing viewport scrolls.
+		 */
+
+		public void stateChanged( ChangeEvent event ) {
+
+			// Stale (container has been rebuilt, or moved)?
+
+			if ( SwingUtilities.getAncestorOfClass( JViewport.class, mContainer ) != mViewport ) {
+				mViewport.removeChangeListener( this );
+				mViewport = null;
+				return;
+			}
+
+			layoutContainer( mContainer );
+			mContainer.repaint();
+		}
+
+		//
+		// Private methods
+		//
+
+		private void listenToViewport() {
+
+			if ( mViewport != null ) {
+				return;
+			}
+
+			mViewport = (JViewport) SwingUtilities.getAncestorOfClass( JViewport.class, mContainer );
+
+			if ( mViewport != null ) {
+				mViewport.addChangeListener( this );
+			}
+		}
+
+		private void removeOrphanedLabels() {
+
+			if ( mOrphanedLabels.isEmpty() ) {
+				return;
+			}
+
+			mAddingOrRemoving = true;
+
+			try {
+				for ( JLabel label : mOrphanedLabels ) {
+					mContainer.remove( label );
+				}
+
+				mOrphanedLabels.clear();
+			} finally {
+				mAddingOrRemoving = false;
+			}
+		}
+
+		/**
+		 * Adds the given row's component to the container, along with a (possibly recycled) label.
+		 */
+
+		private void addRowToContainer( int row ) {
+
+			mAddingOrRemoving = true;
+
+			try {
+				JComponent component = mComponents.get( row );
+
+				if ( component.getParent() != mContainer ) {
+					mContainer.add( component );
+				}
+
+				String labelText = mLabelTexts.get( row );
+
+				if ( labelText == null || mLabels.get( row ) != null ) {
+					return;
+				}
+
+				JLabel label;
+
+				if ( mUnusedLabels.isEmpty() ) {
+					label = new JLabel();
+				} else {
+					label = mUnusedLabels.remove( mUnusedLabels.size() - 1 );
+				}
+
+				label.setText( labelText );
+				label.setName( mLabelNames.get( row ) );
+				label.setLabelFor( component );
+				mContainer.add( label );
+				mLabels.set( row, label );
+			} finally {
+				mAddingOrRemoving = false;
+			}
+		}
+
+		/**
+		 * Removes the given row from the container (unless all rows have been added, in which case
+		 * just stops positioning it) and recycles its label.
+		 */
+
+		private void removeRowFromContainer( int row ) {
+
+			JComponent component = mComponents.get( row );
+			JLabel label = mLabels.get( row );
+
+			// Clear bounds, in case the row is added back before it is positioned
+
+			component.setBounds( 0, 0, 0, 0 );
+
+			if ( label != null ) {
+				label.setBounds( 0, 0, 0, 0 );
+			}
+
+			if ( mAllRowsAdded ) {
+				return;
+			}
+
+			mAddingOrRemoving = true;
+
+			try {
+				mContainer.remove( component );
+
+				if ( label != null ) {
+					mContainer.remove( label );
+					mLabels.set( row, null );
+					mUnusedLabels.add( label );
+				}
+			} finally {
+				mAddingOrRemoving = false;
+			}
+		}
+
+		/**
+		 * Labels are cheap to measure, so the label column is sized to fit all of them (whether
+		 * visible or not).
+		 */
+
+		private int getLabelWidth() {
+
+			if ( mLabelWidth == -1 ) {
+				mLabelWidth = 0;
+				JLabel measure = new JLabel();
+
+				for ( String labelText : mLabelTexts ) {
+					if ( labelText != null ) {
+						measure.setText( labelText );
+						mLabelWidth = Math.max( mLabelWidth, measure.getPreferredSize().width + SMALL_GAP );
+					}
+				}
+			}
+
+			return mLabelWidth;
+		}
+	}
+}
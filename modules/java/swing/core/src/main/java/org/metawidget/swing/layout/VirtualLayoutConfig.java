@@ -0,0 +1,117 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.swing.layout;
+
+import org.metawidget.layout.iface.LayoutException;
+import org.metawidget.util.simple.ObjectUtils;
+import org.metawidget.util.simple.StringUtils;
+
+/**
+ * Configures a VirtualLayout prior to use. Once instantiated, Layouts are immutable.
+ *
+ * @author Richard Kennard
+ */
+
+public class VirtualLayoutConfig {
+
+	//
+	// Private members
+	//
+
+	private int		mRowHeight;
+
+	private String	mLabelSuffix	= StringUtils.SEPARATOR_COLON;
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Height of every row, in pixels (including the gap between rows). If 0, uses the height of a
+	 * <code>JTextField</code>.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public VirtualLayoutConfig setRowHeight( int rowHeight ) {
+
+		if ( rowHeight < 0 ) {
+			throw LayoutException.newException( "rowHeight must be >= 0" );
+		}
+
+		mRowHeight = rowHeight;
+
+		return this;
+	}
+
+	/**
+	 * @return this, as part of a fluent interface
+	 */
+
+	public VirtualLayoutConfig setLabelSuffix( String labelSuffix ) {
+
+		mLabelSuffix = labelSuffix;
+
+		return this;
+	}
+
+	@Override
+	public boolean equals( Object that ) {
+
+		if ( this == that ) {
+			return true;
+		}
+
+		if ( !ObjectUtils.nullSafeClassEquals( this, that )) {
+			return false;
+		}
+
+		if ( mRowHeight != ( (VirtualLayoutConfig) that ).mRowHeight ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mLabelSuffix, ( (VirtualLayoutConfig) that ).mLabelSuffix ) ) {
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+
+		int hashCode = 1;
+		hashCode = 31 * hashCode + mRowHeight;
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mLabelSuffix );
+
+		return hashCode;
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected int getRowHeight() {
+
+		return mRowHeight;
+	}
+
+	protected String getLabelSuffix() {
+
+		return mLabelSuffix;
+	}
+}
@@ -17,6 +17,7 @@
 package org.metawidget.swing.widgetbuilder;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
+import static org.metawidget.inspector.propertytype.PropertyTypeInspectionResultConstants.*;
 
 import java.awt.Component;
 import java.text.DecimalFormat;
@@ -49,7 +50,7 @@ import org.metawidget.swing.widgetprocessor.binding.BindingConverter;
 import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.WidgetBuilderUtils;
-import org.metawidget.widgetbuilder.iface.WidgetBuilder;
+import org.metawidget.widgetbuilder.iface.SelectiveWidgetBuilder;
 
 /**
  * WidgetBuilder for Swing environments.
@@ -61,7 +62,18 @@ import org.metawidget.widgetbuilder.iface.WidgetBuilder;
  */
 
 public class SwingWidgetBuilder
-	implements WidgetBuilder<JComponent, SwingMetawidget>, SwingValuePropertyProvider {
+	implements SelectiveWidgetBuilder<JComponent, SwingMetawidget>, SwingValuePropertyProvider {
+
+	//
+	// Private statics
+	//
+
+	/**
+	 * Attributes that decide whether <code>buildWidget</code> returns a widget, as opposed to null
+	 * (for a nested Metawidget).
+	 */
+
+	private static final String[]	SELECTOR_ATTRIBUTES	= new String[] { HIDDEN, ACTUAL_CLASS, TYPE, REQUIRED, LOOKUP, DONT_EXPAND };
 
 	//
 	// Public methods
@@ -92,6 +104,11 @@ public class SwingWidgetBuilder
 		return null;
 	}
 
+	public String[] getSelectorAttributes() {
+
+		return SELECTOR_ATTRIBUTES.clone();
+	}
+
 	public JComponent buildWidget( String elementName, Map<String, String> attributes, SwingMetawidget metawidget ) {
 
 		// Hidden
@@ -0,0 +1,206 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.swing.widgetprocessor.binding;
+
+import java.awt.Component;
+import java.awt.event.ItemEvent;
+import java.awt.event.ItemListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+import javax.swing.AbstractButton;
+import javax.swing.JComboBox;
+import javax.swing.JList;
+import javax.swing.JSlider;
+import javax.swing.JSpinner;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Tracks whether the value of a bound Component has changed.
+ * <p>
+ * Binding implementations create a ChangeTracker at bind time, and <code>reset</code> it
+ * whenever they push a value into the Component (at bind time, on <code>rebind</code>) or pull a
+ * value out of it (on <code>save</code>). <code>save</code> can then skip converting and writing
+ * back values that the user has not touched.
+ * <p>
+ * ChangeTracker recognizes the usual Swing components (text components, buttons, combo boxes,
+ * spinners, sliders and lists). Other components cannot be tracked, so are always reported as
+ * changed.
+ *
+ * @author Richard Kennard
+ */
+
+public class ChangeTracker {
+
+	//
+	// Private members
+	//
+
+	private final boolean		mTrackable;
+
+	/**
+	 * Volatile, as clients may poll <code>isChanged</code> (eg. for auto-save) from outside the
+	 * Event Dispatch Thread.
+	 */
+
+	private volatile boolean	mChanged;
+
+	//
+	// Constructor
+	//
+
+	public ChangeTracker( Component component ) {
+
+		mTrackable = listen( component );
+	}
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * @return true if the Component's value has changed since it was last reset, or if the
+	 *         Component cannot be tracked
+	 */
+
+	public boolean isChanged() {
+
+		return ( mChanged || !mTrackable );
+	}
+
+	public void reset() {
+
+		mChanged = false;
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * @return true if the component could be tracked
+	 */
+
+	private boolean listen( Component component ) {
+
+		// Text components (listen to their Document, and to the Document being replaced)
+
+		if ( component instanceof JTextComponent ) {
+			final DocumentListener documentListener = new DocumentListener() {
+
+				public void insertUpdate( DocumentEvent event ) {
+
+					mChanged = true;
+				}
+
+				public void removeUpdate( DocumentEvent event ) {
+
+					mChanged = true;
+				}
+
+				public void changedUpdate( DocumentEvent event ) {
+
+					// Attribute changes only
+				}
+			};
+
+			( (JTextComponent) component ).getDocument().addDocumentListener( documentListener );
+			component.addPropertyChangeListener( "document", new PropertyChangeListener() {
+
+				public void propertyChange( PropertyChangeEvent event ) {
+
+					( (Document) event.getOldValue() ).removeDocumentListener( documentListener );
+					( (Document) event.getNewValue() ).addDocumentListener( documentListener );
+					mChanged = true;
+				}
+			} );
+
+			return true;
+		}
+
+		// Buttons and combo boxes
+
+		ItemListener itemListener = new ItemListener() {
+
+			public void itemStateChanged( ItemEvent event ) {
+
+				mChanged = true;
+			}
+		};
+
+		if ( component instanceof AbstractButton ) {
+			( (AbstractButton) component ).addItemListener( itemListener );
+			return true;
+		}
+
+		if ( component instanceof JComboBox ) {
+			JComboBox comboBox = (JComboBox) component;
+
+			// Editable combo boxes can change without an item being selected
+
+			if ( comboBox.isEditable() ) {
+				return false;
+			}
+
+			comboBox.addItemListener( itemListener );
+			return true;
+		}
+
+		// Spinners and sliders
+
+		ChangeListener changeListener = new ChangeListener() {
+
+			public void stateChanged( ChangeEvent event ) {
+
+				mChanged = true;
+			}
+		};
+
+		if ( component instanceof JSpinner ) {
+			( (JSpinner) component ).addChangeListener( changeListener );
+			return true;
+		}
+
+		if ( component instanceof JSlider ) {
+			( (JSlider) component ).addChangeListener( changeListener );
+			return true;
+		}
+
+		// Lists
+
+		if ( component instanceof JList ) {
+			( (JList) component ).addListSelectionListener( new ListSelectionListener() {
+
+				public void valueChanged( ListSelectionEvent event ) {
+
+					mChanged = true;
+				}
+			} );
+
+			return true;
+		}
+
+		return false;
+	}
+}
@@ -30,8 +30,8 @@ import javax.swing.JComponent;
 
 import org.metawidget.swing.Stub;
 import org.metawidget.swing.SwingMetawidget;
-import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.PropertyPath;
 import org.metawidget.util.WidgetBuilderUtils;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.widgetprocessor.iface.AdvancedWidgetProcessor;
@@ -185,11 +185,11 @@ public class ReflectionBindingProcessor
 		// Private members
 		//
 
-		private Object		mBindTo;
+		private Object			mBindTo;
 
-		private String[]	mNames;
+		private PropertyPath	mPath;
 
-		private Method		mAction;
+		private Method			mAction;
 
 		//
 		// Constructor
@@ -205,19 +205,14 @@ public class ReflectionBindingProcessor
 				return;
 			}
 
-			mNames = PathUtils.parsePath( path ).getNamesAsArray();
+			mPath = new PropertyPath( PathUtils.parsePath( path ).getNamesAsArray() );
 
 			// Traverse to the last Object
 
-			Object traverse = mBindTo;
+			Object traverse = mPath.getValue( mBindTo );
 
-			for ( String subName : mNames ) {
-
-				if ( traverse == null ) {
-					return;
-				}
-
-				traverse = ClassUtils.getProperty( traverse, subName );
+			if ( traverse == null ) {
+				return;
 			}
 
 			try {
@@ -250,15 +245,10 @@ public class ReflectionBindingProcessor
 
 			// Traverse to the last Object
 
-			Object traverse = mBindTo;
+			Object traverse = mPath.getValue( mBindTo );
 
-			for ( String name : mNames ) {
-
-				if ( traverse == null ) {
-					return;
-				}
-
-				traverse = ClassUtils.getProperty( traverse, name );
+			if ( traverse == null ) {
+				return;
 			}
 
 			try {
@@ -18,6 +18,7 @@ package org.metawidget.swing.layout;
 
 import java.awt.Component;
 
+import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -29,9 +30,11 @@ import javax.swing.SwingConstants;
 
 import junit.framework.TestCase;
 
+import org.metawidget.inspector.annotation.UiAction;
 import org.metawidget.inspector.annotation.UiLarge;
 import org.metawidget.inspector.annotation.UiSection;
 import org.metawidget.swing.SwingMetawidget;
+import org.metawidget.swing.widgetprocessor.binding.reflection.ReflectionBindingProcessor;
 import org.metawidget.util.MetawidgetTestUtils;
 
 /**
@@ -135,6 +138,108 @@ public class TabbedPaneLayoutDecoratorTest
 		assertEquals( (Component) metawidget.getComponent( 4 ), (Component) metawidget.getComponent( "stu" ) );
 	}
 
+	public void testLazy() {
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.setMetawidgetLayout( new TabbedPaneLayoutDecorator( new TabbedPaneLayoutDecoratorConfig().setLazy( true ).setLayout( new TabbedPaneLayoutDecorator( new TabbedPaneLayoutDecoratorConfig().setLazy( true ).setLayout( new org.metawidget.swing.layout.GridBagLayout() ) ) ) ) );
+		metawidget.setToInspect( new Bar() );
+
+		// Selected tabs are laid out immediately
+
+		JTabbedPane outerTabbedPane = (JTabbedPane) metawidget.getComponent( 2 );
+		JPanel outerPanel = (JPanel) outerTabbedPane.getComponent( 0 );
+		assertEquals( 4, outerPanel.getComponentCount() );
+
+		JTabbedPane innerTabbedPane = (JTabbedPane) outerPanel.getComponent( 0 );
+		JPanel barPanel = (JPanel) innerTabbedPane.getComponent( 0 );
+		assertEquals( 4, barPanel.getComponentCount() );
+		assertTrue( barPanel.getComponent( 1 ) == metawidget.getComponent( "def" ) );
+
+		// Other tabs are deferred until selected
+
+		assertEquals( "Baz", innerTabbedPane.getTitleAt( 1 ) );
+		JPanel bazPanel = (JPanel) innerTabbedPane.getComponent( 1 );
+		assertEquals( 0, bazPanel.getComponentCount() );
+
+		innerTabbedPane.setSelectedIndex( 1 );
+		assertEquals( "Jkl:", ( (JLabel) bazPanel.getComponent( 0 ) ).getText() );
+		assertTrue( bazPanel.getComponent( 1 ) instanceof JTextField );
+		assertTrue( bazPanel.getComponent( 2 ) instanceof JPanel );
+		assertEquals( 3, bazPanel.getComponentCount() );
+		assertTrue( bazPanel.getComponent( 1 ) == metawidget.getComponent( "jkl" ) );
+
+		// Only once
+
+		innerTabbedPane.setSelectedIndex( 0 );
+		innerTabbedPane.setSelectedIndex( 1 );
+		assertEquals( 3, bazPanel.getComponentCount() );
+		assertEquals( 5, metawidget.getComponentCount() );
+	}
+
+	public void testLazyGetValue() {
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.setMetawidgetLayout( new TabbedPaneLayoutDecorator( new TabbedPaneLayoutDecoratorConfig().setLazy( true ).setLayout( new org.metawidget.swing.layout.GridBagLayout() ) ) );
+		metawidget.setToInspect( new Qux() );
+
+		JTabbedPane tabbedPane = (JTabbedPane) metawidget.getComponent( 0 );
+		JPanel bazPanel = (JPanel) tabbedPane.getComponent( 1 );
+		assertEquals( 0, bazPanel.getComponentCount() );
+
+		// Components on unopened tabs are laid out 'just in time'
+
+		metawidget.setValue( "Jkl1", "jkl" );
+		assertEquals( "Jkl1", metawidget.getValue( "jkl" ) );
+		assertEquals( "Jkl:", ( (JLabel) bazPanel.getComponent( 0 ) ).getText() );
+		assertTrue( bazPanel.getComponent( 1 ) == metawidget.getComponent( "jkl" ) );
+		assertEquals( 0, tabbedPane.getSelectedIndex() );
+
+		// Selecting the tab later does not lay it out again
+
+		int componentCount = bazPanel.getComponentCount();
+		tabbedPane.setSelectedIndex( 1 );
+		assertEquals( componentCount, bazPanel.getComponentCount() );
+		assertEquals( "Jkl1", metawidget.getValue( "jkl" ) );
+
+		// Unknown names still return null
+
+		assertTrue( null == metawidget.getComponent( "no-such-component" ) );
+	}
+
+	public void testLazyRebind() {
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.addWidgetProcessor( new ReflectionBindingProcessor() );
+		metawidget.setMetawidgetLayout( new TabbedPaneLayoutDecorator( new TabbedPaneLayoutDecoratorConfig().setLazy( true ).setLayout( new org.metawidget.swing.layout.GridBagLayout() ) ) );
+		Qux qux1 = new Qux();
+		metawidget.setToInspect( qux1 );
+
+		JTabbedPane tabbedPane = (JTabbedPane) metawidget.getComponent( 0 );
+		JPanel bazPanel = (JPanel) tabbedPane.getComponent( 1 );
+		assertEquals( 0, bazPanel.getComponentCount() );
+
+		// Rebind before the tab is opened
+
+		Qux qux2 = new Qux();
+		metawidget.getWidgetProcessor( ReflectionBindingProcessor.class ).rebind( qux2, metawidget );
+		assertEquals( 0, bazPanel.getComponentCount() );
+
+		tabbedPane.setSelectedIndex( 1 );
+		JButton button = metawidget.getComponent( "pqr" );
+		assertTrue( button.getParent() == bazPanel );
+		button.doClick();
+		assertFalse( qux1.pqrd );
+		assertTrue( qux2.pqrd );
+
+		// Rebuilding discards deferred layouts
+
+		metawidget.setToInspect( new Qux() );
+		tabbedPane = (JTabbedPane) metawidget.getComponent( 0 );
+		bazPanel = (JPanel) tabbedPane.getComponent( 1 );
+		assertEquals( 0, bazPanel.getComponentCount() );
+		assertTrue( metawidget.getComponent( "pqr" ).getParent() == bazPanel );
+	}
+
 	public static void main( String[] args ) {
 
 		SwingMetawidget metawidget = new SwingMetawidget();
@@ -269,4 +374,37 @@ public class TabbedPaneLayoutDecoratorTest
 			// Do nothing
 		}
 	}
+
+	public static class Qux {
+
+		/* package private */boolean	pqrd;
+
+		@UiSection( "Bar" )
+		public String getAbc() {
+
+			return null;
+		}
+
+		public void setAbc( @SuppressWarnings( "unused" ) String abc ) {
+
+			// Do nothing
+		}
+
+		@UiSection( "Baz" )
+		public String getJkl() {
+
+			return null;
+		}
+
+		public void setJkl( @SuppressWarnings( "unused" ) String jkl ) {
+
+			// Do nothing
+		}
+
+		@UiAction
+		public void pqr() {
+
+			pqrd = true;
+		}
+	}
 }
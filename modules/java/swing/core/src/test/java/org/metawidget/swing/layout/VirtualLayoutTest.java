@@ -0,0 +1,201 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.swing.layout;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.awt.Point;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+
+import junit.framework.TestCase;
+
+import org.metawidget.swing.Stub;
+import org.metawidget.swing.SwingMetawidget;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.MetawidgetTestUtils;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class VirtualLayoutTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testConfig() {
+
+		MetawidgetTestUtils.testEqualsAndHashcode( VirtualLayoutConfig.class, new VirtualLayoutConfig() {
+			// Subclass
+		} );
+	}
+
+	public void testLayout()
+		throws Exception {
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		JComponent container = new JPanel();
+
+		VirtualLayout virtualLayout = new VirtualLayout( new VirtualLayoutConfig().setRowHeight( 20 ) );
+		virtualLayout.startContainerLayout( container, metawidget );
+		JComponent rows = (JComponent) container.getComponent( 0 );
+		assertTrue( rows.getLayout() instanceof VirtualLayout.RowLayoutManager );
+		VirtualLayout.RowLayoutManager rowLayoutManager = (VirtualLayout.RowLayoutManager) rows.getLayout();
+
+		// Empty stubs are ignored
+
+		virtualLayout.layoutWidget( new Stub(), PROPERTY, null, container, metawidget );
+		assertEquals( 0, rowLayoutManager.getRowCount() );
+
+		// 100 rows, each with a label, but nothing added until laid out
+
+		JTextField[] textFields = new JTextField[100];
+
+		for ( int loop = 0; loop < 100; loop++ ) {
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+			attributes.put( NAME, "field" + loop );
+			textFields[loop] = new JTextField();
+			virtualLayout.layoutWidget( textFields[loop], PROPERTY, attributes, container, metawidget );
+		}
+
+		assertEquals( 100, rowLayoutManager.getRowCount() );
+		assertEquals( 0, rows.getComponentCount() );
+		assertEquals( 2000, container.getPreferredSize().height );
+
+		// Only visible rows are added and positioned
+
+		JScrollPane scrollPane = new JScrollPane( container );
+		scrollPane.setSize( 300, 100 );
+		scrollPane.doLayout();
+		scrollPane.getViewport().doLayout();
+		container.doLayout();
+		rows.doLayout();
+
+		assertEquals( 10, rows.getComponentCount() );
+		JLabel label = (JLabel) rows.getComponent( 1 );
+		assertEquals( "Field 0:", label.getText() );
+		assertEquals( "field0_label", label.getName() );
+		assertTrue( textFields[0] == label.getLabelFor() );
+		assertEquals( 0, textFields[0].getY() );
+		assertTrue( textFields[0].getWidth() > 0 );
+		assertEquals( 17, textFields[0].getHeight() );
+		assertEquals( 17, label.getHeight() );
+		assertTrue( label.getWidth() > 0 );
+		assertTrue( rows == textFields[4].getParent() );
+		assertTrue( null == textFields[5].getParent() );
+
+		// Scrolling adds newly visible rows, removes the others, and recycles their labels
+
+		scrollPane.getViewport().setViewPosition( new Point( 0, 1000 ) );
+		assertTrue( null == textFields[0].getParent() );
+		assertTrue( rows == textFields[50].getParent() );
+		assertEquals( 1000, textFields[50].getY() );
+		assertTrue( textFields[50].getWidth() > 0 );
+		assertEquals( 10, rows.getComponentCount() );
+		assertTrue( label.getName().startsWith( "field5" ) );
+
+		// Removing components removes their rows
+
+		rows.remove( textFields[50] );
+		assertEquals( 99, rowLayoutManager.getRowCount() );
+		rows.doLayout();
+		assertEquals( 10, rows.getComponentCount() );
+		assertTrue( rows == textFields[55].getParent() );
+	}
+
+	public void testOffScreenRows() {
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.setMetawidgetLayout( new VirtualLayout( new VirtualLayoutConfig().setRowHeight( 20 ) ) );
+		metawidget.setToInspect( new Foo() );
+
+		JScrollPane scrollPane = new JScrollPane( metawidget );
+		scrollPane.setSize( 300, 10 );
+		scrollPane.doLayout();
+		scrollPane.getViewport().doLayout();
+		metawidget.doLayout();
+		JComponent rows = (JComponent) metawidget.getComponent( 0 );
+		rows.doLayout();
+
+		assertEquals( 2, rows.getComponentCount() );
+
+		// Off screen rows are added when asked for...
+
+		metawidget.setValue( "Baz", "ghi" );
+		assertEquals( "Baz", metawidget.getValue( "ghi" ) );
+		assertEquals( "ghi_label", ( (JLabel) metawidget.getComponent( "ghi_label" ) ).getName() );
+		assertEquals( 6, rows.getComponentCount() );
+
+		// ...but still only visible rows are positioned
+
+		rows.doLayout();
+		int positioned = 0;
+
+		for ( int loop = 0; loop < 6; loop++ ) {
+			if ( rows.getComponent( loop ).getWidth() > 0 ) {
+				positioned++;
+			}
+		}
+
+		assertEquals( 2, positioned );
+	}
+
+	//
+	// Inner class
+	//
+
+	public static class Foo {
+
+		public String getAbc() {
+
+			return null;
+		}
+
+		public void setAbc( @SuppressWarnings( "unused" ) String abc ) {
+
+			// Do nothing
+		}
+
+		public String getDef() {
+
+			return null;
+		}
+
+		public void setDef( @SuppressWarnings( "unused" ) String def ) {
+
+			// Do nothing
+		}
+
+		public String getGhi() {
+
+			return null;
+		}
+
+		public void setGhi( @SuppressWarnings( "unused" ) String ghi ) {
+
+			// Do nothing
+		}
+	}
+}
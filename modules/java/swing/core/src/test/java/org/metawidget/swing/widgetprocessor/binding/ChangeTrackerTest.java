@@ -0,0 +1,95 @@
+// Metawidget (licensed under LGPL)
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.swing.widgetprocessor.binding;
+
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.text.PlainDocument;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class ChangeTrackerTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testChangeTracker() {
+
+		// Text components
+
+		JTextField textField = new JTextField();
+		ChangeTracker changeTracker = new ChangeTracker( textField );
+		assertFalse( changeTracker.isChanged() );
+		textField.setText( "Foo" );
+		assertTrue( changeTracker.isChanged() );
+		changeTracker.reset();
+		assertFalse( changeTracker.isChanged() );
+
+		// Replaced Documents
+
+		PlainDocument document = new PlainDocument();
+		textField.setDocument( document );
+		assertTrue( changeTracker.isChanged() );
+		changeTracker.reset();
+		textField.setText( "Bar" );
+		assertTrue( changeTracker.isChanged() );
+
+		// Buttons
+
+		JCheckBox checkBox = new JCheckBox();
+		changeTracker = new ChangeTracker( checkBox );
+		assertFalse( changeTracker.isChanged() );
+		checkBox.setSelected( true );
+		assertTrue( changeTracker.isChanged() );
+
+		// Combo boxes
+
+		JComboBox comboBox = new JComboBox( new Object[] { "Foo", "Bar" } );
+		changeTracker = new ChangeTracker( comboBox );
+		assertFalse( changeTracker.isChanged() );
+		comboBox.setSelectedItem( "Bar" );
+		assertTrue( changeTracker.isChanged() );
+
+		// Spinners
+
+		JSpinner spinner = new JSpinner();
+		changeTracker = new ChangeTracker( spinner );
+		assertFalse( changeTracker.isChanged() );
+		spinner.setValue( 42 );
+		assertTrue( changeTracker.isChanged() );
+
+		// Untrackable
+
+		changeTracker = new ChangeTracker( new JLabel() );
+		assertTrue( changeTracker.isChanged() );
+		changeTracker.reset();
+		assertTrue( changeTracker.isChanged() );
+
+		comboBox.setEditable( true );
+		changeTracker = new ChangeTracker( comboBox );
+		assertTrue( changeTracker.isChanged() );
+	}
+}
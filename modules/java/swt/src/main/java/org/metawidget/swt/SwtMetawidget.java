@@ -43,6 +43,7 @@ import org.metawidget.swt.layout.SwtLayoutDecorator;
 import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.PropertyPath;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.util.simple.PathUtils.TypeAndNames;
 import org.metawidget.util.simple.StringUtils;
@@ -64,17 +65,17 @@ public class SwtMetawidget
 	// Private members
 	//
 
-	private Object					mToInspect;
+	private Object						mToInspect;
 
-	private String					mInspectionPath;
+	private String						mInspectionPath;
 
-	private ResourceBundle			mBundle;
+	private ResourceBundle				mBundle;
 
-	private boolean					mNeedToBuildWidgets;
+	private boolean						mNeedToBuildWidgets;
 
-	private Element					mLastInspectionResult;
+	private Element						mLastInspectionResult;
 
-	private Map<String, Facet>		mFacets					= CollectionUtils.newHashMap();
+	private Map<String, Facet>			mFacets					= CollectionUtils.newHashMap();
 
 	/**
 	 * List of existing, manually added, but unused by Metawidget controls.
@@ -82,13 +83,20 @@ public class SwtMetawidget
 	 * This is a List, not a Set, for consistency during endBuild.
 	 */
 
-	private List<Control>			mExistingUnusedControls	= CollectionUtils.newArrayList();
+	private List<Control>				mExistingUnusedControls	= CollectionUtils.newArrayList();
 
-	private Set<Control>			mControlsToDispose		= CollectionUtils.newHashSet();
+	private Set<Control>				mControlsToDispose		= CollectionUtils.newHashSet();
 
-	/* package private */Composite	mCurrentLayoutComposite;
+	/* package private */Composite		mCurrentLayoutComposite;
 
-	private Pipeline				mPipeline;
+	/**
+	 * PropertyPaths used by <code>getValue</code> and <code>setValue</code>, keyed by control class
+	 * and value property, so that each resolves its getter and setter only once.
+	 */
+
+	private Map<String, PropertyPath>	mValuePropertyPaths		= CollectionUtils.newHashMap();
+
+	private Pipeline					mPipeline;
 
 	//
 	// Constructor
@@ -430,7 +438,8 @@ public class SwtMetawidget
 	public <T> T getValue( String... names ) {
 
 		ControlAndValueProperty controlAndValueProperty = getControlAndValueProperty( names );
-		return (T) ClassUtils.getProperty( controlAndValueProperty.getControl(), controlAndValueProperty.getValueProperty() );
+		Control control = controlAndValueProperty.getControl();
+		return (T) getValuePropertyPath( control, controlAndValueProperty.getValueProperty() ).getValue( control );
 	}
 
 	/**
@@ -444,7 +453,8 @@ public class SwtMetawidget
 	public void setValue( Object value, String... names ) {
 
 		ControlAndValueProperty controlAndValueProperty = getControlAndValueProperty( names );
-		ClassUtils.setProperty( controlAndValueProperty.getControl(), controlAndValueProperty.getValueProperty(), value );
+		Control control = controlAndValueProperty.getControl();
+		getValuePropertyPath( control, controlAndValueProperty.getValueProperty() ).setValue( control, value );
 	}
 
 	/**
@@ -746,6 +756,19 @@ public class SwtMetawidget
 		return new ControlAndValueProperty( control, valueProperty );
 	}
 
+	private PropertyPath getValuePropertyPath( Control control, String valueProperty ) {
+
+		String key = control.getClass().getName() + StringUtils.SEPARATOR_DOT_CHAR + valueProperty;
+		PropertyPath valuePropertyPath = mValuePropertyPaths.get( key );
+
+		if ( valuePropertyPath == null ) {
+			valuePropertyPath = new PropertyPath( valueProperty );
+			mValuePropertyPaths.put( key, valuePropertyPath );
+		}
+
+		return valuePropertyPath;
+	}
+
 	private String getValueProperty( Control control, WidgetBuilder<Control, SwtMetawidget> widgetBuilder ) {
 
 		// Recurse into CompositeWidgetBuilders
@@ -35,6 +35,7 @@ import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
 import org.metawidget.swt.SwtMetawidget;
 import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.simple.ConverterRegistry;
 import org.metawidget.util.simple.ObjectUtils;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.util.simple.StringUtils;
@@ -48,6 +49,10 @@ import org.metawidget.widgetprocessor.iface.WidgetProcessorException;
  * <code>eclipse.core.databinding</code>, as discussed here
  * https://bugs.eclipse.org/bugs/show_bug.cgi?id=153630.
  * <p>
+ * Tracks which controls have changed, so that <code>save</code> only converts and writes
+ * back those properties, and <code>isDirty</code> can cheaply check whether there is anything to
+ * save.
+ * <p>
  * <p>
  * Note: <code>eclipse.core.databinding</code> does not bind <em>actions</em>, such as invoking a
  * method when a <code>Button</code> is pressed. For that, see
@@ -67,9 +72,9 @@ public class DataBindingProcessor
 	 * From org.eclipse.jface.databinding.swt.SWTObservables (EPLv1)
 	 */
 
-	private List<DisplayRealm>						mRealms		= CollectionUtils.newArrayList();
+	private List<DisplayRealm>					mRealms		= CollectionUtils.newArrayList();
 
-	private final Map<ConvertFromTo, IConverter>	mConverters	= CollectionUtils.newHashMap();
+	private final ConverterRegistry<IConverter>	mConverters	= new ConverterRegistry<IConverter>();
 
 	//
 	// Constructor
@@ -88,7 +93,7 @@ public class DataBindingProcessor
 
 		if ( converters != null ) {
 			for ( IConverter converter : converters ) {
-				mConverters.put( new ConvertFromTo( (Class<?>) converter.getFromType(), (Class<?>) converter.getToType() ), converter );
+				mConverters.register( (Class<?>) converter.getFromType(), (Class<?>) converter.getToType(), converter );
 			}
 		}
 	}
@@ -168,11 +173,54 @@ public class DataBindingProcessor
 
 		// Bind it
 
-		state.bindingContext.bindValue( observeTarget, observeModel, targetToModel, modelToTarget );
+		Binding binding = state.bindingContext.bindValue( observeTarget, observeModel, targetToModel, modelToTarget );
+
+		// Track changes (unless one-way only)
+
+		if ( !TRUE.equals( attributes.get( NO_SETTER ) ) ) {
+			if ( state.changeTrackers == null ) {
+				state.changeTrackers = CollectionUtils.newHashMap();
+			}
+
+			state.changeTrackers.put( binding, new ChangeTracker( observeTarget ) );
+		}
 
 		return control;
 	}
 
+	/**
+	 * Returns true if any bound control (of this Metawidget or its nested Metawidgets) has been
+	 * changed since it was last bound or saved. Cheap enough to be polled frequently, for example
+	 * to implement auto-save.
+	 */
+
+	public boolean isDirty( SwtMetawidget metawidget ) {
+
+		State state = getState( metawidget );
+
+		// Our bindings
+
+		if ( state.changeTrackers != null ) {
+			for ( ChangeTracker changeTracker : state.changeTrackers.values() ) {
+				if ( changeTracker.isChanged() ) {
+					return true;
+				}
+			}
+		}
+
+		// Nested Metawidgets
+
+		if ( state.nestedMetawidgets != null ) {
+			for ( SwtMetawidget nestedMetawidget : state.nestedMetawidgets ) {
+				if ( isDirty( nestedMetawidget ) ) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
 	public Object convertFromString( String value, Class<?> expectedType ) {
 
 		IConverter converterFromString = getConverter( String.class, expectedType );
@@ -188,24 +236,40 @@ public class DataBindingProcessor
 
 		State state = getState( metawidget );
 		state.bindingContext.updateTargets();
+
+		// (updating the targets is not a change)
+
+		if ( state.changeTrackers != null ) {
+			for ( ChangeTracker changeTracker : state.changeTrackers.values() ) {
+				changeTracker.reset();
+			}
+		}
 	}
 
 	public void save( final SwtMetawidget metawidget ) {
 
-		// Our bindings
+		// Our bindings (only those whose controls have changed)
 
 		State state = getState( metawidget );
-		state.bindingContext.updateModels();
 
-		for ( Object validationStatusProvider : state.bindingContext.getValidationStatusProviders() ) {
-			Binding binding = (Binding) validationStatusProvider;
-			BindingStatus bindingStatus = (BindingStatus) binding.getValidationStatus().getValue();
+		if ( state.changeTrackers != null ) {
+			for ( Map.Entry<Binding, ChangeTracker> entry : state.changeTrackers.entrySet() ) {
+				ChangeTracker changeTracker = entry.getValue();
 
-			if ( bindingStatus.isOK() ) {
-				continue;
-			}
+				if ( !changeTracker.isChanged() ) {
+					continue;
+				}
+
+				Binding binding = entry.getKey();
+				binding.updateTargetToModel();
+				BindingStatus bindingStatus = (BindingStatus) binding.getValidationStatus().getValue();
 
-			throw WidgetProcessorException.newException( bindingStatus.getException() );
+				if ( !bindingStatus.isOK() ) {
+					throw WidgetProcessorException.newException( bindingStatus.getException() );
+				}
+
+				changeTracker.reset();
+			}
 		}
 
 		// Nested Metawidgets
@@ -265,19 +329,7 @@ public class DataBindingProcessor
 
 	private IConverter getConverter( Class<?> sourceClass, Class<?> targetClass ) {
 
-		Class<?> sourceClassTraversal = sourceClass;
-
-		while ( sourceClassTraversal != null ) {
-			IConverter converter = mConverters.get( new ConvertFromTo( sourceClassTraversal, targetClass ) );
-
-			if ( converter != null ) {
-				return converter;
-			}
-
-			sourceClassTraversal = sourceClassTraversal.getSuperclass();
-		}
-
-		return null;
+		return mConverters.get( sourceClass, targetClass );
 	}
 
 	//
@@ -290,64 +342,77 @@ public class DataBindingProcessor
 
 	/* package private */static class State {
 
-		/* package private */DataBindingContext	bindingContext;
+		/* package private */DataBindingContext				bindingContext;
+
+		/* package private */Set<SwtMetawidget>				nestedMetawidgets;
 
-		/* package private */Set<SwtMetawidget>	nestedMetawidgets;
+		/* package private */Map<Binding, ChangeTracker>	changeTrackers;
 	}
 
 	/**
-	 * From org.eclipse.jface.databinding.swt.SWTObservables (EPLv1)
+	 * Tracks whether the value of a bound Control has changed, by comparing it against a snapshot
+	 * taken when it was bound or saved.
+	 * <p>
+	 * Compares values rather than listening for <code>SWT.Modify</code> or
+	 * <code>SWT.Selection</code>, because SWT does not fire those for programmatic changes (such as
+	 * <code>Scale.setSelection</code> or <code>SwtMetawidget.setValue</code>).
 	 */
 
-	static class DisplayRealm
-		extends Realm {
+	/* package private */static class ChangeTracker {
 
 		//
 		// Private members
 		//
 
-		Display	mDisplay;
+		private final IObservableValue	mTarget;
+
+		private Object					mSnapshot;
 
 		//
 		// Constructor
 		//
 
-		DisplayRealm( Display display ) {
+		public ChangeTracker( IObservableValue target ) {
 
-			mDisplay = display;
+			mTarget = target;
+			reset();
 		}
 
 		//
 		// Public methods
 		//
 
-		@Override
-		public boolean isCurrent() {
+		public boolean isChanged() {
 
-			return Display.getCurrent() == mDisplay;
+			return !ObjectUtils.nullSafeEquals( mTarget.getValue(), mSnapshot );
 		}
 
-		// Do not override equals/hashCode, we are not going to be comparing this or hashing it
+		public void reset() {
+
+			mSnapshot = mTarget.getValue();
+		}
 	}
 
-	/* package private */static final class ConvertFromTo {
+	/**
+	 * From org.eclipse.jface.databinding.swt.SWTObservables (EPLv1)
+	 */
+
+	static class DisplayRealm
+		extends Realm {
 
 		//
 		// Private members
 		//
 
-		private Class<?>	mSource;
-
-		private Class<?>	mTarget;
+		Display	mDisplay;
 
 		//
 		// Constructor
 		//
 
-		public ConvertFromTo( Class<?> source, Class<?> target ) {
+		DisplayRealm( Display display ) {
 
-			mSource = source;
-			mTarget = target;
+			mDisplay = display;
 		}
 
 		//
@@ -355,35 +420,11 @@ public class DataBindingProcessor
 		//
 
 		@Override
-		public boolean equals( Object that ) {
-
-			if ( this == that ) {
-				return true;
-			}
-
-			if ( !ObjectUtils.nullSafeClassEquals( this, that ) ) {
-				return false;
-			}
-
-			if ( !ObjectUtils.nullSafeEquals( mSource, ( (ConvertFromTo) that ).mSource ) ) {
-				return false;
-			}
-
-			if ( !ObjectUtils.nullSafeEquals( mTarget, ( (ConvertFromTo) that ).mTarget ) ) {
-				return false;
-			}
+		public boolean isCurrent() {
 
-			return true;
+			return Display.getCurrent() == mDisplay;
 		}
 
-		@Override
-		public int hashCode() {
-
-			int hashCode = 1;
-			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mSource.hashCode() );
-			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mTarget.hashCode() );
-
-			return hashCode;
-		}
+		// Do not override equals/hashCode, we are not going to be comparing this or hashing it
 	}
 }
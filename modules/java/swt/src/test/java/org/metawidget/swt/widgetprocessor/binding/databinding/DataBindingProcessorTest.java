@@ -34,7 +34,6 @@ import org.metawidget.swt.layout.GridLayout;
 import org.metawidget.swt.layout.TabFolderLayoutDecorator;
 import org.metawidget.swt.layout.TabFolderLayoutDecoratorConfig;
 import org.metawidget.swt.widgetbuilder.SwtWidgetBuilder;
-import org.metawidget.swt.widgetprocessor.binding.databinding.DataBindingProcessor.ConvertFromTo;
 import org.metawidget.util.MetawidgetTestUtils;
 
 /**
@@ -53,7 +52,6 @@ public class DataBindingProcessorTest
 		MetawidgetTestUtils.testEqualsAndHashcode( DataBindingProcessorConfig.class, new DataBindingProcessorConfig() {
 			// subclass
 		} );
-		MetawidgetTestUtils.testObjectEqualsAndHashcode( new ConvertFromTo( Integer.class, String.class ), new ConvertFromTo( Integer.class, String.class ), null );
 	}
 
 	public void testConvertFromString() {
@@ -22,7 +22,7 @@ import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.Map;
 
-import org.metawidget.util.ClassUtils;
+import org.metawidget.util.PropertyPath;
 import org.metawidget.util.WidgetBuilderUtils;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.vaadin.ui.Stub;
@@ -83,14 +83,10 @@ public class ReflectionBindingProcessor
 
 		// Traverse to the last Object...
 
-		String[] names = PathUtils.parsePath( metawidget.getPath() ).getNamesAsArray();
+		toInspect = new PropertyPath( PathUtils.parsePath( metawidget.getPath() ).getNamesAsArray() ).getValue( toInspect );
 
-		for ( String name : names ) {
-			toInspect = ClassUtils.getProperty( toInspect, name );
-
-			if ( toInspect == null ) {
-				return component;
-			}
+		if ( toInspect == null ) {
+			return component;
 		}
 
 		// ...and wire it up
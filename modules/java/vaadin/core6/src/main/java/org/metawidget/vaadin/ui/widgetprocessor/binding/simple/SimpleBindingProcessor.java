@@ -25,6 +25,7 @@ import java.util.Set;
 
 import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.PropertyPath;
 import org.metawidget.util.WidgetBuilderUtils;
 import org.metawidget.util.simple.PathUtils;
 import org.metawidget.util.simple.StringUtils;
@@ -137,11 +138,8 @@ public class SimpleBindingProcessor
 			path += StringUtils.SEPARATOR_FORWARD_SLASH_CHAR + attributes.get( NAME );
 		}
 
-		String[] names = PathUtils.parsePath( path ).getNamesAsArray();
-
-		for ( String name : names ) {
-			value = ClassUtils.getProperty( value, name );
-		}
+		PropertyPath propertyPath = new PropertyPath( PathUtils.parsePath( path ).getNamesAsArray() );
+		value = propertyPath.getValue( value );
 
 		// ...and set it
 
@@ -188,7 +186,7 @@ public class SimpleBindingProcessor
 				state.bindings = new HashSet<Object[]>();
 			}
 
-			state.bindings.add( new Object[] { property, names, toInspectPropertyType } );
+			state.bindings.add( new Object[] { property, propertyPath, toInspectPropertyType } );
 		} catch ( Exception e ) {
 			throw WidgetProcessorException.newException( e );
 		}
@@ -213,7 +211,7 @@ public class SimpleBindingProcessor
 
 			for ( Object[] binding : state.bindings ) {
 				Property property = (Property) binding[0];
-				String[] names = (String[]) binding[1];
+				PropertyPath propertyPath = (PropertyPath) binding[1];
 				Class<?> toInspectPropertyType = (Class<?>) binding[2];
 
 				// ...fetch the value...
@@ -231,18 +229,9 @@ public class SimpleBindingProcessor
 
 				// ...and set it
 
-				Object parent = toSave;
-				int length = names.length;
-
-				for ( int loop = 0; loop < length - 1; loop++ ) {
-					parent = ClassUtils.getProperty( parent, names[loop] );
-
-					if ( parent == null ) {
-						return;
-					}
+				if ( !propertyPath.setValue( toSave, value ) ) {
+					return;
 				}
-
-				ClassUtils.setProperty( parent, names[length - 1], value );
 			}
 		}
 
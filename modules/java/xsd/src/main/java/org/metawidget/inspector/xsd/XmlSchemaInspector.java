@@ -18,8 +18,10 @@ package org.metawidget.inspector.xsd;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.metawidget.inspector.iface.InspectorException;
 import org.metawidget.inspector.impl.BaseXmlInspector;
@@ -69,6 +71,26 @@ public class XmlSchemaInspector
 
 	private static final String	VALUE			= "value";
 
+	//
+	// Private members
+	//
+
+	/**
+	 * Top-level elements, by name. Built once by <code>indexDocumentElement</code>, so that
+	 * resolving a <code>type</code>, <code>ref</code> or <code>base</code> is a single lookup
+	 * rather than a search of the whole schema.
+	 */
+
+	private Map<String, Element>	mTopLevelElements;
+
+	/**
+	 * Element with named children for each top-level type, with its <code>element</code>/
+	 * <code>complexType</code>/<code>sequence</code> chain already resolved. Built once by
+	 * <code>indexDocumentElement</code>.
+	 */
+
+	private Map<Element, Element>	mNamedChildren;
+
 	//
 	// Constructor
 	//
@@ -111,87 +133,54 @@ public class XmlSchemaInspector
 	@Override
 	protected Element traverseFromTopLevelTypeToNamedChildren( Element topLevel ) {
 
-		// 'simpleType' is a top-level element
-
-		if ( SIMPLE_TYPE.equals( topLevel.getLocalName() ) ) {
-			return topLevel;
+		if ( mNamedChildren != null && mNamedChildren.containsKey( topLevel ) ) {
+			return mNamedChildren.get( topLevel );
 		}
 
-		// 'complexType' needs to be traversed into
-
-		Element complexType;
-
-		if ( COMPLEX_TYPE.equals( topLevel.getLocalName() ) ) {
-
-			complexType = topLevel;
-
-		} else {
-
-			// The most usual case is an 'element' containing a 'complexType' which needs to be
-			// traversed into
-
-			complexType = XmlUtils.getFirstChildElement( topLevel );
-
-			if ( complexType == null ) {
-
-				// If no 'complexType' child, perhaps top-level 'element' has a @type...
+		return resolveNamedChildren( topLevel );
+	}
 
-				if ( !topLevel.hasAttribute( TYPE ) ) {
-					return null;
-				}
+	/**
+	 * Overridden to precompute the top-level element for each name, and the element with named
+	 * children for each top-level type, so that inspections do not depend on the size or depth of
+	 * the schema.
+	 */
 
-				// ...if so, start over with this new type
+	@Override
+	protected void indexDocumentElement( Element root ) {
 
-				complexType = XmlUtils.getChildWithAttributeValue( topLevel.getOwnerDocument().getDocumentElement(), NAME, topLevel.getAttribute( TYPE ) );
+		// Lookups have always been against the document element (which, for WsdlInspector, is not
+		// the same as the root). The first match wins, same as XmlUtils.getChildWithAttributeValue
 
-				if ( complexType == null ) {
-					return null;
-				}
-			}
+		mTopLevelElements = CollectionUtils.newHashMap();
+		Element topLevel = XmlUtils.getFirstChildElement( root.getOwnerDocument().getDocumentElement() );
 
-			// 'simpleType' is a top-level element, so stop here
+		while ( topLevel != null ) {
 
-			if ( SIMPLE_TYPE.equals( complexType.getLocalName() ) ) {
-				return topLevel;
+			if ( topLevel.hasAttribute( NAME ) && !mTopLevelElements.containsKey( topLevel.getAttribute( NAME ) ) ) {
+				mTopLevelElements.put( topLevel.getAttribute( NAME ), topLevel );
 			}
 
-			// Should be at a 'complexType' by now
-
-			if ( !COMPLEX_TYPE.equals( complexType.getLocalName() ) ) {
-				throw InspectorException.newException( "Unexpected child node '" + complexType.getLocalName() + "'" );
-			}
+			topLevel = XmlUtils.getNextSiblingElement( topLevel );
 		}
 
-		// Within 'complexType', 'sequence' needs to be traversed into
+		// DOM Elements do not override equals/hashCode, so use an IdentityHashMap
 
-		Element sequence = XmlUtils.getFirstChildElement( complexType );
+		mNamedChildren = new IdentityHashMap<Element, Element>();
+		topLevel = XmlUtils.getFirstChildElement( root );
 
-		if ( sequence == null ) {
-			return null;
-		}
-
-		// Skip over 'annotation' (if any)
-
-		String sequenceLocalName = sequence.getLocalName();
-
-		if ( "annotation".equals( sequenceLocalName )) {
-			sequence = XmlUtils.getNextSiblingElement( sequence );
-			sequenceLocalName = sequence.getLocalName();
-		}
-
-		if ( !SEQUENCE.equals( sequenceLocalName ) && !ALL.equals( sequenceLocalName ) && !SIMPLE_CONTENT.equals( sequenceLocalName ) && !COMPLEX_CONTENT.equals( sequenceLocalName ) && !"attributeGroup".equals( sequenceLocalName ) ) {
-			throw InspectorException.newException( "Unexpected child node '" + sequenceLocalName + "'" );
-		}
+		while ( topLevel != null ) {
 
-		// Within 'sequence', 'choice' needs to be traversed into
+			try {
+				mNamedChildren.put( topLevel, resolveNamedChildren( topLevel ) );
+			} catch ( Exception e ) {
 
-		Element choice = XmlUtils.getChildNamed( sequence, "choice" );
+				// Leave unsupported types unindexed, so that they still fail only if (and when)
+				// they are actually inspected
+			}
 
-		if ( choice != null ) {
-			return choice;
+			topLevel = XmlUtils.getNextSiblingElement( topLevel );
 		}
-
-		return sequence;
 	}
 
 	@Override
@@ -224,36 +213,8 @@ public class XmlSchemaInspector
 
 		if ( COMPLEX_CONTENT.equals( toInspectToUse.getLocalName() ) ) {
 
-			toInspectToUse = XmlUtils.getChildNamed( toInspectToUse, EXTENSION );
-
-			if ( toInspectToUse == null ) {
-				throw InspectorException.newException( "Expected " + COMPLEX_CONTENT + " to have an " + EXTENSION );
-			}
-
-			String base = toInspectToUse.getAttribute( BASE );
-
-			if ( base == null ) {
-				throw InspectorException.newException( "Expected " + EXTENSION + " to have a " + BASE );
-			}
-
-			// Look up the base element...
-
-			Element baseElement = XmlUtils.getChildWithAttributeValue( toInspectToUse.getOwnerDocument().getDocumentElement(), getTopLevelTypeAttribute(), base );
-			Element baseSequence = XmlUtils.getFirstChildElement( baseElement );
-
-			if ( !SEQUENCE.equals( baseSequence.getLocalName() ) ) {
-				throw InspectorException.newException( "Unexpected child node '" + baseSequence.getLocalName() + "'" );
-			}
-
-			inspectTraits( baseSequence, toAddTo );
-
-			// ...then continue with our own sequence
-
-			toInspectToUse = XmlUtils.getFirstChildElement( toInspectToUse );
-
-			if ( !SEQUENCE.equals( toInspectToUse.getLocalName() ) ) {
-				throw InspectorException.newException( "Unexpected child node '" + toInspectToUse.getLocalName() + "'" );
-			}
+			inspectComplexContent( toInspectToUse, toAddTo, CollectionUtils.<String> newHashSet() );
+			return;
 		}
 
 		super.inspectTraits( toInspectToUse, toAddTo );
@@ -286,7 +247,7 @@ public class XmlSchemaInspector
 				if ( !attributes.containsKey( NAME ) ) {
 					attributes.put( NAME, name );
 				}
-				toInspectToUse = XmlUtils.getChildWithAttributeValue( toInspectToUse.getOwnerDocument().getDocumentElement(), getTopLevelTypeAttribute(), name );
+				toInspectToUse = getTopLevelElement( toInspectToUse, name );
 				continue;
 			}
 
@@ -301,7 +262,7 @@ public class XmlSchemaInspector
 				if ( !attributes.containsKey( NAME ) ) {
 					attributes.put( NAME, toInspectToUse.getAttribute( NAME ) );
 				}
-				Element typeToUse = XmlUtils.getChildWithAttributeValue( toInspectToUse.getOwnerDocument().getDocumentElement(), getTopLevelTypeAttribute(), toInspectToUse.getAttribute( TYPE ) );
+				Element typeToUse = getTopLevelElement( toInspectToUse, toInspectToUse.getAttribute( TYPE ) );
 
 				if ( typeToUse == null ) {
 					break;
@@ -341,6 +302,169 @@ public class XmlSchemaInspector
 	// Private methods
 	//
 
+	/**
+	 * Traverses from the given top-level type to the element containing its named children. See
+	 * <code>traverseFromTopLevelTypeToNamedChildren</code>.
+	 */
+
+	private Element resolveNamedChildren( Element topLevel ) {
+
+		// 'simpleType' is a top-level element
+
+		if ( SIMPLE_TYPE.equals( topLevel.getLocalName() ) ) {
+			return topLevel;
+		}
+
+		// 'complexType' needs to be traversed into
+
+		Element complexType;
+
+		if ( COMPLEX_TYPE.equals( topLevel.getLocalName() ) ) {
+
+			complexType = topLevel;
+
+		} else {
+
+			// The most usual case is an 'element' containing a 'complexType' which needs to be
+			// traversed into
+
+			complexType = XmlUtils.getFirstChildElement( topLevel );
+
+			if ( complexType == null ) {
+
+				// If no 'complexType' child, perhaps top-level 'element' has a @type...
+
+				if ( !topLevel.hasAttribute( TYPE ) ) {
+					return null;
+				}
+
+				// ...if so, start over with this new type
+
+				complexType = getTopLevelElement( topLevel, topLevel.getAttribute( TYPE ) );
+
+				if ( complexType == null ) {
+					return null;
+				}
+			}
+
+			// 'simpleType' is a top-level element, so stop here
+
+			if ( SIMPLE_TYPE.equals( complexType.getLocalName() ) ) {
+				return topLevel;
+			}
+
+			// Should be at a 'complexType' by now
+
+			if ( !COMPLEX_TYPE.equals( complexType.getLocalName() ) ) {
+				throw InspectorException.newException( "Unexpected child node '" + complexType.getLocalName() + "'" );
+			}
+		}
+
+		// Within 'complexType', 'sequence' needs to be traversed into
+
+		Element sequence = XmlUtils.getFirstChildElement( complexType );
+
+		if ( sequence == null ) {
+			return null;
+		}
+
+		// Skip over 'annotation' (if any)
+
+		String sequenceLocalName = sequence.getLocalName();
+
+		if ( "annotation".equals( sequenceLocalName )) {
+			sequence = XmlUtils.getNextSiblingElement( sequence );
+			sequenceLocalName = sequence.getLocalName();
+		}
+
+		if ( !SEQUENCE.equals( sequenceLocalName ) && !ALL.equals( sequenceLocalName ) && !SIMPLE_CONTENT.equals( sequenceLocalName ) && !COMPLEX_CONTENT.equals( sequenceLocalName ) && !"attributeGroup".equals( sequenceLocalName ) ) {
+			throw InspectorException.newException( "Unexpected child node '" + sequenceLocalName + "'" );
+		}
+
+		// Within 'sequence', 'choice' needs to be traversed into
+
+		Element choice = XmlUtils.getChildNamed( sequence, "choice" );
+
+		if ( choice != null ) {
+			return choice;
+		}
+
+		return sequence;
+	}
+
+	/**
+	 * Inspects the members of the given <code>complexContent</code>: first those of its
+	 * <code>extension base</code>, then its own.
+	 * <p>
+	 * The base is resolved through <code>traverseFromTopLevelTypeToNamedChildren</code>, the same
+	 * as any other top-level type (so it may be an <code>element</code> or a
+	 * <code>complexType</code>, indexed or not). If the base is itself a
+	 * <code>complexContent</code>, the chain is followed recursively.
+	 *
+	 * @param bases
+	 *            the bases already followed along this chain, to guard against circular extensions
+	 */
+
+	private void inspectComplexContent( Element complexContent, Element toAddTo, Set<String> bases ) {
+
+		Element extension = XmlUtils.getChildNamed( complexContent, EXTENSION );
+
+		if ( extension == null ) {
+			throw InspectorException.newException( "Expected " + COMPLEX_CONTENT + " to have an " + EXTENSION );
+		}
+
+		String base = extension.getAttribute( BASE );
+
+		if ( "".equals( base ) ) {
+			throw InspectorException.newException( "Expected " + EXTENSION + " to have a " + BASE );
+		}
+
+		if ( !bases.add( base ) ) {
+			throw InspectorException.newException( "Circular " + EXTENSION + " of " + BASE + " '" + base + "'" );
+		}
+
+		// Inspect the base's members first (bases not declared in this schema, such as
+		// xs:anyType, have none)...
+
+		Element baseElement = getTopLevelElement( extension, base );
+
+		if ( baseElement != null ) {
+
+			Element baseMembers = traverseFromTopLevelTypeToNamedChildren( baseElement );
+
+			if ( baseMembers != null ) {
+
+				String baseMembersLocalName = baseMembers.getLocalName();
+
+				if ( COMPLEX_CONTENT.equals( baseMembersLocalName ) ) {
+					inspectComplexContent( baseMembers, toAddTo, bases );
+				} else if ( SIMPLE_TYPE.equals( baseMembersLocalName ) || SIMPLE_CONTENT.equals( baseMembersLocalName ) ) {
+					throw InspectorException.newException( "Unexpected child node '" + baseMembersLocalName + "'" );
+				} else {
+					super.inspectTraits( baseMembers, toAddTo );
+				}
+			}
+		}
+
+		// ...then continue with our own (if any)
+
+		Element members = XmlUtils.getFirstChildElement( extension );
+
+		if ( members != null && "annotation".equals( members.getLocalName() ) ) {
+			members = XmlUtils.getNextSiblingElement( members );
+		}
+
+		if ( members == null ) {
+			return;
+		}
+
+		if ( !SEQUENCE.equals( members.getLocalName() ) && !ALL.equals( members.getLocalName() ) ) {
+			throw InspectorException.newException( "Unexpected child node '" + members.getLocalName() + "'" );
+		}
+
+		super.inspectTraits( members, toAddTo );
+	}
+
 	private void inspectElement( Element element, Map<String, String> attributes ) {
 
 		// Type
@@ -459,4 +583,18 @@ public class XmlSchemaInspector
 			attributes.put( LOOKUP, CollectionUtils.toString( lookup ) );
 		}
 	}
+
+	/**
+	 * Looks up the top-level element with the given name, using the index built by
+	 * <code>indexDocumentElement</code> if it is available.
+	 */
+
+	private Element getTopLevelElement( Element context, String name ) {
+
+		if ( mTopLevelElements != null ) {
+			return mTopLevelElements.get( name );
+		}
+
+		return XmlUtils.getChildWithAttributeValue( context.getOwnerDocument().getDocumentElement(), getTopLevelTypeAttribute(), name );
+	}
 }
@@ -18,6 +18,8 @@ package org.metawidget.inspector.xsd;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
+import java.io.ByteArrayInputStream;
+
 import javax.swing.BorderFactory;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
@@ -295,6 +297,38 @@ public class XmlSchemaInspectorTest
 		assertEquals( property.getNextSibling(), null );
 	}
 
+	public void testIndex() {
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">";
+		xml += "<xs:element name=\"good\" type=\"goodType\"/>";
+		xml += "<xs:complexType name=\"goodType\"><xs:sequence><xs:element ref=\"name\"/></xs:sequence></xs:complexType>";
+		xml += "<xs:element name=\"name\" type=\"xs:string\"/>";
+		xml += "<xs:element name=\"bad\"><xs:complexType><xs:choice/></xs:complexType></xs:element>";
+		xml += "</xs:schema>";
+
+		// Unsupported types do not prevent construction...
+
+		Inspector inspector = new XmlSchemaInspector( new XmlSchemaInspectorConfig().setInputStream( new ByteArrayInputStream( xml.getBytes() ) ) );
+
+		// ...and type and ref chains are resolved...
+
+		Element entity = XmlUtils.getFirstChildElement( XmlUtils.documentFromString( inspector.inspect( null, "good" ) ).getDocumentElement() );
+		Element property = XmlUtils.getFirstChildElement( entity );
+		assertEquals( "name", property.getAttribute( NAME ) );
+		assertEquals( "xs:string", property.getAttribute( TYPE ) );
+		assertEquals( null, XmlUtils.getNextSiblingElement( property ) );
+
+		// ...but unsupported types still fail when inspected
+
+		try {
+			inspector.inspect( null, "bad" );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "Unexpected child node 'choice'", e.getMessage() );
+		}
+	}
+
 	public void testInheritance() {
 
 		// Supertype
@@ -366,6 +400,49 @@ public class XmlSchemaInspectorTest
 		assertEquals( property.getNextSibling(), null );
 	}
 
+	public void testInheritanceChain() {
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">";
+		xml += "<xs:element name=\"person\"><xs:complexType><xs:annotation/><xs:sequence><xs:element name=\"name\" type=\"xs:string\"/></xs:sequence></xs:complexType></xs:element>";
+		xml += "<xs:complexType name=\"employee\"><xs:complexContent><xs:extension base=\"person\"><xs:sequence><xs:element name=\"salary\" type=\"xs:int\"/></xs:sequence></xs:extension></xs:complexContent></xs:complexType>";
+		xml += "<xs:complexType name=\"manager\"><xs:complexContent><xs:extension base=\"employee\"><xs:annotation/><xs:sequence><xs:element name=\"reports\" type=\"xs:int\"/></xs:sequence></xs:extension></xs:complexContent></xs:complexType>";
+		xml += "<xs:complexType name=\"director\"><xs:complexContent><xs:extension base=\"manager\"/></xs:complexContent></xs:complexType>";
+		xml += "<xs:complexType name=\"chicken\"><xs:complexContent><xs:extension base=\"egg\"><xs:sequence><xs:element name=\"wings\" type=\"xs:int\"/></xs:sequence></xs:extension></xs:complexContent></xs:complexType>";
+		xml += "<xs:complexType name=\"egg\"><xs:complexContent><xs:extension base=\"chicken\"><xs:sequence><xs:element name=\"shell\" type=\"xs:int\"/></xs:sequence></xs:extension></xs:complexContent></xs:complexType>";
+		xml += "</xs:schema>";
+
+		Inspector inspector = new XmlSchemaInspector( new XmlSchemaInspectorConfig().setInputStream( new ByteArrayInputStream( xml.getBytes() ) ) );
+
+		// Every level of the chain is flattened, base-most first
+
+		Element entity = XmlUtils.getFirstChildElement( XmlUtils.documentFromString( inspector.inspect( null, "director" ) ).getDocumentElement() );
+		assertEquals( "director", entity.getAttribute( TYPE ) );
+
+		Element property = XmlUtils.getFirstChildElement( entity );
+		assertEquals( "name", property.getAttribute( NAME ) );
+		assertEquals( "xs:string", property.getAttribute( TYPE ) );
+
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "salary", property.getAttribute( NAME ) );
+		assertEquals( "xs:int", property.getAttribute( TYPE ) );
+
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "reports", property.getAttribute( NAME ) );
+		assertEquals( "xs:int", property.getAttribute( TYPE ) );
+
+		assertEquals( null, XmlUtils.getNextSiblingElement( property ) );
+
+		// Circular chains fail, rather than recursing forever
+
+		try {
+			inspector.inspect( null, "chicken" );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "Circular extension of base 'egg'", e.getMessage() );
+		}
+	}
+
 	public void testRealWorld1() {
 
 		Inspector inspector = new XmlSchemaInspector( new XmlSchemaInspectorConfig().setInputStream( new SimpleResourceResolver().openResource( "org/metawidget/inspector/xsd/acmt-007.xsd" ) ) );